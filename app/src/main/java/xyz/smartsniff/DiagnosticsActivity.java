@@ -0,0 +1,201 @@
+package xyz.smartsniff;
+
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+import android.os.AsyncTask;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Handler;
+import android.support.v7.app.AppCompatActivity;
+import android.util.Log;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+import xyz.smartsniff.Utils.DatabaseHelper;
+import xyz.smartsniff.Utils.Metrics;
+import xyz.smartsniff.Utils.SecurityFlags;
+import xyz.smartsniff.Utils.Tracing;
+import xyz.smartsniff.Utils.Utils;
+
+/**
+ * Diagnostics activity. Shows the latency histograms and counters of the scan pipeline, refreshed every
+ * second, and dumps them to a JSON file which field testers can send to the developers. It also turns
+ * the trace mode on and off, and shows how many of the stored wifi networks are open or use WEP or WPS.
+ *
+ * Date: 18/10/2026
+ */
+public class DiagnosticsActivity extends AppCompatActivity {
+
+    private static final String TAG = "DiagnosticsActivity";
+    private static final long REFRESH_INTERVAL_MS = 1000;
+
+    private TextView metricsTextView, securityTextView;
+    private final Handler handler = new Handler();
+    private final Runnable refreshMetrics = new Runnable() {
+        @Override
+        public void run() {
+            metricsTextView.setText(Metrics.toText());
+            handler.postDelayed(this, REFRESH_INTERVAL_MS);
+        }
+    };
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_diagnostics);
+
+        metricsTextView = (TextView) findViewById(R.id.metricsTextView);
+        securityTextView = (TextView) findViewById(R.id.securityTextView);
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        handler.post(refreshMetrics);
+        new CountSecurityTask().execute();
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        handler.removeCallbacks(refreshMetrics);
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.menu_diagnostics, menu);
+        menu.findItem(R.id.action_tracing).setChecked(Tracing.isEnabled());
+        menu.findItem(R.id.action_record_scans).setChecked(getSharedPreferences(Utils.PREFS_NAME,
+                Context.MODE_PRIVATE).getBoolean(Utils.PREF_RECORD_SCANS, Utils.RECORD_SCANS_DEFAULT));
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        int id = item.getItemId();
+
+        if (id == R.id.action_dump_metrics)
+            new DumpMetricsTask().execute();
+
+        if (id == R.id.action_tracing) {
+            boolean tracing = !item.isChecked();
+            item.setChecked(tracing);
+            Tracing.setEnabled(tracing);
+            getSharedPreferences(Utils.PREFS_NAME, Context.MODE_PRIVATE).edit()
+                    .putBoolean(Utils.PREF_TRACING, tracing).apply();
+        }
+
+        if (id == R.id.action_record_scans) {
+            //Takes effect from the next session
+            boolean recordScans = !item.isChecked();
+            item.setChecked(recordScans);
+            getSharedPreferences(Utils.PREFS_NAME, Context.MODE_PRIVATE).edit()
+                    .putBoolean(Utils.PREF_RECORD_SCANS, recordScans).apply();
+        }
+
+        if (id == R.id.action_reset_metrics) {
+            Metrics.reset();
+            metricsTextView.setText(Metrics.toText());
+        }
+
+        return super.onOptionsItemSelected(item);
+    }
+
+    /**
+     * Writes the metrics, along with the device model and Android version, to a JSON file in the external
+     * files directory of the application, which doesn't require any permission.
+     *
+     * @return The file, or null if it could not be written.
+     */
+    private File dumpMetrics() {
+        File directory = getExternalFilesDir(null);
+        if (directory == null)
+            return null;
+
+        String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.US).format(new Date());
+        File file = new File(directory, "diagnostics_" + timestamp + ".json");
+
+        JsonWriter writer = null;
+        try {
+            writer = new JsonWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+            writer.setIndent("  ");
+            writer.beginObject();
+            writer.name("date").value(timestamp);
+            writer.name("model").value(Build.MANUFACTURER + " " + Build.MODEL);
+            writer.name("sdk").value(Build.VERSION.SDK_INT);
+            writer.name("metrics");
+            Metrics.writeJson(writer);
+            writer.endObject();
+            return file;
+        } catch (IOException e) {
+            Log.d(TAG, "ERROR WHILE DUMPING METRICS: " + e.getMessage());
+            return null;
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    //Ignore the error
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts the stored wifi networks which are open, use WEP or have WPS enabled.
+     */
+    private class CountSecurityTask extends AsyncTask<Void, Void, long[]> {
+
+        @Override
+        protected long[] doInBackground(Void... voids) {
+            DatabaseHelper databaseHelper = DatabaseHelper.getInstance(DiagnosticsActivity.this);
+            return new long[]{
+                    databaseHelper.countDevicesBySecurity(SecurityFlags.ENCRYPTED, 0),
+                    databaseHelper.countDevicesBySecurity(SecurityFlags.WEP, SecurityFlags.WEP),
+                    databaseHelper.countDevicesBySecurity(SecurityFlags.WPS, SecurityFlags.WPS)
+            };
+        }
+
+        @Override
+        protected void onPostExecute(long[] counts) {
+            securityTextView.setText(getString(R.string.diagnostics_security, counts[0], counts[1], counts[2]));
+        }
+    }
+
+    private class DumpMetricsTask extends AsyncTask<Void, Void, File> {
+
+        @Override
+        protected File doInBackground(Void... voids) {
+            return dumpMetrics();
+        }
+
+        @Override
+        protected void onPostExecute(File file) {
+            if (file == null) {
+                Toast.makeText(DiagnosticsActivity.this, R.string.diagnostics_dump_error, Toast.LENGTH_SHORT).show();
+                return;
+            }
+
+            Toast.makeText(DiagnosticsActivity.this, getString(R.string.diagnostics_dump_success, file.getPath()),
+                    Toast.LENGTH_LONG).show();
+
+            Intent shareIntent = new Intent(Intent.ACTION_SEND);
+            shareIntent.setType("application/json");
+            shareIntent.putExtra(Intent.EXTRA_STREAM, Uri.fromFile(file));
+            startActivity(Intent.createChooser(shareIntent, getString(R.string.diagnostics_share)));
+        }
+    }
+}
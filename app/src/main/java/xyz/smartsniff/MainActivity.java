@@ -1,17 +1,13 @@
 package xyz.smartsniff;
 
 import android.bluetooth.BluetoothAdapter;
-import android.bluetooth.BluetoothClass;
-import android.bluetooth.BluetoothDevice;
-import android.content.BroadcastReceiver;
+import android.content.ComponentName;
 import android.content.Context;
 import android.content.DialogInterface;
 import android.content.Intent;
-import android.content.IntentFilter;
-import android.content.SharedPreferences;
-import android.net.wifi.ScanResult;
-import android.net.wifi.WifiManager;
+import android.content.ServiceConnection;
 import android.os.Bundle;
+import android.os.IBinder;
 import android.support.v7.app.AlertDialog;
 import android.support.v7.app.AppCompatActivity;
 import android.support.v7.view.ContextThemeWrapper;
@@ -29,21 +25,17 @@ import android.widget.ToggleButton;
 import com.google.android.gms.maps.GoogleMap;
 import com.google.android.gms.maps.MapFragment;
 import com.google.android.gms.maps.OnMapReadyCallback;
-import com.google.android.gms.maps.model.LatLng;
 
-import java.util.Collections;
-import java.util.Date;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
 import xyz.smartsniff.Model.Device;
-import xyz.smartsniff.Model.DeviceType;
 import xyz.smartsniff.Model.Location;
 import xyz.smartsniff.Model.Session;
+import xyz.smartsniff.Utils.Codecs;
 import xyz.smartsniff.Utils.DatabaseHelper;
-import xyz.smartsniff.Utils.GeolocationGPS;
+import xyz.smartsniff.Utils.DatabaseWriter;
 import xyz.smartsniff.Utils.JSONGenerator;
+import xyz.smartsniff.Utils.ScanProcessor;
 import xyz.smartsniff.Utils.Utils;
 
 /**
@@ -64,20 +56,68 @@ public class MainActivity extends AppCompatActivity implements OnMapReadyCallbac
     private TextView discoveriesTextView, initDateTextView;
 
     private DatabaseHelper databaseHelper;
-    private WifiManager wifiManager;
-    private CustomReceiver receiver;
-    private GeolocationGPS geoGPS;
-    private SharedPreferences preferences;
 
     private BluetoothAdapter bluetoothAdapter;
 
-    private Date startDate, endDate;
-    private int sessionResults;
     private boolean disableAppBarFlag = false;
     private boolean isBluetoothSupported = true;
 
-    private Set<Device> lastSessionDevices;
-    private Session lastSession;
+    //The scanning sessions are owned by the ScanService, which outlives this activity
+    private ScanService scanService;
+    //Set while the scan button is updated to reflect the state of the service
+    private boolean syncingScanButton;
+
+    private final ServiceConnection serviceConnection = new ServiceConnection() {
+        @Override
+        public void onServiceConnected(ComponentName componentName, IBinder binder) {
+            scanService = ((ScanService.ScanBinder) binder).getService();
+            scanService.setListener(sessionListener);
+            scanService.setActivity(MainActivity.this);
+
+            syncScanState();
+            scanButton.setEnabled(true);
+        }
+
+        @Override
+        public void onServiceDisconnected(ComponentName componentName) {
+            scanService = null;
+            scanButton.setEnabled(false);
+        }
+    };
+
+    private final ScanService.SessionListener sessionListener = new ScanService.SessionListener() {
+        @Override
+        public void onScanSummary(ScanProcessor.ScanSummary summary) {
+            discoveriesTextView.setText(String.valueOf(scanService.getSessionResults()));
+
+            List<Location> newSpots = summary.getNewSpots();
+            if (mapManager != null && !newSpots.isEmpty()) {
+                for (Location spot : newSpots)
+                    mapManager.addSinglePointToHeatMap(spot);
+
+                //Map camera update
+                mapManager.animateCamera(newSpots.get(newSpots.size() - 1));
+            }
+        }
+
+        @Override
+        public void onSessionEnded(Session session, List<Device> sessionDevices) {
+            //Launch the results activity
+            ResultsActivity.showResults(MainActivity.this, session, sessionDevices);
+        }
+
+        @Override
+        public void onSessionStored() {
+            //Reload the heatmap once every pending scan of the session has been stored
+            runOnUiThread(new Runnable() {
+                @Override
+                public void run() {
+                    if (mapManager != null)
+                        mapManager.reloadHeatMapPoints(false);
+                }
+            });
+        }
+    };
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -85,8 +125,6 @@ public class MainActivity extends AppCompatActivity implements OnMapReadyCallbac
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
 
-        preferences = getSharedPreferences(Utils.PREFS_NAME, Context.MODE_PRIVATE);
-
         Toolbar appBar = (Toolbar) findViewById(R.id.app_toolbar);
         setSupportActionBar(appBar);
 
@@ -100,143 +138,76 @@ public class MainActivity extends AppCompatActivity implements OnMapReadyCallbac
 
         databaseHelper = DatabaseHelper.getInstance(MainActivity.this);
 
-        wifiManager = (WifiManager) getSystemService(Context.WIFI_SERVICE);
         bluetoothAdapter = BluetoothAdapter.getDefaultAdapter();
         if (bluetoothAdapter == null) {
             //Device doesn't support Bluetooth functionality
             isBluetoothSupported = false;
         }
 
-        geoGPS = new GeolocationGPS(MainActivity.this, this);
-
-        sessionResults = 0;
-
-        receiver = new CustomReceiver();
-
         scanButton = (ToggleButton) findViewById(R.id.scanToggleButton);
+        //The state of the button comes from the service, not from the saved instance state
+        scanButton.setSaveEnabled(false);
+        scanButton.setEnabled(false);
         scanButton.setOnCheckedChangeListener(new CompoundButton.OnCheckedChangeListener() {
             @Override
             public void onCheckedChanged(CompoundButton compoundButton, boolean isChecked) {
-                if (isChecked) {
-                    disableAppBarFlag = true;
-
-                    scanLayout.setVisibility(View.VISIBLE);
-                    discoveriesTextView.setText(String.valueOf(sessionResults));
+                if (syncingScanButton || scanService == null)
+                    return;
 
+                if (isChecked) {
                     if (isBluetoothSupported && !bluetoothAdapter.isEnabled()) {
                         Intent enableBluetoothIntent = new Intent(BluetoothAdapter.ACTION_REQUEST_ENABLE);
                         startActivityForResult(enableBluetoothIntent, Utils.REQUEST_ENABLE_INTENT);
                     }
 
-                    geoGPS.connect();
-                    startDate = new Date();
-                    initDateTextView.setText(Utils.formatDate(startDate));
-
-                    Session session = new Session(startDate);
-                    databaseHelper.addSession(session);
-
-                    lastSession = session;
-                    lastSessionDevices = Collections.synchronizedSet(new HashSet<Device>());
-
-                    beginScanningProcedure();
+                    scanService.startSession();
+                    showScanLayout(true);
                 } else {
-                    scanLayout.setVisibility(View.INVISIBLE);
-
-                    unregisterReceiver(receiver);
-                    if (isBluetoothSupported)
-                        bluetoothAdapter.cancelDiscovery();
-
-                    geoGPS.disconnect();
-
-                    endDate = new Date();
-
-                    databaseHelper.updateSession(Utils.formatDate(endDate));
-                    mapManager.reloadHeatMapPoints(false);
-
-                    lastSession.setEndDate(endDate);
-
-                    sessionResults = 0;
-
-                    disableAppBarFlag = false;
-
-                    //Build the results activity intent and launch the results activity
-                    Intent resultsIntent = new Intent(MainActivity.this, ResultsActivity.class);
-                    resultsIntent.putExtra("lastSessionInitDate", lastSession.getStartDateString());
-                    resultsIntent.putExtra("lastSessionEndDate", lastSession.getEndDateString());
-                    resultsIntent.putExtra("lastSessionDevices", Utils.gson.toJson(lastSessionDevices));
-                    startActivity(resultsIntent);
+                    //The results are shown once the pending scans of the session have been processed
+                    scanService.stopSession();
+                    showScanLayout(false);
                 }
             }
         });
 
-
+        bindService(new Intent(this, ScanService.class), serviceConnection, Context.BIND_AUTO_CREATE);
     }
 
     @Override
     protected void onDestroy() {
         super.onDestroy();
 
-        //To be sure we are not scanning
-        if (bluetoothAdapter != null) {
-            bluetoothAdapter.cancelDiscovery();
+        //The session, if any, keeps running in the service
+        if (scanService != null) {
+            scanService.setListener(null);
+            scanService.setActivity(null);
         }
+        unbindService(serviceConnection);
     }
 
-    private void beginScanningProcedure() {
-        Thread wifiScanningThread = new Thread() {
-            long lastScanTime = 0;
-            int interval = preferences.getInt(Utils.PREF_SCAN_INTERVAL, Utils.SCAN_INTERVAL_DEFAULT);
-
-            public void run() {
-                try {
-                    //The scan will begin after an interval of time
-                    Thread.sleep(interval);
-                } catch (InterruptedException e) {
-                    Log.d("SCANNING THREAD", "SCAN HAS BEEN INTERRUPTED");
-                }
-                registerReceiver(receiver, new IntentFilter(WifiManager.SCAN_RESULTS_AVAILABLE_ACTION));
-
-                while (scanButton.isChecked()) {
-                    long scanTime = System.currentTimeMillis();
-                    long delay = scanTime - lastScanTime;
-
-                    if (delay >= interval) {
-                        wifiManager.startScan();
-                        lastScanTime = scanTime;
-                    }
-                }
-            }
-        };
-
-        //Register receiver and request first bluetooth discovery scan
-        if (isBluetoothSupported && bluetoothAdapter.isEnabled()) {
-            registerReceiver(receiver, new IntentFilter(BluetoothDevice.ACTION_FOUND));
-            registerReceiver(receiver, new IntentFilter(BluetoothAdapter.ACTION_DISCOVERY_FINISHED));
-            bluetoothAdapter.startDiscovery();
-        }
-
-        wifiScanningThread.start();
-    }
+    /**
+     * Updates the interface to reflect the state of the service, e.g. after the activity is recreated.
+     */
+    private void syncScanState() {
+        boolean isScanning = scanService.isScanning();
 
-    private void storeLocationInDb(final Location location) {
-        Thread storeLocationThread = new Thread() {
-            public void run() {
-                databaseHelper.addLocation(location);
-            }
-        };
+        syncingScanButton = true;
+        scanButton.setChecked(isScanning);
+        syncingScanButton = false;
 
-        storeLocationThread.start();
+        showScanLayout(isScanning);
     }
 
-    private void createAssociation(final Device device) {
-        Thread storeAssociationThread = new Thread() {
-            public void run() {
-                databaseHelper.addDevice(device);
-                databaseHelper.addAssociation();
-            }
-        };
+    private void showScanLayout(boolean isScanning) {
+        disableAppBarFlag = isScanning;
 
-        storeAssociationThread.start();
+        if (isScanning) {
+            scanLayout.setVisibility(View.VISIBLE);
+            discoveriesTextView.setText(String.valueOf(scanService.getSessionResults()));
+            initDateTextView.setText(Codecs.formatDate(scanService.getSession().getStartDate()));
+        } else {
+            scanLayout.setVisibility(View.INVISIBLE);
+        }
     }
 
 
@@ -280,6 +251,11 @@ public class MainActivity extends AppCompatActivity implements OnMapReadyCallbac
             sendDataToServer();
         }
 
+        if (id == R.id.action_diagnostics) {
+            Log.d("AppBar Diagnostics", "APPBAR: DIAGNOSTICS BUTTON PRESSED");
+            startActivity(new Intent(this, DiagnosticsActivity.class));
+        }
+
         if (id == R.id.action_settings) {
             Log.d("AppBar Configuration", "APPBAR: CONFIGURATION BUTTON PRESSED");
             Intent settingsIntent = new Intent(this, SettingsActivity.class);
@@ -297,9 +273,24 @@ public class MainActivity extends AppCompatActivity implements OnMapReadyCallbac
                 .setPositiveButton(R.string.delete_alert_dialog_possitive_button, new DialogInterface.OnClickListener() {
                     @Override
                     public void onClick(DialogInterface dialogInterface, int i) {
-                        //Delete all database records
-                        databaseHelper.deleteDatabase(MainActivity.this);
-                        mapManager.clearMap();
+                        //Delete all database records. The map is cleared once they are gone
+                        DatabaseWriter.getInstance(MainActivity.this).deleteDatabase(
+                                new DatabaseWriter.DatabaseDeletedCallback() {
+                                    @Override
+                                    public void onDatabaseDeleted(final boolean deleted) {
+                                        runOnUiThread(new Runnable() {
+                                            @Override
+                                            public void run() {
+                                                if (!deleted)
+                                                    return;
+                                                Toast.makeText(MainActivity.this, "Datos borrados satisfactoriamente",
+                                                        Toast.LENGTH_SHORT).show();
+                                                if (mapManager != null)
+                                                    mapManager.clearMap();
+                                            }
+                                        });
+                                    }
+                                });
                     }
                 })
                 .setNegativeButton(R.string.delete_alert_dialog_negative_button, new DialogInterface.OnClickListener() {
@@ -314,7 +305,8 @@ public class MainActivity extends AppCompatActivity implements OnMapReadyCallbac
     }
 
     private void sendDataToServer() {
-        if (databaseHelper.getNumberOfSessions() > 0) {
+        //Only the data stored since the last successful upload is sent
+        if (databaseHelper.hasPendingExport()) {
             JSONGenerator jsonGenerator = new JSONGenerator(MainActivity.this);
             jsonGenerator.sendJSONToServer();
         } else {
@@ -331,156 +323,4 @@ public class MainActivity extends AppCompatActivity implements OnMapReadyCallbac
         mapManager = new MapManager(googleMap, MainActivity.this);
     }
     //----------------------------------------------------------------------------------------------------------------------
-
-    /**
-     * Custom BroadcastReceiver to handle the detected networks/devices
-     */
-    private class CustomReceiver extends BroadcastReceiver {
-        private Location lastKnownLocation;
-
-        @Override
-        public void onReceive(Context context, Intent intent) {
-            String action = intent.getAction();
-
-            //Check intent action
-            if (action.equals(BluetoothAdapter.ACTION_DISCOVERY_FINISHED)) {
-                //The Receiver is responsible for requesting another discovery scan
-                if (bluetoothAdapter.isDiscovering())
-                    bluetoothAdapter.startDiscovery();
-            } else {
-                //Time to check those results
-                if (action.equals(BluetoothDevice.ACTION_FOUND)) {
-                    //Bluetooth device
-                    BluetoothDevice device = intent.getParcelableExtra(BluetoothDevice.EXTRA_DEVICE);
-
-                    String btName = device.getName();
-                    String macAddress = device.getAddress();
-                    BluetoothClass btClass = device.getBluetoothClass();
-                    String deviceClass = determineBtMajorDevice(btClass);
-
-                    //First constructor for bluetooth device
-                    //String ssid, String bssid, String characteristics, int channelWidthConstant, int frequency, int
-                    //signalIntensity, DeviceType type
-                    Device btDevice = new Device(btName, macAddress, deviceClass, 9999, 0, 9999, DeviceType.BLUETOOTH);
-
-                    lastSessionDevices.add(btDevice);
-
-                    if (!databaseHelper.deviceExistsInDb(btDevice)) {
-                        //storeDeviceInDb(btDevice);
-                        createAssociation(btDevice);
-                        btDevice.getManufacturerFromBssid(MainActivity.this);
-                        sessionResults++;
-                    }
-
-                    discoveriesTextView.setText(String.valueOf(sessionResults));
-                } else {
-                    //Wifi device
-                    //Get a location
-                    LatLng locationCoordinates = new LatLng(geoGPS.getLatitude(), geoGPS.getLongitude());
-
-                    //Get a date
-                    Date locationDate = new Date();
-
-                    //Create a Location object
-                    Location location;
-                    if (isSameLocation(locationCoordinates))
-                        //I'm in the same place, use the Location object contained in lastKnownLocation
-                        location = lastKnownLocation;
-                    else {
-                        //I'm in a new spot, create a new Location object
-                        location = new Location(locationDate, locationCoordinates);
-                        if (location.isValidLocation())
-                            storeLocationInDb(location);
-                    }
-
-                    //Get the scan results
-                    List<ScanResult> scanResultList = wifiManager.getScanResults();
-
-                    //For each scan result, create a Device and add it to the Location devices list
-                    //If the user hasn't moved, any devices already discovered on that location won't be registered again
-                    for (ScanResult s : scanResultList) {
-                        //First constructor for WiFi AP
-                        //String ssid, String bssid, String characteristics, int channelWidthConstant, int frequency, int
-                        //signalIntensity, DeviceType type
-                        Device wifiDevice = new Device(s.SSID, s.BSSID, s.capabilities, s.channelWidth, s.frequency,
-                                s.level, DeviceType.WIFI);
-
-                        lastSessionDevices.add(wifiDevice);
-
-                        location.addFoundDevice(wifiDevice);
-
-                        //Add the device to the database if and only if it doesn't exist in it
-                        //and the location is valid (i.e not (0.0, 0.0))
-                        if (location.isValidLocation() && !databaseHelper.deviceExistsInDb(wifiDevice)) {
-                            createAssociation(wifiDevice);
-                            wifiDevice.getManufacturerFromBssid(MainActivity.this);
-                            sessionResults++;
-                        }
-
-                        discoveriesTextView.setText(String.valueOf(sessionResults));
-
-                        if (location.isValidLocation() && !isSameLocation(locationCoordinates)) {
-                            mapManager.addSinglePointToHeatMap(location);
-
-                            //Map camera update
-                            mapManager.animateCamera(location.getCoordinates());
-                        }
-
-                        //The list of found devices must not transfer from one location to another
-                        location.getLocatedDevices().clear();
-
-                        lastKnownLocation = location;
-                    }
-                }
-            }
-        }
-
-        private String determineBtMajorDevice(BluetoothClass btClass) {
-            String result = "";
-
-            switch (btClass.getMajorDeviceClass()) {
-                case BluetoothClass.Device.Major.AUDIO_VIDEO:
-                    result = "AUDIO-VIDEO";
-                    break;
-                case BluetoothClass.Device.Major.COMPUTER:
-                    result = "COMPUTER";
-                    break;
-                case BluetoothClass.Device.Major.HEALTH:
-                    result = "HEALTH";
-                    break;
-                case BluetoothClass.Device.Major.IMAGING:
-                    result = "IMAGING";
-                    break;
-                case BluetoothClass.Device.Major.MISC:
-                    result = "MISC";
-                    break;
-                case BluetoothClass.Device.Major.NETWORKING:
-                    result = "NETWORKING";
-                    break;
-                case BluetoothClass.Device.Major.PERIPHERAL:
-                    result = "PERIPHERAL";
-                    break;
-                case BluetoothClass.Device.Major.PHONE:
-                    result = "PHONE";
-                    break;
-                case BluetoothClass.Device.Major.TOY:
-                    result = "TOY";
-                    break;
-                case BluetoothClass.Device.Major.UNCATEGORIZED:
-                    result = "UNCATEGORIZED";
-                    break;
-                case BluetoothClass.Device.Major.WEARABLE:
-                    result = "WEARABLE";
-                    break;
-                default:
-                    break;
-            }
-
-            return result;
-        }
-
-        private boolean isSameLocation(LatLng locationCoordinates) {
-            return lastKnownLocation != null && lastKnownLocation.getCoordinates().equals(locationCoordinates);
-        }
-    }
 }
@@ -3,6 +3,7 @@ package xyz.smartsniff;
 import android.app.Activity;
 import android.app.ProgressDialog;
 import android.os.AsyncTask;
+import android.os.SystemClock;
 
 import com.google.android.gms.maps.CameraUpdateFactory;
 import com.google.android.gms.maps.GoogleMap;
@@ -14,10 +15,11 @@ import com.google.maps.android.heatmaps.HeatmapTileProvider;
 import com.google.maps.android.heatmaps.WeightedLatLng;
 
 import java.util.ArrayList;
-import java.util.Map;
 
 import xyz.smartsniff.Model.Location;
 import xyz.smartsniff.Utils.DatabaseHelper;
+import xyz.smartsniff.Utils.Metrics;
+import xyz.smartsniff.Utils.Tracing;
 import xyz.smartsniff.Utils.Utils;
 
 /**
@@ -44,22 +46,26 @@ public class MapManager {
         reloadHeatMapPoints(true);
     }
 
-    public void animateCamera(LatLng coordinates) {
+    public void animateCamera(Location location) {
+        LatLng coordinates = new LatLng(location.getLatitude(), location.getLongitude());
         googleMap.animateCamera(CameraUpdateFactory.newLatLngZoom(coordinates, Utils.ZOOM_LEVEL));
     }
 
     public void addSinglePointToHeatMap(final Location locationToAdd) {
         Thread addPointThread = new Thread() {
             public void run() {
+                Tracing.begin(Tracing.MAP_ADD_POINT);
                 ArrayList<WeightedLatLng> data = new ArrayList<>();
 
-                WeightedLatLng locationLatLng = new WeightedLatLng(locationToAdd.getCoordinates(), locationToAdd.getNumOfLocatedDevices() * 1.0);
+                LatLng coordinates = new LatLng(locationToAdd.getLatitude(), locationToAdd.getLongitude());
+                WeightedLatLng locationLatLng = new WeightedLatLng(coordinates, locationToAdd.getNumOfLocatedDevices() * 1.0);
                 data.add(locationLatLng);
 
                 provider = new HeatmapTileProvider.Builder().weightedData(data)
                         .radius(Utils.HEATMAP_RADIUS).opacity(Utils.HEATMAP_OPACITY).build();
 
                 overlay = googleMap.addTileOverlay(new TileOverlayOptions().tileProvider(provider));
+                Tracing.end();
             }
         };
 
@@ -100,10 +106,12 @@ public class MapManager {
 
     private void paintPointsOnMap(ArrayList<WeightedLatLng> points) {
         if (points.size() > 0) {
+            Tracing.begin(Tracing.MAP_PAINT);
             provider = new HeatmapTileProvider.Builder().weightedData(points)
                     .radius(Utils.HEATMAP_RADIUS).opacity(Utils.HEATMAP_OPACITY).build();
 
             overlay = googleMap.addTileOverlay(new TileOverlayOptions().tileProvider(provider));
+            Tracing.end();
         }
     }
 
@@ -123,18 +131,8 @@ public class MapManager {
                 } catch (InterruptedException e) {
                     e.printStackTrace();
                 }
-                Map<Location, Integer> locationData;
                 databaseHelper = DatabaseHelper.getInstance(mainActivity);
-                locationData = databaseHelper.selectLocationsForHeatmap();
-
-                data = new ArrayList<>();
-                for (Location loc : locationData.keySet()) {
-                    WeightedLatLng locationToInsert = new WeightedLatLng(loc.getCoordinates(),
-                            locationData.get(loc));
-
-                    data.add(locationToInsert);
-                }
-
+                data = databaseHelper.selectLocationsForHeatmap();
             }
             return data;
         }
@@ -142,7 +140,9 @@ public class MapManager {
         @Override
         protected void onPostExecute(ArrayList<WeightedLatLng> result) {
             //onPostExecute runs on the UI thread, so we can paint the points on the map
+            long start = SystemClock.elapsedRealtimeNanos();
             paintPointsOnMap(result);
+            Metrics.histogram(Metrics.MAP_PAINT).recordNanos(SystemClock.elapsedRealtimeNanos() - start);
 
             //Dismiss the loading screen
             progressDialog.dismiss();
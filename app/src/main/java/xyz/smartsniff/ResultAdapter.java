@@ -57,8 +57,8 @@ public class ResultAdapter extends ArrayAdapter<Device> {
 
         Device device = deviceList.get(position);
 
-        //If it is a bluetooth device, change the image resource
-        if (device.getType().equals(DeviceType.BLUETOOTH))
+        //If it is a bluetooth device, classic or LE, change the image resource
+        if (!device.getType().equals(DeviceType.WIFI))
             holder.typeImageView.setImageResource(R.drawable.ic_result_bluetooth);
         else
             holder.typeImageView.setImageResource(R.drawable.ic_result_wifi);
@@ -1,6 +1,7 @@
 package xyz.smartsniff;
 
 import android.app.Dialog;
+import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
 import android.support.v7.app.AppCompatActivity;
@@ -10,15 +11,12 @@ import android.widget.ListView;
 import android.widget.TableLayout;
 import android.widget.TextView;
 
-import com.google.gson.reflect.TypeToken;
-
-import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 
 import xyz.smartsniff.Model.Device;
 import xyz.smartsniff.Model.DeviceType;
-import xyz.smartsniff.Utils.DatabaseHelper;
+import xyz.smartsniff.Model.Session;
+import xyz.smartsniff.Utils.ManufacturerResolver;
 import xyz.smartsniff.Utils.Utils;
 
 /**
@@ -30,10 +28,14 @@ import xyz.smartsniff.Utils.Utils;
  */
 public class ResultsActivity extends AppCompatActivity {
 
+    //Devices of the last session. A session may hold thousands of devices, more than fit in the extras of an
+    //Intent, so they are handed over in memory
+    private static List<Device> lastSessionDevices;
+
     private TextView initDateTextView, endDateTextView, discoveriesTextView;
     private ListView resultsListView;
 
-    private DatabaseHelper dbHelper;
+    private ManufacturerResolver manufacturerResolver;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -44,14 +46,15 @@ public class ResultsActivity extends AppCompatActivity {
         endDateTextView = (TextView) findViewById(R.id.resultEndDateTextView);
         discoveriesTextView = (TextView) findViewById(R.id.resultDiscoveriesTextView);
 
+        //The devices don't survive the process, there is nothing to show if it was restarted
+        if (lastSessionDevices == null) {
+            finish();
+            return;
+        }
+
         Intent resultsIntent = getIntent();
         String initDate = resultsIntent.getStringExtra("lastSessionInitDate");
         String endDate = resultsIntent.getStringExtra("lastSessionEndDate");
-        HashSet<Device> lastSessionDevices = Utils.gson.fromJson(
-                resultsIntent.getStringExtra("lastSessionDevices"),
-                new TypeToken<HashSet<Device>>() {
-                }.getType()
-        );
 
         initDateTextView.setText(initDate);
         endDateTextView.setText(endDate);
@@ -59,8 +62,7 @@ public class ResultsActivity extends AppCompatActivity {
 
         resultsListView = (ListView) findViewById(R.id.resultListView);
 
-        final List<Device> devices = new ArrayList<>(lastSessionDevices);
-        ResultAdapter adapter = new ResultAdapter(devices, this);
+        ResultAdapter adapter = new ResultAdapter(lastSessionDevices, this);
 
         resultsListView.setAdapter(adapter);
 
@@ -71,7 +73,21 @@ public class ResultsActivity extends AppCompatActivity {
             }
         });
 
-        dbHelper = DatabaseHelper.getInstance(this);
+        manufacturerResolver = ManufacturerResolver.getInstance(this);
+    }
+
+    /**
+     * Launches the results activity for a finished session.
+     *
+     * @param sessionDevices Devices found during the session
+     */
+    public static void showResults(Context context, Session session, List<Device> sessionDevices) {
+        lastSessionDevices = sessionDevices;
+
+        Intent resultsIntent = new Intent(context, ResultsActivity.class);
+        resultsIntent.putExtra("lastSessionInitDate", session.getStartDateString());
+        resultsIntent.putExtra("lastSessionEndDate", session.getEndDateString());
+        context.startActivity(resultsIntent);
     }
 
     private void displayDetailsDialog(Device device) {
@@ -90,9 +106,17 @@ public class ResultsActivity extends AppCompatActivity {
 
         manufacturerTextView = (TextView) dialog.findViewById(R.id.manufacturerTextView);
         if (device.getManufacturer() == null) {
-            device.setManufacturer(dbHelper.getManufacturerOfDevice(device.getBssid()));
+            //The manufacturer is resolved in the background and shown once it is known
+            final TextView resolvedTextView = manufacturerTextView;
+            manufacturerResolver.resolve(device, new ManufacturerResolver.ManufacturerCallback() {
+                @Override
+                public void onManufacturerResolved(Device resolvedDevice, String manufacturer) {
+                    resolvedTextView.setText(manufacturer != null ? manufacturer : Utils.MANUFACTURER_NOT_FOUND);
+                }
+            });
+        } else {
+            manufacturerTextView.setText(device.getManufacturer());
         }
-        manufacturerTextView.setText(device.getManufacturer());
 
         capabilitiesTextView = (TextView) dialog.findViewById(R.id.capabilitiesTextView);
         capabilitiesTextView.setText(device.getCharacteristics());
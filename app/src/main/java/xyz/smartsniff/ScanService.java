@@ -0,0 +1,509 @@
+package xyz.smartsniff;
+
+import android.app.Activity;
+import android.app.Notification;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.app.Service;
+import android.bluetooth.BluetoothAdapter;
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.le.ScanSettings;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.SharedPreferences;
+import android.net.wifi.WifiManager;
+import android.os.Binder;
+import android.os.Build;
+import android.os.Handler;
+import android.os.IBinder;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.support.v7.app.NotificationCompat;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import xyz.smartsniff.Model.Device;
+import xyz.smartsniff.Model.Session;
+import xyz.smartsniff.Utils.AdaptiveScanIntervalPolicy;
+import xyz.smartsniff.Utils.BleScanner;
+import xyz.smartsniff.Utils.DatabaseWriter;
+import xyz.smartsniff.Utils.FixedScanIntervalPolicy;
+import xyz.smartsniff.Utils.GeolocationGPS;
+import xyz.smartsniff.Utils.ManufacturerResolver;
+import xyz.smartsniff.Utils.Metrics;
+import xyz.smartsniff.Utils.PlatformBleScanner;
+import xyz.smartsniff.Utils.ScanEventRecorder;
+import xyz.smartsniff.Utils.ScanIntervalPolicy;
+import xyz.smartsniff.Utils.ScanProcessor;
+import xyz.smartsniff.Utils.ScanScheduler;
+import xyz.smartsniff.Utils.ScanThrottleBudget;
+import xyz.smartsniff.Utils.Tracing;
+import xyz.smartsniff.Utils.Utils;
+
+/**
+ * Foreground service which owns the scanning sessions: the scan loop, the broadcast receiver, the
+ * location client and the session bookkeeping. Sessions keep running while the activities are
+ * recreated or in the background, and activities bind to the service to control them and to read
+ * their live stats.
+ *
+ * Date: 18/10/2026
+ */
+public class ScanService extends Service {
+
+    private static final String TAG = "ScanService";
+    private static final int NOTIFICATION_ID = 1;
+
+    private final IBinder binder = new ScanBinder();
+
+    private DatabaseWriter databaseWriter;
+    private ManufacturerResolver manufacturerResolver;
+    private WifiManager wifiManager;
+    private BluetoothAdapter bluetoothAdapter;
+    //Bluetooth LE scanner of the current session, or null if it uses the classic discovery
+    private BleScanner bleScanner;
+    private ScanScheduler scanScheduler;
+    private ScanProcessor scanProcessor;
+    private CustomReceiver receiver;
+    private GeolocationGPS geoGPS;
+    private SharedPreferences preferences;
+    private NotificationManager notificationManager;
+    private Handler mainHandler;
+
+    private SessionListener listener;
+
+    //Ids of the wifi scans, used as cookies of their trace sections. 0 means no scan
+    private final AtomicInteger lastScanId = new AtomicInteger();
+    private final AtomicInteger pendingScanId = new AtomicInteger();
+
+    private boolean scanning;
+    //Whether the scans of the current session have started, which happens once the session is stored
+    private boolean capturing;
+    private Session session;
+    private int sessionResults;
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+
+        preferences = getSharedPreferences(Utils.PREFS_NAME, Context.MODE_PRIVATE);
+        Tracing.setEnabled(preferences.getBoolean(Utils.PREF_TRACING, Utils.TRACING_DEFAULT));
+        notificationManager = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
+
+        databaseWriter = DatabaseWriter.getInstance(this);
+        mainHandler = new Handler(Looper.getMainLooper());
+        manufacturerResolver = ManufacturerResolver.getInstance(this);
+
+        wifiManager = (WifiManager) getSystemService(Context.WIFI_SERVICE);
+        bluetoothAdapter = BluetoothAdapter.getDefaultAdapter();
+        scanScheduler = new ScanScheduler(new ScanScheduler.ScanTrigger() {
+            @Override
+            public boolean startScan() {
+                int scanId = nextScanId();
+                Tracing.beginAsync(Tracing.SCAN, scanId);
+                if (!wifiManager.startScan()) {
+                    Tracing.endAsync(Tracing.SCAN, scanId);
+                    return false;
+                }
+
+                //A scan whose results never arrived is superseded by this one
+                int supersededScanId = pendingScanId.getAndSet(scanId);
+                if (supersededScanId != 0)
+                    Tracing.endAsync(Tracing.SCAN, supersededScanId);
+                return true;
+            }
+        });
+
+        geoGPS = new GeolocationGPS(this, null);
+        geoGPS.setFixListener(new GeolocationGPS.FixListener() {
+            @Override
+            public void onLocationFix(double latitude, double longitude, float speed) {
+                scanProcessor.onLocationFix(latitude, longitude, speed);
+            }
+        });
+
+        receiver = new CustomReceiver();
+        scanProcessor = new ScanProcessor(databaseWriter, new ScanProcessor.SummaryListener() {
+            @Override
+            public void onScanSummary(ScanProcessor.ScanSummary summary) {
+                applyScanSummary(summary);
+            }
+        });
+    }
+
+    @Override
+    public IBinder onBind(Intent intent) {
+        return binder;
+    }
+
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        //Sessions are started explicitly through the binder. A restarted service has no session to resume
+        if (!scanning)
+            stopSelf(startId);
+        return START_NOT_STICKY;
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+
+        //To be sure we are not scanning
+        if (scanning)
+            stopSession();
+        scanScheduler.shutdown();
+        scanProcessor.quit();
+    }
+
+    /**
+     * Starts a new scanning session and promotes the service to the foreground until the session ends.
+     * The scans start once the session has been stored by the DatabaseWriter.
+     */
+    public void startSession() {
+        if (scanning)
+            return;
+
+        //The service must outlive the activities bound to it
+        startService(new Intent(this, ScanService.class));
+        startForeground(NOTIFICATION_ID, buildNotification());
+
+        scanning = true;
+        session = new Session(new Date());
+        sessionResults = 0;
+
+        geoGPS.connect();
+
+        final Session newSession = session;
+        databaseWriter.addSession(newSession, new DatabaseWriter.SessionStoredCallback() {
+            @Override
+            public void onSessionStored(final long sessionId) {
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        startCapture(newSession, sessionId);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Starts the scans of a session which has just been stored. If the session was stopped in the meantime,
+     * it is ended right away.
+     */
+    private void startCapture(Session storedSession, long sessionId) {
+        if (!scanning || storedSession != session) {
+            scanProcessor.startSession(sessionId, createScanIntervalPolicy(), null);
+            endSession(storedSession);
+            return;
+        }
+
+        capturing = true;
+        if (bluetoothAdapter != null && bluetoothAdapter.isEnabled() && !startBleScan()) {
+            //Register receiver and request first bluetooth discovery scan
+            registerReceiver(receiver, new IntentFilter(BluetoothDevice.ACTION_FOUND));
+            registerReceiver(receiver, new IntentFilter(BluetoothAdapter.ACTION_DISCOVERY_FINISHED));
+            bluetoothAdapter.startDiscovery();
+        }
+
+        //The first wifi scan will begin after an interval of time
+        registerReceiver(receiver, new IntentFilter(WifiManager.SCAN_RESULTS_AVAILABLE_ACTION));
+        ScanIntervalPolicy scanIntervalPolicy = createScanIntervalPolicy();
+        scanProcessor.startSession(sessionId, scanIntervalPolicy, createScanEventRecorder());
+        //Replayed scans need a location until the first fix of the session arrives
+        scanProcessor.onLocationFix(geoGPS.getLatitude(), geoGPS.getLongitude(), geoGPS.getSpeed());
+        scanScheduler.start(scanIntervalPolicy);
+    }
+
+    /**
+     * Ends the current session. The service leaves the foreground and stops itself once no activity is
+     * bound to it.
+     *
+     * @return The finished session.
+     */
+    public Session stopSession() {
+        if (!scanning)
+            return session;
+
+        scanning = false;
+        geoGPS.disconnect();
+        session.setEndDate(new Date());
+
+        //A session which is not stored yet is ended once it is
+        if (capturing) {
+            capturing = false;
+            stopCapture();
+            endSession(session);
+        }
+
+        stopForeground(true);
+        stopSelf();
+        return session;
+    }
+
+    private void stopCapture() {
+        scanScheduler.stop();
+        int pendingScan = pendingScanId.getAndSet(0);
+        if (pendingScan != 0)
+            Tracing.endAsync(Tracing.SCAN, pendingScan);
+        unregisterReceiver(receiver);
+        if (bleScanner != null) {
+            bleScanner.stop();
+            bleScanner = null;
+        } else if (bluetoothAdapter != null) {
+            bluetoothAdapter.cancelDiscovery();
+        }
+    }
+
+    /**
+     * Ends the session in the processor, and notifies the listener once every pending scan of the session
+     * has been processed.
+     */
+    private void endSession(final Session endedSession) {
+        scanProcessor.endSession(endedSession.getEndDate(), new ScanProcessor.SessionEndListener() {
+            @Override
+            public void onSessionDevices(List<Device> sessionDevices) {
+                if (listener != null)
+                    listener.onSessionEnded(endedSession, sessionDevices);
+            }
+
+            @Override
+            public void onSessionStored() {
+                SessionListener currentListener = listener;
+                if (currentListener != null)
+                    currentListener.onSessionStored();
+            }
+        });
+    }
+
+    /**
+     * Starts a Bluetooth LE scan if the user chose one of its modes and the device supports it.
+     *
+     * @return Whether the scan was started. Otherwise, the classic discovery must be used.
+     */
+    private boolean startBleScan() {
+        int scanMode;
+        switch (preferences.getInt(Utils.PREF_BLUETOOTH_SCAN_MODE, Utils.BLUETOOTH_SCAN_MODE_DEFAULT)) {
+            case Utils.BLUETOOTH_SCAN_LE_LOW_POWER:
+                scanMode = ScanSettings.SCAN_MODE_LOW_POWER;
+                break;
+            case Utils.BLUETOOTH_SCAN_LE_BALANCED:
+                scanMode = ScanSettings.SCAN_MODE_BALANCED;
+                break;
+            case Utils.BLUETOOTH_SCAN_LE_LOW_LATENCY:
+                scanMode = ScanSettings.SCAN_MODE_LOW_LATENCY;
+                break;
+            default:
+                return false;
+        }
+
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP)
+            return false;
+
+        bleScanner = new PlatformBleScanner(bluetoothAdapter);
+        boolean started = bleScanner.start(scanMode, Utils.BLE_REPORT_DELAY_MS, new BleScanner.BatchListener() {
+            @Override
+            public void onBatch(List<BleScanner.Sighting> sightings) {
+                scanProcessor.onBleBatch(sightings, geoGPS.getLatitude(), geoGPS.getLongitude());
+            }
+        });
+        if (!started) {
+            Log.d(TAG, "BLUETOOTH LE SCANNER NOT AVAILABLE, USING DISCOVERY");
+            bleScanner = null;
+        }
+        return started;
+    }
+
+    private int nextScanId() {
+        int scanId = lastScanId.incrementAndGet();
+        //Skip 0, which means no scan
+        return scanId != 0 ? scanId : lastScanId.incrementAndGet();
+    }
+
+    /**
+     * Creates the log where the raw scans of the session are recorded, if the user enabled the recording.
+     *
+     * @return The recorder, or null if the scans are not recorded.
+     */
+    private ScanEventRecorder createScanEventRecorder() {
+        if (!preferences.getBoolean(Utils.PREF_RECORD_SCANS, Utils.RECORD_SCANS_DEFAULT))
+            return null;
+
+        File directory = getExternalFilesDir(null);
+        if (directory == null) {
+            Log.d(TAG, "EXTERNAL STORAGE NOT AVAILABLE, SCANS NOT RECORDED");
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+        File file = new File(directory, "scans_" +
+                new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.US).format(new Date(now)) + ".bin");
+        try {
+            Log.d(TAG, "RECORDING SCANS TO " + file.getAbsolutePath());
+            return new ScanEventRecorder(new FileOutputStream(file), now);
+        } catch (IOException e) {
+            Log.d(TAG, "ERROR WHILE CREATING THE SCAN RECORDING: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private ScanIntervalPolicy createScanIntervalPolicy() {
+        if (preferences.getBoolean(Utils.PREF_ADAPTIVE_SCAN, Utils.ADAPTIVE_SCAN_DEFAULT)) {
+            //Android 9 (API 28) throttles the scans requested by each application
+            ScanThrottleBudget budget = null;
+            if (Build.VERSION.SDK_INT >= 28)
+                budget = new ScanThrottleBudget(ScanThrottleBudget.PLATFORM_MAX_SCANS,
+                        ScanThrottleBudget.PLATFORM_WINDOW_MS);
+
+            return new AdaptiveScanIntervalPolicy(Utils.ADAPTIVE_SCAN_INTERVAL_MIN, Utils.ADAPTIVE_SCAN_INTERVAL_MAX,
+                    budget);
+        }
+
+        return new FixedScanIntervalPolicy(preferences.getInt(Utils.PREF_SCAN_INTERVAL, Utils.SCAN_INTERVAL_DEFAULT));
+    }
+
+    /**
+     * Applies the outcome of the scans stored since the last summary: the devices found for the first
+     * time are counted and their manufacturers are requested. The summary is then forwarded to the
+     * listener, if any.
+     */
+    private void applyScanSummary(ScanProcessor.ScanSummary summary) {
+        //Only the devices missing from the offline OUI registry need to be resolved
+        for (Device device : summary.getNewDevices()) {
+            if (device.getManufacturer() == null)
+                manufacturerResolver.resolve(device, null);
+        }
+
+        sessionResults += summary.getNewDevices().size();
+        if (scanning)
+            notificationManager.notify(NOTIFICATION_ID, buildNotification());
+
+        if (listener != null)
+            listener.onScanSummary(summary);
+    }
+
+    private Notification buildNotification() {
+        Intent mainIntent = new Intent(this, MainActivity.class);
+        mainIntent.setFlags(Intent.FLAG_ACTIVITY_SINGLE_TOP);
+        PendingIntent contentIntent = PendingIntent.getActivity(this, 0, mainIntent, 0);
+
+        return new NotificationCompat.Builder(this)
+                .setSmallIcon(R.mipmap.ic_launcher_smartsniff)
+                .setContentTitle(getString(R.string.scan_notification_title))
+                .setContentText(getString(R.string.scan_notification_text, sessionResults))
+                .setContentIntent(contentIntent)
+                .setOngoing(true)
+                .build();
+    }
+
+    //Getters
+
+    public boolean isScanning() {
+        return scanning;
+    }
+
+    /**
+     * @return The current session, or the last one if no session is running. May be null.
+     */
+    public Session getSession() {
+        return session;
+    }
+
+    /**
+     * @return Number of devices found for the first time during the current session.
+     */
+    public int getSessionResults() {
+        return sessionResults;
+    }
+
+    /**
+     * Sets the listener of the session events, called on the main thread. Pass null to remove it.
+     */
+    public void setListener(SessionListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Sets the activity used to ask the user to enable the location settings. Pass null to remove it.
+     */
+    public void setActivity(Activity activity) {
+        geoGPS.setActivity(activity);
+    }
+
+    /**
+     * Listener of the events of a session.
+     */
+    public interface SessionListener {
+        /**
+         * Called on the main thread with the outcome of the latest scans.
+         */
+        void onScanSummary(ScanProcessor.ScanSummary summary);
+
+        /**
+         * Called on the main thread once every scan of a finished session has been processed, with the
+         * devices found during the session.
+         */
+        void onSessionEnded(Session session, List<Device> sessionDevices);
+
+        /**
+         * Called on a background thread once every scan of a finished session has been stored.
+         */
+        void onSessionStored();
+    }
+
+    public class ScanBinder extends Binder {
+        public ScanService getService() {
+            return ScanService.this;
+        }
+    }
+
+    /**
+     * Custom BroadcastReceiver to handle the detected networks/devices. The results are handed over to
+     * the scan processor, so the main thread only spends the time needed to read them.
+     */
+    private class CustomReceiver extends BroadcastReceiver {
+
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            long start = SystemClock.elapsedRealtimeNanos();
+            Tracing.begin(Tracing.RECEIVER_ON_RECEIVE);
+            String action = intent.getAction();
+
+            //Check intent action
+            if (action.equals(BluetoothAdapter.ACTION_DISCOVERY_FINISHED)) {
+                //The Receiver is responsible for requesting another discovery scan
+                if (bluetoothAdapter.isDiscovering())
+                    bluetoothAdapter.startDiscovery();
+            } else {
+                //Time to check those results
+                if (action.equals(BluetoothDevice.ACTION_FOUND)) {
+                    //Bluetooth device
+                    BluetoothDevice device = intent.getParcelableExtra(BluetoothDevice.EXTRA_DEVICE);
+                    scanProcessor.onBluetoothDevice(device, geoGPS.getLatitude(), geoGPS.getLongitude());
+                } else {
+                    //Wifi device. Results which weren't requested by the session are traced as a scan of their own
+                    int scanId = pendingScanId.getAndSet(0);
+                    if (scanId == 0) {
+                        scanId = nextScanId();
+                        Tracing.beginAsync(Tracing.SCAN, scanId);
+                    }
+                    scanProcessor.onWifiScan(wifiManager.getScanResults(), geoGPS.getLatitude(),
+                            geoGPS.getLongitude(), geoGPS.getSpeed(), scanId);
+                }
+            }
+
+            Tracing.end();
+            Metrics.histogram(Metrics.RECEIVER_ON_RECEIVE).recordNanos(SystemClock.elapsedRealtimeNanos() - start);
+        }
+    }
+}
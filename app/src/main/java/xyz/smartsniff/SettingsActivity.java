@@ -8,6 +8,7 @@ import android.text.Editable;
 import android.text.TextWatcher;
 import android.widget.CheckBox;
 import android.widget.EditText;
+import android.widget.Spinner;
 import android.widget.Toast;
 
 import com.google.android.gms.location.LocationRequest;
@@ -30,8 +31,9 @@ public class SettingsActivity extends AppCompatActivity {
 
     private SharedPreferences preferences;
     private SharedPreferences.OnSharedPreferenceChangeListener prefChangeListener;
-    private CheckBox energySavingCheckBox;
+    private CheckBox energySavingCheckBox, adaptiveScanCheckBox;
     private EditText intervalEditText;
+    private Spinner bluetoothScanModeSpinner;
     private final TextWatcher intervalWatcher = new TextWatcher() {
         @Override
         public void beforeTextChanged(CharSequence charSequence, int i, int i1, int i2) {
@@ -95,6 +97,13 @@ public class SettingsActivity extends AppCompatActivity {
         scanIntervalPref = preferences.getInt(Utils.PREF_SCAN_INTERVAL, Utils.SCAN_INTERVAL_DEFAULT);
         scanIntervalPref /= 1000;
         intervalEditText.setText(String.valueOf(scanIntervalPref));
+
+        adaptiveScanCheckBox = (CheckBox) findViewById(R.id.adaptiveScanCheckBox);
+        adaptiveScanCheckBox.setChecked(preferences.getBoolean(Utils.PREF_ADAPTIVE_SCAN, Utils.ADAPTIVE_SCAN_DEFAULT));
+
+        bluetoothScanModeSpinner = (Spinner) findViewById(R.id.bluetoothScanModeSpinner);
+        bluetoothScanModeSpinner.setSelection(preferences.getInt(Utils.PREF_BLUETOOTH_SCAN_MODE,
+                Utils.BLUETOOTH_SCAN_MODE_DEFAULT));
     }
 
     private void saveUserSettings() {
@@ -106,7 +115,9 @@ public class SettingsActivity extends AppCompatActivity {
 
         setScanInterval(Integer.parseInt(intervalEditText.getText().toString()));
         preferences.edit().putInt(Utils.PREF_GPS_PRIORITY, energyPref)
-                .putInt(Utils.PREF_SCAN_INTERVAL, getScanInterval() * 1000).apply();
+                .putInt(Utils.PREF_SCAN_INTERVAL, getScanInterval() * 1000)
+                .putBoolean(Utils.PREF_ADAPTIVE_SCAN, adaptiveScanCheckBox.isChecked())
+                .putInt(Utils.PREF_BLUETOOTH_SCAN_MODE, bluetoothScanModeSpinner.getSelectedItemPosition()).apply();
 
         if (preferencesChanged)
             Toast.makeText(getApplicationContext(), getString(R.string.settings_save_success), Toast.LENGTH_SHORT).show();
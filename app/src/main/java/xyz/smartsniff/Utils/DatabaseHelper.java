@@ -6,18 +6,21 @@ import android.database.Cursor;
 import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
-import android.util.ArrayMap;
+import android.database.sqlite.SQLiteStatement;
+import android.os.SystemClock;
 import android.util.Log;
-import android.widget.Toast;
 
 import com.google.android.gms.maps.model.LatLng;
+import com.google.maps.android.heatmaps.WeightedLatLng;
 
+import java.io.IOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
+import java.util.Locale;
 
-import xyz.smartsniff.Model.Association;
 import xyz.smartsniff.Model.Device;
 import xyz.smartsniff.Model.DeviceType;
 import xyz.smartsniff.Model.Location;
@@ -34,12 +37,14 @@ public class DatabaseHelper extends SQLiteOpenHelper {
 
     //Database info
     private static final String DATABASE_NAME = "sessionsDatabase";
-    private static final int DATABASE_VERSION = 4;
+    private static final int DATABASE_VERSION = 9;
     //Table Names
     private static final String TABLE_SESSIONS = "sessions";
     private static final String TABLE_DEVICES = "devices";
     private static final String TABLE_LOCATIONS = "locations";
     private static final String TABLE_ASOCSESSIONSDEVICES = "asocSessionsDevices";
+    private static final String TABLE_SYNCSTATE = "syncState";
+    private static final String TABLE_MANUFACTURERS = "manufacturers";
     //Session Table Columns
     private static final String KEY_SESSION_ID = "id";
     private static final String KEY_SESSION_STARTDATE = "startDate";
@@ -54,21 +59,50 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     private static final String KEY_DEVICE_FREQUENCY = "frequency";
     private static final String KEY_DEVICE_INTENSITY = "signalIntensity";
     private static final String KEY_DEVICE_TYPE = "type";
+    private static final String KEY_DEVICE_SECURITY = "security";
     //Location Table Columns
     private static final String KEY_LOCATION_ID = "id";
     private static final String KEY_LOCATION_DATE = "date";
-    private static final String KEY_LOCATION_COORDINATES = "coordinates";
+    private static final String KEY_LOCATION_LATITUDE = "latitude";
+    private static final String KEY_LOCATION_LONGITUDE = "longitude";
+    //Location Table Columns of version 4, where coordinates were stored as "lat, long"
+    private static final String KEY_LOCATION_COORDINATES_V4 = "coordinates";
     //Association Table Columns
+    private static final String KEY_ASSOCIATION_ID = "id";
     private static final String KEY_ASSOCIATION_ID_SESSION_FK = "idSession";
     private static final String KEY_ASSOCIATION_ID_DEVICE_FK = "idDevice";
     private static final String KEY_ASSOCIATION_ID_LOCATION_FK = "idLocation";
+    //Sync State Table Columns
+    private static final String KEY_SYNC_NAME = "name";
+    private static final String KEY_SYNC_VALUE = "value";
+    //Manufacturer Cache Table Columns
+    private static final String KEY_MANUFACTURER_PREFIX = "prefix";
+    private static final String KEY_MANUFACTURER_NAME = "name";
+    private static final String KEY_MANUFACTURER_EXPIRESAT = "expiresAt";
+    //Sync State Entries
+    private static final String SYNC_LAST_ASSOCIATION_ID = "lastAssociationId";
+    //Sync State Entries of version 8, where the watermark was the implicit rowid of the associations
+    private static final String SYNC_LAST_ASSOCIATION_ROWID_V8 = "lastAssociationRowId";
+    //Columns read by the cursor readers, in order
+    private static final String[] SESSION_COLUMNS = {KEY_SESSION_STARTDATE, KEY_SESSION_ENDDATE};
+    private static final String[] DEVICE_COLUMNS = {KEY_DEVICE_SSID, KEY_DEVICE_BSSID, KEY_DEVICE_CHARACTERISTICS,
+            KEY_DEVICE_MANUFACTURER, KEY_DEVICE_CHANNELWIDTH, KEY_DEVICE_FREQUENCY, KEY_DEVICE_INTENSITY, KEY_DEVICE_TYPE};
+    private static final String[] LOCATION_COLUMNS = {KEY_LOCATION_DATE, KEY_LOCATION_LATITUDE, KEY_LOCATION_LONGITUDE};
+    //Association id range of an export, bound as (fromId, toId]
+    private static final String ASSOCIATION_RANGE = associationRange(KEY_ASSOCIATION_ID);
+    //Indexes
+    private static final String INDEX_ASSOCIATION_LOCATION = "asocLocationIndex";
+    private static final String INDEX_DEVICE_SECURITY = "deviceSecurityIndex";
     //Singleton instance
     private static DatabaseHelper singletonInstance;
-    private long sessionId = 0, deviceId = 0, locationId = 0;
+    //In-memory index of the stored devices, loaded on first use
+    private DeviceIndex deviceIndex;
 
-    //Constructor is private to prevent direct instantiation
-    private DatabaseHelper(Context context) {
+    //Constructor is package-private to prevent direct instantiation outside of the tests
+    DatabaseHelper(Context context) {
         super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        //Write-ahead logging lets reads run on their own connections while a scan is being written
+        setWriteAheadLoggingEnabled(true);
     }
 
     /**
@@ -99,13 +133,6 @@ public class DatabaseHelper extends SQLiteOpenHelper {
      */
     @Override
     public void onCreate(SQLiteDatabase sqLiteDatabase) {
-        String CREATE_SESSIONS_TABLE = "CREATE TABLE " + TABLE_SESSIONS +
-                "(" +
-                KEY_SESSION_ID + " INTEGER PRIMARY KEY AUTOINCREMENT," +
-                KEY_SESSION_STARTDATE + " TEXT," +
-                KEY_SESSION_ENDDATE + " TEXT" +
-                ")";
-
         String CREATE_DEVICES_TABLE = "CREATE TABLE " + TABLE_DEVICES +
                 "(" +
                 KEY_DEVICE_ID + " INTEGER PRIMARY KEY AUTOINCREMENT," +
@@ -116,126 +143,460 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                 KEY_DEVICE_CHANNELWIDTH + " TEXT," +
                 KEY_DEVICE_FREQUENCY + " INTEGER," +
                 KEY_DEVICE_INTENSITY + " INTEGER," +
-                KEY_DEVICE_TYPE + " TEXT" +
+                KEY_DEVICE_TYPE + " TEXT," +
+                KEY_DEVICE_SECURITY + " INTEGER NOT NULL DEFAULT 0" +     //SecurityFlags of wifi devices
                 ")";
 
-        String CREATE_LOCATIONS_TABLE = "CREATE TABLE " + TABLE_LOCATIONS +
+        createSessionsTable(sqLiteDatabase, TABLE_SESSIONS);
+        sqLiteDatabase.execSQL(CREATE_DEVICES_TABLE);
+        createLocationsTable(sqLiteDatabase, TABLE_LOCATIONS);
+        createAssociationTable(sqLiteDatabase, TABLE_ASOCSESSIONSDEVICES);
+        createIndexes(sqLiteDatabase);
+        createSecurityIndex(sqLiteDatabase);
+        createSyncStateTable(sqLiteDatabase);
+        createManufacturersTable(sqLiteDatabase);
+    }
+
+    /**
+     * Dates are stored as milliseconds since the epoch.
+     */
+    private void createSessionsTable(SQLiteDatabase sqLiteDatabase, String tableName) {
+        sqLiteDatabase.execSQL("CREATE TABLE " + tableName +
+                "(" +
+                KEY_SESSION_ID + " INTEGER PRIMARY KEY AUTOINCREMENT," +
+                KEY_SESSION_STARTDATE + " INTEGER," +
+                KEY_SESSION_ENDDATE + " INTEGER" +
+                ")");
+    }
+
+    /**
+     * Dates are stored as milliseconds since the epoch.
+     */
+    private void createLocationsTable(SQLiteDatabase sqLiteDatabase, String tableName) {
+        sqLiteDatabase.execSQL("CREATE TABLE " + tableName +
                 "(" +
                 KEY_LOCATION_ID + " INTEGER PRIMARY KEY AUTOINCREMENT," +
-                KEY_LOCATION_DATE + " TEXT," +
-                KEY_LOCATION_COORDINATES + " TEXT UNIQUE" +     //ONE LOCATION ONLY
-                ")";
+                KEY_LOCATION_DATE + " INTEGER," +
+                KEY_LOCATION_LATITUDE + " REAL NOT NULL," +
+                KEY_LOCATION_LONGITUDE + " REAL NOT NULL," +
+                "UNIQUE (" + KEY_LOCATION_LATITUDE + ", " + KEY_LOCATION_LONGITUDE + ")" +     //ONE LOCATION ONLY
+                ")");
+    }
 
-        String CREATE_ASSOCIATION_TABLE = "CREATE TABLE " + TABLE_ASOCSESSIONSDEVICES +
+    /**
+     * The id identifies the associations in the exports. AUTOINCREMENT keeps it from reusing the ids of
+     * deleted associations, which the server may have acknowledged already.
+     */
+    private void createAssociationTable(SQLiteDatabase sqLiteDatabase, String tableName) {
+        sqLiteDatabase.execSQL("CREATE TABLE " + tableName +
                 "(" +
+                KEY_ASSOCIATION_ID + " INTEGER PRIMARY KEY AUTOINCREMENT," +
                 KEY_ASSOCIATION_ID_SESSION_FK + " INTEGER REFERENCES " + TABLE_SESSIONS + "," +
                 KEY_ASSOCIATION_ID_DEVICE_FK + " INTEGER REFERENCES " + TABLE_DEVICES + "," +
                 KEY_ASSOCIATION_ID_LOCATION_FK + " INTEGER REFERENCES " + TABLE_LOCATIONS +
-                ",PRIMARY KEY (" + KEY_ASSOCIATION_ID_SESSION_FK + ", " + KEY_ASSOCIATION_ID_DEVICE_FK + ", " +
+                ",UNIQUE (" + KEY_ASSOCIATION_ID_SESSION_FK + ", " + KEY_ASSOCIATION_ID_DEVICE_FK + ", " +
                 KEY_ASSOCIATION_ID_LOCATION_FK + ")" +
-                ")";
+                ")");
+    }
 
-        sqLiteDatabase.execSQL(CREATE_SESSIONS_TABLE);
-        sqLiteDatabase.execSQL(CREATE_DEVICES_TABLE);
-        sqLiteDatabase.execSQL(CREATE_LOCATIONS_TABLE);
-        sqLiteDatabase.execSQL(CREATE_ASSOCIATION_TABLE);
+    /**
+     * Export watermarks: the highest association id and session id acknowledged by the server.
+     */
+    private void createSyncStateTable(SQLiteDatabase sqLiteDatabase) {
+        sqLiteDatabase.execSQL("CREATE TABLE " + TABLE_SYNCSTATE +
+                "(" +
+                KEY_SYNC_NAME + " TEXT PRIMARY KEY," +
+                KEY_SYNC_VALUE + " INTEGER NOT NULL" +
+                ")");
+    }
+
+    /**
+     * Manufacturers resolved by OUI prefix (first 24 bits of the MAC address). A null name marks a prefix
+     * with no registered manufacturer. Expiration dates are stored as milliseconds since the epoch.
+     */
+    private void createManufacturersTable(SQLiteDatabase sqLiteDatabase) {
+        sqLiteDatabase.execSQL("CREATE TABLE " + TABLE_MANUFACTURERS +
+                "(" +
+                KEY_MANUFACTURER_PREFIX + " INTEGER PRIMARY KEY," +
+                KEY_MANUFACTURER_NAME + " TEXT," +
+                KEY_MANUFACTURER_EXPIRESAT + " INTEGER NOT NULL" +
+                ")");
+    }
+
+    /**
+     * Creates the indexes used by the aggregate queries, if they don't exist yet.
+     */
+    private void createIndexes(SQLiteDatabase sqLiteDatabase) {
+        sqLiteDatabase.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_ASSOCIATION_LOCATION + " ON " +
+                TABLE_ASOCSESSIONSDEVICES + "(" + KEY_ASSOCIATION_ID_LOCATION_FK + ")");
+    }
+
+    /**
+     * The security index is created apart from the others because the column doesn't exist until version 8.
+     */
+    private void createSecurityIndex(SQLiteDatabase sqLiteDatabase) {
+        sqLiteDatabase.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_DEVICE_SECURITY + " ON " +
+                TABLE_DEVICES + "(" + KEY_DEVICE_TYPE + ", " + KEY_DEVICE_SECURITY + ")");
     }
 
     /**
      * Called when the database needs to be upgraded (i.e. the database already
      * exists and the version is different from the version of the database that
-     * exists in memory).
+     * exists in memory). The whole upgrade runs inside a single transaction.
      */
     @Override
-    public void onUpgrade(SQLiteDatabase sqLiteDatabase, int i, int i1) {
-        sqLiteDatabase.execSQL("DROP TABLE IF EXISTS " + TABLE_SESSIONS);
-        sqLiteDatabase.execSQL("DROP TABLE IF EXISTS " + TABLE_DEVICES);
-        sqLiteDatabase.execSQL("DROP TABLE IF EXISTS " + TABLE_LOCATIONS);
-        sqLiteDatabase.execSQL("DROP TABLE IF EXISTS " + TABLE_ASOCSESSIONSDEVICES);
+    public void onUpgrade(SQLiteDatabase sqLiteDatabase, int oldVersion, int newVersion) {
+        if (oldVersion < 4) {
+            //There is no migration path from the first versions of the schema
+            sqLiteDatabase.execSQL("DROP TABLE IF EXISTS " + TABLE_ASOCSESSIONSDEVICES);
+            sqLiteDatabase.execSQL("DROP TABLE IF EXISTS " + TABLE_SESSIONS);
+            sqLiteDatabase.execSQL("DROP TABLE IF EXISTS " + TABLE_DEVICES);
+            sqLiteDatabase.execSQL("DROP TABLE IF EXISTS " + TABLE_LOCATIONS);
+
+            onCreate(sqLiteDatabase);
+            return;
+        }
+
+        if (oldVersion < 5)
+            migrateToVersion5(sqLiteDatabase);
+        if (oldVersion < 6)
+            createSyncStateTable(sqLiteDatabase);
+        if (oldVersion < 7)
+            createManufacturersTable(sqLiteDatabase);
+        if (oldVersion < 8)
+            migrateToVersion8(sqLiteDatabase);
+        if (oldVersion < 9)
+            migrateToVersion9(sqLiteDatabase);
+    }
+
+    /**
+     * Version 9 gives the associations an explicit id, on which the export watermark is based. The implicit
+     * rowid used before could be renumbered by a VACUUM or by a migration which rebuilds the table. The
+     * table is rebuilt with the current rowids as ids, so the stored watermark still ends at the same
+     * association.
+     */
+    private void migrateToVersion9(SQLiteDatabase db) {
+        final String associationsV9 = TABLE_ASOCSESSIONSDEVICES + "_v9";
+        final String associationColumns = KEY_ASSOCIATION_ID_SESSION_FK + ", " + KEY_ASSOCIATION_ID_DEVICE_FK + ", " +
+                KEY_ASSOCIATION_ID_LOCATION_FK;
+
+        createAssociationTable(db, associationsV9);
+        db.execSQL("INSERT INTO " + associationsV9 + "(" + KEY_ASSOCIATION_ID + ", " + associationColumns +
+                ") SELECT rowid, " + associationColumns + " FROM " + TABLE_ASOCSESSIONSDEVICES);
+        //The location index is dropped along with the old table
+        db.execSQL("DROP TABLE " + TABLE_ASOCSESSIONSDEVICES);
+        db.execSQL("ALTER TABLE " + associationsV9 + " RENAME TO " + TABLE_ASOCSESSIONSDEVICES);
+        createIndexes(db);
+
+        ContentValues values = new ContentValues();
+        values.put(KEY_SYNC_NAME, SYNC_LAST_ASSOCIATION_ID);
+        db.update(TABLE_SYNCSTATE, values, KEY_SYNC_NAME + " = ?", new String[]{SYNC_LAST_ASSOCIATION_ROWID_V8});
+    }
+
+    /**
+     * Version 8 adds the security column, parsed from the capabilities of the wifi devices already
+     * stored, and its index.
+     */
+    private void migrateToVersion8(SQLiteDatabase db) {
+        db.execSQL("ALTER TABLE " + TABLE_DEVICES + " ADD COLUMN " + KEY_DEVICE_SECURITY +
+                " INTEGER NOT NULL DEFAULT 0");
+
+        SQLiteStatement update = db.compileStatement("UPDATE " + TABLE_DEVICES + " SET " + KEY_DEVICE_SECURITY +
+                " = ? WHERE " + KEY_DEVICE_ID + " = ?");
+        Cursor cursor = db.query(TABLE_DEVICES, new String[]{KEY_DEVICE_ID, KEY_DEVICE_CHARACTERISTICS},
+                KEY_DEVICE_TYPE + " = ?", new String[]{DeviceType.WIFI.toString()}, null, null, null);
+        try {
+            while (cursor.moveToNext()) {
+                int security = SecurityFlags.parse(cursor.getString(1));
+                if (security == 0)
+                    continue;
+
+                update.bindLong(1, security);
+                update.bindLong(2, cursor.getLong(0));
+                update.executeUpdateDelete();
+            }
+        } finally {
+            cursor.close();
+            update.close();
+        }
+
+        createSecurityIndex(db);
+    }
+
+    /**
+     * Version 5 stores dates as epoch milliseconds and coordinates as two REAL columns, instead of
+     * the "dd/MM/yyyy HH:mm:ss" and "lat, long" strings of version 4. The sessions table is rebuilt
+     * keeping its ids. Locations whose strings parse to the same coordinates are merged into a single
+     * row, so the associations are remapped to the id of the row each old location ended up in.
+     * Locations whose coordinates can't be parsed are dropped, along with their associations.
+     */
+    private void migrateToVersion5(SQLiteDatabase db) {
+        final String sessionsV5 = TABLE_SESSIONS + "_v5";
+        final String locationsV5 = TABLE_LOCATIONS + "_v5";
+        final String associationsV4 = TABLE_ASOCSESSIONSDEVICES + "_v4";
+        final String locationIdsV4 = TABLE_LOCATIONS + "_ids_v4";
+        SimpleDateFormat dateFormat = new SimpleDateFormat(Codecs.DATE_FORMAT, Locale.ENGLISH);
+
+        createSessionsTable(db, sessionsV5);
+        SQLiteStatement insertSession = db.compileStatement("INSERT INTO " + sessionsV5 + "(" + KEY_SESSION_ID +
+                ", " + KEY_SESSION_STARTDATE + ", " + KEY_SESSION_ENDDATE + ") VALUES (?, ?, ?)");
+        Cursor cursor = db.query(TABLE_SESSIONS, new String[]{KEY_SESSION_ID, KEY_SESSION_STARTDATE,
+                KEY_SESSION_ENDDATE}, null, null, null, null, null);
+        try {
+            while (cursor.moveToNext()) {
+                insertSession.bindLong(1, cursor.getLong(0));
+                bindDateString(insertSession, 2, cursor.getString(1), dateFormat);
+                bindDateString(insertSession, 3, cursor.getString(2), dateFormat);
+                insertSession.executeInsert();
+            }
+        } finally {
+            cursor.close();
+            insertSession.close();
+        }
 
-        onCreate(sqLiteDatabase);
+        createLocationsTable(db, locationsV5);
+        //Old location id => id of the row it was stored in
+        db.execSQL("CREATE TEMP TABLE " + locationIdsV4 + "(oldId INTEGER PRIMARY KEY, newId INTEGER NOT NULL)");
+        SQLiteStatement insertLocation = db.compileStatement("INSERT OR IGNORE INTO " + locationsV5 + "(" +
+                KEY_LOCATION_ID + ", " + KEY_LOCATION_DATE + ", " + KEY_LOCATION_LATITUDE + ", " +
+                KEY_LOCATION_LONGITUDE + ") VALUES (?, ?, ?, ?)");
+        SQLiteStatement selectLocationId = db.compileStatement("SELECT " + KEY_LOCATION_ID + " FROM " +
+                locationsV5 + " WHERE " + KEY_LOCATION_LATITUDE + " = ? AND " + KEY_LOCATION_LONGITUDE + " = ?");
+        SQLiteStatement insertLocationId = db.compileStatement("INSERT INTO " + locationIdsV4 +
+                "(oldId, newId) VALUES (?, ?)");
+        cursor = db.query(TABLE_LOCATIONS, new String[]{KEY_LOCATION_ID, KEY_LOCATION_DATE,
+                KEY_LOCATION_COORDINATES_V4}, null, null, null, null, null);
+        try {
+            while (cursor.moveToNext()) {
+                long oldId = cursor.getLong(0);
+                double[] coordinates = parseCoordinatesV4(cursor.getString(2));
+                if (coordinates == null) {
+                    Log.d("UPGRADE DB", "SKIPPING LOCATION " + oldId + " WITH MALFORMED COORDINATES: " +
+                            cursor.getString(2));
+                    continue;
+                }
+
+                insertLocation.bindLong(1, oldId);
+                bindDateString(insertLocation, 2, cursor.getString(1), dateFormat);
+                insertLocation.bindDouble(3, coordinates[0]);
+                insertLocation.bindDouble(4, coordinates[1]);
+                long newId = insertLocation.executeInsert();
+                if (newId == -1) {
+                    //Another location was stored with the same coordinates, this one is merged into it
+                    selectLocationId.bindDouble(1, coordinates[0]);
+                    selectLocationId.bindDouble(2, coordinates[1]);
+                    newId = selectLocationId.simpleQueryForLong();
+                }
+
+                insertLocationId.bindLong(1, oldId);
+                insertLocationId.bindLong(2, newId);
+                insertLocationId.executeInsert();
+            }
+        } finally {
+            cursor.close();
+            insertLocation.close();
+            selectLocationId.close();
+            insertLocationId.close();
+        }
+
+        //The association table references the old tables, so it is rebuilt once they have been replaced
+        db.execSQL("CREATE TABLE " + associationsV4 + " AS SELECT * FROM " + TABLE_ASOCSESSIONSDEVICES);
+        db.execSQL("DROP TABLE " + TABLE_ASOCSESSIONSDEVICES);
+        db.execSQL("DROP TABLE " + TABLE_SESSIONS);
+        db.execSQL("DROP TABLE " + TABLE_LOCATIONS);
+        db.execSQL("ALTER TABLE " + sessionsV5 + " RENAME TO " + TABLE_SESSIONS);
+        db.execSQL("ALTER TABLE " + locationsV5 + " RENAME TO " + TABLE_LOCATIONS);
+
+        createAssociationTable(db, TABLE_ASOCSESSIONSDEVICES);
+        //Merged locations may turn two associations into the same one, which is kept only once
+        db.execSQL("INSERT OR IGNORE INTO " + TABLE_ASOCSESSIONSDEVICES + "(" + KEY_ASSOCIATION_ID_SESSION_FK + ", " +
+                KEY_ASSOCIATION_ID_DEVICE_FK + ", " + KEY_ASSOCIATION_ID_LOCATION_FK + ") SELECT a." +
+                KEY_ASSOCIATION_ID_SESSION_FK + ", a." + KEY_ASSOCIATION_ID_DEVICE_FK + ", m.newId FROM " +
+                associationsV4 + " a JOIN " + locationIdsV4 + " m ON m.oldId = a." + KEY_ASSOCIATION_ID_LOCATION_FK);
+        db.execSQL("DROP TABLE " + associationsV4);
+        db.execSQL("DROP TABLE " + locationIdsV4);
+        createIndexes(db);
+    }
+
+    /**
+     * Parses the "lat, long" coordinates of a version 4 location.
+     *
+     * @return {latitude, longitude}, or null if the string is malformed.
+     */
+    private static double[] parseCoordinatesV4(String coordinates) {
+        if (coordinates == null)
+            return null;
+
+        int separator = coordinates.indexOf(',');
+        if (separator < 0)
+            return null;
+
+        double latitude, longitude;
+        try {
+            latitude = Double.parseDouble(coordinates.substring(0, separator).trim());
+            longitude = Double.parseDouble(coordinates.substring(separator + 1).trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+
+        //NaN would be stored as NULL, which the coordinate columns don't allow
+        if (Double.isNaN(latitude) || Double.isNaN(longitude) || Double.isInfinite(latitude) ||
+                Double.isInfinite(longitude))
+            return null;
+        return new double[]{latitude, longitude};
+    }
+
+    /**
+     * Binds a "dd/MM/yyyy HH:mm:ss" date as epoch milliseconds, or null if it can't be parsed.
+     */
+    private static void bindDateString(SQLiteStatement statement, int index, String date,
+                                       SimpleDateFormat dateFormat) {
+        try {
+            statement.bindLong(index, dateFormat.parse(date).getTime());
+        } catch (ParseException | NullPointerException e) {
+            statement.bindNull(index);
+        }
+    }
+
+    /**
+     * Returns the in-memory index of the stored devices. The first call loads it from the
+     * devices table.
+     */
+    private synchronized DeviceIndex getDeviceIndex() {
+        if (deviceIndex == null) {
+            SQLiteDatabase db = getReadableDatabase();
+            Cursor cursor = null;
+            try {
+                cursor = db.query(TABLE_DEVICES, new String[]{KEY_DEVICE_ID, KEY_DEVICE_BSSID}, null, null, null,
+                        null, null);
+                DeviceIndex index = new DeviceIndex(cursor.getCount());
+                while (cursor.moveToNext()) {
+                    long mac = Codecs.macToLong(cursor.getString(1));
+                    if (mac != -1)
+                        index.put(mac, cursor.getLong(0));
+                }
+                deviceIndex = index;
+            } catch (SQLException e) {
+                Log.d("DEVICE INDEX", "ERROR WHILE LOADING THE DEVICE INDEX");
+                deviceIndex = new DeviceIndex(0);
+            } finally {
+                if (cursor != null)
+                    cursor.close();
+            }
+        }
+        return deviceIndex;
+    }
+
+    /**
+     * Loads the in-memory device index, so that the first scans don't pay for it.
+     */
+    public void loadDeviceIndex() {
+        getDeviceIndex();
     }
 
     //Database operations
 
-    public void addSession(Session session) {
+    /**
+     * Stores a new session.
+     *
+     * @return The id of the stored session.
+     */
+    public long addSession(Session session) {
         SQLiteDatabase db = getWritableDatabase();
+        long sessionId = -1;
 
         db.beginTransaction();
         try {
             ContentValues values = new ContentValues();
-            values.put(KEY_SESSION_STARTDATE, session.getStartDateString());
+            values.put(KEY_SESSION_STARTDATE, session.getStartDate().getTime());
 
-            long rowId = db.insertOrThrow(TABLE_SESSIONS, null, values);
-            if (rowId > sessionId)           // 0 > -1
-                sessionId = rowId;
+            sessionId = db.insertOrThrow(TABLE_SESSIONS, null, values);
             db.setTransactionSuccessful();
         } catch (SQLException e) {
             Log.d("ADD SESSION TO DB", "ERROR WHILE ADDING A SESSION TO DB");
         } finally {
             db.endTransaction();
         }
+
+        return sessionId;
     }
 
-    public void updateSession(String formattedEndDate) {
+    public void updateSession(long sessionId, Date endDate) {
         SQLiteDatabase db = getWritableDatabase();
 
         ContentValues values = new ContentValues();
-        values.put(KEY_SESSION_ENDDATE, formattedEndDate);
+        values.put(KEY_SESSION_ENDDATE, endDate.getTime());
         String[] args = new String[]{Long.toString(sessionId)};
 
         db.update(TABLE_SESSIONS, values, KEY_SESSION_ID + " = ?", args);
     }
 
-    public void addDevice(final Device device) {
+    /**
+     * Updates the manufacturer of every given device in a single transaction.
+     */
+    public void updateManufacturers(List<Device> devices) {
+        Tracing.begin(Tracing.DB_UPDATE_MANUFACTURERS);
         SQLiteDatabase db = getWritableDatabase();
-        Cursor c = null;
+        SQLiteStatement update = db.compileStatement("UPDATE " + TABLE_DEVICES + " SET " + KEY_DEVICE_MANUFACTURER +
+                " = ? WHERE " + KEY_DEVICE_BSSID + " = ?");
 
-        db.beginTransaction();
+        db.beginTransactionNonExclusive();
         try {
-            ContentValues values = new ContentValues();
-            values.put(KEY_DEVICE_SSID, device.getSsid());
-            values.put(KEY_DEVICE_BSSID, device.getBssid());
-            values.put(KEY_DEVICE_MANUFACTURER, device.getManufacturer());
-            values.put(KEY_DEVICE_CHARACTERISTICS, device.getCharacteristics());
-            values.put(KEY_DEVICE_CHANNELWIDTH, device.getChannelWidth());
-            values.put(KEY_DEVICE_FREQUENCY, device.getFrequency());
-            values.put(KEY_DEVICE_INTENSITY, device.getSignalIntensity());
-            values.put(KEY_DEVICE_TYPE, device.getType().toString());
-
-            long rowId = db.insertOrThrow(TABLE_DEVICES, null, values);
-            if (rowId > deviceId)            // 0 > -1
-                deviceId = rowId;
-            db.setTransactionSuccessful();
-        } catch (SQLException e) {
-            //Log.d("ADD DEVICE TO DB", "ERROR WHILE ADDING A DEVICE TO DB");
-            //The error is caused because the device already exists in the database.
-            //We need to get the ID of such device.
-            String[] fields = new String[]{KEY_DEVICE_ID};
-            String[] args = new String[]{device.getBssid()};
-
-            c = db.query(TABLE_DEVICES, fields, KEY_DEVICE_BSSID + "=?", args, null, null, null);
-            //Check if there is at least one result
-            if (c.moveToFirst()) {
-                deviceId = c.getInt(c.getColumnIndex(KEY_DEVICE_ID));
-                //Log.d("ADD DEVICE TO DB", "EXISTING DEVICE ID FOUND: " + deviceId);
+            for (Device device : devices) {
+                bindNullableString(update, 1, device.getManufacturer());
+                update.bindString(2, device.getBssid());
+                update.executeUpdateDelete();
             }
             db.setTransactionSuccessful();
+        } catch (SQLException e) {
+            Log.d("UPDATE MANUFACTURERS", "ERROR WHILE UPDATING MANUFACTURERS");
         } finally {
             db.endTransaction();
-            if (c != null)
-                c.close();
+            update.close();
+            Tracing.end();
         }
     }
 
-    public void updateDeviceWithManufacturer(Device device) {
-        SQLiteDatabase db = getWritableDatabase();
+    /**
+     * @return The cached manufacturer of an OUI prefix, or null if the prefix is not cached.
+     */
+    public ManufacturerResolver.CachedManufacturer getCachedManufacturer(long prefix) {
+        ManufacturerResolver.CachedManufacturer manufacturer = null;
+
+        Cursor cursor = null;
+        try {
+            cursor = getReadableDatabase().query(TABLE_MANUFACTURERS, new String[]{KEY_MANUFACTURER_NAME,
+                    KEY_MANUFACTURER_EXPIRESAT}, KEY_MANUFACTURER_PREFIX + "=?", new String[]{String.valueOf(prefix)},
+                    null, null, null);
+            if (cursor.moveToFirst())
+                manufacturer = new ManufacturerResolver.CachedManufacturer(cursor.getString(0), cursor.getLong(1));
+        } catch (SQLException e) {
+            Log.d("GET MANUFACTURER", "ERROR WHILE GETTING MANUFACTURER OF PREFIX");
+        } finally {
+            if (cursor != null)
+                cursor.close();
+        }
 
+        return manufacturer;
+    }
+
+    /**
+     * Stores the manufacturer of an OUI prefix, replacing the previous entry.
+     *
+     * @param manufacturer The manufacturer, or null if the prefix has no registered manufacturer
+     */
+    public void cacheManufacturer(long prefix, String manufacturer, long expiresAt) {
         ContentValues values = new ContentValues();
-        values.put(KEY_DEVICE_MANUFACTURER, device.getManufacturer());
-        String[] args = new String[]{device.getBssid()};
+        values.put(KEY_MANUFACTURER_PREFIX, prefix);
+        values.put(KEY_MANUFACTURER_NAME, manufacturer);
+        values.put(KEY_MANUFACTURER_EXPIRESAT, expiresAt);
 
-        db.update(TABLE_DEVICES, values, KEY_DEVICE_BSSID + " = ?", args);
+        try {
+            getWritableDatabase().insertWithOnConflict(TABLE_MANUFACTURERS, null, values,
+                    SQLiteDatabase.CONFLICT_REPLACE);
+        } catch (SQLException e) {
+            Log.d("CACHE MANUFACTURER", "ERROR WHILE CACHING MANUFACTURER");
+        }
     }
 
     public String getManufacturerOfDevice(String deviceBssid) {
@@ -243,7 +604,6 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         String manufacturer = "";
 
         Cursor c = null;
-        db.beginTransaction();
         try {
             String selectQuery = "SELECT " + KEY_DEVICE_MANUFACTURER + " FROM " + TABLE_DEVICES + " WHERE " +
                     KEY_DEVICE_BSSID + "=?";
@@ -251,11 +611,9 @@ public class DatabaseHelper extends SQLiteOpenHelper {
             c = db.rawQuery(selectQuery, new String[]{deviceBssid});
             if (c.moveToFirst())
                 manufacturer = c.getString(c.getColumnIndex(KEY_DEVICE_MANUFACTURER));
-            db.setTransactionSuccessful();
         } catch (SQLException e) {
             Log.d("GET MANUFACTURER", "ERROR WHILE GETTING MANUFACTURER FROM DEVICE");
         } finally {
-            db.endTransaction();
             if (c != null)
                 c.close();
         }
@@ -263,12 +621,26 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         return manufacturer;
     }
 
+    /**
+     * Checks whether a device is stored in the database. The in-memory index answers without
+     * touching the database unless its Bloom filter reports a possible match that the index map
+     * can't confirm.
+     */
     public boolean deviceExistsInDb(Device device) {
+        long mac = Codecs.macToLong(device.getBssid());
+        if (mac != -1) {
+            DeviceIndex index = getDeviceIndex();
+            if (!index.mightContain(mac))
+                return false;
+            if (index.getDeviceId(mac) != DeviceIndex.NOT_INDEXED)
+                return true;
+        }
+
         boolean exists = false;
+        long deviceId = -1;
 
         SQLiteDatabase db = getReadableDatabase();
         Cursor cursor = null;
-        db.beginTransaction();
         try {
             String[] fields = new String[]{KEY_DEVICE_ID};
             String[] args = new String[]{device.getBssid()};
@@ -276,73 +648,162 @@ public class DatabaseHelper extends SQLiteOpenHelper {
             cursor = db.query(TABLE_DEVICES, fields, KEY_DEVICE_BSSID + "=?", args, null, null, null);
             //Check if there is at least one result
             if (cursor.moveToFirst()) {
-                deviceId = cursor.getInt(cursor.getColumnIndex(KEY_DEVICE_ID));
+                deviceId = cursor.getLong(0);
                 exists = true;
             }
         } catch (SQLException e) {
             Log.d("selectLocationsHeatmap", "ERROR WHILE GETTING LOCATIONS FOR HEATMAP");
         } finally {
-            db.endTransaction();
             if (cursor != null)
                 cursor.close();
         }
 
+        if (exists && mac != -1)
+            getDeviceIndex().put(mac, deviceId);
+
         return exists;
     }
 
-    public void addLocation(Location location) {
-        SQLiteDatabase db = getWritableDatabase();
+    /**
+     * Stores the results of a whole scan in a single transaction. The location and the devices are
+     * written through precompiled statements with INSERT OR IGNORE semantics, so devices which are
+     * already stored are skipped without raising an exception. As in the per-device path, an
+     * association is only created for the devices stored for the first time.
+     *
+     * @param sessionId Id of the session the scan belongs to
+     * @param location  Location where the scan took place
+     * @param devices   Devices found in the scan
+     * @return The devices which did not exist in the database before this scan, or null if the scan could
+     * not be stored
+     */
+    public List<Device> ingestScan(long sessionId, Location location, List<Device> devices) {
+        long start = SystemClock.elapsedRealtimeNanos();
+        Tracing.begin(Tracing.DB_INGEST_SCAN);
+        List<Device> newDevices = new ArrayList<>();
+        long[] newDeviceIds = new long[devices.size()];
 
-        db.beginTransaction();
+        SQLiteDatabase db = getWritableDatabase();
+        SQLiteStatement insertLocation = db.compileStatement("INSERT OR IGNORE INTO " + TABLE_LOCATIONS +
+                "(" + KEY_LOCATION_DATE + ", " + KEY_LOCATION_LATITUDE + ", " + KEY_LOCATION_LONGITUDE +
+                ") VALUES (?, ?, ?)");
+        SQLiteStatement selectLocationId = db.compileStatement("SELECT " + KEY_LOCATION_ID + " FROM " +
+                TABLE_LOCATIONS + " WHERE " + KEY_LOCATION_LATITUDE + " = ? AND " + KEY_LOCATION_LONGITUDE + " = ?");
+        SQLiteStatement insertDevice = db.compileStatement("INSERT OR IGNORE INTO " + TABLE_DEVICES +
+                "(" + KEY_DEVICE_SSID + ", " + KEY_DEVICE_BSSID + ", " + KEY_DEVICE_MANUFACTURER + ", " +
+                KEY_DEVICE_CHARACTERISTICS + ", " + KEY_DEVICE_CHANNELWIDTH + ", " + KEY_DEVICE_FREQUENCY + ", " +
+                KEY_DEVICE_INTENSITY + ", " + KEY_DEVICE_TYPE + ", " + KEY_DEVICE_SECURITY +
+                ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        SQLiteStatement insertAssociation = db.compileStatement("INSERT OR IGNORE INTO " +
+                TABLE_ASOCSESSIONSDEVICES + "(" + KEY_ASSOCIATION_ID_SESSION_FK + ", " +
+                KEY_ASSOCIATION_ID_DEVICE_FK + ", " + KEY_ASSOCIATION_ID_LOCATION_FK + ") VALUES (?, ?, ?)");
+
+        DeviceIndex index = getDeviceIndex();
+        LatencyHistogram insertDeviceLatency = Metrics.histogram(Metrics.DB_INSERT_DEVICE);
+        LatencyHistogram insertAssociationLatency = Metrics.histogram(Metrics.DB_INSERT_ASSOCIATION);
+        db.beginTransactionNonExclusive();
         try {
-            ContentValues values = new ContentValues();
-            values.put(KEY_LOCATION_DATE, location.getDateString());
-            values.put(KEY_LOCATION_COORDINATES, location.getCoordinatesString());
-
-            long rowId = db.insertOrThrow(TABLE_LOCATIONS, null, values);
-            if (rowId > locationId)           // 0 > -1
-                locationId = rowId;
-            db.setTransactionSuccessful();
-        } catch (SQLException e) {
-            //Log.d("ADD LOCATION TO DB", "ERROR WHILE ADDING A LOCATION TO DB");
-            //The error is caused because the location already exists in the database.
-            //We need to get the ID of such location.
-            String[] fields = new String[]{KEY_LOCATION_ID};
-            String[] args = new String[]{location.getCoordinatesString()};
+            if (location.getDate() != null)
+                insertLocation.bindLong(1, location.getDate().getTime());
+            else
+                insertLocation.bindNull(1);
+            insertLocation.bindDouble(2, location.getLatitude());
+            insertLocation.bindDouble(3, location.getLongitude());
+            long scanLocationId = insertLocation.executeInsert();
+            if (scanLocationId == -1) {
+                //The location already exists in the database, we need to get its ID
+                selectLocationId.bindDouble(1, location.getLatitude());
+                selectLocationId.bindDouble(2, location.getLongitude());
+                scanLocationId = selectLocationId.simpleQueryForLong();
+            }
 
-            Cursor c = db.query(TABLE_LOCATIONS, fields, KEY_LOCATION_COORDINATES + "=?", args, null, null, null);
-            //Check if there is at least one result
-            if (c.moveToFirst()) {
-                locationId = c.getInt(c.getColumnIndex(KEY_LOCATION_ID));
+            for (Device device : devices) {
+                //Devices already indexed are known to be stored, no need to try to insert them
+                long mac = Codecs.macToLong(device.getBssid());
+                if (mac != -1 && index.getDeviceId(mac) != DeviceIndex.NOT_INDEXED)
+                    continue;
+
+                bindNullableString(insertDevice, 1, device.getSsid());
+                bindNullableString(insertDevice, 2, device.getBssid());
+                bindNullableString(insertDevice, 3, device.getManufacturer());
+                bindNullableString(insertDevice, 4, device.getCharacteristics());
+                bindNullableString(insertDevice, 5, device.getChannelWidth());
+                insertDevice.bindLong(6, device.getFrequency());
+                insertDevice.bindLong(7, (long) device.getSignalIntensity());
+                insertDevice.bindString(8, device.getType().toString());
+                insertDevice.bindLong(9, getSecurity(device));
+
+                //executeInsert returns -1 when the device already existed and the row was ignored
+                long statementStart = SystemClock.elapsedRealtimeNanos();
+                long rowId = insertDevice.executeInsert();
+                insertDeviceLatency.recordNanos(SystemClock.elapsedRealtimeNanos() - statementStart);
+                if (rowId == -1)
+                    continue;
+
+                insertAssociation.bindLong(1, sessionId);
+                insertAssociation.bindLong(2, rowId);
+                insertAssociation.bindLong(3, scanLocationId);
+                statementStart = SystemClock.elapsedRealtimeNanos();
+                insertAssociation.executeInsert();
+                insertAssociationLatency.recordNanos(SystemClock.elapsedRealtimeNanos() - statementStart);
+
+                newDeviceIds[newDevices.size()] = rowId;
+                newDevices.add(device);
             }
-            c.close();
+
             db.setTransactionSuccessful();
+        } catch (SQLException e) {
+            Log.d("INGEST SCAN", "ERROR WHILE STORING SCAN RESULTS IN DB");
+            newDevices = null;
         } finally {
             db.endTransaction();
+            insertLocation.close();
+            selectLocationId.close();
+            insertDevice.close();
+            insertAssociation.close();
         }
+
+        //The index is only updated with rows that have been committed
+        for (int i = 0; newDevices != null && i < newDevices.size(); i++) {
+            long mac = Codecs.macToLong(newDevices.get(i).getBssid());
+            if (mac != -1)
+                index.put(mac, newDeviceIds[i]);
+        }
+
+        Tracing.end();
+        Metrics.histogram(Metrics.DB_INGEST_SCAN).recordNanos(SystemClock.elapsedRealtimeNanos() - start);
+        return newDevices;
     }
 
-    public void addAssociation() {
-        SQLiteDatabase db = getWritableDatabase();
+    /**
+     * Reads a date stored as epoch milliseconds, which may be null.
+     */
+    private static Date getDate(Cursor cursor, int columnIndex) {
+        return cursor.isNull(columnIndex) ? null : new Date(cursor.getLong(columnIndex));
+    }
 
-        db.beginTransaction();
-        try {
-            ContentValues values = new ContentValues();
-            values.put(KEY_ASSOCIATION_ID_SESSION_FK, sessionId);
-            values.put(KEY_ASSOCIATION_ID_DEVICE_FK, deviceId);
-            values.put(KEY_ASSOCIATION_ID_LOCATION_FK, locationId);
+    /**
+     * Only the capabilities of wifi devices are security flags, bluetooth devices store their class there.
+     */
+    private static int getSecurity(Device device) {
+        return device.getType() == DeviceType.WIFI ? SecurityFlags.parse(device.getCharacteristics()) : 0;
+    }
 
-            db.insertOrThrow(TABLE_ASOCSESSIONSDEVICES, null, values);
-            db.setTransactionSuccessful();
-        } catch (SQLException e) {
-            Log.d("ADD ASSOCIATION TO DB", "ASSOCIATION ALREADY EXISTS: " + sessionId + "," + deviceId + "," + locationId);
-        } finally {
-            db.endTransaction();
-        }
+    private static void bindNullableString(SQLiteStatement statement, int index, String value) {
+        if (value == null)
+            statement.bindNull(index);
+        else
+            statement.bindString(index, value);
     }
 
-    public void deleteDatabase(Context applicationContext) {
+    /**
+     * Deletes every session, device, location and association, along with the export watermarks.
+     *
+     * @return Whether the data was deleted.
+     */
+    public boolean deleteDatabase() {
         SQLiteDatabase db = getWritableDatabase();
+        DeviceIndex index = getDeviceIndex();
+        boolean deleted = false;
 
         db.beginTransaction();
         try {
@@ -350,60 +811,63 @@ public class DatabaseHelper extends SQLiteOpenHelper {
             db.delete(TABLE_SESSIONS, null, null);
             db.delete(TABLE_LOCATIONS, null, null);
             db.delete(TABLE_DEVICES, null, null);
+            //The export watermarks refer to associations which are gone
+            db.delete(TABLE_SYNCSTATE, null, null);
 
             db.setTransactionSuccessful();
-            Toast.makeText(applicationContext, "Datos borrados satisfactoriamente", Toast.LENGTH_SHORT)
-                    .show();
+            index.clear();
+            deleted = true;
         } catch (SQLException e) {
             //Log.d("DELETE DATA FROM DB", "ERROR WHILE DELETING DATA FROM DB");
         } finally {
             db.endTransaction();
         }
+
+        return deleted;
     }
 
     /**
-     * Returns all the locations stored in the internal database and the number
-     * of devices found on each of them.
+     * Returns all the locations stored in the internal database, weighted by the number
+     * of devices found on each of them. The counts are computed by a single aggregate query
+     * over the association table, which runs on the idLocation index.
      *
-     * @return locationMap A Map with the data mentioned above
+     * @return A list with the weighted locations
      */
-    public Map<Location, Integer> selectLocationsForHeatmap() {
-        Map<Location, Integer> locationMap = new ArrayMap<>();
+    public ArrayList<WeightedLatLng> selectLocationsForHeatmap() {
+        long start = SystemClock.elapsedRealtimeNanos();
+        ArrayList<WeightedLatLng> heatmapData = new ArrayList<>();
 
         SQLiteDatabase db = getReadableDatabase();
         Cursor cursor = null;
-        db.beginTransaction();
         try {
-            String selectQuery = "SELECT * FROM " + TABLE_LOCATIONS;
+            String selectQuery = "SELECT l." + KEY_LOCATION_LATITUDE + ", l." + KEY_LOCATION_LONGITUDE +
+                    ", count(*) FROM " +
+                    TABLE_ASOCSESSIONSDEVICES + " a JOIN " + TABLE_LOCATIONS + " l ON l." + KEY_LOCATION_ID +
+                    " = a." + KEY_ASSOCIATION_ID_LOCATION_FK + " GROUP BY a." + KEY_ASSOCIATION_ID_LOCATION_FK;
             cursor = db.rawQuery(selectQuery, null);
 
-            if (cursor.moveToFirst()) {
-                do {
-                    String[] latlong = cursor.getString(2).split(", ");
-                    double latitude = Double.parseDouble(latlong[0]);
-                    double longitude = Double.parseDouble(latlong[1]);
-                    Location location = new Location(new LatLng(latitude, longitude));
-
-                    String countQuery = "SELECT count(*) FROM " + TABLE_ASOCSESSIONSDEVICES
-                            + " WHERE " + KEY_ASSOCIATION_ID_LOCATION_FK + " = "
-                            + cursor.getInt(0);
-                    Cursor countCursor = db.rawQuery(countQuery, null);
-                    if (countCursor.moveToFirst())
-                        locationMap.put(location, countCursor.getInt(0));
-                    countCursor.close();
-                } while (cursor.moveToNext());
+            heatmapData.ensureCapacity(cursor.getCount());
+            while (cursor.moveToNext()) {
+                LatLng coordinates = new LatLng(cursor.getDouble(0), cursor.getDouble(1));
+                heatmapData.add(new WeightedLatLng(coordinates, cursor.getInt(2)));
             }
 
-            db.setTransactionSuccessful();
         } catch (SQLException e) {
             Log.d("selectLocationsHeatmap", "ERROR WHILE GETTING LOCATIONS FOR HEATMAP");
         } finally {
-            db.endTransaction();
             if (cursor != null)
                 cursor.close();
         }
 
-        return locationMap;
+        Metrics.histogram(Metrics.DB_HEATMAP_QUERY).recordNanos(SystemClock.elapsedRealtimeNanos() - start);
+        return heatmapData;
+    }
+
+    /**
+     * Whether there are associations which haven't been acknowledged by the server yet.
+     */
+    public boolean hasPendingExport() {
+        return getLastAssociationId() > getExportWatermark();
     }
 
     /**
@@ -414,7 +878,6 @@ public class DatabaseHelper extends SQLiteOpenHelper {
 
         SQLiteDatabase db = getReadableDatabase();
         Cursor countCursor = null;
-        db.beginTransaction();
         try {
             String countQuery = "SELECT count(*) FROM " + TABLE_SESSIONS;
             countCursor = db.rawQuery(countQuery, null);
@@ -423,7 +886,6 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         } catch (SQLException e) {
             Log.d("selectLocationsHeatmap", "ERROR WHILE GETTING LOCATIONS FOR HEATMAP");
         } finally {
-            db.endTransaction();
             if (countCursor != null)
                 countCursor.close();
         }
@@ -431,130 +893,303 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         return numberOfSessions;
     }
 
-    //Querying methods
-
-    public List<Association> getAllAssociations() {
-        List<Association> associations = new LinkedList<>();
+    /**
+     * Counts the wifi networks whose security flags, restricted to the given mask, are equal to the
+     * given flags.
+     *
+     * A bitwise condition can't be served by the (type, security) index, so the query is run on the
+     * stored values instead: the distinct security values of the wifi networks are enumerated with one
+     * index seek each (there are only a few dozen combinations in practice), the ones which match are
+     * selected here, and the networks are counted with an equality lookup on each of them.
+     *
+     * For instance, countDevicesBySecurity(SecurityFlags.WPS, SecurityFlags.WPS) counts the networks
+     * with WPS, and countDevicesBySecurity(SecurityFlags.ENCRYPTED, 0) counts the unencrypted ones.
+     *
+     * @param mask  The SecurityFlags to be checked
+     * @param flags The SecurityFlags, among those of the mask, which must be set
+     * @return The number of networks, or 0 if the query could not be executed.
+     */
+    public long countDevicesBySecurity(int mask, int flags) {
+        long count = 0;
 
         SQLiteDatabase db = getReadableDatabase();
-        Cursor cursor = null;
-        db.beginTransaction();
+        SQLiteStatement nextSecurity = null;
+        SQLiteStatement countQuery = null;
         try {
-            String selectQuery = "SELECT * FROM " + TABLE_ASOCSESSIONSDEVICES;
-            cursor = db.rawQuery(selectQuery, null);
-            if (cursor.moveToFirst()) {
-                do {
-                    int sessionId = cursor.getInt(cursor.getColumnIndex(KEY_ASSOCIATION_ID_SESSION_FK));
-                    int deviceId = cursor.getInt(cursor.getColumnIndex(KEY_ASSOCIATION_ID_DEVICE_FK));
-                    int locationId = cursor.getInt(cursor.getColumnIndex(KEY_ASSOCIATION_ID_LOCATION_FK));
-
-                    Association queriedAssociation = new Association(sessionId, deviceId, locationId);
-                    associations.add(queriedAssociation);
-                } while (cursor.moveToNext());
+            nextSecurity = db.compileStatement("SELECT min(" + KEY_DEVICE_SECURITY + ") FROM " + TABLE_DEVICES +
+                    " WHERE " + KEY_DEVICE_TYPE + " = ? AND " + KEY_DEVICE_SECURITY + " > ?");
+            nextSecurity.bindString(1, DeviceType.WIFI.toString());
+
+            StringBuilder matchingValues = new StringBuilder();
+            long security = Long.MIN_VALUE;
+            while (true) {
+                nextSecurity.bindLong(2, security);
+                //min() of no rows is NULL, which only the string variant reports
+                String next = nextSecurity.simpleQueryForString();
+                if (next == null)
+                    break;
+
+                security = Long.parseLong(next);
+                if ((security & mask) == (flags & mask)) {
+                    if (matchingValues.length() > 0)
+                        matchingValues.append(", ");
+                    matchingValues.append(security);
+                }
             }
-        } catch (SQLException e) {
-            Log.d("getAllAssociations", "ERROR WHILE GETTING ASSOCIATIONS FROM DB");
+
+            if (matchingValues.length() > 0) {
+                countQuery = db.compileStatement("SELECT count(*) FROM " + TABLE_DEVICES + " WHERE " +
+                        KEY_DEVICE_TYPE + " = ? AND " + KEY_DEVICE_SECURITY + " IN (" + matchingValues + ")");
+                countQuery.bindString(1, DeviceType.WIFI.toString());
+                count = countQuery.simpleQueryForLong();
+            }
+        } catch (SQLException | NumberFormatException e) {
+            Log.d("countDevicesBySecurity", "ERROR WHILE COUNTING DEVICES BY SECURITY");
         } finally {
-            db.endTransaction();
-            if (cursor != null)
-                cursor.close();
+            if (nextSecurity != null)
+                nextSecurity.close();
+            if (countQuery != null)
+                countQuery.close();
         }
 
-        return associations;
+        return count;
     }
 
-    public Session getSession(int id) {
-        Session session = null;
+    //Export methods
+    //Exports are incremental: only the associations whose id is in (fromId, toId] are
+    //exported, together with the sessions, devices and locations they reference. The rows are handed
+    //to the callback one by one, straight from the cursor, so that exporting the database doesn't
+    //require holding it in memory.
 
-        SQLiteDatabase db = getReadableDatabase();
-        Cursor cursor = null;
-        db.beginTransaction();
+    /**
+     * @return The id of the last association acknowledged by the server, 0 if none.
+     */
+    public long getExportWatermark() {
+        return getSyncValue(SYNC_LAST_ASSOCIATION_ID);
+    }
+
+    /**
+     * @return The highest association id, 0 if there are no associations.
+     */
+    public long getLastAssociationId() {
+        SQLiteStatement statement = getReadableDatabase().compileStatement("SELECT ifnull(max(" +
+                KEY_ASSOCIATION_ID + "), 0) FROM " + TABLE_ASOCSESSIONSDEVICES);
         try {
-            String selectQuery = "SELECT * FROM " + TABLE_SESSIONS + " WHERE " + KEY_SESSION_ID + "= " + id;
-            cursor = db.rawQuery(selectQuery, null);
-            if (cursor.moveToFirst()) {
-                Date startDate = Utils.reverseFormatDate(cursor.getString(cursor.getColumnIndex(KEY_SESSION_STARTDATE)));
-                Date endDate = Utils.reverseFormatDate(cursor.getString(cursor.getColumnIndex(KEY_SESSION_ENDDATE)));
+            return statement.simpleQueryForLong();
+        } finally {
+            statement.close();
+        }
+    }
 
-                session = new Session(startDate, endDate);
-            }
+    /**
+     * Returns the id that ends a chunk of at most chunkSize associations after fromId.
+     *
+     * @return The id of the last association of the chunk, never greater than toId.
+     */
+    public long getExportChunkEnd(long fromId, long toId, int chunkSize) {
+        long chunkEnd = toId;
+
+        Cursor cursor = null;
+        try {
+            cursor = getReadableDatabase().rawQuery("SELECT " + KEY_ASSOCIATION_ID + " FROM " +
+                    TABLE_ASOCSESSIONSDEVICES + " WHERE " + ASSOCIATION_RANGE + " ORDER BY " + KEY_ASSOCIATION_ID +
+                    " LIMIT 1 OFFSET " + (chunkSize - 1), rangeArgs(fromId, toId));
+            if (cursor.moveToFirst())
+                chunkEnd = cursor.getLong(0);
         } catch (SQLException e) {
-            Log.d("getSession", "ERROR WHILE GETTING SESSION FROM DB");
+            Log.d("EXPORT CHUNK", "ERROR WHILE GETTING THE END OF AN EXPORT CHUNK");
         } finally {
-            db.endTransaction();
             if (cursor != null)
                 cursor.close();
         }
 
-        return session;
+        return chunkEnd;
     }
 
-    public Location getLocation(int id) {
-        Location location = null;
+    /**
+     * @return The number of associations whose id is in (fromId, toId].
+     */
+    public long countExportedAssociations(long fromId, long toId) {
+        SQLiteStatement statement = getReadableDatabase().compileStatement("SELECT count(*) FROM " +
+                TABLE_ASOCSESSIONSDEVICES + " WHERE " + ASSOCIATION_RANGE);
+        try {
+            statement.bindLong(1, fromId);
+            statement.bindLong(2, toId);
+            return statement.simpleQueryForLong();
+        } finally {
+            statement.close();
+        }
+    }
 
-        SQLiteDatabase db = getReadableDatabase();
-        Cursor cursor = null;
-        db.beginTransaction();
+    /**
+     * Advances the export watermark once the server has acknowledged the associations up to toId.
+     */
+    public void advanceExportWatermark(long toId) {
         try {
-            String selectQuery = "SELECT * FROM " + TABLE_LOCATIONS + " WHERE " + KEY_SESSION_ID + "= " + id;
-            cursor = db.rawQuery(selectQuery, null);
-            if (cursor.moveToFirst()) {
-                Date date = Utils.reverseFormatDate(cursor.getString(cursor.getColumnIndex(KEY_LOCATION_DATE)));
-                String coordinatesString = cursor.getString(cursor.getColumnIndex(KEY_LOCATION_COORDINATES));
+            putSyncValue(getWritableDatabase(), SYNC_LAST_ASSOCIATION_ID, toId);
+        } catch (SQLException e) {
+            Log.d("EXPORT WATERMARK", "ERROR WHILE UPDATING THE EXPORT WATERMARK");
+        }
+    }
 
-                //coordinates string format => "lat, long"
-                String[] splitString = coordinatesString.trim().split(",");
-                LatLng coordinates = new LatLng(Double.parseDouble(splitString[0]), Double.parseDouble(splitString[1]));
+    private long getSyncValue(String name) {
+        long value = 0;
 
-                location = new Location(date, coordinates);
-            }
+        Cursor cursor = null;
+        try {
+            cursor = getReadableDatabase().query(TABLE_SYNCSTATE, new String[]{KEY_SYNC_VALUE}, KEY_SYNC_NAME + "=?",
+                    new String[]{name}, null, null, null);
+            if (cursor.moveToFirst())
+                value = cursor.getLong(0);
         } catch (SQLException e) {
-            Log.d("getLocation", "ERROR WHILE GETTING LOCATION FROM DB");
+            Log.d("SYNC STATE", "ERROR WHILE READING SYNC STATE " + name);
         } finally {
-            db.endTransaction();
             if (cursor != null)
                 cursor.close();
         }
 
-        return location;
+        return value;
     }
 
-    public Device getDevice(int id) {
-        Device device = null;
+    private static void putSyncValue(SQLiteDatabase db, String name, long value) {
+        ContentValues values = new ContentValues();
+        values.put(KEY_SYNC_NAME, name);
+        values.put(KEY_SYNC_VALUE, value);
+        db.insertWithOnConflict(TABLE_SYNCSTATE, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    }
 
-        SQLiteDatabase db = getReadableDatabase();
-        Cursor cursor = null;
-        db.beginTransaction();
+    /**
+     * Reads every session referenced by an association of the range.
+     */
+    public void forEachExportedSession(long fromId, long toId, RowCallback<Session> callback)
+            throws IOException {
+        Cursor cursor = getReadableDatabase().query(TABLE_SESSIONS, SESSION_COLUMNS, KEY_SESSION_ID + " IN (SELECT " +
+                KEY_ASSOCIATION_ID_SESSION_FK + " FROM " + TABLE_ASOCSESSIONSDEVICES + " WHERE " + ASSOCIATION_RANGE +
+                ")", rangeArgs(fromId, toId), null, null, null);
         try {
-            String selectQuery = "SELECT * FROM " + TABLE_DEVICES + " WHERE " + KEY_DEVICE_ID + "= " + id;
-            cursor = db.rawQuery(selectQuery, null);
-            if (cursor.moveToFirst()) {
-                String ssid = cursor.getString(cursor.getColumnIndex(KEY_DEVICE_SSID));
-                String bssid = cursor.getString(cursor.getColumnIndex(KEY_DEVICE_BSSID));
-                String characteristics = cursor.getString(cursor.getColumnIndex(KEY_DEVICE_CHARACTERISTICS));
-                String manufacturer = cursor.getString(cursor.getColumnIndex(KEY_DEVICE_MANUFACTURER));
-                String channelWidth = cursor.getString(cursor.getColumnIndex(KEY_DEVICE_CHANNELWIDTH));
-                int frequency = cursor.getInt(cursor.getColumnIndex(KEY_DEVICE_FREQUENCY));
-                int signalIntensity = cursor.getInt(cursor.getColumnIndex(KEY_DEVICE_INTENSITY));
-                String typeString = cursor.getString(cursor.getColumnIndex(KEY_DEVICE_TYPE));
-
-                DeviceType type = DeviceType.valueOf(typeString);
-
-                //Second constructor
-                //String ssid, String bssid, String characteristics, String manufacturer, Object channelWidth,
-                // int frequency, int signalIntensity, DeviceType type
-                device = new Device(ssid, bssid, characteristics, manufacturer, channelWidth, frequency, signalIntensity,
-                        type);
-            }
-        } catch (SQLException e) {
-            Log.d("getDevice", "ERROR WHILE GETTING DEVICE FROM DB");
+            while (cursor.moveToNext())
+                callback.onRow(readSession(cursor, 0));
         } finally {
-            db.endTransaction();
-            if (cursor != null)
-                cursor.close();
+            cursor.close();
         }
-        return device;
+    }
 
+    /**
+     * Reads every device referenced by an association of the range.
+     */
+    public void forEachExportedDevice(long fromId, long toId, RowCallback<Device> callback)
+            throws IOException {
+        Cursor cursor = getReadableDatabase().query(TABLE_DEVICES, DEVICE_COLUMNS, KEY_DEVICE_ID + " IN (SELECT " +
+                KEY_ASSOCIATION_ID_DEVICE_FK + " FROM " + TABLE_ASOCSESSIONSDEVICES + " WHERE " + ASSOCIATION_RANGE +
+                ")", rangeArgs(fromId, toId), null, null, null);
+        try {
+            while (cursor.moveToNext())
+                callback.onRow(readDevice(cursor, 0));
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Reads every location referenced by an association of the range.
+     */
+    public void forEachExportedLocation(long fromId, long toId, RowCallback<Location> callback)
+            throws IOException {
+        Cursor cursor = getReadableDatabase().query(TABLE_LOCATIONS, LOCATION_COLUMNS, KEY_LOCATION_ID + " IN (SELECT " +
+                KEY_ASSOCIATION_ID_LOCATION_FK + " FROM " + TABLE_ASOCSESSIONSDEVICES + " WHERE " + ASSOCIATION_RANGE +
+                ")", rangeArgs(fromId, toId), null, null, null);
+        try {
+            while (cursor.moveToNext())
+                callback.onRow(readLocation(cursor, 0));
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Reads every association of the range together with its session, device and location, using a
+     * single JOIN query.
+     */
+    public void forEachExportedAssociation(long fromId, long toId, AssociationCallback callback)
+            throws IOException {
+        StringBuilder columns = new StringBuilder();
+        appendColumns(columns, "s", SESSION_COLUMNS);
+        appendColumns(columns, "d", DEVICE_COLUMNS);
+        appendColumns(columns, "l", LOCATION_COLUMNS);
+
+        String selectQuery = "SELECT " + columns + " FROM " + TABLE_ASOCSESSIONSDEVICES + " a" +
+                " JOIN " + TABLE_SESSIONS + " s ON s." + KEY_SESSION_ID + " = a." + KEY_ASSOCIATION_ID_SESSION_FK +
+                " JOIN " + TABLE_DEVICES + " d ON d." + KEY_DEVICE_ID + " = a." + KEY_ASSOCIATION_ID_DEVICE_FK +
+                " JOIN " + TABLE_LOCATIONS + " l ON l." + KEY_LOCATION_ID + " = a." + KEY_ASSOCIATION_ID_LOCATION_FK +
+                " WHERE " + associationRange("a." + KEY_ASSOCIATION_ID) + " ORDER BY a." + KEY_ASSOCIATION_ID;
+
+        int deviceOffset = SESSION_COLUMNS.length;
+        int locationOffset = deviceOffset + DEVICE_COLUMNS.length;
+
+        Cursor cursor = getReadableDatabase().rawQuery(selectQuery, rangeArgs(fromId, toId));
+        try {
+            while (cursor.moveToNext())
+                callback.onAssociation(readSession(cursor, 0), readDevice(cursor, deviceOffset),
+                        readLocation(cursor, locationOffset));
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static String associationRange(String idColumn) {
+        return idColumn + " > ? AND " + idColumn + " <= ?";
+    }
+
+    private static String[] rangeArgs(long fromId, long toId) {
+        return new String[]{Long.toString(fromId), Long.toString(toId)};
+    }
+
+    private static void appendColumns(StringBuilder builder, String tableAlias, String[] columns) {
+        for (String column : columns) {
+            if (builder.length() > 0)
+                builder.append(", ");
+            builder.append(tableAlias).append('.').append(column);
+        }
+    }
+
+    //Cursor readers. Each one reads the columns of its *_COLUMNS array, starting at the given offset.
+
+    private static Session readSession(Cursor cursor, int offset) {
+        return new Session(getDate(cursor, offset), getDate(cursor, offset + 1));
+    }
+
+    private static Location readLocation(Cursor cursor, int offset) {
+        return new Location(getDate(cursor, offset), cursor.getDouble(offset + 1), cursor.getDouble(offset + 2));
+    }
+
+    private static Device readDevice(Cursor cursor, int offset) {
+        String ssid = cursor.getString(offset);
+        String bssid = cursor.getString(offset + 1);
+        String characteristics = cursor.getString(offset + 2);
+        String manufacturer = cursor.getString(offset + 3);
+        String channelWidth = cursor.getString(offset + 4);
+        int frequency = cursor.getInt(offset + 5);
+        int signalIntensity = cursor.getInt(offset + 6);
+        DeviceType type = DeviceType.valueOf(cursor.getString(offset + 7));
+
+        //Second constructor
+        //String ssid, String bssid, String characteristics, String manufacturer, String channelWidth,
+        // int frequency, int signalIntensity, DeviceType type
+        return new Device(ssid, bssid, characteristics, manufacturer, channelWidth, frequency, signalIntensity, type);
+    }
+
+    /**
+     * Receives the rows of an export query, one at a time.
+     */
+    public interface RowCallback<T> {
+        void onRow(T row) throws IOException;
+    }
+
+    /**
+     * Receives the associations of an export query, one at a time.
+     */
+    public interface AssociationCallback {
+        void onAssociation(Session session, Device device, Location location) throws IOException;
     }
 
 }
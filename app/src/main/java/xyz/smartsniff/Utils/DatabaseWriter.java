@@ -0,0 +1,240 @@
+package xyz.smartsniff.Utils;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import xyz.smartsniff.Model.Device;
+import xyz.smartsniff.Model.Location;
+import xyz.smartsniff.Model.Session;
+
+/**
+ * Write-behind queue for the local database. Every write is executed, in submission order, by a
+ * single background thread, which is the only one writing through the DatabaseHelper connection.
+ * Each write carries the ids it needs, so no state is shared between writes.
+ *
+ * The queue is bounded. When it is full, the submitting thread waits until the writer thread makes
+ * room for the write (back-pressure), so no write is ever discarded.
+ *
+ * Date: 18/10/2026
+ */
+public class DatabaseWriter {
+
+    private static final String TAG = "DatabaseWriter";
+    private static final int QUEUE_CAPACITY = 64;
+
+    //Singleton instance
+    private static DatabaseWriter singletonInstance;
+
+    private final DatabaseHelper databaseHelper;
+    private final OuiDatabase ouiDatabase;
+    private final ThreadPoolExecutor writerExecutor;
+
+    //Constructor is private to prevent direct instantiation
+    private DatabaseWriter(Context context) {
+        this(DatabaseHelper.getInstance(context), OuiDatabase.getInstance(context));
+    }
+
+    //Package-private for the tests, which need a writer of their own for every database
+    DatabaseWriter(DatabaseHelper databaseHelper, OuiDatabase ouiDatabase) {
+        this.databaseHelper = databaseHelper;
+        this.ouiDatabase = ouiDatabase;
+
+        writerExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(QUEUE_CAPACITY),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        return new Thread(runnable, TAG);
+                    }
+                },
+                new RejectedExecutionHandler() {
+                    @Override
+                    public void rejectedExecution(Runnable write, ThreadPoolExecutor executor) {
+                        //The queue is full: wait for the writer thread to make room
+                        try {
+                            executor.getQueue().put(write);
+                        } catch (InterruptedException e) {
+                            //The write must not be lost: keep waiting and restore the interrupt afterwards
+                            Log.w(TAG, "INTERRUPTED WHILE WAITING FOR THE WRITE QUEUE");
+                            putUninterruptibly(executor, write);
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                });
+
+        //Warm up the device index before the first scan arrives
+        writerExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                databaseHelper.loadDeviceIndex();
+            }
+        });
+    }
+
+    private static void putUninterruptibly(ThreadPoolExecutor executor, Runnable write) {
+        while (true) {
+            try {
+                executor.getQueue().put(write);
+                return;
+            } catch (InterruptedException e) {
+                //Keep waiting, the caller restores the interrupt
+            }
+        }
+    }
+
+    /**
+     * Singleton pattern, same as DatabaseHelper:
+     * DatabaseWriter dbWriter = DatabaseWriter.getInstance(this);
+     */
+    public static synchronized DatabaseWriter getInstance(Context context) {
+        if (singletonInstance == null) {
+            singletonInstance = new DatabaseWriter(context.getApplicationContext());
+        }
+        return singletonInstance;
+    }
+
+    /**
+     * Queues the storage of a new session.
+     *
+     * @param callback Receives, on the writer thread, the id of the stored session, which every write of the
+     *                 session carries.
+     */
+    public void addSession(final Session session, final SessionStoredCallback callback) {
+        writerExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                callback.onSessionStored(databaseHelper.addSession(session));
+            }
+        });
+    }
+
+    /**
+     * Queues the results of a scan to be stored in a single transaction. The manufacturers of the devices
+     * which are not stored yet are resolved with the offline OUI registry before inserting them.
+     *
+     * @param sessionId Id of the session the scan belongs to
+     * @param location  Location where the scan took place
+     * @param devices   Devices found in the scan
+     * @param callback  Receives, on the writer thread, the devices which were stored for the first time, or
+     *                  the failure of the transaction. May be null.
+     */
+    public void storeScan(final long sessionId, final Location location, final List<Device> devices,
+                          final ScanStoredCallback callback) {
+        writerExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                for (Device device : devices) {
+                    if (device.getManufacturer() == null && !databaseHelper.deviceExistsInDb(device))
+                        device.setManufacturer(ouiDatabase.lookup(Codecs.macToLong(device.getBssid())));
+                }
+
+                List<Device> newDevices = databaseHelper.ingestScan(sessionId, location, devices);
+                if (callback == null)
+                    return;
+                if (newDevices != null)
+                    callback.onScanStored(newDevices);
+                else
+                    callback.onScanFailed();
+            }
+        });
+    }
+
+    /**
+     * Queues the update of the end date of a session.
+     */
+    public void endSession(final long sessionId, final Date endDate) {
+        writerExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                databaseHelper.updateSession(sessionId, endDate);
+            }
+        });
+    }
+
+    /**
+     * Queues the storage of the manufacturer of an OUI prefix in the persistent cache.
+     *
+     * @param manufacturer The manufacturer, or null if the prefix has no registered manufacturer
+     * @param expiresAt    Expiration date of the entry, in milliseconds since the epoch
+     */
+    public void cacheManufacturer(final long prefix, final String manufacturer, final long expiresAt) {
+        writerExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                databaseHelper.cacheManufacturer(prefix, manufacturer, expiresAt);
+            }
+        });
+    }
+
+    /**
+     * Queues the update of the manufacturer of the given devices, in a single transaction.
+     */
+    public void updateManufacturers(final List<Device> devices) {
+        writerExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                databaseHelper.updateManufacturers(devices);
+            }
+        });
+    }
+
+    /**
+     * Queues the deletion of every session, device, location and association. Writes queued before this
+     * call are stored before the deletion.
+     *
+     * @param callback Receives, on the writer thread, whether the data was deleted
+     */
+    public void deleteDatabase(final DatabaseDeletedCallback callback) {
+        writerExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                callback.onDatabaseDeleted(databaseHelper.deleteDatabase());
+            }
+        });
+    }
+
+    /**
+     * Runs the given task on the writer thread once every write queued before this call has been
+     * executed.
+     */
+    public void drain(Runnable onDrained) {
+        writerExecutor.execute(onDrained);
+    }
+
+    /**
+     * Callback used to deliver the id of a new session.
+     */
+    public interface SessionStoredCallback {
+        /**
+         * @param sessionId The id of the session, or -1 if it could not be stored
+         */
+        void onSessionStored(long sessionId);
+    }
+
+    /**
+     * Callback used to report the outcome of a deletion.
+     */
+    public interface DatabaseDeletedCallback {
+        void onDatabaseDeleted(boolean deleted);
+    }
+
+    /**
+     * Callback used to report which devices of a scan were not in the database yet.
+     */
+    public interface ScanStoredCallback {
+        void onScanStored(List<Device> newDevices);
+
+        /**
+         * The transaction failed and none of the devices of the scan were stored.
+         */
+        void onScanFailed();
+    }
+}
@@ -45,7 +45,9 @@ public class GeolocationGPS implements ConnectionCallbacks, OnConnectionFailedLi
     private SharedPreferences preferences;
 
     private double latitude, longitude;
+    private float speed = Float.NaN;
     private boolean requestingLocationUpdates;
+    private FixListener fixListener;
 
 
     public GeolocationGPS(Context appContext, Activity mainActivity) {
@@ -99,7 +101,11 @@ public class GeolocationGPS implements ConnectionCallbacks, OnConnectionFailedLi
                         requestingLocationUpdates = true;
                         break;
                     case LocationSettingsStatusCodes.RESOLUTION_REQUIRED:
-                        //Location settings are not satisfied
+                        //Location settings are not satisfied. Only an activity can ask the user to fix them
+                        if (mainActivity == null) {
+                            Log.w(TAG, "LOCATION SETTINGS NOT SATISFIED");
+                            break;
+                        }
                         try {
                             status.startResolutionForResult(mainActivity, REQUEST_CHECK_SETTINGS);
                         } catch (IntentSender.SendIntentException e) {
@@ -146,9 +152,27 @@ public class GeolocationGPS implements ConnectionCallbacks, OnConnectionFailedLi
         if (location != null) {
             latitude = location.getLatitude();
             longitude = location.getLongitude();
+            speed = location.hasSpeed() ? location.getSpeed() : Float.NaN;
+
+            if (fixListener != null)
+                fixListener.onLocationFix(latitude, longitude, speed);
         }
     }
 
+    /**
+     * Sets the activity used to ask the user to enable the location settings. May be null.
+     */
+    public void setActivity(Activity mainActivity) {
+        this.mainActivity = mainActivity;
+    }
+
+    /**
+     * Sets the listener notified of every location fix. May be null.
+     */
+    public void setFixListener(FixListener fixListener) {
+        this.fixListener = fixListener;
+    }
+
     //Getters
 
     public double getLatitude() {
@@ -159,4 +183,18 @@ public class GeolocationGPS implements ConnectionCallbacks, OnConnectionFailedLi
         return longitude;
     }
 
+    /**
+     * @return Speed in meters/second, or NaN if the location provider doesn't report it.
+     */
+    public float getSpeed() {
+        return speed;
+    }
+
+    /**
+     * Listener of the location fixes, called on the main thread.
+     */
+    public interface FixListener {
+        void onLocationFix(double latitude, double longitude, float speed);
+    }
+
 }
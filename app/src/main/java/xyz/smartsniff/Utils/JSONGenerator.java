@@ -3,48 +3,61 @@ package xyz.smartsniff.Utils;
 import android.app.Activity;
 import android.app.ProgressDialog;
 import android.os.AsyncTask;
+import android.os.SystemClock;
 import android.util.Log;
 import android.widget.Toast;
 
-import com.android.volley.NetworkResponse;
-import com.android.volley.Request;
-import com.android.volley.Response;
-import com.android.volley.VolleyError;
-import com.android.volley.toolbox.JsonObjectRequest;
-import com.android.volley.toolbox.Volley;
+import com.google.gson.JsonIOException;
+import com.google.gson.stream.JsonWriter;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
+import java.io.IOException;
+import java.io.Writer;
 
-import java.io.UnsupportedEncodingException;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
-import xyz.smartsniff.Model.Association;
 import xyz.smartsniff.Model.Device;
 import xyz.smartsniff.Model.Location;
 import xyz.smartsniff.Model.Session;
 import xyz.smartsniff.R;
 
 /**
- * Class responsible for generating and assembling a JSON object containing all the stored data in the local device
- * database.
+ * Class responsible for generating and sending a JSON document containing the data stored in the local device
+ * database since the last successful upload. The document is streamed from the database cursors to the HTTP
+ * connection, so memory usage does not depend on the size of the database.
+ *
+ * Uploads are incremental: the database keeps a watermark with the last association acknowledged by the server,
+ * and each upload only contains the newer associations plus the sessions, devices and locations they reference.
+ * The watermark only advances when the server answers with a 2xx status code.
+ *
+ * The pending data is sent by an ExportUploader, in gzip-compressed chunks of a bounded number of associations.
+ * Failed chunks are retried with exponential backoff, and the watermark advances after each acknowledged chunk.
  *
  * Author: Daniel Castro García
  * Email: dandev237@gmail.com
  * Date: 14/08/2016
  */
 public class JSONGenerator {
-    private JSONObject jsonObject;
+    private static final String TAG = "JSONGenerator";
+    //Maximum number of associations sent in a single request
+    private static final int UPLOAD_CHUNK_SIZE = 500;
+    private static final int MAX_UPLOAD_ATTEMPTS = 5;
+    private static final long RETRY_BASE_DELAY_MS = 1000;
+
     private DatabaseHelper databaseHelper;
     private Activity mainActivity;
+    private ExportUploader uploader;
 
     private ProgressDialog progressDialog;
 
     public JSONGenerator(Activity context) {
+        this(context, Utils.DATA_UPLOAD_URL);
+    }
+
+    /**
+     * Overloaded constructor used to upload the data to a server other than the default one (e.g. a local
+     * test server).
+     */
+    public JSONGenerator(Activity context, String uploadUrl) {
         this.mainActivity = context;
+        uploader = new ExportUploader(uploadUrl, UPLOAD_CHUNK_SIZE, MAX_UPLOAD_ATTEMPTS, RETRY_BASE_DELAY_MS);
         databaseHelper = DatabaseHelper.getInstance(context);
     }
 
@@ -59,111 +72,98 @@ public class JSONGenerator {
     }
 
     /**
-     * This method prepares the JSON object to be included in the HTTP Post request
-     * that will send it to the external database.
+     * Method responsible for reading the data from the local database and serializing it, row by row, into
+     * the given stream.
      *
-     * @return The complete JSON object.
+     * @param out       The stream the JSON document is written to
+     * @param fromId Id of the last association already sent (excluded)
+     * @param toId   Id of the last association to send (included)
+     * @throws IOException
      */
-    private JSONObject prepareJsonObject() {
-        //Collect all the associations data
-        List<Association> associations = databaseHelper.getAllAssociations();
-
-        try {
-            //Build a JSON object containing all the data
-            buildJSON(associations);
-            //System.out.println(jsonObject.toString(3));
-        } catch (JSONException e) {
-            Log.e("JSONGenerator", "ERROR: " + e.getCause());
-            e.printStackTrace();
-        }
-
-        return jsonObject;
-    }
-
-    /**
-     * Method responsible for getting the data from the local database to serialize it. Such data will then
-     * be used to populate a JSON object.
-     *
-     * @param associations All the associations stored in the local database
-     * @throws JSONException
-     */
-    private void buildJSON(List<Association> associations) throws JSONException {
+    private void writeJSON(Writer out, long fromId, long toId) throws IOException {
         /*
         JSON Structure:
-        - 1 JSON Object (jsonObject), containing
+        - 1 JSON Object, containing
             - 4 JSON Arrays, one for each model class (Session, Device, Location, Association)
          */
-
-        Map<Integer, Session> consideredSessions = new HashMap<>();
-        Map<Integer, Device> consideredDevices = new HashMap<>();
-        Map<Integer, Location> consideredLocations = new HashMap<>();
-
-        JSONArray associationsArray = new JSONArray();
-        for (Association a : associations) {
-            Session s;
-            if (consideredSessions.containsKey(a.getSessionId()))
-                s = consideredSessions.get(a.getSessionId());
-            else {
-                s = databaseHelper.getSession(a.getSessionId());
-                //Add the device Mac Address to the Session object
-                s.setMacAddress(Utils.getMacAddr());
-                consideredSessions.put(a.getSessionId(), s);
+        final JsonWriter writer = new JsonWriter(out);
+        //Add the device Mac Address to the Session objects
+        final String macAddress = Utils.getMacAddr();
+
+        writer.beginObject();
+
+        Tracing.begin(Tracing.UPLOAD_SESSIONS);
+        writer.name("sessions").beginArray();
+        databaseHelper.forEachExportedSession(fromId, toId, new DatabaseHelper.RowCallback<Session>() {
+            @Override
+            public void onRow(Session session) {
+                session.setMacAddress(macAddress);
+                Utils.gson.toJson(session, Session.class, writer);
             }
-
-            Device d;
-            if (consideredDevices.containsKey(a.getDeviceId()))
-                d = consideredDevices.get(a.getDeviceId());
-            else {
-                d = databaseHelper.getDevice(a.getDeviceId());
-                consideredDevices.put(a.getDeviceId(), d);
+        });
+        writer.endArray();
+        Tracing.end();
+
+        Tracing.begin(Tracing.UPLOAD_DEVICES);
+        writer.name("devices").beginArray();
+        databaseHelper.forEachExportedDevice(fromId, toId, new DatabaseHelper.RowCallback<Device>() {
+            @Override
+            public void onRow(Device device) {
+                Utils.gson.toJson(device, Device.class, writer);
             }
-
-            Location l;
-            if (consideredLocations.containsKey(a.getLocationId()))
-                l = consideredLocations.get(a.getLocationId());
-            else {
-                l = databaseHelper.getLocation(a.getLocationId());
-                consideredLocations.put(a.getLocationId(), l);
+        });
+        writer.endArray();
+        Tracing.end();
+
+        Tracing.begin(Tracing.UPLOAD_LOCATIONS);
+        writer.name("locations").beginArray();
+        databaseHelper.forEachExportedLocation(fromId, toId, new DatabaseHelper.RowCallback<Location>() {
+            @Override
+            public void onRow(Location location) throws IOException {
+                writeLocation(writer, location);
             }
+        });
+        writer.endArray();
+        Tracing.end();
+
+        Tracing.begin(Tracing.UPLOAD_ASSOCIATIONS);
+        writer.name("asocsessiondevices").beginArray();
+        databaseHelper.forEachExportedAssociation(fromId, toId, new DatabaseHelper.AssociationCallback() {
+            @Override
+            public void onAssociation(Session session, Device device, Location location) throws IOException {
+                session.setMacAddress(macAddress);
+
+                writer.beginObject();
+                writer.name("session");
+                Utils.gson.toJson(session, Session.class, writer);
+                writer.name("device");
+                Utils.gson.toJson(device, Device.class, writer);
+                writer.name("location").beginObject()
+                        .name("latitude").value(location.getLatitude())
+                        .name("longitude").value(location.getLongitude())
+                        .endObject();
+                writer.endObject();
+            }
+        });
+        writer.endArray();
+        Tracing.end();
 
-            JSONObject associationObject = new JSONObject();
-
-            JSONObject sessionJson = new JSONObject(Utils.gson.toJson(s));
-            JSONObject deviceJson = new JSONObject(Utils.gson.toJson(d));
-
-            associationObject.put("session", sessionJson);
-            associationObject.put("device", deviceJson);
-
-            JSONObject locationCoordinates = new JSONObject();
-            locationCoordinates.put("latitude", l.getCoordinates().latitude);
-            locationCoordinates.put("longitude", l.getCoordinates().longitude);
-            associationObject.put("location", locationCoordinates);
-
-            associationsArray.put(associationObject);
-        }
-
-        JSONArray sessionsArray = new JSONArray();
-        for (Session s : consideredSessions.values()) {
-            JSONObject sessionObject = new JSONObject(Utils.gson.toJson(s));
-            sessionsArray.put(sessionObject);
-        }
-
-        JSONArray devicesArray = new JSONArray();
-        for (Device d : consideredDevices.values()) {
-            JSONObject deviceObject = new JSONObject(Utils.gson.toJson(d));
-            devicesArray.put(deviceObject);
-        }
-
-        JSONArray locationsArray = new JSONArray();
-        for (Location l : consideredLocations.values()) {
-            JSONObject locationObject = new JSONObject(Utils.gson.toJson(l));
-            locationsArray.put(locationObject);
-        }
+        writer.endObject();
+        writer.flush();
+    }
 
-        jsonObject.put("sessions", sessionsArray);
-        jsonObject.put("devices", devicesArray);
-        jsonObject.put("locations", locationsArray);
-        jsonObject.put("asocsessiondevices", associationsArray);
+    /**
+     * Writes a location with the layout expected by the server, where the coordinates are a nested object.
+     */
+    private static void writeLocation(JsonWriter writer, Location location) throws IOException {
+        writer.beginObject();
+        if (location.getDate() != null)
+            writer.name("date").value(location.getDateString());
+        writer.name("coordinates").beginObject()
+                .name("latitude").value(location.getLatitude())
+                .name("longitude").value(location.getLongitude())
+                .endObject();
+        writer.endObject();
     }
 
     private void initializeProgressDialog() {
@@ -175,64 +175,92 @@ public class JSONGenerator {
     }
 
     /**
-     * This AsyncTask is responsible for the creation of the JSON object, the HTTP Post
-     * request which will contain it, and its response.
+     * This AsyncTask is responsible for sending the pending data through the ExportUploader, which reads
+     * it from the database chunk by chunk.
      */
-    private class SendDataTask extends AsyncTask<Void, Void, Void> {
+    private class SendDataTask extends AsyncTask<Void, Integer, Boolean> implements ExportUploader.ExportSource,
+            ExportUploader.Listener {
+
+        @Override
+        protected Boolean doInBackground(Void... voids) {
+            long start = SystemClock.elapsedRealtimeNanos();
+            boolean dataSent = uploader.uploadPending(this, this);
+            Metrics.histogram(Metrics.UPLOAD_TOTAL).recordNanos(SystemClock.elapsedRealtimeNanos() - start);
+            return dataSent;
+        }
+
+        @Override
+        public long getExportWatermark() {
+            return databaseHelper.getExportWatermark();
+        }
+
+        @Override
+        public long getLastAssociationId() {
+            return databaseHelper.getLastAssociationId();
+        }
+
+        @Override
+        public long countExportedAssociations(long fromId, long toId) {
+            return databaseHelper.countExportedAssociations(fromId, toId);
+        }
+
+        @Override
+        public long getExportChunkEnd(long fromId, long toId, int chunkSize) {
+            return databaseHelper.getExportChunkEnd(fromId, toId, chunkSize);
+        }
 
         @Override
-        protected Void doInBackground(Void... voids) {
-            synchronized (this) {
-                //Populate the JSON object with the data contained in the local database
-                jsonObject = new JSONObject();
-                jsonObject = prepareJsonObject();
-
-                //Send the JSON object to the server using the RESTful API
-                String url = "http://bustrack.undo.it:5000/api/db/storedata";
-                JsonObjectRequest postRequest = new JsonObjectRequest(Request.Method.POST, url, jsonObject,
-                        new Response.Listener<JSONObject>() {
-                            @Override
-                            public void onResponse(JSONObject response) {
-                                Toast.makeText(mainActivity, mainActivity.getString(R.string.jsongenerator_data_sent), Toast.LENGTH_SHORT)
-                                        .show();
-                            }
-                        },
-                        new Response.ErrorListener() {
-                            @Override
-                            public void onErrorResponse(VolleyError error) {
-                                Toast.makeText(mainActivity, R.string.jsongenerator_send_error, Toast.LENGTH_SHORT)
-                                        .show();
-                            }
-                        }) {
-
-                    //Workaround for dealing with empty response
-                    @Override
-                    protected Response<JSONObject> parseNetworkResponse(NetworkResponse response) {
-                        try {
-                            if (response.data.length == 0) {
-                                byte[] responseData = "{}".getBytes("UTF8");
-                                response = new NetworkResponse(response.statusCode, responseData, response.headers, response.notModified);
-                            }
-                        } catch (UnsupportedEncodingException e) {
-                            e.printStackTrace();
-                        }
-                        return super.parseNetworkResponse(response);
-                    }
-
-                };
-                if (Utils.queue == null)
-                    Utils.queue = Volley.newRequestQueue(mainActivity);
-
-                Utils.queue.add(postRequest);
+        public void writeChunk(Writer out, long fromId, long toId) throws IOException {
+            try {
+                writeJSON(out, fromId, toId);
+            } catch (JsonIOException e) {
+                throw new IOException(e);
             }
+        }
+
+        @Override
+        public void advanceExportWatermark(long toId) {
+            databaseHelper.advanceExportWatermark(toId);
+        }
 
-            return null;
+        @Override
+        public void onChunkStarted(int chunk, int totalChunks) {
+            publishProgress(chunk, totalChunks);
+        }
+
+        @Override
+        public void onResponse(long fromId, long toId, int responseCode, long wireBytes, long elapsed) {
+            Metrics.histogram(Metrics.UPLOAD_CHUNK).record(elapsed * 1000);
+            Metrics.counter(Metrics.UPLOAD_BYTES).addAndGet(wireBytes);
+            if (responseCode < 200 || responseCode >= 300)
+                Metrics.counter(Metrics.UPLOAD_FAILED_ATTEMPTS).incrementAndGet();
+            Log.d(TAG, "CHUNK (" + fromId + ", " + toId + "]: " + wireBytes + " BYTES IN " + elapsed +
+                    " MS (" + (wireBytes * 1000 / elapsed) + " B/S), HTTP " + responseCode);
         }
 
         @Override
-        protected void onPostExecute(Void v) {
+        public void onRequestFailed(int attempt, IOException e) {
+            Log.e(TAG, "ERROR WHILE SENDING DATA (ATTEMPT " + attempt + "): " + e.getMessage());
+            Metrics.counter(Metrics.UPLOAD_FAILED_ATTEMPTS).incrementAndGet();
+        }
+
+        @Override
+        protected void onProgressUpdate(Integer... progress) {
+            progressDialog.setMessage(mainActivity.getString(R.string.jsongenerator_sending_progress, progress[0],
+                    progress[1]));
+        }
+
+        @Override
+        protected void onPostExecute(Boolean dataSent) {
             //Dismiss the loading screen
             progressDialog.dismiss();
+
+            if (dataSent)
+                Toast.makeText(mainActivity, mainActivity.getString(R.string.jsongenerator_data_sent), Toast.LENGTH_SHORT)
+                        .show();
+            else
+                Toast.makeText(mainActivity, R.string.jsongenerator_send_error, Toast.LENGTH_SHORT)
+                        .show();
         }
     }
 }
@@ -0,0 +1,302 @@
+package xyz.smartsniff.Utils;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.LruCache;
+
+import com.android.volley.Request;
+import com.android.volley.Response;
+import com.android.volley.VolleyError;
+import com.android.volley.toolbox.StringRequest;
+import com.android.volley.toolbox.Volley;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import xyz.smartsniff.Model.Device;
+
+/**
+ * Resolves the manufacturer of devices from the OUI prefix of their MAC address.
+ *
+ * Manufacturers are first looked up in the offline OUI registry, which matches MA-S (36 bit), MA-M
+ * (28 bit) and MA-L (24 bit) prefixes. Otherwise they are looked up, in order, in an in-memory LRU
+ * cache, the persistent prefix cache of the local database and, as a last resort, the macvendors API,
+ * all of which work on 24 bit prefixes. Concurrent lookups of the same prefix are coalesced into a
+ * single one, API requests are rate limited with a token bucket, and prefixes unknown to the API are
+ * cached for a limited time only. Transient errors are not cached at all.
+ *
+ * Every public method must be called from the main thread, and callbacks are delivered on it. The
+ * registry is a memory-mapped binary search, cheap enough for the main thread. Database reads run on a
+ * background thread and writes go through the DatabaseWriter, so the main thread never blocks.
+ *
+ * Date: 18/10/2026
+ */
+public class ManufacturerResolver {
+
+    private static final String TAG = "ManufacturerResolver";
+    private static final int MEMORY_CACHE_SIZE = 512;
+    //The macvendors API allows up to 2 requests per second on the free plan
+    private static final int REQUEST_BURST = 2;
+    private static final double REQUESTS_PER_SECOND = 1.0;
+    private static final long NEGATIVE_TTL_MS = 7 * 24 * 60 * 60 * 1000L;
+    private static final long NEVER_EXPIRES = Long.MAX_VALUE;
+
+    //Singleton instance
+    private static ManufacturerResolver singletonInstance;
+
+    private final Context context;
+    private final DatabaseHelper databaseHelper;
+    private final DatabaseWriter databaseWriter;
+    private final OuiDatabase ouiDatabase;
+    private final Handler mainHandler;
+    private final ExecutorService lookupExecutor;
+    private final LruCache<Long, CachedManufacturer> memoryCache;
+    private final TokenBucket rateLimiter;
+
+    //Lookups in progress, by prefix, with the devices waiting for them
+    private final Map<Long, List<Waiter>> inFlight = new HashMap<>();
+    //Prefixes waiting for the rate limiter
+    private final Queue<Long> pendingRequests = new ArrayDeque<>();
+    private boolean drainScheduled;
+    private final Runnable drainTask = new Runnable() {
+        @Override
+        public void run() {
+            drainScheduled = false;
+            drainPendingRequests();
+        }
+    };
+
+    //Constructor is private to prevent direct instantiation
+    private ManufacturerResolver(Context context) {
+        this.context = context;
+        databaseHelper = DatabaseHelper.getInstance(context);
+        databaseWriter = DatabaseWriter.getInstance(context);
+        ouiDatabase = OuiDatabase.getInstance(context);
+        mainHandler = new Handler(Looper.getMainLooper());
+        lookupExecutor = Executors.newSingleThreadExecutor();
+        memoryCache = new LruCache<>(MEMORY_CACHE_SIZE);
+        rateLimiter = new TokenBucket(REQUEST_BURST, REQUESTS_PER_SECOND, SystemClock.elapsedRealtime());
+    }
+
+    public static synchronized ManufacturerResolver getInstance(Context context) {
+        if (singletonInstance == null) {
+            singletonInstance = new ManufacturerResolver(context.getApplicationContext());
+        }
+        return singletonInstance;
+    }
+
+    /**
+     * Resolves the manufacturer of a device. Once resolved, the manufacturer is set on the device and
+     * stored in the database. Devices whose prefix has no registered manufacturer are left untouched.
+     *
+     * @param callback Called on the main thread with the manufacturer, or null if it could not be
+     *                 resolved. May be null.
+     */
+    public void resolve(final Device device, ManufacturerCallback callback) {
+        final long mac = Codecs.macToLong(device.getBssid());
+        if (mac == -1) {
+            if (callback != null)
+                callback.onManufacturerResolved(device, null);
+            return;
+        }
+
+        //The registry may hold a longer prefix than the 24 bits the caches work on, so it is asked first
+        String registered = ouiDatabase.lookup(mac);
+        if (registered != null) {
+            List<Waiter> waiters = new ArrayList<>(1);
+            waiters.add(new Waiter(device, callback));
+            deliver(waiters, new CachedManufacturer(registered, NEVER_EXPIRES));
+            return;
+        }
+
+        final long prefix = mac >>> 24;
+        CachedManufacturer cached = memoryCache.get(prefix);
+        if (cached != null && !cached.isExpired(System.currentTimeMillis())) {
+            List<Waiter> waiters = new ArrayList<>(1);
+            waiters.add(new Waiter(device, callback));
+            deliver(waiters, cached);
+            return;
+        }
+
+        //Coalesce with the lookup in progress, if any
+        List<Waiter> waiters = inFlight.get(prefix);
+        if (waiters != null) {
+            waiters.add(new Waiter(device, callback));
+            return;
+        }
+        waiters = new ArrayList<>();
+        waiters.add(new Waiter(device, callback));
+        inFlight.put(prefix, waiters);
+
+        lookupExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final CachedManufacturer stored = lookupStored(prefix, device);
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (stored != null) {
+                            complete(prefix, stored, false);
+                        } else {
+                            pendingRequests.add(prefix);
+                            drainPendingRequests();
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Looks the manufacturer of a 24 bit prefix up in the local database. Runs on the lookup thread.
+     */
+    private CachedManufacturer lookupStored(long prefix, Device device) {
+        CachedManufacturer stored = databaseHelper.getCachedManufacturer(prefix);
+        if (stored != null && !stored.isExpired(System.currentTimeMillis()))
+            return stored;
+
+        //Devices resolved before the prefix cache existed
+        String name = databaseHelper.getManufacturerOfDevice(device.getBssid());
+        if (name != null && !name.isEmpty() && !name.equals(Utils.MANUFACTURER_NOT_FOUND))
+            return new CachedManufacturer(name, NEVER_EXPIRES);
+
+        return null;
+    }
+
+    private void drainPendingRequests() {
+        while (!pendingRequests.isEmpty()) {
+            long now = SystemClock.elapsedRealtime();
+            if (!rateLimiter.tryAcquire(now)) {
+                if (!drainScheduled) {
+                    drainScheduled = true;
+                    mainHandler.postDelayed(drainTask, rateLimiter.millisUntilAvailable(now));
+                }
+                return;
+            }
+            requestManufacturer(pendingRequests.poll());
+        }
+    }
+
+    /**
+     * Obtains the manufacturer of an OUI prefix from the API server.
+     *
+     * @see <a href="http://www.macvendors.com/api"> API Documentation</a>
+     * @see <a href="https://developer.android.com/training/volley/simple.html">Volley Documentation</a>
+     */
+    private void requestManufacturer(final long prefix) {
+        //Fix to avoid creating a requestQueue for each request (OutOfMemory error)
+        if (Utils.queue == null)
+            Utils.queue = Volley.newRequestQueue(context);
+
+        //http://api.macvendors.com/00:11:22
+        String url = Utils.MANUFACTURER_REQUEST_URL + String.format(Locale.ENGLISH, "%02X:%02X:%02X",
+                (prefix >>> 16) & 0xFF, (prefix >>> 8) & 0xFF, prefix & 0xFF);
+
+        StringRequest request = new StringRequest(Request.Method.GET, url, new Response.Listener<String>() {
+            @Override
+            public void onResponse(String response) {
+                complete(prefix, new CachedManufacturer(response, NEVER_EXPIRES), true);
+            }
+        }, new Response.ErrorListener() {
+            @Override
+            public void onErrorResponse(VolleyError error) {
+                if (error.networkResponse != null && error.networkResponse.statusCode == 404) {
+                    //No manufacturer registered for this prefix. Ask again once the entry expires
+                    complete(prefix, new CachedManufacturer(null, System.currentTimeMillis() + NEGATIVE_TTL_MS),
+                            true);
+                } else {
+                    //Transient error (network, quota...). Nothing is cached
+                    Log.d(TAG, "MANUFACTURER REQUEST FAILED: " + error);
+                    List<Waiter> waiters = inFlight.remove(prefix);
+                    if (waiters != null) {
+                        for (Waiter waiter : waiters) {
+                            if (waiter.callback != null)
+                                waiter.callback.onManufacturerResolved(waiter.device, null);
+                        }
+                    }
+                }
+            }
+        });
+        Utils.queue.add(request);
+    }
+
+    private void complete(long prefix, CachedManufacturer manufacturer, boolean persist) {
+        memoryCache.put(prefix, manufacturer);
+        if (persist)
+            databaseWriter.cacheManufacturer(prefix, manufacturer.getName(), manufacturer.getExpiresAt());
+
+        List<Waiter> waiters = inFlight.remove(prefix);
+        if (waiters != null)
+            deliver(waiters, manufacturer);
+    }
+
+    private void deliver(List<Waiter> waiters, CachedManufacturer manufacturer) {
+        //Negative results stay in the prefix cache only, the devices keep no manufacturer until one is known
+        if (manufacturer.getName() != null) {
+            List<Device> devices = new ArrayList<>(waiters.size());
+            for (Waiter waiter : waiters) {
+                waiter.device.setManufacturer(manufacturer.getName());
+                devices.add(waiter.device);
+            }
+            databaseWriter.updateManufacturers(devices);
+        }
+
+        for (Waiter waiter : waiters) {
+            if (waiter.callback != null)
+                waiter.callback.onManufacturerResolved(waiter.device, manufacturer.getName());
+        }
+    }
+
+    /**
+     * Callback used to deliver the manufacturer of a device.
+     */
+    public interface ManufacturerCallback {
+        void onManufacturerResolved(Device device, String manufacturer);
+    }
+
+    /**
+     * Manufacturer of an OUI prefix. Negative entries (prefixes with no registered manufacturer) have a
+     * null name.
+     */
+    public static class CachedManufacturer {
+        private final String name;
+        private final long expiresAt;
+
+        public CachedManufacturer(String name, long expiresAt) {
+            this.name = name;
+            this.expiresAt = expiresAt;
+        }
+
+        public boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+    }
+
+    private static class Waiter {
+        private final Device device;
+        private final ManufacturerCallback callback;
+
+        Waiter(Device device, ManufacturerCallback callback) {
+            this.device = device;
+            this.callback = callback;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package xyz.smartsniff.Utils;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide registry of the counters and latency histograms of the scan pipeline, shown by the
+ * diagnostics screen. Metrics are created on first use and live until the process dies. Recording is
+ * lock-free, so the hot paths can be instrumented from any thread.
+ *
+ * Date: 18/10/2026
+ */
+public final class Metrics {
+
+    //Latency histograms
+    public static final String RECEIVER_ON_RECEIVE = "receiver.onReceive";
+    public static final String SCAN_PROCESSING = "scan.processing";
+    public static final String SCAN_TO_STORED = "scan.toStored";
+    public static final String DB_INGEST_SCAN = "db.ingestScan";
+    public static final String DB_INSERT_DEVICE = "db.ingestScan.insertDevice";
+    public static final String DB_INSERT_ASSOCIATION = "db.ingestScan.insertAssociation";
+    public static final String DB_HEATMAP_QUERY = "db.selectLocationsForHeatmap";
+    public static final String MAP_PAINT = "map.paint";
+    public static final String UPLOAD_CHUNK = "upload.chunk";
+    public static final String UPLOAD_TOTAL = "upload.total";
+    //Counters
+    public static final String WIFI_SCANS = "count.wifiScans";
+    public static final String BLUETOOTH_DEVICES = "count.bluetoothDevices";
+    public static final String BLE_BATCHES = "count.bleBatches";
+    //Wifi scan results which weren't stored because they were stale or had already been stored at the same spot
+    public static final String SKIPPED_RESULTS = "count.skippedResults";
+    public static final String UPLOAD_BYTES = "count.uploadBytes";
+    public static final String UPLOAD_FAILED_ATTEMPTS = "count.uploadFailedAttempts";
+
+    private static final ConcurrentMap<String, AtomicLong> counters = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    public static AtomicLong counter(String name) {
+        AtomicLong counter = counters.get(name);
+        if (counter == null) {
+            AtomicLong newCounter = new AtomicLong();
+            counter = counters.putIfAbsent(name, newCounter);
+            if (counter == null)
+                counter = newCounter;
+        }
+        return counter;
+    }
+
+    public static LatencyHistogram histogram(String name) {
+        LatencyHistogram histogram = histograms.get(name);
+        if (histogram == null) {
+            LatencyHistogram newHistogram = new LatencyHistogram();
+            histogram = histograms.putIfAbsent(name, newHistogram);
+            if (histogram == null)
+                histogram = newHistogram;
+        }
+        return histogram;
+    }
+
+    public static void reset() {
+        for (AtomicLong counter : counters.values())
+            counter.set(0);
+        for (LatencyHistogram histogram : histograms.values())
+            histogram.reset();
+    }
+
+    /**
+     * @return A human readable report of every metric, sorted by name. Latencies are shown in milliseconds.
+     */
+    public static String toText() {
+        StringBuilder builder = new StringBuilder();
+
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(histograms).entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            builder.append(entry.getKey()).append('\n')
+                    .append(String.format(Locale.US, "  n=%d  mean=%.2f  p50=%.2f  p95=%.2f  p99=%.2f  max=%.2f\n",
+                            histogram.getCount(), histogram.getMean() / 1000,
+                            histogram.getPercentile(50) / 1000.0, histogram.getPercentile(95) / 1000.0,
+                            histogram.getPercentile(99) / 1000.0, histogram.getMax() / 1000.0));
+        }
+
+        for (Map.Entry<String, AtomicLong> entry : new TreeMap<>(counters).entrySet())
+            builder.append(entry.getKey()).append(" = ").append(entry.getValue().get()).append('\n');
+
+        return builder.toString();
+    }
+
+    /**
+     * Writes every metric as a JSON object. Latencies are written in microseconds.
+     */
+    public static void writeJson(JsonWriter writer) throws IOException {
+        writer.beginObject();
+
+        writer.name("histograms").beginObject();
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(histograms).entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            writer.name(entry.getKey()).beginObject()
+                    .name("count").value(histogram.getCount())
+                    .name("meanUs").value(histogram.getMean())
+                    .name("p50Us").value(histogram.getPercentile(50))
+                    .name("p95Us").value(histogram.getPercentile(95))
+                    .name("p99Us").value(histogram.getPercentile(99))
+                    .name("maxUs").value(histogram.getMax())
+                    .endObject();
+        }
+        writer.endObject();
+
+        writer.name("counters").beginObject();
+        for (Map.Entry<String, AtomicLong> entry : new TreeMap<>(counters).entrySet())
+            writer.name(entry.getKey()).value(entry.getValue().get());
+        writer.endObject();
+
+        writer.endObject();
+    }
+}
@@ -0,0 +1,84 @@
+package xyz.smartsniff.Utils;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.util.Log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Offline manufacturer lookup based on the IEEE OUI registries, compiled by the 'compileOuiRegistry'
+ * Gradle task into the binary asset "oui.bin". The asset is memory-mapped and searched by OuiRegistry,
+ * so resolving a manufacturer needs neither network access nor the heap.
+ *
+ * Date: 18/10/2026
+ */
+public class OuiDatabase {
+
+    private static final String TAG = "OuiDatabase";
+    private static final String ASSET_NAME = "oui.bin";
+
+    //Singleton instance
+    private static OuiDatabase singletonInstance;
+
+    private final OuiRegistry registry;
+
+    //Package-private for the tests, which run without the asset
+    OuiDatabase(OuiRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Singleton pattern. The build fails when the asset is missing, but if it can't be mapped the
+     * returned database is empty and every lookup misses.
+     */
+    public static synchronized OuiDatabase getInstance(Context context) {
+        if (singletonInstance == null) {
+            ByteBuffer buffer = mapAsset(context);
+            OuiRegistry registry = OuiRegistry.isValid(buffer) ? new OuiRegistry(buffer) : OuiRegistry.empty();
+            Log.d(TAG, "OUI REGISTRY LOADED: " + registry.size() + " PREFIXES");
+            singletonInstance = new OuiDatabase(registry);
+        }
+        return singletonInstance;
+    }
+
+    /**
+     * The asset must be stored uncompressed in the APK (see aaptOptions in build.gradle) to be mapped.
+     */
+    private static ByteBuffer mapAsset(Context context) {
+        AssetFileDescriptor descriptor = null;
+        try {
+            descriptor = context.getAssets().openFd(ASSET_NAME);
+            FileChannel channel = descriptor.createInputStream().getChannel();
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, descriptor.getStartOffset(),
+                    descriptor.getLength());
+            channel.close();
+            return mapped;
+        } catch (IOException e) {
+            Log.w(TAG, "OUI REGISTRY NOT AVAILABLE: " + e.getMessage());
+            return null;
+        } finally {
+            if (descriptor != null) {
+                try {
+                    descriptor.close();
+                } catch (IOException e) {
+                    //Ignore the error
+                }
+            }
+        }
+    }
+
+    /**
+     * Looks up the manufacturer of a MAC address. The most specific registry wins: MA-S, then MA-M,
+     * then MA-L.
+     *
+     * @param mac The MAC address, as encoded by Codecs.macToLong
+     * @return The manufacturer, or null if it is not registered.
+     */
+    public String lookup(long mac) {
+        return registry.lookup(mac);
+    }
+}
@@ -0,0 +1,91 @@
+package xyz.smartsniff.Utils;
+
+import android.annotation.TargetApi;
+import android.bluetooth.BluetoothAdapter;
+import android.bluetooth.le.BluetoothLeScanner;
+import android.bluetooth.le.ScanCallback;
+import android.bluetooth.le.ScanRecord;
+import android.bluetooth.le.ScanResult;
+import android.bluetooth.le.ScanSettings;
+import android.os.Build;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * BleScanner backed by BluetoothLeScanner. When the controller supports offloaded batching, the
+ * advertisements are buffered by the controller itself and the application processor only wakes up
+ * to receive each batch. Otherwise the results are reported as they arrive.
+ *
+ * Date: 18/10/2026
+ */
+@TargetApi(Build.VERSION_CODES.LOLLIPOP)
+public class PlatformBleScanner implements BleScanner {
+
+    private static final String TAG = "PlatformBleScanner";
+
+    private final BluetoothAdapter bluetoothAdapter;
+    private BluetoothLeScanner leScanner;
+    private ScanCallback scanCallback;
+
+    public PlatformBleScanner(BluetoothAdapter bluetoothAdapter) {
+        this.bluetoothAdapter = bluetoothAdapter;
+    }
+
+    @Override
+    public boolean start(int scanMode, long reportDelayMillis, final BatchListener listener) {
+        leScanner = bluetoothAdapter.getBluetoothLeScanner();
+        if (leScanner == null)
+            return false;
+
+        ScanSettings.Builder settings = new ScanSettings.Builder().setScanMode(scanMode);
+        if (bluetoothAdapter.isOffloadedScanBatchingSupported())
+            settings.setReportDelay(reportDelayMillis);
+        else
+            Log.d(TAG, "OFFLOADED SCAN BATCHING NOT SUPPORTED");
+
+        scanCallback = new ScanCallback() {
+            @Override
+            public void onScanResult(int callbackType, ScanResult result) {
+                listener.onBatch(Collections.singletonList(toSighting(result)));
+            }
+
+            @Override
+            public void onBatchScanResults(List<ScanResult> results) {
+                List<Sighting> sightings = new ArrayList<>(results.size());
+                for (ScanResult result : results)
+                    sightings.add(toSighting(result));
+                listener.onBatch(sightings);
+            }
+
+            @Override
+            public void onScanFailed(int errorCode) {
+                Log.d(TAG, "BLE SCAN FAILED: " + errorCode);
+            }
+        };
+        leScanner.startScan(null, settings.build(), scanCallback);
+        return true;
+    }
+
+    @Override
+    public void stop() {
+        //The scanner is gone if bluetooth has been turned off meanwhile
+        if (leScanner != null && bluetoothAdapter.isEnabled()) {
+            leScanner.flushPendingScanResults(scanCallback);
+            leScanner.stopScan(scanCallback);
+        }
+        leScanner = null;
+        scanCallback = null;
+    }
+
+    /**
+     * Only reads what the advertisement carries, so no call to the bluetooth service is made.
+     */
+    private static Sighting toSighting(ScanResult result) {
+        ScanRecord record = result.getScanRecord();
+        String name = record != null ? record.getDeviceName() : null;
+        return new Sighting(result.getDevice().getAddress(), name);
+    }
+}
@@ -0,0 +1,82 @@
+package xyz.smartsniff.Utils;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import xyz.smartsniff.Model.WifiObservation;
+
+/**
+ * Feeds replayed events into a ScanProcessor, so a recording goes through the same processing and
+ * persistence as the live scans did. The session must have been started in the processor beforehand,
+ * without a recorder.
+ *
+ * The processor hands the scans over to the bounded write queue of the DatabaseWriter, which blocks the
+ * processor thread while it is full. A replay at full speed would fill it and pile up the remaining
+ * events in the processor, so every few events the replay waits until the processor and the writer have
+ * caught up.
+ *
+ * Date: 18/10/2026
+ */
+public class ProcessorReplayTarget implements ScanReplayer.Target {
+
+    //Events handed over between two waits, well below the capacity of the write queue
+    private static final int EVENTS_PER_DRAIN = 32;
+
+    private final ScanProcessor scanProcessor;
+    private int pendingEvents;
+
+    public ProcessorReplayTarget(ScanProcessor scanProcessor) {
+        this.scanProcessor = scanProcessor;
+    }
+
+    @Override
+    public void onLocationFix(double latitude, double longitude, float speed) {
+        //The replayer already delivers each scan with its location, there is nothing to store
+    }
+
+    @Override
+    public void onWifiScan(List<WifiObservation> results, double latitude, double longitude, float speed,
+                           long receivedAt) {
+        scanProcessor.onWifiObservations(results, latitude, longitude, speed, receivedAt);
+        eventHandedOver();
+    }
+
+    @Override
+    public void onBluetoothDevice(String address, String name, int majorDeviceClass, double latitude,
+                                  double longitude) {
+        scanProcessor.onBluetoothObservation(address, name, majorDeviceClass, latitude, longitude);
+        eventHandedOver();
+    }
+
+    @Override
+    public void onBleBatch(List<BleScanner.Sighting> sightings, double latitude, double longitude) {
+        scanProcessor.onBleBatch(sightings, latitude, longitude);
+        eventHandedOver();
+    }
+
+    /**
+     * Waits until every event handed over has been processed and stored. Must not be called from the
+     * main thread.
+     */
+    public void finish() {
+        final CountDownLatch drained = new CountDownLatch(1);
+        scanProcessor.drain(new Runnable() {
+            @Override
+            public void run() {
+                drained.countDown();
+            }
+        });
+
+        try {
+            drained.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        pendingEvents = 0;
+    }
+
+    private void eventHandedOver() {
+        if (++pendingEvents >= EVENTS_PER_DRAIN)
+            finish();
+    }
+}
@@ -0,0 +1,573 @@
+package xyz.smartsniff.Utils;
+
+import android.bluetooth.BluetoothClass;
+import android.bluetooth.BluetoothDevice;
+import android.net.wifi.ScanResult;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import xyz.smartsniff.Model.Device;
+import xyz.smartsniff.Model.DeviceType;
+import xyz.smartsniff.Model.Location;
+import xyz.smartsniff.Model.WifiObservation;
+
+/**
+ * Background stage of the scanning pipeline. The broadcast receiver only hands over the raw scan
+ * results, which are turned into devices and stored from a dedicated HandlerThread. The outcome of
+ * the scans is posted back to the main thread as a single summary, coalescing the scans stored while
+ * the main thread was busy.
+ *
+ * Date: 18/10/2026
+ */
+public class ScanProcessor {
+
+    private static final String TAG = "ScanProcessor";
+    //Devices kept in memory for the results of a session. Every device is stored in the database anyway
+    private static final int MAX_SESSION_DEVICES = 10000;
+    private static final int STRING_POOL_LOG2_CAPACITY = 12;
+    //Advertisements don't carry the class of the device, which is stored as characteristics for bluetooth
+    private static final String BLE_DEVICE_CLASS = "LOW ENERGY";
+
+    private final DatabaseWriter databaseWriter;
+    private final Handler processorHandler;
+    private final Handler mainHandler;
+    private final SummaryListener listener;
+
+    //Session state, only accessed from the processor thread
+    private long sessionId;
+    private final SessionDeviceRegistry sessionDevices = new SessionDeviceRegistry(MAX_SESSION_DEVICES);
+    private ScanIntervalPolicy scanIntervalPolicy;
+    private Location lastKnownLocation;
+    private final ScanDelta scanDelta = new ScanDelta();
+    //SSIDs, names and capabilities repeat across scans, so the devices share a single copy of each one
+    private final StringPool namePool = new StringPool(STRING_POOL_LOG2_CAPACITY);
+    private final StringPool capabilitiesPool = new StringPool(STRING_POOL_LOG2_CAPACITY);
+    //Whether the devices of the last wifi scan were handed over to be stored
+    private boolean lastScanStored;
+    //Number of the last wifi scan handed over to be stored. The next scan only needs its delta once the
+    //writer has confirmed that this scan was committed.
+    private long lastQueuedScan;
+    //Log of the raw input of the session, or null if it isn't being recorded
+    private ScanEventRecorder recorder;
+
+    //Number of the last wifi scan committed by the writer
+    private final AtomicLong lastCommittedScan = new AtomicLong();
+
+    //Summary waiting to be delivered to the main thread
+    private final Object summaryLock = new Object();
+    private ScanSummary pendingSummary;
+    private final Runnable deliverSummary = new Runnable() {
+        @Override
+        public void run() {
+            ScanSummary summary;
+            synchronized (summaryLock) {
+                summary = pendingSummary;
+                pendingSummary = null;
+            }
+
+            long start = SystemClock.elapsedRealtimeNanos();
+            listener.onScanSummary(summary);
+            Log.d(TAG, "SUMMARY OF " + summary.getScanCount() + " SCANS APPLIED IN " +
+                    (SystemClock.elapsedRealtimeNanos() - start) / 1000 + " US");
+        }
+    };
+
+    /**
+     * @param listener Receives the summaries on the main thread
+     */
+    public ScanProcessor(DatabaseWriter databaseWriter, SummaryListener listener) {
+        this(databaseWriter, listener, startProcessorThread());
+    }
+
+    //Package-private for the tests, which process the scans on a looper they control
+    ScanProcessor(DatabaseWriter databaseWriter, SummaryListener listener, Looper processorLooper) {
+        this.databaseWriter = databaseWriter;
+        this.listener = listener;
+
+        processorHandler = new Handler(processorLooper);
+        mainHandler = new Handler(Looper.getMainLooper());
+    }
+
+    private static Looper startProcessorThread() {
+        HandlerThread processorThread = new HandlerThread(TAG);
+        processorThread.start();
+        return processorThread.getLooper();
+    }
+
+    /**
+     * Starts a new scanning session. Scans handed over afterwards are stored in the given session.
+     *
+     * @param recorder Records the raw input of the session until it ends, when it is closed. May be null.
+     */
+    public void startSession(final long sessionId, final ScanIntervalPolicy scanIntervalPolicy,
+                             final ScanEventRecorder recorder) {
+        processorHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                ScanProcessor.this.sessionId = sessionId;
+                ScanProcessor.this.recorder = recorder;
+                sessionDevices.clear();
+                ScanProcessor.this.scanIntervalPolicy = scanIntervalPolicy;
+                lastKnownLocation = null;
+                scanDelta.reset();
+                lastScanStored = false;
+            }
+        });
+    }
+
+    /**
+     * Ends the current session once the scans already handed over have been processed.
+     */
+    public void endSession(final Date endDate, final SessionEndListener listener) {
+        processorHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                closeRecorder();
+                databaseWriter.endSession(sessionId, endDate);
+                databaseWriter.drain(new Runnable() {
+                    @Override
+                    public void run() {
+                        listener.onSessionStored();
+                    }
+                });
+
+                final List<Device> devices = sessionDevices.toDevices();
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        listener.onSessionDevices(devices);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Hands over the results of a wifi scan, along with the location where they were received.
+     *
+     * @param speed  Speed in meters/second, or NaN if unknown
+     * @param scanId Id of the scan, whose Tracing.SCAN async section ends once the scan has been stored
+     */
+    public void onWifiScan(final List<ScanResult> scanResults, final double latitude, final double longitude,
+                           final float speed, final int scanId) {
+        final long receivedAt = SystemClock.elapsedRealtimeNanos();
+        Metrics.counter(Metrics.WIFI_SCANS).incrementAndGet();
+        processorHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                List<WifiObservation> results = new ArrayList<>(scanResults.size());
+                for (ScanResult s : scanResults)
+                    results.add(new WifiObservation(s.SSID, s.BSSID, s.capabilities, s.channelWidth, s.frequency,
+                            s.level, s.timestamp));
+
+                long receivedAtMicros = receivedAt / 1000;
+                record(ScanEvent.wifiScan(receivedAtMicros, results));
+                processWifiScan(results, latitude, longitude, speed, receivedAtMicros, receivedAt, scanId);
+            }
+        });
+    }
+
+    /**
+     * Hands over the results of a wifi scan which are not coming from the platform, e.g. replayed ones.
+     *
+     * @param receivedAtMicros Time the results were received, in microseconds since boot (the clock of the
+     *                         result timestamps)
+     */
+    public void onWifiObservations(final List<WifiObservation> results, final double latitude, final double longitude,
+                                   final float speed, final long receivedAtMicros) {
+        final long receivedAt = SystemClock.elapsedRealtimeNanos();
+        processorHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                record(ScanEvent.wifiScan(receivedAtMicros, results));
+                processWifiScan(results, latitude, longitude, speed, receivedAtMicros, receivedAt, 0);
+            }
+        });
+    }
+
+    /**
+     * Hands over a device found by a bluetooth discovery, along with the location where it was found.
+     */
+    public void onBluetoothDevice(final BluetoothDevice device, final double latitude, final double longitude) {
+        final long receivedAt = SystemClock.elapsedRealtimeNanos();
+        Metrics.counter(Metrics.BLUETOOTH_DEVICES).incrementAndGet();
+        processorHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                //Reading the class of the device is a call to the bluetooth service, so it is made here
+                BluetoothClass btClass = device.getBluetoothClass();
+                int majorDeviceClass = btClass != null ? btClass.getMajorDeviceClass() : -1;
+
+                record(ScanEvent.bluetoothDevice(receivedAt / 1000, device.getAddress(), device.getName(),
+                        majorDeviceClass));
+                processBluetoothDevice(device.getAddress(), device.getName(), majorDeviceClass, latitude, longitude,
+                        receivedAt);
+            }
+        });
+    }
+
+    /**
+     * Hands over a device found by a bluetooth discovery which is not coming from the platform, e.g. a
+     * replayed one.
+     *
+     * @param majorDeviceClass One of the BluetoothClass.Device.Major constants, or -1 if unknown
+     */
+    public void onBluetoothObservation(final String address, final String name, final int majorDeviceClass,
+                                       final double latitude, final double longitude) {
+        final long receivedAt = SystemClock.elapsedRealtimeNanos();
+        processorHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                record(ScanEvent.bluetoothDevice(receivedAt / 1000, address, name, majorDeviceClass));
+                processBluetoothDevice(address, name, majorDeviceClass, latitude, longitude, receivedAt);
+            }
+        });
+    }
+
+    /**
+     * Hands over a location fix. Fixes are only recorded, the scans carry the location they were received at.
+     *
+     * @param speed Speed in meters/second, or NaN if unknown
+     */
+    public void onLocationFix(final double latitude, final double longitude, final float speed) {
+        final long receivedAt = SystemClock.elapsedRealtimeNanos();
+        processorHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                record(ScanEvent.location(receivedAt / 1000, latitude, longitude, speed));
+            }
+        });
+    }
+
+    /**
+     * Hands over a batch of Bluetooth LE sightings, along with the location where the batch was delivered.
+     * A batch may hold several sightings of the same device.
+     */
+    public void onBleBatch(final List<BleScanner.Sighting> sightings, final double latitude,
+                           final double longitude) {
+        final long receivedAt = SystemClock.elapsedRealtimeNanos();
+        Metrics.counter(Metrics.BLE_BATCHES).incrementAndGet();
+        processorHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                record(ScanEvent.bleBatch(receivedAt / 1000, sightings));
+                processBleBatch(sightings, latitude, longitude, receivedAt);
+            }
+        });
+    }
+
+    /**
+     * Runs the given task, on a background thread, once the scans already handed over have been
+     * processed and stored.
+     */
+    public void drain(final Runnable onDrained) {
+        processorHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                databaseWriter.drain(onDrained);
+            }
+        });
+    }
+
+    /**
+     * Stops the processor thread once the scans already handed over have been processed.
+     */
+    public void quit() {
+        processorHandler.getLooper().quitSafely();
+    }
+
+    /**
+     * @param nowMicros  Time the results were received, in microseconds since boot
+     * @param receivedAt Time the results were handed over, in elapsedRealtimeNanos
+     */
+    private void processWifiScan(List<WifiObservation> scanResults, double latitude, double longitude, float speed,
+                                 long nowMicros, long receivedAt, int scanId) {
+        long start = SystemClock.elapsedRealtimeNanos();
+        //Get a location
+        boolean isSameLocation = lastKnownLocation != null && lastKnownLocation.hasCoordinates(latitude, longitude);
+
+        //Create a Location object
+        Location location;
+        if (isSameLocation)
+            //I'm in the same place, use the Location object contained in lastKnownLocation
+            location = lastKnownLocation;
+        else
+            //I'm in a new spot, create a new Location object
+            location = new Location(new Date(), latitude, longitude);
+
+        //At the same spot, only the results which weren't in the previous scan can be new to the database.
+        //Until the previous scan has been committed, every fresh result is handed over again, so a scan whose
+        //transaction failed is retried by the next one.
+        ScanDelta.Delta delta = scanDelta.compare(scanResults, nowMicros);
+        boolean previousScanCommitted = lastScanStored && lastCommittedScan.get() == lastQueuedScan;
+        List<WifiObservation> newResults = isSameLocation && previousScanCommitted ? delta.getAppeared() :
+                delta.getFresh();
+        Metrics.counter(Metrics.SKIPPED_RESULTS).addAndGet(scanResults.size() - newResults.size());
+
+        List<Device> scanDevices = new ArrayList<>(newResults.size());
+
+        //For each new scan result, create a Device and add it to the Location devices list
+        Tracing.begin(Tracing.SCAN_DEVICES);
+        for (WifiObservation s : newResults) {
+            //First constructor for WiFi AP
+            //String ssid, String bssid, String characteristics, int channelWidthConstant, int frequency, int
+            //signalIntensity, DeviceType type
+            Device wifiDevice = new Device(namePool.intern(s.getSsid()), s.getBssid(),
+                    capabilitiesPool.intern(s.getCapabilities()), s.getChannelWidth(), s.getFrequency(), s.getLevel(),
+                    DeviceType.WIFI);
+
+            sessionDevices.add(wifiDevice);
+
+            location.addFoundDevice(wifiDevice);
+            scanDevices.add(wifiDevice);
+        }
+        Tracing.end();
+
+        //Store the whole scan at once. Only the devices which don't exist in the database are
+        //registered, and only if the location is valid (i.e not (0.0, 0.0))
+        //If the user hasn't moved, any devices already discovered on that location won't be registered again
+        lastScanStored = location.isValidLocation();
+        if (lastScanStored) {
+            long now = SystemClock.elapsedRealtime();
+            scanIntervalPolicy.onLocation(now, latitude, longitude, speed);
+
+            if (scanDevices.isEmpty())
+                scanIntervalPolicy.onScanResults(now, delta.getFresh().size(), 0);
+            else
+                //New spots are added to the heatmap
+                storeScan(location, scanDevices, isSameLocation ? null : location, delta.getFresh().size(),
+                        receivedAt, scanId);
+        }
+        //With nothing to store, the scan ends here
+        if (scanId != 0 && (!lastScanStored || scanDevices.isEmpty()))
+            Tracing.endAsync(Tracing.SCAN, scanId);
+
+        //The list of found devices must not transfer from one location to another
+        location.getLocatedDevices().clear();
+
+        lastKnownLocation = location;
+        Metrics.histogram(Metrics.SCAN_PROCESSING).recordNanos(SystemClock.elapsedRealtimeNanos() - start);
+    }
+
+    private void processBluetoothDevice(String macAddress, String name, int majorDeviceClass, double latitude,
+                                        double longitude, long receivedAt) {
+        String btName = namePool.intern(name);
+        String deviceClass = determineBtMajorDevice(majorDeviceClass);
+
+        //First constructor for bluetooth device
+        //String ssid, String bssid, String characteristics, int channelWidthConstant, int frequency, int
+        //signalIntensity, DeviceType type
+        Device btDevice = new Device(btName, macAddress, deviceClass, 9999, 0, 9999, DeviceType.BLUETOOTH);
+
+        sessionDevices.add(btDevice);
+
+        //The device is associated with the current location, which must be valid
+        Location location = new Location(new Date(), latitude, longitude);
+        if (location.isValidLocation())
+            storeScan(location, Collections.singletonList(btDevice), null, -1, receivedAt, 0);
+    }
+
+    private void processBleBatch(List<BleScanner.Sighting> sightings, double latitude, double longitude,
+                                 long receivedAt) {
+        List<Device> batchDevices = new ArrayList<>(sightings.size());
+        Set<String> batchAddresses = new HashSet<>();
+
+        for (BleScanner.Sighting sighting : sightings) {
+            if (!batchAddresses.add(sighting.getAddress()))
+                continue;
+
+            //String ssid, String bssid, String characteristics, int channelWidthConstant, int frequency, int
+            //signalIntensity, DeviceType type
+            Device bleDevice = new Device(namePool.intern(sighting.getName()), sighting.getAddress(),
+                    BLE_DEVICE_CLASS, 9999, 0, 9999, DeviceType.BLUETOOTH_LE);
+            sessionDevices.add(bleDevice);
+            batchDevices.add(bleDevice);
+        }
+
+        //The whole batch is associated with the location where it was delivered, which must be valid
+        Location location = new Location(new Date(), latitude, longitude);
+        if (location.isValidLocation())
+            storeScan(location, batchDevices, null, -1, receivedAt, 0);
+    }
+
+    /**
+     * Queues the devices found in a single scan to be stored using one database transaction. Once the
+     * scan has been stored, the devices which were found for the first time are added to the summary.
+     *
+     * @param newSpot         Location to add to the heatmap, or null
+     * @param wifiResultCount Number of fresh results of the wifi scan, whose novelty drives the scan interval,
+     *                        or -1 if the devices don't come from a wifi scan
+     * @param receivedAt      Time the scan was handed over, in elapsedRealtimeNanos
+     * @param scanId          Id of the wifi scan, or 0 if the devices don't come from a wifi scan
+     */
+    private void storeScan(Location location, final List<Device> scanDevices, final Location newSpot,
+                           final int wifiResultCount, final long receivedAt, final int scanId) {
+        final ScanIntervalPolicy policy = scanIntervalPolicy;
+        final long scanNumber = wifiResultCount >= 0 ? ++lastQueuedScan : 0;
+        databaseWriter.storeScan(sessionId, location, scanDevices, new DatabaseWriter.ScanStoredCallback() {
+            @Override
+            public void onScanStored(List<Device> newDevices) {
+                Metrics.histogram(Metrics.SCAN_TO_STORED).recordNanos(SystemClock.elapsedRealtimeNanos() - receivedAt);
+                if (wifiResultCount >= 0) {
+                    //The writer runs the scans in order, so the committed scan number never goes back
+                    lastCommittedScan.set(scanNumber);
+                    policy.onScanResults(SystemClock.elapsedRealtime(), wifiResultCount, newDevices.size());
+                }
+
+                publish(newDevices, newSpot);
+                if (scanId != 0)
+                    Tracing.endAsync(Tracing.SCAN, scanId);
+            }
+
+            @Override
+            public void onScanFailed() {
+                if (scanId != 0)
+                    Tracing.endAsync(Tracing.SCAN, scanId);
+            }
+        });
+    }
+
+    private void publish(List<Device> newDevices, Location newSpot) {
+        synchronized (summaryLock) {
+            if (pendingSummary == null) {
+                pendingSummary = new ScanSummary();
+                mainHandler.post(deliverSummary);
+            }
+            pendingSummary.add(newDevices, newSpot);
+        }
+    }
+
+    private void record(ScanEvent event) {
+        if (recorder == null)
+            return;
+
+        try {
+            recorder.record(event);
+        } catch (IOException e) {
+            Log.d(TAG, "ERROR WHILE RECORDING SCANS, RECORDING STOPPED: " + e.getMessage());
+            closeRecorder();
+        }
+    }
+
+    private void closeRecorder() {
+        if (recorder == null)
+            return;
+
+        Log.d(TAG, "SCAN EVENTS RECORDED: " + recorder.getEventCount());
+        try {
+            recorder.close();
+        } catch (IOException e) {
+            Log.d(TAG, "ERROR WHILE CLOSING THE SCAN RECORDING: " + e.getMessage());
+        }
+        recorder = null;
+    }
+
+    private static String determineBtMajorDevice(int majorDeviceClass) {
+        String result = "";
+
+        switch (majorDeviceClass) {
+            case BluetoothClass.Device.Major.AUDIO_VIDEO:
+                result = "AUDIO-VIDEO";
+                break;
+            case BluetoothClass.Device.Major.COMPUTER:
+                result = "COMPUTER";
+                break;
+            case BluetoothClass.Device.Major.HEALTH:
+                result = "HEALTH";
+                break;
+            case BluetoothClass.Device.Major.IMAGING:
+                result = "IMAGING";
+                break;
+            case BluetoothClass.Device.Major.MISC:
+                result = "MISC";
+                break;
+            case BluetoothClass.Device.Major.NETWORKING:
+                result = "NETWORKING";
+                break;
+            case BluetoothClass.Device.Major.PERIPHERAL:
+                result = "PERIPHERAL";
+                break;
+            case BluetoothClass.Device.Major.PHONE:
+                result = "PHONE";
+                break;
+            case BluetoothClass.Device.Major.TOY:
+                result = "TOY";
+                break;
+            case BluetoothClass.Device.Major.UNCATEGORIZED:
+                result = "UNCATEGORIZED";
+                break;
+            case BluetoothClass.Device.Major.WEARABLE:
+                result = "WEARABLE";
+                break;
+            default:
+                break;
+        }
+
+        return result;
+    }
+
+    /**
+     * Listener of the scan summaries, called on the main thread.
+     */
+    public interface SummaryListener {
+        void onScanSummary(ScanSummary summary);
+    }
+
+    /**
+     * Listener of the end of a session.
+     */
+    public interface SessionEndListener {
+        /**
+         * Called on the main thread with the devices found during the session, in the order they were found.
+         */
+        void onSessionDevices(List<Device> sessionDevices);
+
+        /**
+         * Called on the writer thread once every scan of the session has been stored.
+         */
+        void onSessionStored();
+    }
+
+    /**
+     * Outcome of one or more scans: the devices found for the first time and the new spots visited.
+     */
+    public static class ScanSummary {
+        private final List<Device> newDevices = new ArrayList<>();
+        private final List<Location> newSpots = new ArrayList<>();
+        private int scanCount;
+
+        private void add(List<Device> devices, Location newSpot) {
+            newDevices.addAll(devices);
+            if (newSpot != null)
+                newSpots.add(newSpot);
+            scanCount++;
+        }
+
+        public List<Device> getNewDevices() {
+            return newDevices;
+        }
+
+        /**
+         * @return The new spots, in the order they were visited.
+         */
+        public List<Location> getNewSpots() {
+            return newSpots;
+        }
+
+        public int getScanCount() {
+            return scanCount;
+        }
+    }
+}
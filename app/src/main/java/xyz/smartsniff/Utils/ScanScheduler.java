@@ -0,0 +1,166 @@
+package xyz.smartsniff.Utils;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Requests scans from a single scheduler thread, which sleeps between scans. The time between scans
+ * is decided by a ScanIntervalPolicy, and the scans themselves are requested through a ScanTrigger,
+ * so the scheduler can be driven by a fake WifiManager outside of the device.
+ *
+ * Date: 18/10/2026
+ */
+public class ScanScheduler {
+
+    private static final String TAG = "ScanScheduler";
+
+    private final ScanTrigger trigger;
+    private final ScheduledExecutorService scheduler;
+
+    private ScanIntervalPolicy policy;
+    private boolean running, paused;
+    private ScheduledFuture<?> nextScan;
+    //Incremented whenever the pending scan is cancelled, so a scan already running doesn't reschedule itself
+    private int generation;
+
+    //Counters, to measure how often the scheduler wakes up
+    private final AtomicInteger wakeupCount = new AtomicInteger();
+    private final AtomicInteger scanCount = new AtomicInteger();
+
+    public ScanScheduler(ScanTrigger trigger) {
+        this.trigger = trigger;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                return new Thread(runnable, TAG);
+            }
+        });
+    }
+
+    /**
+     * Starts requesting scans. The first scan is requested once the first interval has elapsed.
+     */
+    public synchronized void start(ScanIntervalPolicy policy) {
+        if (running)
+            return;
+
+        this.policy = policy;
+        running = true;
+        paused = false;
+        schedule(policy.nextInterval(SystemClock.elapsedRealtime()));
+    }
+
+    /**
+     * Stops requesting scans until resume() is called.
+     */
+    public synchronized void pause() {
+        if (!running || paused)
+            return;
+
+        paused = true;
+        cancel();
+    }
+
+    /**
+     * Resumes a paused scheduler. The next scan is requested once the interval has elapsed.
+     */
+    public synchronized void resume() {
+        if (!running || !paused)
+            return;
+
+        paused = false;
+        schedule(policy.nextInterval(SystemClock.elapsedRealtime()));
+    }
+
+    /**
+     * Stops requesting scans. The scheduler can be started again.
+     */
+    public synchronized void stop() {
+        running = false;
+        paused = false;
+        cancel();
+    }
+
+    /**
+     * Stops the scheduler and its thread. The scheduler can't be used afterwards.
+     */
+    public synchronized void shutdown() {
+        stop();
+        scheduler.shutdownNow();
+    }
+
+    public synchronized boolean isRunning() {
+        return running && !paused;
+    }
+
+    /**
+     * @return Number of times the scheduler thread has woken up to request a scan.
+     */
+    public int getWakeupCount() {
+        return wakeupCount.get();
+    }
+
+    /**
+     * @return Number of scans accepted by the trigger.
+     */
+    public int getScanCount() {
+        return scanCount.get();
+    }
+
+    private void schedule(long delayMs) {
+        final int scheduledGeneration = generation;
+        nextScan = scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                requestScan(scheduledGeneration);
+            }
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void requestScan(int scheduledGeneration) {
+        ScanIntervalPolicy currentPolicy;
+        synchronized (this) {
+            if (scheduledGeneration != generation)
+                return;
+            currentPolicy = policy;
+        }
+
+        wakeupCount.incrementAndGet();
+        if (trigger.startScan()) {
+            scanCount.incrementAndGet();
+            currentPolicy.onScanRequested(SystemClock.elapsedRealtime());
+        } else {
+            Log.d(TAG, "SCAN REQUEST REJECTED");
+        }
+
+        synchronized (this) {
+            if (scheduledGeneration == generation)
+                schedule(currentPolicy.nextInterval(SystemClock.elapsedRealtime()));
+        }
+    }
+
+    private void cancel() {
+        generation++;
+        if (nextScan != null) {
+            nextScan.cancel(false);
+            nextScan = null;
+        }
+    }
+
+    /**
+     * Requests a single scan, e.g. WifiManager.startScan().
+     */
+    public interface ScanTrigger {
+        /**
+         * @return Whether the scan was started.
+         */
+        boolean startScan();
+    }
+}
@@ -0,0 +1,122 @@
+package xyz.smartsniff.Utils;
+
+import android.os.Build;
+import android.os.Trace;
+import android.util.Log;
+
+import java.lang.reflect.Method;
+
+/**
+ * Opt-in android.os.Trace instrumentation of the scan pipeline, to be captured with Perfetto or systrace
+ * (the application must be debuggable, or the capture must include its package). While tracing is off,
+ * every call is a single check of a volatile flag, and callers only pass constant names, so nothing is
+ * allocated.
+ *
+ * Section names follow the Metrics naming scheme. Each wifi scan is an async section named SCAN, whose
+ * cookie is the scan id: it begins when the scan is requested and ends once its results have been
+ * stored or discarded, so a trace shows the life of every scan next to the synchronous sections of each
+ * stage.
+ *
+ * Async sections are public API since Android 10 (API 29), newer than the compile SDK, so they are
+ * called through reflection. Older versions use the equivalent hidden methods, if available.
+ *
+ * Date: 18/10/2026
+ */
+public final class Tracing {
+
+    private static final String TAG = "Tracing";
+
+    //Async sections, with the scan id as cookie
+    public static final String SCAN = "scan";
+    //Sections
+    public static final String RECEIVER_ON_RECEIVE = Metrics.RECEIVER_ON_RECEIVE;
+    public static final String SCAN_DEVICES = "scan.devices";
+    public static final String DB_INGEST_SCAN = Metrics.DB_INGEST_SCAN;
+    public static final String DB_UPDATE_MANUFACTURERS = "db.updateManufacturers";
+    public static final String MAP_ADD_POINT = "map.addSinglePointToHeatMap";
+    public static final String MAP_PAINT = Metrics.MAP_PAINT;
+    public static final String UPLOAD_SESSIONS = "upload.sessions";
+    public static final String UPLOAD_DEVICES = "upload.devices";
+    public static final String UPLOAD_LOCATIONS = "upload.locations";
+    public static final String UPLOAD_ASSOCIATIONS = "upload.associations";
+
+    private static volatile boolean enabled;
+
+    private static Method asyncBeginMethod, asyncEndMethod;
+    //Trace tag of the hidden methods, or -1 when the public ones are used
+    private static long asyncTraceTag = -1;
+
+    private Tracing() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        if (enabled && asyncBeginMethod == null)
+            loadAsyncMethods();
+        Tracing.enabled = enabled;
+    }
+
+    /**
+     * Begins a section on the current thread, which must be ended with end() on the same thread. Sections
+     * open while tracing is turned on or off are cut short in the trace, which is fine for a debug aid.
+     */
+    public static void begin(String sectionName) {
+        if (enabled)
+            Trace.beginSection(sectionName);
+    }
+
+    public static void end() {
+        if (enabled)
+            Trace.endSection();
+    }
+
+    /**
+     * Begins an async section, which may end on any thread.
+     */
+    public static void beginAsync(String sectionName, int cookie) {
+        if (enabled)
+            invokeAsync(asyncBeginMethod, sectionName, cookie);
+    }
+
+    public static void endAsync(String sectionName, int cookie) {
+        if (enabled)
+            invokeAsync(asyncEndMethod, sectionName, cookie);
+    }
+
+    private static synchronized void loadAsyncMethods() {
+        if (asyncBeginMethod != null)
+            return;
+
+        try {
+            if (Build.VERSION.SDK_INT >= 29) {
+                asyncBeginMethod = Trace.class.getMethod("beginAsyncSection", String.class, int.class);
+                asyncEndMethod = Trace.class.getMethod("endAsyncSection", String.class, int.class);
+            } else {
+                asyncTraceTag = Trace.class.getField("TRACE_TAG_APP").getLong(null);
+                asyncBeginMethod = Trace.class.getMethod("asyncTraceBegin", long.class, String.class, int.class);
+                asyncEndMethod = Trace.class.getMethod("asyncTraceEnd", long.class, String.class, int.class);
+            }
+        } catch (Exception e) {
+            Log.d(TAG, "ASYNC TRACE SECTIONS NOT AVAILABLE: " + e.getMessage());
+            asyncBeginMethod = null;
+            asyncEndMethod = null;
+        }
+    }
+
+    private static void invokeAsync(Method method, String sectionName, int cookie) {
+        if (method == null)
+            return;
+
+        try {
+            if (asyncTraceTag == -1)
+                method.invoke(null, sectionName, cookie);
+            else
+                method.invoke(null, asyncTraceTag, sectionName, cookie);
+        } catch (Exception e) {
+            //The section is lost, there is nothing else to do
+        }
+    }
+}
@@ -6,15 +6,11 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 
 import java.net.NetworkInterface;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Collections;
-import java.util.Date;
 import java.util.List;
-import java.util.Locale;
 
 /**
- * Class with methods used across the app.
+ * Class with methods used across the app. The codecs shared with the core module are in Codecs.
  *
  * Author: Daniel Castro García
  * Email: dandev237@gmail.com
@@ -24,53 +20,36 @@ public class Utils {
 
     public static final String MANUFACTURER_REQUEST_URL = "http://api.macvendors.com/";
     public static final String MANUFACTURER_NOT_FOUND = "NotFound";
+    public static final String DATA_UPLOAD_URL = "http://bustrack.undo.it:5000/api/db/storedata";
     public static final String PREFS_NAME = "SmartSniffPref";
     public static final String PREF_GPS_PRIORITY = "GPS Priority";
     public static final String PREF_SCAN_INTERVAL = "Scan Interval";
-    public static final String DATE_FORMAT = "dd/MM/yyyy HH:mm:ss";
+    public static final String PREF_ADAPTIVE_SCAN = "Adaptive Scan";
+    public static final String PREF_BLUETOOTH_SCAN_MODE = "Bluetooth Scan Mode";
+    public static final String PREF_TRACING = "Tracing";
+    public static final String PREF_RECORD_SCANS = "Record Scans";
     public static final int SCAN_INTERVAL_DEFAULT = 3000;
+    public static final boolean ADAPTIVE_SCAN_DEFAULT = false;
+    public static final int ADAPTIVE_SCAN_INTERVAL_MIN = 2000;
+    public static final int ADAPTIVE_SCAN_INTERVAL_MAX = 30000;
+    //Bluetooth scan modes, in the order of the settings spinner
+    public static final int BLUETOOTH_SCAN_CLASSIC = 0;
+    public static final int BLUETOOTH_SCAN_LE_LOW_POWER = 1;
+    public static final int BLUETOOTH_SCAN_LE_BALANCED = 2;
+    public static final int BLUETOOTH_SCAN_LE_LOW_LATENCY = 3;
+    public static final int BLUETOOTH_SCAN_MODE_DEFAULT = BLUETOOTH_SCAN_CLASSIC;
+    public static final long BLE_REPORT_DELAY_MS = 10000;
+    public static final boolean TRACING_DEFAULT = false;
+    public static final boolean RECORD_SCANS_DEFAULT = false;
     public static final int GPS_PRIORITY_DEFAULT = LocationRequest.PRIORITY_HIGH_ACCURACY;
     public static final int HEATMAP_RADIUS = 40;
     public static final int REQUEST_ENABLE_INTENT = 123;
     public static final float ZOOM_LEVEL = 17.0f;
     public static final double HEATMAP_OPACITY = 0.6;
 
-    public static final Gson gson = new GsonBuilder().setDateFormat(Utils.DATE_FORMAT).disableHtmlEscaping().create();
+    public static final Gson gson = new GsonBuilder().setDateFormat(Codecs.DATE_FORMAT).disableHtmlEscaping().create();
     public static RequestQueue queue;
 
-    /**
-     * Given a date, this function returns the date with the format "dd/MM/yyyy HH:mm:ss"
-     *
-     * @param date The date to format.
-     * @return The date, formatted.
-     */
-    public static String formatDate(Date date) {
-        SimpleDateFormat dateFormat = new SimpleDateFormat(DATE_FORMAT, Locale.ENGLISH);
-        String formattedDate = dateFormat.format(date);
-
-        return formattedDate;
-    }
-
-    /**
-     * This method does the inverse operation of 'formatDate'.
-     * Given a formatted date (string), returns the same date contained in a Date object.
-     *
-     * @param stringDate The string to parse.
-     * @return The date, in a Date object.
-     */
-    public static Date reverseFormatDate(String stringDate) {
-        SimpleDateFormat dateFormat = new SimpleDateFormat(DATE_FORMAT, Locale.ENGLISH);
-        Date date = null;
-        try {
-            date = dateFormat.parse(stringDate);
-        } catch (ParseException | NullPointerException e) {
-            //e.printStackTrace();
-            date = new Date();
-        }
-
-        return date;
-    }
-
     /**
      * This method returns the mac address of the Android device executing the application.
      * Since Android 6.0 (Marshmallow), it is no longer possible to use "getConnectionInfo().getMacAddress()"
@@ -0,0 +1,195 @@
+package xyz.smartsniff.Utils;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import xyz.smartsniff.Model.Device;
+import xyz.smartsniff.Model.DeviceType;
+import xyz.smartsniff.Model.Location;
+import xyz.smartsniff.Model.Session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs DatabaseHelper on the SQLite of Robolectric, against databases created from scratch or left by a
+ * previous version of the app.
+ *
+ * Date: 18/10/2026
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class DatabaseHelperTest {
+
+    //Same name as DatabaseHelper.DATABASE_NAME
+    private static final String DATABASE_NAME = "sessionsDatabase";
+
+    //Schema of version 8, where associations were identified by their implicit rowid
+    private static final String[] SCHEMA_V8 = {
+            "CREATE TABLE sessions(id INTEGER PRIMARY KEY AUTOINCREMENT, startDate INTEGER, endDate INTEGER)",
+            "CREATE TABLE devices(id INTEGER PRIMARY KEY AUTOINCREMENT, ssid TEXT NOT NULL, bssid TEXT UNIQUE, " +
+                    "manufacturer TEXT, characteristics TEXT, channelWidth TEXT, frequency INTEGER, " +
+                    "signalIntensity INTEGER, type TEXT, security INTEGER NOT NULL DEFAULT 0)",
+            "CREATE TABLE locations(id INTEGER PRIMARY KEY AUTOINCREMENT, date INTEGER, latitude REAL NOT NULL, " +
+                    "longitude REAL NOT NULL, UNIQUE (latitude, longitude))",
+            "CREATE TABLE asocSessionsDevices(idSession INTEGER REFERENCES sessions, " +
+                    "idDevice INTEGER REFERENCES devices, idLocation INTEGER REFERENCES locations, " +
+                    "PRIMARY KEY (idSession, idDevice, idLocation))",
+            "CREATE INDEX asocLocationIndex ON asocSessionsDevices(idLocation)",
+            "CREATE INDEX deviceSecurityIndex ON devices(type, security)",
+            "CREATE TABLE syncState(name TEXT PRIMARY KEY, value INTEGER NOT NULL)",
+            "CREATE TABLE manufacturers(prefix INTEGER PRIMARY KEY, name TEXT, expiresAt INTEGER NOT NULL)"
+    };
+
+    private File databaseFile;
+
+    @Before
+    public void setUp() {
+        databaseFile = RuntimeEnvironment.application.getDatabasePath(DATABASE_NAME);
+        databaseFile.getParentFile().mkdirs();
+    }
+
+    @Test
+    public void upgradeKeepsTheExportWatermark() throws IOException {
+        //Associations whose rowids have gaps, as left by deleted rows, the first two already exported
+        SQLiteDatabase db = createDatabaseV8();
+        db.execSQL("INSERT INTO sessions(id, startDate) VALUES (1, 1476748800000)");
+        db.execSQL("INSERT INTO locations(id, latitude, longitude) VALUES (1, 40.4, -3.7)");
+        for (int i = 1; i <= 3; i++)
+            db.execSQL("INSERT INTO devices(id, ssid, bssid, type) VALUES (" + i + ", 'eduroam', " +
+                    "'00:11:22:33:44:0" + i + "', 'WIFI')");
+        db.execSQL("INSERT INTO asocSessionsDevices(rowid, idSession, idDevice, idLocation) VALUES (5, 1, 1, 1)");
+        db.execSQL("INSERT INTO asocSessionsDevices(rowid, idSession, idDevice, idLocation) VALUES (9, 1, 2, 1)");
+        db.execSQL("INSERT INTO asocSessionsDevices(rowid, idSession, idDevice, idLocation) VALUES (12, 1, 3, 1)");
+        db.execSQL("INSERT INTO syncState(name, value) VALUES ('lastAssociationRowId', 9)");
+        db.close();
+
+        DatabaseHelper databaseHelper = new DatabaseHelper(RuntimeEnvironment.application);
+
+        assertEquals(9, databaseHelper.getExportWatermark());
+        assertEquals(12, databaseHelper.getLastAssociationId());
+        assertEquals(Collections.singletonList("00:11:22:33:44:03"), exportedDevices(databaseHelper, 9, 12));
+
+        //Ids survive a VACUUM, where implicit rowids may be renumbered
+        databaseHelper.getWritableDatabase().execSQL("VACUUM");
+        assertEquals(Collections.singletonList("00:11:22:33:44:03"), exportedDevices(databaseHelper, 9, 12));
+        assertEquals(1, databaseHelper.countExportedAssociations(9, 12));
+        assertEquals(1, count(databaseHelper, "SELECT COUNT(*) FROM sqlite_master WHERE type = 'index' AND " +
+                "name = 'asocLocationIndex'"));
+
+        //New associations go after the last one
+        long sessionId = databaseHelper.addSession(new Session(new Date()));
+        databaseHelper.ingestScan(sessionId, new Location(new Date(), 40.5, -3.8),
+                Collections.singletonList(wifiDevice("00:11:22:33:44:04")));
+        assertEquals(13, databaseHelper.getLastAssociationId());
+        assertEquals(Collections.singletonList("00:11:22:33:44:04"), exportedDevices(databaseHelper, 12, 13));
+    }
+
+    @Test
+    public void associationIdsAreNotReused() throws IOException {
+        DatabaseHelper databaseHelper = new DatabaseHelper(RuntimeEnvironment.application);
+        long sessionId = databaseHelper.addSession(new Session(new Date()));
+        databaseHelper.ingestScan(sessionId, new Location(new Date(), 40.4, -3.7),
+                Arrays.asList(wifiDevice("00:11:22:33:44:01"), wifiDevice("00:11:22:33:44:02")));
+        databaseHelper.advanceExportWatermark(2);
+
+        assertTrue(databaseHelper.deleteDatabase());
+        assertEquals(0, databaseHelper.getExportWatermark());
+
+        sessionId = databaseHelper.addSession(new Session(new Date()));
+        databaseHelper.ingestScan(sessionId, new Location(new Date(), 40.4, -3.7),
+                Collections.singletonList(wifiDevice("00:11:22:33:44:03")));
+        assertEquals(3, databaseHelper.getLastAssociationId());
+        assertEquals(Collections.singletonList("00:11:22:33:44:03"), exportedDevices(databaseHelper, 0, 3));
+    }
+
+    @Test
+    public void devicesAreCountedBySecurity() {
+        DatabaseHelper databaseHelper = new DatabaseHelper(RuntimeEnvironment.application);
+        long sessionId = databaseHelper.addSession(new Session(new Date()));
+        databaseHelper.ingestScan(sessionId, new Location(new Date(), 40.4, -3.7), Arrays.asList(
+                wifiDevice("00:11:22:33:44:01", "[ESS]"),
+                wifiDevice("00:11:22:33:44:02", "[WEP][ESS]"),
+                wifiDevice("00:11:22:33:44:03", "[WPA2-PSK-CCMP][WPS][ESS]"),
+                wifiDevice("00:11:22:33:44:04", "[WPA-PSK-TKIP+CCMP][WPA2-PSK-TKIP+CCMP][WPS][ESS]"),
+                wifiDevice("00:11:22:33:44:05", "[WPA2-EAP-CCMP][ESS]"),
+                wifiDevice("00:11:22:33:44:06", "[WPA2-PSK-CCMP][ESS]"),
+                //Bluetooth devices store their class as characteristics, they have no security flags
+                new Device("Headphones", "00:11:22:33:44:07", "AUDIO_VIDEO", 9999, 0, 9999, DeviceType.BLUETOOTH)));
+
+        //The examples of the documentation: networks with WPS and unencrypted networks
+        assertEquals(2, databaseHelper.countDevicesBySecurity(SecurityFlags.WPS, SecurityFlags.WPS));
+        assertEquals(1, databaseHelper.countDevicesBySecurity(SecurityFlags.ENCRYPTED, 0));
+
+        assertEquals(1, databaseHelper.countDevicesBySecurity(SecurityFlags.WEP, SecurityFlags.WEP));
+        assertEquals(3, databaseHelper.countDevicesBySecurity(SecurityFlags.WPA2 | SecurityFlags.PSK,
+                SecurityFlags.WPA2 | SecurityFlags.PSK));
+        //WPA2 personal without WPS
+        assertEquals(1, databaseHelper.countDevicesBySecurity(SecurityFlags.PSK | SecurityFlags.WPS,
+                SecurityFlags.PSK));
+        //Every wifi network
+        assertEquals(6, databaseHelper.countDevicesBySecurity(0, 0));
+        assertEquals(0, databaseHelper.countDevicesBySecurity(SecurityFlags.IBSS, SecurityFlags.IBSS));
+    }
+
+    @Test
+    public void emptyDatabaseHasNoDevicesOfAnySecurity() {
+        DatabaseHelper databaseHelper = new DatabaseHelper(RuntimeEnvironment.application);
+
+        assertEquals(0, databaseHelper.countDevicesBySecurity(0, 0));
+        assertEquals(0, databaseHelper.countDevicesBySecurity(SecurityFlags.ENCRYPTED, 0));
+    }
+
+    private SQLiteDatabase createDatabaseV8() {
+        SQLiteDatabase db = SQLiteDatabase.openOrCreateDatabase(databaseFile, null);
+        for (String statement : SCHEMA_V8)
+            db.execSQL(statement);
+        db.setVersion(8);
+        return db;
+    }
+
+    private static List<String> exportedDevices(DatabaseHelper databaseHelper, long fromId, long toId)
+            throws IOException {
+        final List<String> devices = new ArrayList<>();
+        databaseHelper.forEachExportedAssociation(fromId, toId, new DatabaseHelper.AssociationCallback() {
+            @Override
+            public void onAssociation(Session session, Device device, Location location) {
+                devices.add(device.getBssid());
+            }
+        });
+        return devices;
+    }
+
+    private static long count(DatabaseHelper databaseHelper, String query) {
+        Cursor cursor = databaseHelper.getReadableDatabase().rawQuery(query, null);
+        try {
+            cursor.moveToFirst();
+            return cursor.getLong(0);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static Device wifiDevice(String bssid) {
+        return wifiDevice(bssid, "[WPA2-EAP-CCMP][ESS]");
+    }
+
+    private static Device wifiDevice(String bssid, String capabilities) {
+        return new Device("eduroam", bssid, capabilities, 0, 2412, -60, DeviceType.WIFI);
+    }
+}
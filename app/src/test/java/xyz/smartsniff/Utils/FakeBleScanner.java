@@ -0,0 +1,77 @@
+package xyz.smartsniff.Utils;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * BleScanner which replays a fixed list of sightings, a batch every report delay, on the main thread.
+ * It drives the batching path of ScanProcessor in the tests, which run the main looper themselves.
+ *
+ * Date: 18/10/2026
+ */
+public class FakeBleScanner implements BleScanner {
+
+    private final List<Sighting> sightings;
+    private final int batchSize;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    private BatchListener listener;
+    private long reportDelayMillis;
+    private int nextSighting, batchCount;
+
+    private final Runnable deliverBatch = new Runnable() {
+        @Override
+        public void run() {
+            //The scan may have been stopped while the batch was pending
+            if (listener == null)
+                return;
+
+            int end = Math.min(nextSighting + batchSize, sightings.size());
+            List<Sighting> batch = new ArrayList<>(sightings.subList(nextSighting, end));
+            nextSighting = end;
+            batchCount++;
+            listener.onBatch(batch);
+
+            //The listener may have stopped the scan
+            if (listener != null && nextSighting < sightings.size())
+                handler.postDelayed(this, reportDelayMillis);
+        }
+    };
+
+    /**
+     * @param sightings Sightings to replay, in order
+     * @param batchSize Maximum number of sightings of each batch
+     */
+    public FakeBleScanner(List<Sighting> sightings, int batchSize) {
+        this.sightings = sightings;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public boolean start(int scanMode, long reportDelayMillis, BatchListener listener) {
+        this.listener = listener;
+        this.reportDelayMillis = reportDelayMillis;
+        nextSighting = 0;
+        batchCount = 0;
+
+        if (!sightings.isEmpty())
+            handler.postDelayed(deliverBatch, reportDelayMillis);
+        return true;
+    }
+
+    @Override
+    public void stop() {
+        handler.removeCallbacks(deliverBatch);
+        listener = null;
+    }
+
+    /**
+     * @return Number of batches delivered since the scan was started.
+     */
+    public int getBatchCount() {
+        return batchCount;
+    }
+}
@@ -0,0 +1,183 @@
+package xyz.smartsniff.Utils;
+
+import android.database.Cursor;
+import android.os.Looper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import xyz.smartsniff.Model.DeviceType;
+import xyz.smartsniff.Model.Session;
+import xyz.smartsniff.Model.WifiObservation;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Replays recorded logs through a ProcessorReplayTarget into a ScanProcessor and a database of their own,
+ * and checks what gets stored. The processor runs on the main looper, where the tests hand the events
+ * over, so each event is processed as soon as it is replayed and the target may wait for the writer on
+ * the main thread.
+ *
+ * Every scan of the logs is made at a spot of its own. For inserts which are ignored, the SQLite of
+ * Robolectric returns the last inserted row id where Android returns -1, so a spot stored again would be
+ * associated by a wrong id.
+ *
+ * Date: 18/10/2026
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class ProcessorReplayTargetTest {
+
+    private static final long START_TIME = 1476748800000L;
+    private static final long BOOT_TIME = 3600L * 1000 * 1000;
+
+    private DatabaseHelper databaseHelper;
+    private ScanProcessor scanProcessor;
+    private long sessionId;
+
+    @Before
+    public void setUp() {
+        databaseHelper = new DatabaseHelper(RuntimeEnvironment.application);
+        DatabaseWriter databaseWriter = new DatabaseWriter(databaseHelper, new OuiDatabase(OuiRegistry.empty()));
+        scanProcessor = new ScanProcessor(databaseWriter, new ScanProcessor.SummaryListener() {
+            @Override
+            public void onScanSummary(ScanProcessor.ScanSummary summary) {
+            }
+        }, Looper.getMainLooper());
+
+        sessionId = databaseHelper.addSession(new Session(new Date(START_TIME)));
+        scanProcessor.startSession(sessionId, new FixedScanIntervalPolicy(5000), null);
+    }
+
+    @Test
+    public void recordedSessionIsStored() throws IOException, InterruptedException {
+        int eventCount = replay(
+                ScanEvent.location(BOOT_TIME, 40.4001, -3.7, 1.5f),
+                ScanEvent.wifiScan(BOOT_TIME + 1000000, Arrays.asList(
+                        wifiResult("00:11:22:33:44:01", BOOT_TIME + 1000000),
+                        wifiResult("00:11:22:33:44:02", BOOT_TIME + 1000000))),
+                ScanEvent.location(BOOT_TIME + 2000000, 40.4002, -3.7, 1.5f),
+                ScanEvent.bluetoothDevice(BOOT_TIME + 2500000, "00:11:22:33:44:03", "Headphones", 0x0400),
+                ScanEvent.location(BOOT_TIME + 3000000, 40.4003, -3.7, 1.5f),
+                //A known access point and a new one
+                ScanEvent.wifiScan(BOOT_TIME + 4000000, Arrays.asList(
+                        wifiResult("00:11:22:33:44:02", BOOT_TIME + 4000000),
+                        wifiResult("00:11:22:33:44:04", BOOT_TIME + 4000000))),
+                ScanEvent.location(BOOT_TIME + 5000000, 40.4004, -3.7, 1.5f),
+                ScanEvent.bleBatch(BOOT_TIME + 6000000, Arrays.asList(
+                        new BleScanner.Sighting("C0:11:22:33:44:05", "Band"),
+                        new BleScanner.Sighting("C0:11:22:33:44:05", "Band"))));
+
+        assertEquals(8, eventCount);
+        assertEquals(Arrays.asList(
+                "00:11:22:33:44:01 " + DeviceType.WIFI,
+                "00:11:22:33:44:02 " + DeviceType.WIFI,
+                "00:11:22:33:44:03 " + DeviceType.BLUETOOTH,
+                "00:11:22:33:44:04 " + DeviceType.WIFI,
+                "C0:11:22:33:44:05 " + DeviceType.BLUETOOTH_LE), devices());
+        assertEquals(1, count("SELECT COUNT(*) FROM sessions"));
+        //Each device is associated once, with the spot where it was found first
+        assertEquals(Arrays.asList(
+                "00:11:22:33:44:01 40.4001",
+                "00:11:22:33:44:02 40.4001",
+                "00:11:22:33:44:03 40.4002",
+                "00:11:22:33:44:04 40.4003",
+                "C0:11:22:33:44:05 40.4004"), associations());
+    }
+
+    @Test
+    public void longRecordingIsStoredCompletely() throws IOException, InterruptedException {
+        //Several times the events handed over between two waits of the target
+        List<ScanEvent> events = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            long time = BOOT_TIME + i * 1000000L;
+            events.add(ScanEvent.location(time, 40.4 + i * 0.0001, -3.7, 1.5f));
+            events.add(ScanEvent.wifiScan(time + 500000, Collections.singletonList(
+                    wifiResult(String.format("00:11:22:33:%02X:%02X", i / 256, i % 256), time + 500000))));
+        }
+
+        replay(events.toArray(new ScanEvent[events.size()]));
+
+        assertEquals(100, count("SELECT COUNT(*) FROM devices"));
+        assertEquals(100, count("SELECT COUNT(*) FROM locations"));
+        assertEquals(100, count("SELECT COUNT(*) FROM asocSessionsDevices WHERE idSession = " + sessionId));
+    }
+
+    /**
+     * Records the given events and replays them at full speed into the processor.
+     *
+     * @return Number of events replayed.
+     */
+    private int replay(ScanEvent... events) throws IOException, InterruptedException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ScanEventRecorder recorder = new ScanEventRecorder(out, START_TIME);
+        for (ScanEvent event : events)
+            recorder.record(event);
+        recorder.close();
+
+        ScanEventReader reader = new ScanEventReader(new ByteArrayInputStream(out.toByteArray()));
+        try {
+            ProcessorReplayTarget target = new ProcessorReplayTarget(scanProcessor);
+            int eventCount = new ScanReplayer(reader, 0).replay(target);
+            target.finish();
+            return eventCount;
+        } finally {
+            reader.close();
+        }
+    }
+
+    private List<String> devices() {
+        List<String> devices = new ArrayList<>();
+        Cursor cursor = databaseHelper.getReadableDatabase().rawQuery(
+                "SELECT bssid, type FROM devices ORDER BY bssid", null);
+        try {
+            while (cursor.moveToNext())
+                devices.add(cursor.getString(0) + " " + cursor.getString(1));
+        } finally {
+            cursor.close();
+        }
+        return devices;
+    }
+
+    private List<String> associations() {
+        List<String> associations = new ArrayList<>();
+        Cursor cursor = databaseHelper.getReadableDatabase().rawQuery(
+                "SELECT d.bssid, l.latitude FROM asocSessionsDevices a " +
+                        "JOIN devices d ON d.id = a.idDevice JOIN locations l ON l.id = a.idLocation " +
+                        "WHERE a.idSession = ? ORDER BY d.bssid", new String[]{String.valueOf(sessionId)});
+        try {
+            while (cursor.moveToNext())
+                associations.add(cursor.getString(0) + " " + cursor.getDouble(1));
+        } finally {
+            cursor.close();
+        }
+        return associations;
+    }
+
+    private long count(String query) {
+        Cursor cursor = databaseHelper.getReadableDatabase().rawQuery(query, null);
+        try {
+            cursor.moveToFirst();
+            return cursor.getLong(0);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static WifiObservation wifiResult(String bssid, long timestamp) {
+        return new WifiObservation("eduroam", bssid, "[WPA2-EAP-CCMP][ESS]", 0, 2412, -60, timestamp);
+    }
+}
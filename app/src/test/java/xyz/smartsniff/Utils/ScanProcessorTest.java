@@ -0,0 +1,234 @@
+package xyz.smartsniff.Utils;
+
+import android.database.Cursor;
+import android.os.Looper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import xyz.smartsniff.Model.Device;
+import xyz.smartsniff.Model.DeviceType;
+import xyz.smartsniff.Model.Session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Feeds Bluetooth LE batches from a FakeBleScanner to a ScanProcessor, wired as ScanService does it, and
+ * checks what gets stored. The processor runs on the main looper, whose clock the tests advance, and the
+ * writer on a thread of its own, which the tests wait for.
+ *
+ * Date: 18/10/2026
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class ScanProcessorTest {
+
+    private static final double LATITUDE = 40.416775;
+    private static final double LONGITUDE = -3.703790;
+    private static final long TIMEOUT = 5000;
+
+    private DatabaseHelper databaseHelper;
+    private ScanProcessor scanProcessor;
+    private FakeBleScanner bleScanner;
+    private final List<ScanProcessor.ScanSummary> summaries = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        databaseHelper = new DatabaseHelper(RuntimeEnvironment.application);
+        DatabaseWriter databaseWriter = new DatabaseWriter(databaseHelper, new OuiDatabase(OuiRegistry.empty()));
+        scanProcessor = new ScanProcessor(databaseWriter, new ScanProcessor.SummaryListener() {
+            @Override
+            public void onScanSummary(ScanProcessor.ScanSummary summary) {
+                summaries.add(summary);
+            }
+        }, Looper.getMainLooper());
+
+        long sessionId = databaseHelper.addSession(new Session(new Date()));
+        scanProcessor.startSession(sessionId, new FixedScanIntervalPolicy(5000), null);
+    }
+
+    @Test
+    public void batchesArriveAfterTheReportDelay() throws InterruptedException {
+        startScan(1, sighting("C0:11:22:33:44:55", "Band"), sighting("C0:11:22:33:44:56", "Watch"));
+
+        ShadowLooper.idleMainLooper(Utils.BLE_REPORT_DELAY_MS - 1);
+        awaitWriter();
+        assertEquals(0, bleScanner.getBatchCount());
+        assertEquals(0, count("SELECT COUNT(*) FROM devices"));
+
+        ShadowLooper.idleMainLooper(1);
+        awaitWriter();
+        assertEquals(1, bleScanner.getBatchCount());
+        assertEquals(1, count("SELECT COUNT(*) FROM devices"));
+
+        ShadowLooper.idleMainLooper(Utils.BLE_REPORT_DELAY_MS);
+        awaitWriter();
+        assertEquals(2, bleScanner.getBatchCount());
+        assertEquals(2, count("SELECT COUNT(*) FROM devices"));
+    }
+
+    @Test
+    public void repeatedAddressesAreStoredOnce() throws InterruptedException {
+        //Batches [A, A, B] and [B, C]
+        startScan(3, sighting("C0:11:22:33:44:55", "Band"), sighting("C0:11:22:33:44:55", "Band"),
+                sighting("C0:11:22:33:44:56", "Watch"), sighting("C0:11:22:33:44:56", "Watch"),
+                sighting("C0:11:22:33:44:57", null));
+
+        ShadowLooper.idleMainLooper(2 * Utils.BLE_REPORT_DELAY_MS);
+        awaitWriter();
+
+        assertEquals(2, bleScanner.getBatchCount());
+        assertEquals(3, count("SELECT COUNT(*) FROM devices"));
+        //Devices are associated with the session where they were stored for the first time
+        assertEquals(3, count("SELECT COUNT(*) FROM asocSessionsDevices"));
+        assertEquals(Arrays.asList("C0:11:22:33:44:55", "C0:11:22:33:44:56", "C0:11:22:33:44:57"),
+                newDevicesOfSummaries());
+    }
+
+    @Test
+    public void sightingsAreStoredAsLowEnergyDevices() throws InterruptedException {
+        startScan(2, sighting("C0:11:22:33:44:55", "Band"), sighting("C0:11:22:33:44:56", null));
+
+        ShadowLooper.idleMainLooper(Utils.BLE_REPORT_DELAY_MS);
+        awaitWriter();
+
+        Cursor cursor = databaseHelper.getReadableDatabase().rawQuery(
+                "SELECT ssid, characteristics, type FROM devices ORDER BY bssid", null);
+        try {
+            assertTrue(cursor.moveToNext());
+            assertEquals("Band", cursor.getString(0));
+            assertEquals("LOW ENERGY", cursor.getString(1));
+            assertEquals(DeviceType.BLUETOOTH_LE.toString(), cursor.getString(2));
+            //Sightings without a name
+            assertTrue(cursor.moveToNext());
+            assertEquals("nameNotDefined", cursor.getString(0));
+            assertEquals(DeviceType.BLUETOOTH_LE.toString(), cursor.getString(2));
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Test
+    public void sessionDevicesMergeEveryBatch() throws InterruptedException {
+        startScan(2, sighting("C0:11:22:33:44:55", "Band"), sighting("C0:11:22:33:44:56", "Watch"),
+                sighting("C0:11:22:33:44:55", "Band"), sighting("C0:11:22:33:44:57", "Tag"));
+        ShadowLooper.idleMainLooper(2 * Utils.BLE_REPORT_DELAY_MS);
+
+        final List<Device> sessionDevices = new ArrayList<>();
+        final CountDownLatch stored = new CountDownLatch(1);
+        scanProcessor.endSession(new Date(), new ScanProcessor.SessionEndListener() {
+            @Override
+            public void onSessionDevices(List<Device> devices) {
+                sessionDevices.addAll(devices);
+            }
+
+            @Override
+            public void onSessionStored() {
+                stored.countDown();
+            }
+        });
+        assertTrue(stored.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        ShadowLooper.idleMainLooper();
+
+        List<String> addresses = new ArrayList<>();
+        for (Device device : sessionDevices)
+            addresses.add(device.getBssid());
+        assertEquals(Arrays.asList("C0:11:22:33:44:55", "C0:11:22:33:44:56", "C0:11:22:33:44:57"), addresses);
+        assertEquals(1, count("SELECT COUNT(*) FROM sessions WHERE endDate IS NOT NULL"));
+    }
+
+    @Test
+    public void stoppedScansDeliverNoMoreBatches() throws InterruptedException {
+        startScan(1, sighting("C0:11:22:33:44:55", "Band"), sighting("C0:11:22:33:44:56", "Watch"),
+                sighting("C0:11:22:33:44:57", "Tag"));
+
+        ShadowLooper.idleMainLooper(Utils.BLE_REPORT_DELAY_MS);
+        bleScanner.stop();
+        ShadowLooper.idleMainLooper(2 * Utils.BLE_REPORT_DELAY_MS);
+        awaitWriter();
+
+        assertEquals(1, bleScanner.getBatchCount());
+        assertEquals(1, count("SELECT COUNT(*) FROM devices"));
+    }
+
+    @Test
+    public void scansStoppedByTheListenerDeliverNoMoreBatches() {
+        bleScanner = new FakeBleScanner(Arrays.asList(sighting("C0:11:22:33:44:55", "Band"),
+                sighting("C0:11:22:33:44:56", "Watch")), 1);
+        bleScanner.start(0, Utils.BLE_REPORT_DELAY_MS, new BleScanner.BatchListener() {
+            @Override
+            public void onBatch(List<BleScanner.Sighting> sightings) {
+                bleScanner.stop();
+            }
+        });
+
+        ShadowLooper.idleMainLooper(2 * Utils.BLE_REPORT_DELAY_MS);
+
+        assertEquals(1, bleScanner.getBatchCount());
+    }
+
+    private void startScan(int batchSize, BleScanner.Sighting... sightings) {
+        bleScanner = new FakeBleScanner(Arrays.asList(sightings), batchSize);
+        bleScanner.start(0, Utils.BLE_REPORT_DELAY_MS, new BleScanner.BatchListener() {
+            @Override
+            public void onBatch(List<BleScanner.Sighting> sightings) {
+                //Every batch is delivered at a spot of its own. For inserts which are ignored, the SQLite of
+                //Robolectric returns the last inserted row id where Android returns -1, so a spot stored
+                //again would be associated by a wrong id
+                double latitude = LATITUDE + bleScanner.getBatchCount() * 0.001;
+                scanProcessor.onBleBatch(sightings, latitude, LONGITUDE);
+            }
+        });
+    }
+
+    /**
+     * Waits for the writer to store the batches handed over, then delivers the summaries.
+     */
+    private void awaitWriter() throws InterruptedException {
+        final CountDownLatch drained = new CountDownLatch(1);
+        scanProcessor.drain(new Runnable() {
+            @Override
+            public void run() {
+                drained.countDown();
+            }
+        });
+        assertTrue(drained.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        ShadowLooper.idleMainLooper();
+    }
+
+    private List<String> newDevicesOfSummaries() {
+        List<String> addresses = new ArrayList<>();
+        for (ScanProcessor.ScanSummary summary : summaries) {
+            for (Device device : summary.getNewDevices())
+                addresses.add(device.getBssid());
+        }
+        return addresses;
+    }
+
+    private long count(String query) {
+        Cursor cursor = databaseHelper.getReadableDatabase().rawQuery(query, null);
+        try {
+            cursor.moveToFirst();
+            return cursor.getLong(0);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static BleScanner.Sighting sighting(String address, String name) {
+        return new BleScanner.Sighting(address, name);
+    }
+}
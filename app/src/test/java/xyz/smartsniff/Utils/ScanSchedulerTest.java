@@ -0,0 +1,160 @@
+package xyz.smartsniff.Utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the scheduler in real time with short intervals, against a fake WifiManager which counts the
+ * scans requested. The bounds leave room for a loaded machine, but a scheduler spinning between scans
+ * would exceed them by orders of magnitude.
+ *
+ * Date: 18/10/2026
+ */
+public class ScanSchedulerTest {
+
+    private static final long INTERVAL = 20;
+    private static final long TIMEOUT = 5000;
+
+    private FakeWifiManager wifiManager;
+    private ScanScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        wifiManager = new FakeWifiManager();
+        scheduler = new ScanScheduler(wifiManager);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void scansAreRequestedOncePerInterval() throws InterruptedException {
+        long start = System.nanoTime();
+        scheduler.start(new FixedScanIntervalPolicy(INTERVAL));
+        Thread.sleep(500);
+        scheduler.stop();
+        long elapsed = (System.nanoTime() - start) / 1000000;
+
+        int scans = wifiManager.startScanCalls.get();
+        assertTrue("Only " + scans + " scans", scans >= 5);
+        assertTrue(scans + " scans in " + elapsed + " ms", scans <= elapsed / INTERVAL + 1);
+        assertEquals(scans, scheduler.getScanCount());
+        assertEquals(scans, scheduler.getWakeupCount());
+    }
+
+    @Test
+    public void schedulerThreadSleepsBetweenScans() throws InterruptedException {
+        scheduler.start(new FixedScanIntervalPolicy(INTERVAL));
+        awaitScans(1);
+        Thread schedulerThread = findThread("ScanScheduler");
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long cpuTimeBefore = threads.getThreadCpuTime(schedulerThread.getId());
+        Thread.sleep(500);
+        long cpuTime = (threads.getThreadCpuTime(schedulerThread.getId()) - cpuTimeBefore) / 1000000;
+
+        //The busy-wait loop replaced by the scheduler used a whole core
+        assertTrue(cpuTime + " ms of CPU in 500 ms", cpuTime < 100);
+    }
+
+    @Test
+    public void noScanIsRequestedBeforeTheFirstInterval() throws InterruptedException {
+        scheduler.start(new FixedScanIntervalPolicy(60000));
+        Thread.sleep(200);
+
+        assertTrue(scheduler.isRunning());
+        assertEquals(0, scheduler.getWakeupCount());
+    }
+
+    @Test
+    public void stopHaltsTheScans() throws InterruptedException {
+        scheduler.start(new FixedScanIntervalPolicy(INTERVAL));
+        awaitScans(3);
+        scheduler.stop();
+        int scans = wifiManager.startScanCalls.get();
+        Thread.sleep(10 * INTERVAL);
+
+        assertFalse(scheduler.isRunning());
+        //A scan already being requested when stop() is called still completes
+        assertTrue(wifiManager.startScanCalls.get() <= scans + 1);
+    }
+
+    @Test
+    public void pauseHaltsTheScansUntilResume() throws InterruptedException {
+        scheduler.start(new FixedScanIntervalPolicy(INTERVAL));
+        awaitScans(3);
+        scheduler.pause();
+        int scans = wifiManager.startScanCalls.get();
+        Thread.sleep(10 * INTERVAL);
+
+        assertFalse(scheduler.isRunning());
+        assertTrue(wifiManager.startScanCalls.get() <= scans + 1);
+
+        scheduler.resume();
+        assertTrue(scheduler.isRunning());
+        awaitScans(scans + 3);
+    }
+
+    @Test
+    public void schedulerCanBeStartedAgain() throws InterruptedException {
+        scheduler.start(new FixedScanIntervalPolicy(INTERVAL));
+        awaitScans(2);
+        scheduler.stop();
+        int scans = wifiManager.startScanCalls.get();
+
+        scheduler.start(new FixedScanIntervalPolicy(INTERVAL));
+        awaitScans(scans + 2);
+    }
+
+    @Test
+    public void rejectedScansAreWakeupsButNotScans() throws InterruptedException {
+        wifiManager.acceptScans = false;
+        scheduler.start(new FixedScanIntervalPolicy(INTERVAL));
+        awaitScans(3);
+        scheduler.stop();
+
+        assertTrue(scheduler.getWakeupCount() >= 3);
+        assertEquals(0, scheduler.getScanCount());
+    }
+
+    /**
+     * Waits until the fake WifiManager has been asked for the given number of scans.
+     */
+    private void awaitScans(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (wifiManager.startScanCalls.get() < count) {
+            assertTrue("Timed out waiting for " + count + " scans", System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    private static Thread findThread(String name) {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals(name))
+                return thread;
+        }
+        throw new AssertionError("No thread named " + name);
+    }
+
+    private static class FakeWifiManager implements ScanScheduler.ScanTrigger {
+
+        final AtomicInteger startScanCalls = new AtomicInteger();
+        volatile boolean acceptScans = true;
+
+        @Override
+        public boolean startScan() {
+            startScanCalls.incrementAndGet();
+            return acceptScans;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package xyz.smartsniff.Benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import xyz.smartsniff.Model.Location;
+import xyz.smartsniff.Utils.Codecs;
+
+/**
+ * Date, MAC address and coordinate codecs.
+ *
+ * formatDate and reverseFormatDate create a SimpleDateFormat per call, which the *ReusedFormat variants
+ * measure against. The heatmap query reads the coordinates as doubles, but the results screen shows
+ * them as text and the server parses them back, so both directions of that conversion are measured too.
+ *
+ * Date: 18/10/2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecsBenchmark {
+
+    private static final int INPUT_COUNT = 1024;    //Power of two, so the next input is a mask away
+
+    private Date[] dates;
+    private String[] formattedDates, macs, coordinates;
+    private Location[] locations;
+    private SimpleDateFormat reusedFormat;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = Fixtures.random();
+        dates = new Date[INPUT_COUNT];
+        formattedDates = new String[INPUT_COUNT];
+        macs = Fixtures.macs(INPUT_COUNT, random);
+        coordinates = new String[INPUT_COUNT];
+        locations = new Location[INPUT_COUNT];
+
+        long now = 1476748800000L;
+        for (int i = 0; i < INPUT_COUNT; i++) {
+            //Within the last year
+            dates[i] = new Date(now - random.nextInt(365 * 24 * 3600) * 1000L);
+            formattedDates[i] = Codecs.formatDate(dates[i]);
+            //Around Madrid, with the precision of a fused location fix
+            locations[i] = new Location(dates[i], 40.4 + random.nextDouble() * 0.1, -3.7 + random.nextDouble() * 0.1);
+            coordinates[i] = locations[i].getCoordinatesString();
+        }
+
+        reusedFormat = new SimpleDateFormat(Codecs.DATE_FORMAT, Locale.ENGLISH);
+    }
+
+    @Benchmark
+    public String formatDate() {
+        return Codecs.formatDate(dates[next++ & (INPUT_COUNT - 1)]);
+    }
+
+    @Benchmark
+    public String formatDateReusedFormat() {
+        return reusedFormat.format(dates[next++ & (INPUT_COUNT - 1)]);
+    }
+
+    @Benchmark
+    public Date reverseFormatDate() {
+        return Codecs.reverseFormatDate(formattedDates[next++ & (INPUT_COUNT - 1)]);
+    }
+
+    @Benchmark
+    public Date reverseFormatDateReusedFormat() throws ParseException {
+        return reusedFormat.parse(formattedDates[next++ & (INPUT_COUNT - 1)]);
+    }
+
+    @Benchmark
+    public long macToLong() {
+        return Codecs.macToLong(macs[next++ & (INPUT_COUNT - 1)]);
+    }
+
+    @Benchmark
+    public String formatCoordinates() {
+        return locations[next++ & (INPUT_COUNT - 1)].getCoordinatesString();
+    }
+
+    /**
+     * The inverse of formatCoordinates, as the server or an export reader would do it.
+     */
+    @Benchmark
+    public double parseCoordinates() {
+        String s = coordinates[next++ & (INPUT_COUNT - 1)];
+        int separator = s.indexOf(", ");
+        return Double.parseDouble(s.substring(0, separator)) + Double.parseDouble(s.substring(separator + 2));
+    }
+}
@@ -0,0 +1,113 @@
+package xyz.smartsniff.Benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import xyz.smartsniff.Model.Device;
+import xyz.smartsniff.Model.DeviceType;
+import xyz.smartsniff.Model.WifiObservation;
+import xyz.smartsniff.Utils.StringPool;
+
+/**
+ * Construction of devices from scan results, as done by ScanProcessor for every new result, and the
+ * equals/hashCode used by the collections of devices. Run with the gc profiler (enabled in the build) to
+ * see the bytes allocated per device.
+ *
+ * Date: 18/10/2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeviceBenchmark {
+
+    private static final int RESULT_COUNT = 1024;   //Power of two, so the next result is a mask away
+
+    private WifiObservation[] results;
+    private Device[] devices, sameBssidDevices;
+    private StringPool namePool, capabilitiesPool;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = Fixtures.random();
+        String[] macs = Fixtures.macs(RESULT_COUNT, random);
+
+        results = new WifiObservation[RESULT_COUNT];
+        devices = new Device[RESULT_COUNT];
+        sameBssidDevices = new Device[RESULT_COUNT];
+        for (int i = 0; i < RESULT_COUNT; i++) {
+            results[i] = Fixtures.wifiObservation(macs[i], random, 0);
+            devices[i] = Fixtures.wifiDevice(macs[i], random);
+            //Equal BSSID, but not the same String instance
+            sameBssidDevices[i] = Fixtures.wifiDevice(new String(macs[i]), random);
+        }
+
+        namePool = new StringPool(12);
+        capabilitiesPool = new StringPool(12);
+    }
+
+    @Benchmark
+    public Device newWifiDevice() {
+        WifiObservation s = results[next++ & (RESULT_COUNT - 1)];
+        return new Device(s.getSsid(), s.getBssid(), s.getCapabilities(), s.getChannelWidth(), s.getFrequency(),
+                s.getLevel(), DeviceType.WIFI);
+    }
+
+    /**
+     * Same as ScanProcessor, which shares the SSIDs and capabilities between devices.
+     */
+    @Benchmark
+    public Device newWifiDevicePooled() {
+        WifiObservation s = results[next++ & (RESULT_COUNT - 1)];
+        return new Device(namePool.intern(s.getSsid()), s.getBssid(), capabilitiesPool.intern(s.getCapabilities()),
+                s.getChannelWidth(), s.getFrequency(), s.getLevel(), DeviceType.WIFI);
+    }
+
+    @Benchmark
+    public Device newBluetoothDevice() {
+        WifiObservation s = results[next++ & (RESULT_COUNT - 1)];
+        return new Device(s.getSsid(), s.getBssid(), "PHONE", 9999, 0, 9999, DeviceType.BLUETOOTH);
+    }
+
+    @Benchmark
+    public boolean equalsSameBssid() {
+        int i = next++ & (RESULT_COUNT - 1);
+        return devices[i].equals(sameBssidDevices[i]);
+    }
+
+    @Benchmark
+    public boolean equalsDifferentBssid() {
+        int i = next++ & (RESULT_COUNT - 1);
+        return devices[i].equals(devices[(i + 1) & (RESULT_COUNT - 1)]);
+    }
+
+    @Benchmark
+    public int hashCodeOfDevice() {
+        return devices[next++ & (RESULT_COUNT - 1)].hashCode();
+    }
+
+    /**
+     * The String hash code is cached after the first call, so this measures a device whose BSSID was
+     * just received.
+     */
+    @Benchmark
+    public int hashCodeOfNewDevice() {
+        WifiObservation s = results[next++ & (RESULT_COUNT - 1)];
+        return new Device(s.getSsid(), new String(s.getBssid()), s.getCapabilities(), s.getChannelWidth(),
+                s.getFrequency(), s.getLevel(), DeviceType.WIFI).hashCode();
+    }
+}
@@ -0,0 +1,172 @@
+package xyz.smartsniff.Benchmarks;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import xyz.smartsniff.Model.Device;
+import xyz.smartsniff.Model.DeviceType;
+import xyz.smartsniff.Model.WifiObservation;
+import xyz.smartsniff.Utils.OuiRegistry;
+
+/**
+ * Synthetic scan data shared by the benchmarks. Every fixture is generated from a fixed seed, so two
+ * runs measure exactly the same input.
+ *
+ * Date: 18/10/2026
+ */
+final class Fixtures {
+
+    static final long SEED = 0x5EED;
+
+    //Capabilities strings as reported by real access points
+    static final String[] CAPABILITIES = {
+            "[ESS]",
+            "[WPA2-PSK-CCMP][ESS]",
+            "[WPA2-PSK-CCMP][WPS][ESS]",
+            "[WPA-PSK-TKIP+CCMP][WPA2-PSK-TKIP+CCMP][ESS]",
+            "[WPA-PSK-TKIP+CCMP][WPA2-PSK-TKIP+CCMP][WPS][ESS]",
+            "[WPA2-EAP-CCMP][ESS]",
+            "[WPA2-EAP+FT/EAP-CCMP][ESS]",
+            "[RSN-PSK+SAE-CCMP][ESS]",
+            "[RSN-SAE-CCMP][ESS][MFPR]",
+            "[RSN-OWE-CCMP][ESS]",
+            "[WEP][ESS]",
+            "[IBSS]",
+            "[WPA2-PSK-CCMP][ESS][P2P]",
+            "[WPA2-PSK-CCMP][MESH]"
+    };
+
+    //Few SSIDs for many access points, as in a city
+    private static final String[] SSIDS = {"eduroam", "MOVISTAR_1F2E", "vodafone8A21", "Orange-5G", "WLAN_AB12",
+            "HP-Print-3C-LaserJet", "Free WiFi", "DIRECT-xy-Android", ""};
+
+    private static final int[] FREQUENCIES = {2412, 2437, 2462, 5180, 5240, 5500, 5745};
+
+    private Fixtures() {
+    }
+
+    static Random random() {
+        return new Random(SEED);
+    }
+
+    /**
+     * @return A MAC address with the format "00:11:22:33:44:55".
+     */
+    static String mac(long value) {
+        StringBuilder mac = new StringBuilder(17);
+        for (int shift = 40; shift >= 0; shift -= 8) {
+            int octet = (int) (value >>> shift) & 0xFF;
+            mac.append(Character.toUpperCase(Character.forDigit(octet >>> 4, 16)));
+            mac.append(Character.toUpperCase(Character.forDigit(octet & 0xF, 16)));
+            if (shift > 0)
+                mac.append(':');
+        }
+        return mac.toString();
+    }
+
+    /**
+     * @return Distinct MAC addresses.
+     */
+    static String[] macs(int count, Random random) {
+        String[] macs = new String[count];
+        for (int i = 0; i < count; i++)
+            //The index in the lower bits keeps them distinct
+            macs[i] = mac((random.nextLong() & 0xFFFFFF000000L) | i);
+        return macs;
+    }
+
+    static WifiObservation wifiObservation(String bssid, Random random, long timestamp) {
+        return new WifiObservation(SSIDS[random.nextInt(SSIDS.length)], bssid,
+                CAPABILITIES[random.nextInt(CAPABILITIES.length)], random.nextInt(3),
+                FREQUENCIES[random.nextInt(FREQUENCIES.length)], -40 - random.nextInt(55), timestamp);
+    }
+
+    static Device wifiDevice(String bssid, Random random) {
+        return new Device(SSIDS[random.nextInt(SSIDS.length)], bssid, CAPABILITIES[random.nextInt(CAPABILITIES.length)],
+                random.nextInt(3), FREQUENCIES[random.nextInt(FREQUENCIES.length)], -40 - random.nextInt(55),
+                DeviceType.WIFI);
+    }
+
+    static List<Device> wifiDevices(int count, Random random) {
+        List<Device> devices = new ArrayList<>(count);
+        for (String bssid : macs(count, random))
+            devices.add(wifiDevice(bssid, random));
+        return devices;
+    }
+
+    /**
+     * Scans of a walk: each scan keeps most of the access points of the previous one, loses a few and
+     * finds a few new ones, and the signal of the rest changes slightly.
+     *
+     * @param resultsPerScan Access points in range at any time
+     */
+    static List<List<WifiObservation>> walk(int scanCount, int resultsPerScan, Random random) {
+        String[] macs = macs(resultsPerScan + scanCount * (resultsPerScan / 10 + 1), random);
+        List<List<WifiObservation>> scans = new ArrayList<>(scanCount);
+
+        long timestamp = 1000000L;
+        for (int scan = 0; scan < scanCount; scan++) {
+            timestamp += 3000000L;
+            int first = scan * (resultsPerScan / 10 + 1);
+            List<WifiObservation> results = new ArrayList<>(resultsPerScan);
+            for (int i = first; i < first + resultsPerScan; i++)
+                results.add(wifiObservation(macs[i], random, timestamp - random.nextInt(2000000)));
+            scans.add(results);
+        }
+        return scans;
+    }
+
+    /**
+     * A registry image with the layout written by the 'compileOuiRegistry' task and the size of the IEEE
+     * registries: most prefixes are MA-L (24 bit) assignments, and a few of them are split into MA-M
+     * (28 bit) and MA-S (36 bit) blocks. The image is a direct buffer, like the memory-mapped asset.
+     *
+     * @param ouis Receives the MA-L prefixes, sorted
+     */
+    static ByteBuffer ouiRegistry(int count24, int count28, int count36, List<Long> ouis, Random random) {
+        TreeSet<Long> prefixes24 = new TreeSet<>();
+        while (prefixes24.size() < count24)
+            //Universally administered addresses, as the registry assigns
+            prefixes24.add((long) random.nextInt(1 << 24) & 0xFCFFFF);
+        TreeSet<Long> prefixes28 = new TreeSet<>();
+        while (prefixes28.size() < count28)
+            prefixes28.add(((long) random.nextInt(1 << 24) & 0xFCFFFF) << 4 | random.nextInt(16));
+        TreeSet<Long> prefixes36 = new TreeSet<>();
+        while (prefixes36.size() < count36)
+            prefixes36.add(((long) random.nextInt(1 << 24) & 0xFCFFFF) << 12 | random.nextInt(1 << 12));
+        ouis.addAll(prefixes24);
+
+        //One vendor per prefix, as most of them are
+        int vendorCount = count24 + count28 + count36;
+        byte[][] names = new byte[vendorCount][];
+        int namesSize = 0;
+        for (int i = 0; i < vendorCount; i++) {
+            names[i] = ("Vendor " + i + " Co., Ltd.").getBytes(Charset.forName("UTF-8"));
+            namesSize += names[i].length;
+        }
+
+        ByteBuffer image = ByteBuffer.allocateDirect(OuiRegistry.HEADER_SIZE + (count24 + count28) * 8 + count36 * 12 +
+                (vendorCount + 1) * 4 + namesSize);
+        image.putInt(OuiRegistry.MAGIC).putInt(count24).putInt(count28).putInt(count36).putInt(vendorCount);
+        int vendorId = 0;
+        for (long prefix : prefixes24)
+            image.putInt((int) prefix).putInt(vendorId++);
+        for (long prefix : prefixes28)
+            image.putInt((int) prefix).putInt(vendorId++);
+        for (long prefix : prefixes36)
+            image.putLong(prefix).putInt(vendorId++);
+        int offset = 0;
+        for (byte[] name : names) {
+            image.putInt(offset);
+            offset += name.length;
+        }
+        image.putInt(offset);
+        for (byte[] name : names)
+            image.put(name);
+        return image;
+    }
+}
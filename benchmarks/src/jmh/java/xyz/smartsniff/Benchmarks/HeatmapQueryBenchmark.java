@@ -0,0 +1,162 @@
+package xyz.smartsniff.Benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import xyz.smartsniff.Model.Device;
+
+/**
+ * Load of the heatmap weights, as MapManager.LoadMapTask does on startup and after every session.
+ *
+ * perLocationCount is the query replaced by DatabaseHelper.selectLocationsForHeatmap: every location is
+ * read and its associations are counted with a query each. aggregate is the single JOIN ... GROUP BY
+ * query. Both run on the idLocation index, so the difference is the N+1 round trips. Each location
+ * holds 10 associations.
+ *
+ * Date: 18/10/2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeatmapQueryBenchmark {
+
+    private static final int ASSOCIATIONS_PER_LOCATION = 10;
+    private static final int MAX_DEVICES = 10000;
+
+    @Param({"10000", "100000", "1000000"})
+    public int associationCount;
+
+    private File databaseFile;
+    private Connection connection;
+    private PreparedStatement selectLocations, countAssociations, aggregate;
+
+    @Setup
+    public void setUp() throws IOException, SQLException {
+        databaseFile = SqliteFixtures.createDatabase("WAL");
+        connection = SqliteFixtures.open(databaseFile, "WAL");
+        populate(Fixtures.random());
+
+        selectLocations = connection.prepareStatement("SELECT id, latitude, longitude FROM locations");
+        countAssociations = connection.prepareStatement("SELECT count(*) FROM asocSessionsDevices WHERE " +
+                "idLocation = ?");
+        aggregate = connection.prepareStatement(SqliteFixtures.HEATMAP_QUERY);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        selectLocations.close();
+        countAssociations.close();
+        aggregate.close();
+        connection.close();
+        SqliteFixtures.deleteDatabase(databaseFile);
+    }
+
+    @Benchmark
+    public List<double[]> perLocationCount() throws SQLException {
+        List<double[]> heatmapData = new ArrayList<>();
+        ResultSet locations = selectLocations.executeQuery();
+        try {
+            while (locations.next()) {
+                countAssociations.setLong(1, locations.getLong(1));
+                ResultSet count = countAssociations.executeQuery();
+                try {
+                    count.next();
+                    heatmapData.add(new double[]{locations.getDouble(2), locations.getDouble(3), count.getInt(1)});
+                } finally {
+                    count.close();
+                }
+            }
+        } finally {
+            locations.close();
+        }
+        return heatmapData;
+    }
+
+    @Benchmark
+    public List<double[]> aggregate() throws SQLException {
+        List<double[]> heatmapData = new ArrayList<>();
+        ResultSet resultSet = aggregate.executeQuery();
+        try {
+            while (resultSet.next())
+                heatmapData.add(new double[]{resultSet.getDouble(1), resultSet.getDouble(2), resultSet.getInt(3)});
+        } finally {
+            resultSet.close();
+        }
+        return heatmapData;
+    }
+
+    /**
+     * Stores a session with the associations spread over associationCount / 10 locations. The devices
+     * are shared by several locations, so the devices table doesn't grow with the associations.
+     */
+    private void populate(Random random) throws SQLException {
+        long sessionId = SqliteFixtures.addSession(connection, 1476748800000L);
+        int deviceCount = Math.min(associationCount, MAX_DEVICES);
+        int locationCount = associationCount / ASSOCIATIONS_PER_LOCATION;
+
+        connection.setAutoCommit(false);
+        PreparedStatement insertDevice = connection.prepareStatement("INSERT INTO devices(id, ssid, bssid, " +
+                "characteristics, type) VALUES (?, ?, ?, ?, ?)");
+        PreparedStatement insertLocation = connection.prepareStatement("INSERT INTO locations(id, date, latitude, " +
+                "longitude) VALUES (?, ?, ?, ?)");
+        PreparedStatement insertAssociation = connection.prepareStatement("INSERT INTO asocSessionsDevices(" +
+                "idSession, idDevice, idLocation) VALUES (?, ?, ?)");
+        try {
+            List<Device> devices = Fixtures.wifiDevices(deviceCount, random);
+            for (int i = 0; i < deviceCount; i++) {
+                Device device = devices.get(i);
+                insertDevice.setLong(1, i + 1);
+                insertDevice.setString(2, device.getSsid());
+                insertDevice.setString(3, device.getBssid());
+                insertDevice.setString(4, device.getCharacteristics());
+                insertDevice.setString(5, device.getType().toString());
+                insertDevice.executeUpdate();
+            }
+
+            for (int location = 0; location < locationCount; location++) {
+                insertLocation.setLong(1, location + 1);
+                insertLocation.setLong(2, 1476748800000L + location * 3000L);
+                insertLocation.setDouble(3, 40.4 + random.nextDouble() * 0.1);
+                insertLocation.setDouble(4, -3.7 + random.nextDouble() * 0.1);
+                insertLocation.executeUpdate();
+
+                for (int i = 0; i < ASSOCIATIONS_PER_LOCATION; i++) {
+                    insertAssociation.setLong(1, sessionId);
+                    insertAssociation.setLong(2, (location * ASSOCIATIONS_PER_LOCATION + i) % deviceCount + 1);
+                    insertAssociation.setLong(3, location + 1);
+                    insertAssociation.executeUpdate();
+                }
+            }
+            connection.commit();
+        } finally {
+            insertDevice.close();
+            insertLocation.close();
+            insertAssociation.close();
+            connection.setAutoCommit(true);
+        }
+    }
+}
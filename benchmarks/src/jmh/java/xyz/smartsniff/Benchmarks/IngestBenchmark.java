@@ -0,0 +1,161 @@
+package xyz.smartsniff.Benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import xyz.smartsniff.Model.Device;
+import xyz.smartsniff.Model.Location;
+
+/**
+ * Ingestion of a drive which finds 10000 access points, in scans of 50, into an empty database. The score
+ * is in devices stored per second.
+ *
+ * perResult is the path replaced by DatabaseHelper.ingestScan: for every result, an existence query and
+ * then the device and its association inserted in a transaction each. ingestScan stores each scan in a
+ * single transaction through statements compiled once.
+ *
+ * Date: 18/10/2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(IngestBenchmark.DEVICE_COUNT)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IngestBenchmark {
+
+    static final int DEVICE_COUNT = 10000;
+    private static final int DEVICES_PER_SCAN = 50;
+
+    //Journal of SQLite before and after DatabaseHelper enabled write-ahead logging
+    @Param({"DELETE", "WAL"})
+    public String journalMode;
+
+    private File databaseFile;
+    private Connection connection;
+    private long sessionId;
+    private List<List<Device>> scans;
+
+    private SqliteFixtures.ScanIngester ingester;
+    private PreparedStatement selectDeviceId, insertLocation, insertDevice, insertAssociation;
+
+    @Setup
+    public void setUp() throws IOException, SQLException {
+        scans = SqliteFixtures.drive(DEVICE_COUNT, DEVICES_PER_SCAN, Fixtures.random());
+
+        databaseFile = SqliteFixtures.createDatabase(journalMode);
+        connection = SqliteFixtures.open(databaseFile, journalMode);
+        sessionId = SqliteFixtures.addSession(connection, 1476748800000L);
+        ingester = new SqliteFixtures.ScanIngester(connection);
+
+        selectDeviceId = connection.prepareStatement("SELECT id FROM devices WHERE bssid = ?");
+        insertLocation = connection.prepareStatement("INSERT INTO locations(date, latitude, longitude) " +
+                "VALUES (?, ?, ?)");
+        insertDevice = connection.prepareStatement("INSERT INTO devices(ssid, bssid, manufacturer, " +
+                "characteristics, channelWidth, frequency, signalIntensity, type) VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+        insertAssociation = connection.prepareStatement("INSERT INTO asocSessionsDevices(idSession, idDevice, " +
+                "idLocation) VALUES (?, ?, ?)");
+    }
+
+    /**
+     * Every invocation stores the drive into an empty database.
+     */
+    @Setup(Level.Invocation)
+    public void emptyDatabase() throws SQLException {
+        Statement statement = connection.createStatement();
+        statement.executeUpdate("DELETE FROM asocSessionsDevices");
+        statement.executeUpdate("DELETE FROM devices");
+        statement.executeUpdate("DELETE FROM locations");
+        statement.close();
+        ingester.clearIndex();
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        ingester.close();
+        selectDeviceId.close();
+        insertLocation.close();
+        insertDevice.close();
+        insertAssociation.close();
+        connection.close();
+        SqliteFixtures.deleteDatabase(databaseFile);
+    }
+
+    @Benchmark
+    public int perResult() throws SQLException {
+        //Each statement runs in its own transaction, as each beginTransaction/endTransaction pair did
+        int storedDevices = 0;
+        for (int scan = 0; scan < scans.size(); scan++) {
+            Location location = SqliteFixtures.spot(scan);
+            insertLocation.setLong(1, location.getDate().getTime());
+            insertLocation.setDouble(2, location.getLatitude());
+            insertLocation.setDouble(3, location.getLongitude());
+            insertLocation.executeUpdate();
+            long locationId = SqliteFixtures.lastInsertRowId(connection);
+
+            for (Device device : scans.get(scan)) {
+                if (deviceExists(device))
+                    continue;
+
+                insertDevice.setString(1, device.getSsid());
+                insertDevice.setString(2, device.getBssid());
+                insertDevice.setString(3, device.getManufacturer());
+                insertDevice.setString(4, device.getCharacteristics());
+                insertDevice.setString(5, device.getChannelWidth());
+                insertDevice.setLong(6, device.getFrequency());
+                insertDevice.setLong(7, (long) device.getSignalIntensity());
+                insertDevice.setString(8, device.getType().toString());
+                insertDevice.executeUpdate();
+                long deviceId = SqliteFixtures.lastInsertRowId(connection);
+
+                insertAssociation.setLong(1, sessionId);
+                insertAssociation.setLong(2, deviceId);
+                insertAssociation.setLong(3, locationId);
+                insertAssociation.executeUpdate();
+                storedDevices++;
+            }
+        }
+        return storedDevices;
+    }
+
+    @Benchmark
+    public int ingestScan() throws SQLException {
+        int storedDevices = 0;
+        for (int scan = 0; scan < scans.size(); scan++)
+            storedDevices += ingester.ingestScan(sessionId, SqliteFixtures.spot(scan), scans.get(scan));
+        return storedDevices;
+    }
+
+    private boolean deviceExists(Device device) throws SQLException {
+        selectDeviceId.setString(1, device.getBssid());
+        ResultSet resultSet = selectDeviceId.executeQuery();
+        try {
+            return resultSet.next();
+        } finally {
+            resultSet.close();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package xyz.smartsniff.Benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import xyz.smartsniff.Utils.OuiRegistry;
+
+/**
+ * Lookups per second in the offline OUI registry, over an image with the size of the IEEE registries.
+ * Registered addresses are found in the MA-L table after missing the MA-S and MA-M ones, and unregistered
+ * (locally administered, e.g. randomized) addresses miss the three of them.
+ *
+ * Date: 18/10/2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OuiLookupBenchmark {
+
+    //Sizes of the MA-L, MA-M and MA-S registries
+    private static final int COUNT_24 = 36000;
+    private static final int COUNT_28 = 5000;
+    private static final int COUNT_36 = 6500;
+    private static final int INPUT_COUNT = 1024;    //Power of two, so the next input is a mask away
+
+    private OuiRegistry registry;
+    private long[] registeredMacs, unregisteredMacs;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = Fixtures.random();
+        List<Long> ouis = new ArrayList<>(COUNT_24);
+        registry = new OuiRegistry(Fixtures.ouiRegistry(COUNT_24, COUNT_28, COUNT_36, ouis, random));
+
+        registeredMacs = new long[INPUT_COUNT];
+        unregisteredMacs = new long[INPUT_COUNT];
+        for (int i = 0; i < INPUT_COUNT; i++) {
+            registeredMacs[i] = ouis.get(random.nextInt(ouis.size())) << 24 | random.nextInt(1 << 24);
+            //The locally administered bit is never assigned by the registry
+            unregisteredMacs[i] = (random.nextLong() & 0xFFFFFFFFFFFFL) | 0x020000000000L;
+        }
+    }
+
+    @Benchmark
+    public String lookupRegistered() {
+        return registry.lookup(registeredMacs[next++ & (INPUT_COUNT - 1)]);
+    }
+
+    @Benchmark
+    public String lookupUnregistered() {
+        return registry.lookup(unregisteredMacs[next++ & (INPUT_COUNT - 1)]);
+    }
+}
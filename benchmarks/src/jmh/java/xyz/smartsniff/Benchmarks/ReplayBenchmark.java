@@ -0,0 +1,113 @@
+package xyz.smartsniff.Benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import xyz.smartsniff.Model.WifiObservation;
+import xyz.smartsniff.Utils.BleScanner;
+import xyz.smartsniff.Utils.ScanDelta;
+import xyz.smartsniff.Utils.ScanEvent;
+import xyz.smartsniff.Utils.ScanEventReader;
+import xyz.smartsniff.Utils.ScanEventRecorder;
+import xyz.smartsniff.Utils.ScanReplayer;
+
+/**
+ * Recording and replay of a walk of wifi scans. The replay runs the part of the ingestion which doesn't
+ * need the database: every replayed scan is compared with the previous one by ScanDelta, as
+ * ScanProcessor does before turning the new results into devices.
+ *
+ * Date: 18/10/2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReplayBenchmark {
+
+    private static final int SCAN_COUNT = 100;
+
+    //Access points in range at any time
+    @Param({"20", "200"})
+    public int resultsPerScan;
+
+    private List<List<WifiObservation>> scans;
+    private byte[] log;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = Fixtures.random();
+        scans = Fixtures.walk(SCAN_COUNT, resultsPerScan, random);
+        log = record().toByteArray();
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream record() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ScanEventRecorder recorder = new ScanEventRecorder(out, 0);
+        for (int i = 0; i < scans.size(); i++) {
+            recorder.record(ScanEvent.location(i * 3000000L, 40.4 + i * 0.0001, -3.7, 1.2f));
+            recorder.record(ScanEvent.wifiScan(i * 3000000L + 1000000L, scans.get(i)));
+        }
+        recorder.close();
+        return out;
+    }
+
+    @Benchmark
+    public int read() throws IOException {
+        ScanEventReader reader = new ScanEventReader(new ByteArrayInputStream(log));
+        int resultCount = 0;
+        ScanEvent event;
+        while ((event = reader.next()) != null) {
+            if (event.getType() == ScanEvent.TYPE_WIFI_SCAN)
+                resultCount += event.getWifiResults().size();
+        }
+        return resultCount;
+    }
+
+    @Benchmark
+    public int replayThroughScanDelta() throws IOException, InterruptedException {
+        final ScanDelta scanDelta = new ScanDelta();
+        final int[] appearedResults = new int[1];
+
+        new ScanReplayer(new ScanEventReader(new ByteArrayInputStream(log)), 0).replay(new ScanReplayer.Target() {
+            @Override
+            public void onLocationFix(double latitude, double longitude, float speed) {
+            }
+
+            @Override
+            public void onWifiScan(List<WifiObservation> results, double latitude, double longitude, float speed,
+                                   long receivedAt) {
+                appearedResults[0] += scanDelta.compare(results, receivedAt).getAppeared().size();
+            }
+
+            @Override
+            public void onBluetoothDevice(String address, String name, int majorDeviceClass, double latitude,
+                                          double longitude) {
+            }
+
+            @Override
+            public void onBleBatch(List<BleScanner.Sighting> sightings, double latitude, double longitude) {
+            }
+        });
+
+        return appearedResults[0];
+    }
+}
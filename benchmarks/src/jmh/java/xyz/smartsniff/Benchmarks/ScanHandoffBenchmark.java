@@ -0,0 +1,182 @@
+package xyz.smartsniff.Benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import xyz.smartsniff.Model.Device;
+import xyz.smartsniff.Model.DeviceType;
+import xyz.smartsniff.Model.WifiObservation;
+
+/**
+ * Time spent on the main thread for every wifi scan received by CustomReceiver, during a walk in which
+ * each scan finds resultsPerScan access points. The results returned by getScanResults are stood in by
+ * WifiObservations, and the cost of that call is left out of both paths.
+ *
+ * onMainThread is the path replaced by ScanProcessor: for every result, the device built and added to the
+ * session devices, and the existence query of DatabaseHelper.deviceExistsInDb, in a transaction of its
+ * own, against a database which already holds every device of the walk. The inserts of new devices and
+ * the manufacturer requests are left out, so it is a lower bound of that path.
+ *
+ * handedOff is what onReceive does now: it only posts the results to the processor thread, which copies
+ * them and does the rest. The processor thread is stood in by a single-thread executor, and it is idle
+ * when every scan arrives, as it is between scans.
+ *
+ * Date: 18/10/2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScanHandoffBenchmark {
+
+    private static final int SCAN_COUNT = 500;
+
+    @Param({"20", "100"})
+    public int resultsPerScan;
+
+    private List<List<WifiObservation>> scans;
+    private int nextScan;
+
+    private File databaseFile;
+    private Connection connection;
+    private PreparedStatement selectDeviceId;
+    private Set<Device> sessionDevices;
+
+    private ExecutorService processor;
+    private final AtomicInteger postedScans = new AtomicInteger();
+    private final AtomicInteger processedScans = new AtomicInteger();
+    private final AtomicInteger receivedScans = new AtomicInteger();
+    private volatile List<WifiObservation> lastProcessed;
+
+    @Setup
+    public void setUp() throws IOException, SQLException {
+        scans = Fixtures.walk(SCAN_COUNT, resultsPerScan, Fixtures.random());
+
+        databaseFile = SqliteFixtures.createDatabase("WAL");
+        connection = SqliteFixtures.open(databaseFile, "WAL");
+        PreparedStatement insertDevice = connection.prepareStatement("INSERT OR IGNORE INTO devices(ssid, bssid, " +
+                "characteristics, frequency, signalIntensity, type) VALUES (?, ?, ?, ?, ?, ?)");
+        connection.setAutoCommit(false);
+        for (List<WifiObservation> scan : scans) {
+            for (WifiObservation result : scan) {
+                insertDevice.setString(1, result.getSsid());
+                insertDevice.setString(2, result.getBssid());
+                insertDevice.setString(3, result.getCapabilities());
+                insertDevice.setLong(4, result.getFrequency());
+                insertDevice.setLong(5, result.getLevel());
+                insertDevice.setString(6, DeviceType.WIFI.toString());
+                insertDevice.executeUpdate();
+            }
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+        insertDevice.close();
+        selectDeviceId = connection.prepareStatement("SELECT id FROM devices WHERE bssid = ?");
+
+        processor = Executors.newSingleThreadExecutor();
+    }
+
+    @Setup(Level.Iteration)
+    public void startSession() {
+        sessionDevices = Collections.synchronizedSet(new HashSet<Device>());
+    }
+
+    /**
+     * Waits for the processor to finish the previous scan, so every scan is handed to an idle thread.
+     */
+    @Setup(Level.Invocation)
+    public void awaitProcessor() {
+        while (processedScans.get() != postedScans.get())
+            Thread.yield();
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        processor.shutdownNow();
+        selectDeviceId.close();
+        connection.close();
+        SqliteFixtures.deleteDatabase(databaseFile);
+    }
+
+    private List<WifiObservation> nextScan() {
+        List<WifiObservation> scan = scans.get(nextScan);
+        nextScan = (nextScan + 1) % SCAN_COUNT;
+        return scan;
+    }
+
+    @Benchmark
+    public int onMainThread() throws SQLException {
+        int newDevices = 0;
+        for (WifiObservation result : nextScan()) {
+            Device device = new Device(result.getSsid(), result.getBssid(), result.getCapabilities(),
+                    result.getChannelWidth(), result.getFrequency(), result.getLevel(), DeviceType.WIFI);
+            sessionDevices.add(device);
+
+            //deviceExistsInDb
+            connection.setAutoCommit(false);
+            selectDeviceId.setString(1, device.getBssid());
+            ResultSet resultSet = selectDeviceId.executeQuery();
+            try {
+                if (!resultSet.next())
+                    newDevices++;
+            } finally {
+                resultSet.close();
+                connection.commit();
+                connection.setAutoCommit(true);
+            }
+        }
+        return newDevices;
+    }
+
+    @Benchmark
+    public long handedOff() {
+        final List<WifiObservation> results = nextScan();
+        final long receivedAt = System.nanoTime();
+        receivedScans.incrementAndGet();
+
+        postedScans.incrementAndGet();
+        processor.execute(new Runnable() {
+            @Override
+            public void run() {
+                //The copy of the ScanResults made by ScanProcessor.onWifiScan
+                List<WifiObservation> observations = new ArrayList<>(results.size());
+                for (WifiObservation result : results)
+                    observations.add(new WifiObservation(result.getSsid(), result.getBssid(),
+                            result.getCapabilities(), result.getChannelWidth(), result.getFrequency(),
+                            result.getLevel(), result.getTimestamp()));
+                lastProcessed = observations;
+                processedScans.incrementAndGet();
+            }
+        });
+        return receivedAt;
+    }
+}
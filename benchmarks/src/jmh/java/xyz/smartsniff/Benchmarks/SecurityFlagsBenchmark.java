@@ -0,0 +1,81 @@
+package xyz.smartsniff.Benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import xyz.smartsniff.Utils.SecurityFlags;
+
+/**
+ * Parsing of the capabilities strings of the scan results, over a corpus in which each string appears
+ * as often as in a city scan. The contains() variant is the straightforward parser, as a reference.
+ *
+ * Date: 18/10/2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SecurityFlagsBenchmark {
+
+    private static final int CORPUS_SIZE = 1024;    //Power of two, so the next string is a mask away
+
+    private String[] corpus;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = Fixtures.random();
+        corpus = new String[CORPUS_SIZE];
+        for (int i = 0; i < CORPUS_SIZE; i++) {
+            //New instances, as each scan delivers new strings
+            corpus[i] = new String(Fixtures.CAPABILITIES[random.nextInt(Fixtures.CAPABILITIES.length)]);
+        }
+    }
+
+    @Benchmark
+    public int parse() {
+        return SecurityFlags.parse(corpus[next++ & (CORPUS_SIZE - 1)]);
+    }
+
+    @Benchmark
+    public int parseWithContains() {
+        String capabilities = corpus[next++ & (CORPUS_SIZE - 1)];
+        int flags = 0;
+        if (capabilities.contains("WEP"))
+            flags |= SecurityFlags.WEP;
+        if (capabilities.contains("WPA-") || capabilities.contains("[WPA]"))
+            flags |= SecurityFlags.WPA;
+        if (capabilities.contains("WPA2") || capabilities.contains("RSN"))
+            flags |= SecurityFlags.WPA2;
+        if (capabilities.contains("PSK"))
+            flags |= SecurityFlags.PSK;
+        if (capabilities.contains("EAP"))
+            flags |= SecurityFlags.EAP;
+        if (capabilities.contains("SAE"))
+            flags |= SecurityFlags.SAE;
+        if (capabilities.contains("OWE"))
+            flags |= SecurityFlags.OWE;
+        if (capabilities.contains("TKIP"))
+            flags |= SecurityFlags.TKIP;
+        if (capabilities.contains("CCMP"))
+            flags |= SecurityFlags.CCMP;
+        if (capabilities.contains("WPS"))
+            flags |= SecurityFlags.WPS;
+        if (capabilities.contains("ESS"))
+            flags |= SecurityFlags.ESS;
+        return flags;
+    }
+}
@@ -0,0 +1,176 @@
+package xyz.smartsniff.Benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import xyz.smartsniff.Model.Device;
+import xyz.smartsniff.Model.Location;
+import xyz.smartsniff.Model.Session;
+import xyz.smartsniff.Utils.Codecs;
+
+/**
+ * Serialization of an upload chunk, with the same Gson configuration and layout as JSONGenerator:
+ * sessions and devices through Gson, locations and associations written by hand. The output is
+ * discarded, so only the serialization is measured.
+ *
+ * Date: 18/10/2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    //Same configuration as Utils.gson
+    private static final Gson gson = new GsonBuilder().setDateFormat(Codecs.DATE_FORMAT).disableHtmlEscaping()
+            .create();
+
+    //Devices of the chunk, each one found at one of the locations
+    @Param({"100", "1000"})
+    public int deviceCount;
+
+    private Session session;
+    private List<Device> devices;
+    private List<Location> locations;
+    private JsonWriter writer;
+
+    @Setup
+    public void setUp() {
+        Random random = Fixtures.random();
+        session = new Session(new Date(1476748800000L), new Date(1476752400000L));
+        session.setMacAddress("02:00:00:00:00:00");
+        devices = Fixtures.wifiDevices(deviceCount, random);
+
+        locations = new ArrayList<>();
+        for (int i = 0; i < deviceCount / 10; i++)
+            locations.add(new Location(new Date(1476748800000L + i * 3000L), 40.4 + random.nextDouble() * 0.1,
+                    -3.7 + random.nextDouble() * 0.1));
+
+        writer = new JsonWriter(new DiscardingWriter());
+        //Each invocation writes a new top-level value
+        writer.setLenient(true);
+    }
+
+    @Benchmark
+    public JsonWriter device() throws IOException {
+        writer.beginArray();
+        gson.toJson(devices.get(0), Device.class, writer);
+        return writer.endArray();
+    }
+
+    @Benchmark
+    public JsonWriter session() throws IOException {
+        writer.beginArray();
+        gson.toJson(session, Session.class, writer);
+        return writer.endArray();
+    }
+
+    @Benchmark
+    public JsonWriter location() throws IOException {
+        writer.beginArray();
+        writeLocation(writer, locations.get(0));
+        return writer.endArray();
+    }
+
+    /**
+     * A whole chunk, as built by JSONGenerator.writeJSON.
+     */
+    @Benchmark
+    public JsonWriter chunk() throws IOException {
+        writer.beginObject();
+
+        writer.name("sessions").beginArray();
+        gson.toJson(session, Session.class, writer);
+        writer.endArray();
+
+        writer.name("devices").beginArray();
+        for (Device device : devices)
+            gson.toJson(device, Device.class, writer);
+        writer.endArray();
+
+        writer.name("locations").beginArray();
+        for (Location location : locations)
+            writeLocation(writer, location);
+        writer.endArray();
+
+        writer.name("asocsessiondevices").beginArray();
+        for (int i = 0; i < devices.size(); i++) {
+            Location location = locations.get(i % locations.size());
+
+            writer.beginObject();
+            writer.name("session");
+            gson.toJson(session, Session.class, writer);
+            writer.name("device");
+            gson.toJson(devices.get(i), Device.class, writer);
+            writer.name("location").beginObject()
+                    .name("latitude").value(location.getLatitude())
+                    .name("longitude").value(location.getLongitude())
+                    .endObject();
+            writer.endObject();
+        }
+        writer.endArray();
+
+        return writer.endObject();
+    }
+
+    //Same as JSONGenerator.writeLocation
+    static void writeLocation(JsonWriter writer, Location location) throws IOException {
+        writer.beginObject();
+        if (location.getDate() != null)
+            writer.name("date").value(location.getDateString());
+        writer.name("coordinates").beginObject()
+                .name("latitude").value(location.getLatitude())
+                .name("longitude").value(location.getLongitude())
+                .endObject();
+        writer.endObject();
+    }
+
+    /**
+     * Writer which drops everything written to it.
+     */
+    private static class DiscardingWriter extends Writer {
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+        }
+
+        @Override
+        public void write(String s, int offset, int length) {
+        }
+
+        @Override
+        public void write(int c) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
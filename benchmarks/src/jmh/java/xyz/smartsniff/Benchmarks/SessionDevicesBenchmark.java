@@ -0,0 +1,110 @@
+package xyz.smartsniff.Benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import xyz.smartsniff.Model.Device;
+import xyz.smartsniff.Utils.Codecs;
+import xyz.smartsniff.Utils.DeviceIndex;
+import xyz.smartsniff.Utils.SessionDeviceRegistry;
+
+/**
+ * The set of devices found during a session: SessionDeviceRegistry, used by ScanProcessor, against the
+ * HashSet of devices it replaced. That HashSet was shared by the main thread and the scanning threads, so
+ * it is measured wrapped by Collections.synchronizedSet. A session adds every device it finds, most of
+ * them more than once, and the DeviceIndex then tells which ones are already stored.
+ *
+ * Date: 18/10/2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SessionDevicesBenchmark {
+
+    //Distinct devices of the session
+    @Param({"100", "1000", "10000", "1000000"})
+    public int deviceCount;
+
+    //Every device is found twice on average, in random order
+    private List<Device> sightings;
+    private long[] sightingMacs;
+
+    private SessionDeviceRegistry registry;
+    private Set<Device> set;
+    private DeviceIndex deviceIndex;
+
+    @Setup
+    public void setUp() {
+        Random random = Fixtures.random();
+        List<Device> devices = Fixtures.wifiDevices(deviceCount, random);
+
+        sightings = new ArrayList<>(devices);
+        for (int i = 0; i < deviceCount; i++)
+            sightings.add(devices.get(random.nextInt(deviceCount)));
+        Collections.shuffle(sightings, random);
+
+        sightingMacs = new long[sightings.size()];
+        for (int i = 0; i < sightingMacs.length; i++)
+            sightingMacs[i] = Codecs.macToLong(sightings.get(i).getBssid());
+
+        registry = new SessionDeviceRegistry(deviceCount);
+        set = Collections.synchronizedSet(new HashSet<Device>());
+        addToRegistry();
+
+        //Half of the devices are already stored
+        deviceIndex = new DeviceIndex(deviceCount);
+        for (int i = 0; i < deviceCount; i += 2)
+            deviceIndex.put(Codecs.macToLong(devices.get(i).getBssid()), i);
+    }
+
+    @Benchmark
+    public int addToRegistry() {
+        registry.clear();
+        for (Device device : sightings)
+            registry.add(device);
+        return registry.size();
+    }
+
+    @Benchmark
+    public int addToSynchronizedSet() {
+        set.clear();
+        for (Device device : sightings)
+            set.add(device);
+        return set.size();
+    }
+
+    @Benchmark
+    public List<Device> registryToDevices() {
+        return registry.toDevices();
+    }
+
+    @Benchmark
+    public int lookUpDeviceIndex() {
+        int stored = 0;
+        for (long mac : sightingMacs) {
+            if (deviceIndex.mightContain(mac) && deviceIndex.getDeviceId(mac) != DeviceIndex.NOT_INDEXED)
+                stored++;
+        }
+        return stored;
+    }
+}
@@ -0,0 +1,141 @@
+package xyz.smartsniff.Benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import xyz.smartsniff.Model.Device;
+import xyz.smartsniff.Model.DeviceType;
+import xyz.smartsniff.Model.Location;
+import xyz.smartsniff.Model.WifiObservation;
+import xyz.smartsniff.Utils.ScanDelta;
+import xyz.smartsniff.Utils.SessionDeviceRegistry;
+import xyz.smartsniff.Utils.StringPool;
+
+/**
+ * Scans of a fake scan source pushed through the processing of a session, as ScanProcessor.processWifiScan
+ * does it: the delta with the previous scan, the devices built with pooled strings and added to the session
+ * devices, and the scan stored by the statements of DatabaseHelper.ingestScan. The score is in scans
+ * processed per second.
+ *
+ * The source is a walk in which each scan of 50 results finds 6 new access points. While walking, each
+ * scan is made at a new spot and every fresh result is stored. While parked, every scan is made at the
+ * same spot, so only the results which appeared since the previous scan are stored.
+ *
+ * The app stores the scans on the DatabaseWriter thread, here they are stored on the processing thread.
+ * Every iteration starts a new session on emptied tables.
+ *
+ * Date: 18/10/2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SessionThroughputBenchmark {
+
+    private static final int SCAN_COUNT = 20000;
+    private static final int RESULTS_PER_SCAN = 50;
+    //Same settings as ScanProcessor
+    private static final int MAX_SESSION_DEVICES = 10000;
+    private static final int STRING_POOL_LOG2_CAPACITY = 12;
+
+    @Param({"false", "true"})
+    public boolean parked;
+
+    private List<List<WifiObservation>> scans;
+
+    private File databaseFile;
+    private Connection connection;
+    private SqliteFixtures.ScanIngester ingester;
+    private long sessionId;
+
+    private final ScanDelta scanDelta = new ScanDelta();
+    private final StringPool namePool = new StringPool(STRING_POOL_LOG2_CAPACITY);
+    private final StringPool capabilitiesPool = new StringPool(STRING_POOL_LOG2_CAPACITY);
+    private final SessionDeviceRegistry sessionDevices = new SessionDeviceRegistry(MAX_SESSION_DEVICES);
+    private int nextScan;
+
+    @Setup
+    public void setUp() throws IOException, SQLException {
+        scans = Fixtures.walk(SCAN_COUNT, RESULTS_PER_SCAN, Fixtures.random());
+
+        databaseFile = SqliteFixtures.createDatabase("WAL");
+        connection = SqliteFixtures.open(databaseFile, "WAL");
+        ingester = new SqliteFixtures.ScanIngester(connection);
+    }
+
+    @Setup(Level.Iteration)
+    public void startSession() throws SQLException {
+        Statement statement = connection.createStatement();
+        statement.executeUpdate("DELETE FROM asocSessionsDevices");
+        statement.executeUpdate("DELETE FROM devices");
+        statement.executeUpdate("DELETE FROM locations");
+        statement.close();
+        ingester.clearIndex();
+        sessionId = SqliteFixtures.addSession(connection, 1476748800000L);
+
+        scanDelta.reset();
+        sessionDevices.clear();
+        nextScan = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void checkWalkLength() {
+        //Once the walk starts over, every scan would only find devices which are already stored
+        if (nextScan >= SCAN_COUNT)
+            throw new IllegalStateException("The walk is shorter than an iteration");
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        ingester.close();
+        connection.close();
+        SqliteFixtures.deleteDatabase(databaseFile);
+    }
+
+    @Benchmark
+    public int processScan() throws SQLException {
+        int scan = nextScan++;
+        List<WifiObservation> scanResults = scans.get(scan);
+        //The clock of Fixtures.walk
+        long nowMicros = 1000000L + (scan + 1) * 3000000L;
+        Location location = SqliteFixtures.spot(parked ? 0 : scan);
+
+        ScanDelta.Delta delta = scanDelta.compare(scanResults, nowMicros);
+        List<WifiObservation> newResults = parked && scan > 0 ? delta.getAppeared() : delta.getFresh();
+
+        List<Device> scanDevices = new ArrayList<>(newResults.size());
+        for (WifiObservation s : newResults) {
+            Device wifiDevice = new Device(namePool.intern(s.getSsid()), s.getBssid(),
+                    capabilitiesPool.intern(s.getCapabilities()), s.getChannelWidth(), s.getFrequency(), s.getLevel(),
+                    DeviceType.WIFI);
+            sessionDevices.add(wifiDevice);
+            scanDevices.add(wifiDevice);
+        }
+
+        if (scanDevices.isEmpty())
+            return 0;
+        return ingester.ingestScan(sessionId, location, scanDevices);
+    }
+}
@@ -0,0 +1,259 @@
+package xyz.smartsniff.Benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import xyz.smartsniff.Model.Device;
+import xyz.smartsniff.Model.DeviceType;
+import xyz.smartsniff.Model.Location;
+import xyz.smartsniff.Utils.Codecs;
+import xyz.smartsniff.Utils.DeviceIndex;
+import xyz.smartsniff.Utils.SecurityFlags;
+
+/**
+ * SQLite databases for the benchmarks of the persistence paths. Android's SQLiteDatabase can't run on the
+ * JVM, so the benchmarks run the same schema and statements as DatabaseHelper through the SQLite JDBC
+ * driver, on a database file as the app does. Keep the schema and the statements in sync with
+ * DatabaseHelper.
+ *
+ * Date: 18/10/2026
+ */
+final class SqliteFixtures {
+
+    //Same schema as DatabaseHelper.onCreate
+    private static final String[] SCHEMA = {
+            "CREATE TABLE sessions(id INTEGER PRIMARY KEY AUTOINCREMENT, startDate INTEGER, endDate INTEGER)",
+            "CREATE TABLE devices(id INTEGER PRIMARY KEY AUTOINCREMENT, ssid TEXT NOT NULL, bssid TEXT UNIQUE, " +
+                    "manufacturer TEXT, characteristics TEXT, channelWidth TEXT, frequency INTEGER, " +
+                    "signalIntensity INTEGER, type TEXT, security INTEGER NOT NULL DEFAULT 0)",
+            "CREATE TABLE locations(id INTEGER PRIMARY KEY AUTOINCREMENT, date INTEGER, latitude REAL NOT NULL, " +
+                    "longitude REAL NOT NULL, UNIQUE (latitude, longitude))",
+            "CREATE TABLE asocSessionsDevices(id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                    "idSession INTEGER REFERENCES sessions, idDevice INTEGER REFERENCES devices, " +
+                    "idLocation INTEGER REFERENCES locations, UNIQUE (idSession, idDevice, idLocation))",
+            "CREATE INDEX asocLocationIndex ON asocSessionsDevices(idLocation)",
+            "CREATE INDEX deviceSecurityIndex ON devices(type, security)",
+            "CREATE TABLE syncState(name TEXT PRIMARY KEY, value INTEGER NOT NULL)",
+            "CREATE TABLE manufacturers(prefix INTEGER PRIMARY KEY, name TEXT, expiresAt INTEGER NOT NULL)"
+    };
+
+    //Same query as DatabaseHelper.selectLocationsForHeatmap
+    static final String HEATMAP_QUERY = "SELECT l.latitude, l.longitude, count(*) FROM asocSessionsDevices a " +
+            "JOIN locations l ON l.id = a.idLocation GROUP BY a.idLocation";
+
+    private SqliteFixtures() {
+    }
+
+    /**
+     * Creates an empty database with the schema of the app in a temporary file.
+     *
+     * @param journalMode "DELETE", the default of SQLite, or "WAL", which DatabaseHelper enables
+     */
+    static File createDatabase(String journalMode) throws IOException, SQLException {
+        File file = File.createTempFile("smartsniff", ".db");
+        Connection connection = open(file, journalMode);
+        try {
+            Statement statement = connection.createStatement();
+            for (String sql : SCHEMA)
+                statement.executeUpdate(sql);
+            statement.close();
+        } finally {
+            connection.close();
+        }
+        return file;
+    }
+
+    /**
+     * Opens a connection configured as DatabaseHelper configures its own.
+     */
+    static Connection open(File file, String journalMode) throws SQLException {
+        Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+        Statement statement = connection.createStatement();
+        statement.execute("PRAGMA foreign_keys = ON");
+        //Same busy timeout as the connections of Android
+        statement.execute("PRAGMA busy_timeout = 2500");
+        statement.execute("PRAGMA journal_mode = " + journalMode);
+        statement.close();
+        return connection;
+    }
+
+    /**
+     * Deletes the database file along with its journals.
+     */
+    static void deleteDatabase(File file) {
+        for (String suffix : new String[]{"", "-journal", "-wal", "-shm"})
+            new File(file.getPath() + suffix).delete();
+    }
+
+    static long addSession(Connection connection, long startDate) throws SQLException {
+        PreparedStatement insert = connection.prepareStatement("INSERT INTO sessions(startDate) VALUES (?)");
+        try {
+            insert.setLong(1, startDate);
+            insert.executeUpdate();
+            return lastInsertRowId(connection);
+        } finally {
+            insert.close();
+        }
+    }
+
+    /**
+     * @return The rowid of the last row inserted through the connection, as returned by
+     * SQLiteStatement.executeInsert.
+     */
+    static long lastInsertRowId(Connection connection) throws SQLException {
+        Statement statement = connection.createStatement();
+        try {
+            ResultSet resultSet = statement.executeQuery("SELECT last_insert_rowid()");
+            resultSet.next();
+            return resultSet.getLong(1);
+        } finally {
+            statement.close();
+        }
+    }
+
+    /**
+     * Scans of a drive in which every access point is only found once: each scan is made at a new spot
+     * and finds new devices.
+     */
+    static List<List<Device>> drive(int deviceCount, int devicesPerScan, Random random) {
+        List<Device> devices = Fixtures.wifiDevices(deviceCount, random);
+        List<List<Device>> scans = new ArrayList<>();
+        for (int first = 0; first < deviceCount; first += devicesPerScan)
+            scans.add(devices.subList(first, Math.min(deviceCount, first + devicesPerScan)));
+        return scans;
+    }
+
+    /**
+     * @return The spot of the given scan of a drive, around Madrid.
+     */
+    static Location spot(int scan) {
+        return new Location(new Date(1476748800000L + scan * 3000L), 40.4 + scan * 0.0001,
+                -3.7 + scan * 0.0001);
+    }
+
+    /**
+     * The statements of DatabaseHelper.ingestScan, compiled once and reused for every scan, with the
+     * in-memory index of the stored devices.
+     */
+    static class ScanIngester {
+
+        private final Connection connection;
+        private final PreparedStatement insertLocation, selectLocationId, insertDevice, insertAssociation;
+        private final DeviceIndex index = new DeviceIndex(1024);
+
+        ScanIngester(Connection connection) throws SQLException {
+            this.connection = connection;
+            insertLocation = connection.prepareStatement("INSERT OR IGNORE INTO locations(date, latitude, " +
+                    "longitude) VALUES (?, ?, ?)");
+            selectLocationId = connection.prepareStatement("SELECT id FROM locations WHERE latitude = ? AND " +
+                    "longitude = ?");
+            insertDevice = connection.prepareStatement("INSERT OR IGNORE INTO devices(ssid, bssid, manufacturer, " +
+                    "characteristics, channelWidth, frequency, signalIntensity, type, security) VALUES " +
+                    "(?, ?, ?, ?, ?, ?, ?, ?, ?)");
+            insertAssociation = connection.prepareStatement("INSERT OR IGNORE INTO asocSessionsDevices(idSession, " +
+                    "idDevice, idLocation) VALUES (?, ?, ?)");
+        }
+
+        /**
+         * Stores a scan in a single transaction.
+         *
+         * @return The number of devices stored for the first time.
+         */
+        int ingestScan(long sessionId, Location location, List<Device> devices) throws SQLException {
+            int newDevices = 0;
+            long[] newMacs = new long[devices.size()];
+            long[] newDeviceIds = new long[devices.size()];
+
+            connection.setAutoCommit(false);
+            try {
+                long locationId = insertLocation(location);
+
+                for (Device device : devices) {
+                    long mac = Codecs.macToLong(device.getBssid());
+                    if (mac != -1 && index.getDeviceId(mac) != DeviceIndex.NOT_INDEXED)
+                        continue;
+
+                    insertDevice.setString(1, device.getSsid());
+                    insertDevice.setString(2, device.getBssid());
+                    insertDevice.setString(3, device.getManufacturer());
+                    insertDevice.setString(4, device.getCharacteristics());
+                    insertDevice.setString(5, device.getChannelWidth());
+                    insertDevice.setLong(6, device.getFrequency());
+                    insertDevice.setLong(7, (long) device.getSignalIntensity());
+                    insertDevice.setString(8, device.getType().toString());
+                    insertDevice.setLong(9, device.getType() == DeviceType.WIFI ?
+                            SecurityFlags.parse(device.getCharacteristics()) : 0);
+                    if (insertDevice.executeUpdate() == 0)
+                        continue;
+                    long deviceId = lastInsertRowId(connection);
+
+                    insertAssociation.setLong(1, sessionId);
+                    insertAssociation.setLong(2, deviceId);
+                    insertAssociation.setLong(3, locationId);
+                    insertAssociation.executeUpdate();
+
+                    newMacs[newDevices] = mac;
+                    newDeviceIds[newDevices] = deviceId;
+                    newDevices++;
+                }
+
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+
+            //The index is only updated with rows that have been committed
+            for (int i = 0; i < newDevices; i++) {
+                if (newMacs[i] != -1)
+                    index.put(newMacs[i], newDeviceIds[i]);
+            }
+            return newDevices;
+        }
+
+        private long insertLocation(Location location) throws SQLException {
+            insertLocation.setLong(1, location.getDate().getTime());
+            insertLocation.setDouble(2, location.getLatitude());
+            insertLocation.setDouble(3, location.getLongitude());
+            if (insertLocation.executeUpdate() > 0)
+                return lastInsertRowId(connection);
+
+            //The location already exists in the database, we need to get its ID
+            selectLocationId.setDouble(1, location.getLatitude());
+            selectLocationId.setDouble(2, location.getLongitude());
+            ResultSet resultSet = selectLocationId.executeQuery();
+            try {
+                resultSet.next();
+                return resultSet.getLong(1);
+            } finally {
+                resultSet.close();
+            }
+        }
+
+        /**
+         * Forgets the indexed devices, e.g. after the tables have been emptied.
+         */
+        void clearIndex() {
+            index.clear();
+        }
+
+        void close() throws SQLException {
+            insertLocation.close();
+            selectLocationId.close();
+            insertDevice.close();
+            insertAssociation.close();
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package xyz.smartsniff.Benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import xyz.smartsniff.Model.Device;
+import xyz.smartsniff.Model.Location;
+import xyz.smartsniff.Model.Session;
+import xyz.smartsniff.Utils.Codecs;
+import xyz.smartsniff.Utils.ExportUploader;
+
+/**
+ * Upload of 5000 pending associations to a local mock of the server, which reads and discards the
+ * requests. The score is in associations uploaded per second, and the wireBytes counter is in bytes of
+ * request bodies sent per second, so wireBytes / score is the size of an association on the wire.
+ *
+ * singleRequest is the path replaced by ExportUploader: the whole document built in memory and sent
+ * uncompressed in one request, as the JsonObjectRequest of Volley did. chunked sends it through
+ * ExportUploader, in gzip-compressed chunks of chunkSize associations.
+ *
+ * The loopback interface is not the bottleneck that mobile data is, so the throughput here is the cost
+ * on the phone's side, and wireBytes is what the compression saves on the network.
+ *
+ * Date: 18/10/2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(UploadBenchmark.ASSOCIATION_COUNT)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UploadBenchmark {
+
+    static final int ASSOCIATION_COUNT = 5000;
+    private static final int ASSOCIATIONS_PER_LOCATION = 10;
+
+    //Same configuration as Utils.gson
+    private static final Gson gson = new GsonBuilder().setDateFormat(Codecs.DATE_FORMAT).disableHtmlEscaping()
+            .create();
+
+    @Param({"100", "500"})
+    public int chunkSize;
+
+    private HttpServer server;
+    private String uploadUrl;
+    private Export export;
+    private ExportUploader uploader;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                InputStream body = exchange.getRequestBody();
+                byte[] buffer = new byte[8192];
+                while (body.read(buffer) != -1) {
+                    //The mock only acknowledges the data
+                }
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+            }
+        });
+        server.start();
+        uploadUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/api/db/storedata";
+
+        export = new Export(Fixtures.random());
+        //No request fails against the mock, so retries never wait
+        uploader = new ExportUploader(uploadUrl, chunkSize, 1, 0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    /**
+     * Bytes of the request bodies sent, reported per second.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class WireBytes {
+        public long wireBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            wireBytes = 0;
+        }
+    }
+
+    @Benchmark
+    public boolean singleRequest(WireBytes counter) throws IOException {
+        StringWriter document = new StringWriter();
+        export.writeChunk(document, 0, ASSOCIATION_COUNT);
+        byte[] body = document.toString().getBytes("UTF-8");
+
+        HttpURLConnection connection = (HttpURLConnection) new URL(uploadUrl).openConnection();
+        try {
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(body.length);
+            connection.setRequestProperty("Content-Type", "application/json; charset=utf-8");
+            OutputStream out = connection.getOutputStream();
+            out.write(body);
+            out.close();
+
+            counter.wireBytes += body.length;
+            return connection.getResponseCode() == 200;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    @Benchmark
+    public boolean chunked(final WireBytes counter) {
+        export.watermark = 0;
+        return uploader.uploadPending(export, new ExportUploader.Listener() {
+            @Override
+            public void onChunkStarted(int chunk, int totalChunks) {
+            }
+
+            @Override
+            public void onResponse(long fromId, long toId, int responseCode, long wireBytes, long elapsed) {
+                counter.wireBytes += wireBytes;
+            }
+
+            @Override
+            public void onRequestFailed(int attempt, IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    /**
+     * One session in which association i is device i, found at location i / 10. Chunks are written with
+     * the layout of JSONGenerator.writeJSON.
+     */
+    private static class Export implements ExportUploader.ExportSource {
+
+        private final Session session;
+        private final List<Device> devices;
+        private final List<Location> locations = new ArrayList<>();
+        long watermark;
+
+        Export(Random random) {
+            session = new Session(new Date(1476748800000L), new Date(1476752400000L));
+            session.setMacAddress("02:00:00:00:00:00");
+            devices = Fixtures.wifiDevices(ASSOCIATION_COUNT, random);
+            for (int i = 0; i < ASSOCIATION_COUNT / ASSOCIATIONS_PER_LOCATION; i++)
+                locations.add(new Location(new Date(1476748800000L + i * 3000L), 40.4 + random.nextDouble() * 0.1,
+                        -3.7 + random.nextDouble() * 0.1));
+        }
+
+        @Override
+        public long getExportWatermark() {
+            return watermark;
+        }
+
+        @Override
+        public long getLastAssociationId() {
+            return ASSOCIATION_COUNT;
+        }
+
+        @Override
+        public long countExportedAssociations(long fromId, long toId) {
+            return toId - fromId;
+        }
+
+        @Override
+        public long getExportChunkEnd(long fromId, long toId, int chunkSize) {
+            return Math.min(toId, fromId + chunkSize);
+        }
+
+        @Override
+        public void writeChunk(Writer out, long fromId, long toId) throws IOException {
+            int first = (int) fromId;
+            int last = (int) toId;
+            JsonWriter writer = new JsonWriter(out);
+            writer.beginObject();
+
+            writer.name("sessions").beginArray();
+            gson.toJson(session, Session.class, writer);
+            writer.endArray();
+
+            writer.name("devices").beginArray();
+            for (int i = first; i < last; i++)
+                gson.toJson(devices.get(i), Device.class, writer);
+            writer.endArray();
+
+            writer.name("locations").beginArray();
+            for (int i = first / ASSOCIATIONS_PER_LOCATION; i <= (last - 1) / ASSOCIATIONS_PER_LOCATION; i++)
+                SerializationBenchmark.writeLocation(writer, locations.get(i));
+            writer.endArray();
+
+            writer.name("asocsessiondevices").beginArray();
+            for (int i = first; i < last; i++) {
+                Location location = locations.get(i / ASSOCIATIONS_PER_LOCATION);
+
+                writer.beginObject();
+                writer.name("session");
+                gson.toJson(session, Session.class, writer);
+                writer.name("device");
+                gson.toJson(devices.get(i), Device.class, writer);
+                writer.name("location").beginObject()
+                        .name("latitude").value(location.getLatitude())
+                        .name("longitude").value(location.getLongitude())
+                        .endObject();
+                writer.endObject();
+            }
+            writer.endArray();
+
+            writer.endObject();
+            writer.flush();
+        }
+
+        @Override
+        public void advanceExportWatermark(long toId) {
+            watermark = toId;
+        }
+    }
+}
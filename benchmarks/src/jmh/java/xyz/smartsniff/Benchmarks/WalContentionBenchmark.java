@@ -0,0 +1,193 @@
+package xyz.smartsniff.Benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import xyz.smartsniff.Model.Device;
+
+/**
+ * Latency of the heatmap query while a stream of scans is being written, as when MapManager reloads
+ * the heatmap of 100000 stored associations during a session. Each group runs one writer, which stores a
+ * scan of 50 new devices per operation, and one reader.
+ *
+ * The connections are handed out as Android's connection pool does: the writer always holds the primary
+ * connection, which the threads take in turn. Without write-ahead logging the pool has no other
+ * connection, so the reader waits for it. With it, a query outside of a transaction runs on a connection
+ * of its own.
+ *
+ * - plainRead reads without a transaction, as DatabaseHelper does since it enabled write-ahead logging.
+ * - transactionRead reads inside a transaction, as every read did before, which always takes the primary
+ * connection.
+ *
+ * Date: 18/10/2026
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WalContentionBenchmark {
+
+    //100000 associations of previous sessions
+    private static final int STORED_SCANS = 2000;
+    private static final int DEVICES_PER_SCAN = 50;
+
+    @Param({"DELETE", "WAL"})
+    public String journalMode;
+
+    private File databaseFile;
+    //Fair, as the pool serves the threads waiting for a connection in order
+    private final ReentrantLock primaryConnection = new ReentrantLock(true);
+    private Connection writerConnection, readerConnection;
+    private SqliteFixtures.ScanIngester ingester;
+    private PreparedStatement primaryHeatmapQuery, readerHeatmapQuery;
+
+    private long sessionId;
+    private Random random;
+    private int scanCount;
+
+    @Setup
+    public void setUp() throws IOException, SQLException {
+        random = Fixtures.random();
+        databaseFile = SqliteFixtures.createDatabase(journalMode);
+        writerConnection = SqliteFixtures.open(databaseFile, journalMode);
+
+        sessionId = SqliteFixtures.addSession(writerConnection, 1476748800000L);
+        ingester = new SqliteFixtures.ScanIngester(writerConnection);
+        while (scanCount < STORED_SCANS)
+            writeScan();
+
+        primaryHeatmapQuery = writerConnection.prepareStatement(SqliteFixtures.HEATMAP_QUERY);
+        if (journalMode.equals("WAL")) {
+            readerConnection = SqliteFixtures.open(databaseFile, journalMode);
+            readerHeatmapQuery = readerConnection.prepareStatement(SqliteFixtures.HEATMAP_QUERY);
+        }
+    }
+
+    /**
+     * Removes the scans written during the last iteration, so every iteration reads the same heatmap
+     * at its start instead of one that grows with the speed of the writer.
+     */
+    @Setup(Level.Iteration)
+    public void removeWrittenScans() throws SQLException {
+        Statement statement = writerConnection.createStatement();
+        //Without an index on idDevice, the foreign key check of every deleted device scans the associations
+        statement.execute("PRAGMA foreign_keys = OFF");
+        statement.executeUpdate("DELETE FROM asocSessionsDevices WHERE idLocation > " + STORED_SCANS);
+        statement.executeUpdate("DELETE FROM devices WHERE id > " + STORED_SCANS * DEVICES_PER_SCAN);
+        statement.executeUpdate("DELETE FROM locations WHERE id > " + STORED_SCANS);
+        statement.execute("PRAGMA foreign_keys = ON");
+        statement.close();
+        //The writer stores the same scans again
+        ingester.clearIndex();
+        scanCount = STORED_SCANS;
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        primaryHeatmapQuery.close();
+        ingester.close();
+        writerConnection.close();
+        if (readerConnection != null) {
+            readerHeatmapQuery.close();
+            readerConnection.close();
+        }
+        SqliteFixtures.deleteDatabase(databaseFile);
+    }
+
+    @Benchmark
+    @Group("plainRead")
+    @GroupThreads(1)
+    public int plainReadWriter() throws SQLException {
+        return writeScan();
+    }
+
+    @Benchmark
+    @Group("plainRead")
+    @GroupThreads(1)
+    public int plainRead() throws SQLException {
+        if (readerHeatmapQuery != null)
+            return readHeatmap(readerHeatmapQuery);
+
+        primaryConnection.lock();
+        try {
+            return readHeatmap(primaryHeatmapQuery);
+        } finally {
+            primaryConnection.unlock();
+        }
+    }
+
+    @Benchmark
+    @Group("transactionRead")
+    @GroupThreads(1)
+    public int transactionReadWriter() throws SQLException {
+        return writeScan();
+    }
+
+    @Benchmark
+    @Group("transactionRead")
+    @GroupThreads(1)
+    public int transactionRead() throws SQLException {
+        primaryConnection.lock();
+        try {
+            return readHeatmap(primaryHeatmapQuery);
+        } finally {
+            primaryConnection.unlock();
+        }
+    }
+
+    /**
+     * Stores a scan made at a new spot, in which every device is new.
+     */
+    private int writeScan() throws SQLException {
+        List<Device> devices = new ArrayList<>(DEVICES_PER_SCAN);
+        for (int i = 0; i < DEVICES_PER_SCAN; i++)
+            devices.add(Fixtures.wifiDevice(Fixtures.mac((long) scanCount * DEVICES_PER_SCAN + i), random));
+
+        primaryConnection.lock();
+        try {
+            return ingester.ingestScan(sessionId, SqliteFixtures.spot(scanCount++), devices);
+        } finally {
+            primaryConnection.unlock();
+        }
+    }
+
+    private int readHeatmap(PreparedStatement heatmapQuery) throws SQLException {
+        int weight = 0;
+        ResultSet resultSet = heatmapQuery.executeQuery();
+        try {
+            while (resultSet.next())
+                weight += resultSet.getInt(3);
+        } finally {
+            resultSet.close();
+        }
+        return weight;
+    }
+}
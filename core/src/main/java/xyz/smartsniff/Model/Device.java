@@ -1,19 +1,7 @@
 package xyz.smartsniff.Model;
 
-import android.app.Activity;
-import android.net.wifi.ScanResult;
-
-import com.android.volley.Request;
-import com.android.volley.Response;
-import com.android.volley.VolleyError;
-import com.android.volley.toolbox.StringRequest;
-import com.android.volley.toolbox.Volley;
-
 import java.io.Serializable;
 
-import xyz.smartsniff.Utils.DatabaseHelper;
-import xyz.smartsniff.Utils.Utils;
-
 /**
  * Model class to represent devices.
  *
@@ -22,16 +10,24 @@ import xyz.smartsniff.Utils.Utils;
  * Date: 30/06/2016
  */
 public class Device implements Serializable {
+    //Same values as the ScanResult.CHANNEL_WIDTH_* constants
+    public static final int CHANNEL_WIDTH_20MHZ = 0;
+    public static final int CHANNEL_WIDTH_40MHZ = 1;
+    public static final int CHANNEL_WIDTH_80MHZ = 2;
+    public static final int CHANNEL_WIDTH_160MHZ = 3;
+    public static final int CHANNEL_WIDTH_80MHZ_PLUS_MHZ = 4;
+
     private String ssid, bssid, characteristics, manufacturer, channelWidth;
     private int frequency, signalIntensity;
     private DeviceType type;
 
     public Device(String ssid, String bssid, String characteristics, int channelWidthConstant, int frequency, int
             signalIntensity, DeviceType type) {
-        this(ssid, bssid, characteristics, null, channelWidthConstant, frequency, signalIntensity, type);
+        this(ssid, bssid, characteristics, null, channelWidthLabel(channelWidthConstant), frequency, signalIntensity,
+                type);
     }
 
-    public Device(String ssid, String bssid, String characteristics, String manufacturer, Object channelWidth, int
+    public Device(String ssid, String bssid, String characteristics, String manufacturer, String channelWidth, int
             frequency, int signalIntensity, DeviceType type) {
         //Null check to avoid violating the NOT-NULL restriction
         //Usually we enter this check because we have found a bluetooth device with no friendly name
@@ -44,15 +40,7 @@ public class Device implements Serializable {
         this.type = type;
 
         if (this.type.equals(DeviceType.WIFI)) {
-            if (channelWidth.getClass().equals(Integer.class)) {
-                int constant = (Integer) channelWidth;
-
-                if (constant != 9999)
-                    this.channelWidth = selectChannelWidthFromConstant(constant);
-            } else if (channelWidth.getClass().equals(String.class)) {
-                this.channelWidth = (String) channelWidth;
-            }
-
+            this.channelWidth = channelWidth;
 
             if (frequency != 0)
                 this.frequency = frequency;
@@ -68,61 +56,26 @@ public class Device implements Serializable {
     }
 
     /**
-     * Obtains the manufacturer of the ethernet/bluetooth card based on the MAC address of the device.
-     * This method is only called when the device must be associated with a particular location (i.e.
-     * the device hasn't been discovered yet) in order to minimize the number of requests sent to the
-     * API server.
-     *
-     * @see <a href="http://www.macvendors.com/api"> API Documentation</a>
-     * @see <a href="https://developer.android.com/training/volley/simple.html">Volley Documentation</a>
+     * @param constant One of the CHANNEL_WIDTH_* constants
+     * @return The label of the channel width. Labels are constants, so they are shared by every device.
      */
-    public void getManufacturerFromBssid(Activity mainActivity) {
-        //Fix to avoid creating a requestQueue for each request (OutOfMemory error)
-        if (Utils.queue == null)
-            Utils.queue = Volley.newRequestQueue(mainActivity);
-
-        final DatabaseHelper dbHelper = DatabaseHelper.getInstance(mainActivity);
-
-        //http://api.macvendors.com/00:11:22:33:44:55
-        String url = Utils.MANUFACTURER_REQUEST_URL + getBssid();
-
-        //Request a response from the provided URL
-        StringRequest request = new StringRequest(Request.Method.GET, url, new Response.Listener<String>() {
-            @Override
-            public void onResponse(String response) {
-                //Get the manufacturer from the response string
-                //Log.d(TAG, "MANUFACTURER RECEIVED SUCCESSFULLY: " + manufacturer);
-                setManufacturer(response, dbHelper);
-            }
-        }, new Response.ErrorListener() {
-            @Override
-            public void onErrorResponse(VolleyError error) {
-                //Code 404 was received: no manufacturer found
-                //Log.d(TAG, "MANUFACTURER NOT FOUND");
-                setManufacturer(Utils.MANUFACTURER_NOT_FOUND, dbHelper);
-            }
-        });
-        //Add the request to the queue
-        Utils.queue.add(request);
-    }
-
-    private String selectChannelWidthFromConstant(int constant) {
+    public static String channelWidthLabel(int constant) {
         String result = null;
 
         switch (constant) {
-            case ScanResult.CHANNEL_WIDTH_20MHZ:
+            case CHANNEL_WIDTH_20MHZ:
                 result = "20 MHz";
                 break;
 
-            case ScanResult.CHANNEL_WIDTH_40MHZ:
+            case CHANNEL_WIDTH_40MHZ:
                 result = "40 MHz";
                 break;
 
-            case ScanResult.CHANNEL_WIDTH_80MHZ:
+            case CHANNEL_WIDTH_80MHZ:
                 result = "80 MHz";
                 break;
 
-            case ScanResult.CHANNEL_WIDTH_80MHZ_PLUS_MHZ:
+            case CHANNEL_WIDTH_80MHZ_PLUS_MHZ:
                 result = "160 MHz PLUS";
                 break;
 
@@ -188,11 +141,6 @@ public class Device implements Serializable {
         this.manufacturer = manufacturer;
     }
 
-    private void setManufacturer(String response, DatabaseHelper dbHelper) {
-        this.manufacturer = response;
-        dbHelper.updateDeviceWithManufacturer(this);
-    }
-
     public DeviceType getType() {
         return type;
     }
@@ -1,5 +1,5 @@
 package xyz.smartsniff.Model;
 
 public enum DeviceType {
-    WIFI, BLUETOOTH
+    WIFI, BLUETOOTH, BLUETOOTH_LE
 }
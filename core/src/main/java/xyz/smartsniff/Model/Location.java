@@ -1,11 +1,9 @@
 package xyz.smartsniff.Model;
 
-import com.google.android.gms.maps.model.LatLng;
-
 import java.util.Date;
 import java.util.LinkedList;
 
-import xyz.smartsniff.Utils.Utils;
+import xyz.smartsniff.Utils.Codecs;
 
 /**
  * Model class to represent locations.
@@ -17,22 +15,23 @@ import xyz.smartsniff.Utils.Utils;
 public class Location {
 
     private Date date;
-    private LatLng coordinates;
+    private double latitude, longitude;
     private transient LinkedList<Device> locatedDevices;
 
-    public Location(Date date, LatLng coordinates) {
+    public Location(Date date, double latitude, double longitude) {
         if (date != null)
             this.date = date;
 
-        this.coordinates = coordinates;
+        this.latitude = latitude;
+        this.longitude = longitude;
         locatedDevices = new LinkedList<>();
     }
 
     /**
      * Overloaded constructor used when reloading the heatmap.
      */
-    public Location(LatLng coordinates) {
-        this(null, coordinates);
+    public Location(double latitude, double longitude) {
+        this(null, latitude, longitude);
     }
 
     public void addFoundDevice(Device device) {
@@ -40,11 +39,11 @@ public class Location {
     }
 
     public String getDateString() {
-        return Utils.formatDate(date);
+        return Codecs.formatDate(date);
     }
 
     public String getCoordinatesString() {
-        return coordinates.latitude + ", " + coordinates.longitude;
+        return Codecs.formatCoordinates(latitude, longitude);
     }
 
     public LinkedList<Device> getLocatedDevices() {
@@ -61,7 +60,14 @@ public class Location {
      * geolocation services.
      */
     public boolean isValidLocation() {
-        return coordinates.latitude != 0.0 && coordinates.longitude != 0.0;
+        return latitude != 0.0 && longitude != 0.0;
+    }
+
+    /**
+     * @return Whether this location has the given coordinates.
+     */
+    public boolean hasCoordinates(double latitude, double longitude) {
+        return this.latitude == latitude && this.longitude == longitude;
     }
 
     //Getters and setters
@@ -74,11 +80,16 @@ public class Location {
         this.date = date;
     }
 
-    public LatLng getCoordinates() {
-        return coordinates;
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
     }
 
-    public void setCoordinates(LatLng coordinates) {
-        this.coordinates = coordinates;
+    public void setCoordinates(double latitude, double longitude) {
+        this.latitude = latitude;
+        this.longitude = longitude;
     }
 }
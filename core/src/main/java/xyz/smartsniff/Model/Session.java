@@ -2,7 +2,7 @@ package xyz.smartsniff.Model;
 
 import java.util.Date;
 
-import xyz.smartsniff.Utils.Utils;
+import xyz.smartsniff.Utils.Codecs;
 
 /**
  * Model class to represent sessions.
@@ -57,10 +57,10 @@ public class Session {
     }
 
     public String getStartDateString() {
-        return Utils.formatDate(startDate);
+        return Codecs.formatDate(startDate);
     }
 
     public String getEndDateString() {
-        return Utils.formatDate(endDate);
+        return Codecs.formatDate(endDate);
     }
 }
@@ -0,0 +1,60 @@
+package xyz.smartsniff.Model;
+
+/**
+ * Model class to represent a wifi scan result, as processed by the scan pipeline. It holds the fields
+ * of android.net.wifi.ScanResult which the pipeline uses, so scans can also be recorded and replayed
+ * without the platform.
+ *
+ * Date: 18/10/2026
+ */
+public class WifiObservation {
+
+    private final String ssid, bssid, capabilities;
+    private final int channelWidth, frequency, level;
+    private final long timestamp;
+
+    /**
+     * @param channelWidth One of the ScanResult.CHANNEL_WIDTH_* constants
+     * @param timestamp    Time the result was last seen, in microseconds since boot, or 0 if unknown
+     */
+    public WifiObservation(String ssid, String bssid, String capabilities, int channelWidth, int frequency,
+                           int level, long timestamp) {
+        this.ssid = ssid;
+        this.bssid = bssid;
+        this.capabilities = capabilities;
+        this.channelWidth = channelWidth;
+        this.frequency = frequency;
+        this.level = level;
+        this.timestamp = timestamp;
+    }
+
+    //Getters
+
+    public String getSsid() {
+        return ssid;
+    }
+
+    public String getBssid() {
+        return bssid;
+    }
+
+    public String getCapabilities() {
+        return capabilities;
+    }
+
+    public int getChannelWidth() {
+        return channelWidth;
+    }
+
+    public int getFrequency() {
+        return frequency;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+}
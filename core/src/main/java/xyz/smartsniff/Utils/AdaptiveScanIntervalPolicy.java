@@ -0,0 +1,98 @@
+package xyz.smartsniff.Utils;
+
+/**
+ * Adapts the time between scans to the activity of the user. The interval is shortened as soon as the
+ * user moves or the scans find new devices, and it is lengthened gradually while the user stays in the
+ * same place and the scans keep finding the same devices. When a throttle budget is given, scans are
+ * never requested faster than the platform accepts them.
+ *
+ * Date: 18/10/2026
+ */
+public class AdaptiveScanIntervalPolicy implements ScanIntervalPolicy {
+
+    //Speed (m/s) from which the shortest interval is used, roughly the speed of a bicycle
+    private static final double FAST_SPEED = 5.0;
+    //Fraction of new devices in a scan from which the shortest interval is used
+    private static final double HIGH_NOVELTY = 0.3;
+    //Weight of the last scan in the novelty average
+    private static final double NOVELTY_SMOOTHING = 0.5;
+    //Maximum growth of the interval between two scans
+    private static final double MAX_GROWTH = 1.5;
+    //Fixes older than this don't tell anything about the current speed
+    private static final long MAX_FIX_AGE_MS = 60 * 1000;
+    private static final double EARTH_RADIUS = 6371000.0;
+
+    private final long minInterval, maxInterval;
+    private final ScanThrottleBudget budget;
+
+    private long interval;
+    private double speed, novelty;
+    private long lastFixTime = -1;
+    private double lastLatitude, lastLongitude;
+
+    /**
+     * @param budget Scan budget of the platform, or null if scans aren't throttled
+     */
+    public AdaptiveScanIntervalPolicy(long minInterval, long maxInterval, ScanThrottleBudget budget) {
+        this.minInterval = minInterval;
+        this.maxInterval = maxInterval;
+        this.budget = budget;
+        this.interval = minInterval;
+    }
+
+    @Override
+    public synchronized long nextInterval(long now) {
+        //Stale fixes mean we don't know whether the user is moving
+        if (lastFixTime >= 0 && now - lastFixTime > MAX_FIX_AGE_MS)
+            speed = 0;
+
+        double activity = Math.max(Math.min(1.0, speed / FAST_SPEED), Math.min(1.0, novelty / HIGH_NOVELTY));
+        long target = Math.round(maxInterval - (maxInterval - minInterval) * activity);
+
+        //Shrink at once, grow gradually
+        if (target < interval)
+            interval = target;
+        else
+            interval = Math.min(target, Math.round(interval * MAX_GROWTH));
+
+        if (budget != null)
+            return Math.max(interval, budget.delayUntilAvailable(now));
+        return interval;
+    }
+
+    @Override
+    public void onScanRequested(long now) {
+        if (budget != null)
+            budget.onScanRequested(now);
+    }
+
+    @Override
+    public synchronized void onLocation(long now, double latitude, double longitude, float speed) {
+        if (!Float.isNaN(speed)) {
+            this.speed = speed;
+        } else if (lastFixTime >= 0 && now > lastFixTime) {
+            //No speed reported: estimate it from the displacement since the last fix
+            this.speed = distance(lastLatitude, lastLongitude, latitude, longitude) * 1000.0 / (now - lastFixTime);
+        }
+
+        lastFixTime = now;
+        lastLatitude = latitude;
+        lastLongitude = longitude;
+    }
+
+    @Override
+    public synchronized void onScanResults(long now, int resultCount, int newCount) {
+        double scanNovelty = resultCount > 0 ? (double) newCount / resultCount : 0;
+        novelty = NOVELTY_SMOOTHING * scanNovelty + (1 - NOVELTY_SMOOTHING) * novelty;
+    }
+
+    /**
+     * Equirectangular approximation of the distance, in meters, between two coordinates. Precise enough
+     * for the few meters between two consecutive fixes.
+     */
+    static double distance(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double x = Math.toRadians(longitude2 - longitude1) * Math.cos(Math.toRadians((latitude1 + latitude2) / 2));
+        double y = Math.toRadians(latitude2 - latitude1);
+        return Math.sqrt(x * x + y * y) * EARTH_RADIUS;
+    }
+}
@@ -0,0 +1,51 @@
+package xyz.smartsniff.Utils;
+
+import java.util.List;
+
+/**
+ * Source of Bluetooth Low Energy advertisements. Sightings are delivered in batches, so the pipeline
+ * wakes up once per batch instead of once per advertisement.
+ *
+ * Date: 18/10/2026
+ */
+public interface BleScanner {
+
+    /**
+     * Starts scanning.
+     *
+     * @param scanMode          One of the ScanSettings.SCAN_MODE_* constants
+     * @param reportDelayMillis Maximum time the sightings may be held back to be delivered in a batch
+     * @param listener          Receives the batches on the main thread
+     * @return Whether the scan could be started.
+     */
+    boolean start(int scanMode, long reportDelayMillis, BatchListener listener);
+
+    void stop();
+
+    /**
+     * Device seen advertising during a scan.
+     */
+    class Sighting {
+        private final String address, name;
+
+        public Sighting(String address, String name) {
+            this.address = address;
+            this.name = name;
+        }
+
+        public String getAddress() {
+            return address;
+        }
+
+        /**
+         * @return The advertised name, or null if the device doesn't advertise one.
+         */
+        public String getName() {
+            return name;
+        }
+    }
+
+    interface BatchListener {
+        void onBatch(List<Sighting> sightings);
+    }
+}
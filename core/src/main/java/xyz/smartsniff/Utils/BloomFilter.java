@@ -0,0 +1,66 @@
+package xyz.smartsniff.Utils;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size Bloom filter for long keys. A negative answer is always correct, while a positive
+ * answer may be a false positive and must be confirmed elsewhere.
+ *
+ * Date: 18/10/2026
+ */
+public class BloomFilter {
+
+    private final long[] bits;
+    private final int bitMask;
+    private final int numHashes;
+
+    /**
+     * @param log2Bits  Base two logarithm of the number of bits of the filter
+     * @param numHashes Number of bits set for each key
+     */
+    public BloomFilter(int log2Bits, int numHashes) {
+        this.bits = new long[Math.max(1, (1 << log2Bits) >>> 6)];
+        this.bitMask = (1 << log2Bits) - 1;
+        this.numHashes = numHashes;
+    }
+
+    public void add(long key) {
+        long hash = mix(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+
+        for (int i = 0; i < numHashes; i++) {
+            int bit = (h1 + i * h2) & bitMask;
+            bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    public boolean mightContain(long key) {
+        long hash = mix(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+
+        for (int i = 0; i < numHashes; i++) {
+            int bit = (h1 + i * h2) & bitMask;
+            if ((bits[bit >>> 6] & (1L << bit)) == 0)
+                return false;
+        }
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(bits, 0L);
+    }
+
+    /**
+     * 64 bit finalizer of MurmurHash3, spreads the bits of the key across the whole hash.
+     */
+    static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
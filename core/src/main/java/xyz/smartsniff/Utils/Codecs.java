@@ -0,0 +1,89 @@
+package xyz.smartsniff.Utils;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Encoding of the dates, MAC addresses and coordinates handled by the model, shared by the app and any
+ * code running on a plain JVM.
+ *
+ * Date: 18/10/2026
+ */
+public final class Codecs {
+
+    public static final String DATE_FORMAT = "dd/MM/yyyy HH:mm:ss";
+
+    private Codecs() {
+    }
+
+    /**
+     * Given a date, this function returns the date with the format "dd/MM/yyyy HH:mm:ss"
+     *
+     * @param date The date to format.
+     * @return The date, formatted.
+     */
+    public static String formatDate(Date date) {
+        SimpleDateFormat dateFormat = new SimpleDateFormat(DATE_FORMAT, Locale.ENGLISH);
+        String formattedDate = dateFormat.format(date);
+
+        return formattedDate;
+    }
+
+    /**
+     * This method does the inverse operation of 'formatDate'.
+     * Given a formatted date (string), returns the same date contained in a Date object.
+     *
+     * @param stringDate The string to parse.
+     * @return The date, in a Date object.
+     */
+    public static Date reverseFormatDate(String stringDate) {
+        SimpleDateFormat dateFormat = new SimpleDateFormat(DATE_FORMAT, Locale.ENGLISH);
+        Date date = null;
+        try {
+            date = dateFormat.parse(stringDate);
+        } catch (ParseException | NullPointerException e) {
+            //e.printStackTrace();
+            date = new Date();
+        }
+
+        return date;
+    }
+
+    /**
+     * Encodes a MAC address with the format "00:11:22:33:44:55" (or '-' separated) in the lower 48 bits
+     * of a long. No objects are allocated.
+     *
+     * @param macAddress The MAC address to encode.
+     * @return The encoded MAC address, or -1 if the string is not a valid MAC address.
+     */
+    public static long macToLong(String macAddress) {
+        if (macAddress == null || macAddress.length() != 17)
+            return -1;
+
+        long mac = 0;
+        for (int i = 0; i < 17; i++) {
+            char c = macAddress.charAt(i);
+            if (i % 3 == 2) {
+                //Separator position
+                if (c != ':' && c != '-')
+                    return -1;
+            } else {
+                int digit = Character.digit(c, 16);
+                if (digit < 0)
+                    return -1;
+                mac = (mac << 4) | digit;
+            }
+        }
+
+        return mac;
+    }
+
+    /**
+     * @return The coordinates with the format "latitude, longitude".
+     */
+    public static String formatCoordinates(double latitude, double longitude) {
+        return latitude + ", " + longitude;
+    }
+}
@@ -0,0 +1,55 @@
+package xyz.smartsniff.Utils;
+
+/**
+ * In-memory index of the devices stored in the local database, from MAC address (encoded as a long)
+ * to device row id. A Bloom filter sits in front of the map so that most lookups of unknown devices
+ * are answered without probing the map.
+ *
+ * The index is shared by the UI and the database writer thread, hence every method is synchronized.
+ *
+ * Date: 18/10/2026
+ */
+public class DeviceIndex {
+
+    public static final long NOT_INDEXED = LongIndexMap.NO_VALUE;
+
+    //2^20 bits (128 KB) and 3 hashes: ~2% false positives with 100.000 devices
+    private static final int BLOOM_LOG2_BITS = 20;
+    private static final int BLOOM_HASHES = 3;
+
+    private final BloomFilter bloomFilter;
+    private final LongIndexMap deviceIds;
+
+    public DeviceIndex(int expectedSize) {
+        bloomFilter = new BloomFilter(BLOOM_LOG2_BITS, BLOOM_HASHES);
+        deviceIds = new LongIndexMap(expectedSize);
+    }
+
+    /**
+     * @return false if the device is definitely not indexed, true if it may be.
+     */
+    public synchronized boolean mightContain(long mac) {
+        return bloomFilter.mightContain(mac);
+    }
+
+    /**
+     * @return The row id of the device, or NOT_INDEXED if it is not in the index.
+     */
+    public synchronized long getDeviceId(long mac) {
+        return deviceIds.get(mac);
+    }
+
+    public synchronized void put(long mac, long deviceId) {
+        bloomFilter.add(mac);
+        deviceIds.put(mac, deviceId);
+    }
+
+    public synchronized int size() {
+        return deviceIds.size();
+    }
+
+    public synchronized void clear() {
+        bloomFilter.clear();
+        deviceIds.clear();
+    }
+}
@@ -0,0 +1,226 @@
+package xyz.smartsniff.Utils;
+
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Uploads the data stored since the last export acknowledged by the server. The pending associations are
+ * sent in gzip-compressed chunks of a bounded number of associations, each one in its own HTTP Post
+ * request. Failed chunks are retried with exponential backoff, and the export watermark advances after
+ * each acknowledged chunk, so an interrupted upload resumes at the chunk that failed.
+ *
+ * The rows and the JSON layout come from the ExportSource, so the upload can be tested against a local
+ * server without the Android database.
+ *
+ * Date: 18/10/2026
+ */
+public class ExportUploader {
+
+    public static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    /**
+     * The exported data, where associations are identified by their id. See the export methods of
+     * DatabaseHelper.
+     */
+    public interface ExportSource {
+
+        /**
+         * @return The id of the last association acknowledged by the server, 0 if none.
+         */
+        long getExportWatermark();
+
+        /**
+         * @return The highest association id, 0 if there are no associations.
+         */
+        long getLastAssociationId();
+
+        /**
+         * @return The number of associations whose id is in (fromId, toId].
+         */
+        long countExportedAssociations(long fromId, long toId);
+
+        /**
+         * @return The id of the last association of a chunk of at most chunkSize associations after
+         * fromId, never greater than toId.
+         */
+        long getExportChunkEnd(long fromId, long toId, int chunkSize);
+
+        /**
+         * Writes the JSON document with the associations whose id is in (fromId, toId].
+         */
+        void writeChunk(Writer out, long fromId, long toId) throws IOException;
+
+        void advanceExportWatermark(long toId);
+    }
+
+    /**
+     * Receives the progress of an upload. Every method is called on the uploading thread.
+     */
+    public interface Listener {
+
+        /**
+         * @param chunk Number of the chunk, starting at 1
+         */
+        void onChunkStarted(int chunk, int totalChunks);
+
+        /**
+         * Called when the server has answered a request, whatever its status code.
+         *
+         * @param wireBytes Size of the compressed request body
+         * @param elapsed   Time taken by the request, in milliseconds
+         */
+        void onResponse(long fromId, long toId, int responseCode, long wireBytes, long elapsed);
+
+        /**
+         * Called when a request could not be completed.
+         *
+         * @param attempt Number of the attempt, starting at 1
+         */
+        void onRequestFailed(int attempt, IOException e);
+    }
+
+    private final String uploadUrl;
+    private final int chunkSize;
+    private final int maxAttempts;
+    private final long retryBaseDelay;
+
+    /**
+     * @param chunkSize      Maximum number of associations sent in a single request
+     * @param maxAttempts    Maximum number of requests made for a chunk
+     * @param retryBaseDelay Delay before the first retry of a chunk, in milliseconds. It doubles with
+     *                       every retry.
+     */
+    public ExportUploader(String uploadUrl, int chunkSize, int maxAttempts, long retryBaseDelay) {
+        this.uploadUrl = uploadUrl;
+        this.chunkSize = chunkSize;
+        this.maxAttempts = maxAttempts;
+        this.retryBaseDelay = retryBaseDelay;
+    }
+
+    /**
+     * Sends the associations stored since the last acknowledged export, chunk by chunk.
+     *
+     * @return Whether every pending chunk was acknowledged by the server.
+     */
+    public boolean uploadPending(ExportSource source, Listener listener) {
+        //Associations stored after this point will be sent in the next upload
+        long fromId = source.getExportWatermark();
+        long lastId = source.getLastAssociationId();
+
+        long pending = source.countExportedAssociations(fromId, lastId);
+        int totalChunks = (int) ((pending + chunkSize - 1) / chunkSize);
+        int sentChunks = 0;
+
+        while (fromId < lastId) {
+            listener.onChunkStarted(sentChunks + 1, totalChunks);
+
+            long toId = source.getExportChunkEnd(fromId, lastId, chunkSize);
+            if (!sendChunkWithRetries(source, listener, fromId, toId))
+                return false;
+
+            source.advanceExportWatermark(toId);
+            fromId = toId;
+            sentChunks++;
+        }
+
+        return true;
+    }
+
+    /**
+     * Sends a chunk, retrying with exponential backoff when the request fails or the server is
+     * temporarily unavailable.
+     *
+     * @return Whether the server acknowledged the chunk
+     */
+    private boolean sendChunkWithRetries(ExportSource source, Listener listener, long fromId, long toId) {
+        for (int attempt = 0; attempt < maxAttempts; attempt++) {
+            if (attempt > 0) {
+                try {
+                    Thread.sleep(retryBaseDelay << (attempt - 1));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+
+            try {
+                int responseCode = sendChunk(source, listener, fromId, toId);
+                if (responseCode >= 200 && responseCode < 300)
+                    return true;
+                //Client errors will fail again, there is no point in retrying them
+                if (responseCode < 500 && responseCode != HTTP_TOO_MANY_REQUESTS)
+                    return false;
+            } catch (IOException e) {
+                listener.onRequestFailed(attempt + 1, e);
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Sends one chunk of associations, gzip-compressed, in a single HTTP Post request.
+     *
+     * @return The HTTP status code of the response
+     * @throws IOException If the request could not be completed
+     */
+    private int sendChunk(ExportSource source, Listener listener, long fromId, long toId)
+            throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(uploadUrl).openConnection();
+        try {
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setChunkedStreamingMode(0);
+            connection.setRequestProperty("Content-Type", "application/json; charset=utf-8");
+            connection.setRequestProperty("Content-Encoding", "gzip");
+
+            long startTime = System.nanoTime();
+            CountingOutputStream wireStream = new CountingOutputStream(connection.getOutputStream());
+            Writer out = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(wireStream), "UTF-8"));
+            source.writeChunk(out, fromId, toId);
+            out.close();
+
+            int responseCode = connection.getResponseCode();
+            long elapsed = Math.max(1, (System.nanoTime() - startTime) / 1000000);
+            listener.onResponse(fromId, toId, responseCode, wireStream.getCount(), elapsed);
+
+            return responseCode;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Output stream which counts the bytes written to the underlying stream.
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+}
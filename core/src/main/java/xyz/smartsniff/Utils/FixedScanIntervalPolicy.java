@@ -0,0 +1,32 @@
+package xyz.smartsniff.Utils;
+
+/**
+ * Scans at a fixed interval, the one configured in the settings.
+ *
+ * Date: 18/10/2026
+ */
+public class FixedScanIntervalPolicy implements ScanIntervalPolicy {
+
+    private final long interval;
+
+    public FixedScanIntervalPolicy(long interval) {
+        this.interval = interval;
+    }
+
+    @Override
+    public long nextInterval(long now) {
+        return interval;
+    }
+
+    @Override
+    public void onScanRequested(long now) {
+    }
+
+    @Override
+    public void onLocation(long now, double latitude, double longitude, float speed) {
+    }
+
+    @Override
+    public void onScanResults(long now, int resultCount, int newCount) {
+    }
+}
@@ -0,0 +1,99 @@
+package xyz.smartsniff.Utils;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from non-negative long keys to long values, backed by two primitive
+ * arrays (linear probing). Lookups and updates of existing keys don't allocate.
+ *
+ * Date: 18/10/2026
+ */
+public class LongIndexMap {
+
+    public static final long NO_VALUE = -1;
+    private static final long EMPTY_KEY = -1;
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private long[] keys;
+    private long[] values;
+    private int size;
+    private int mask;
+
+    public LongIndexMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize Number of keys the map can hold before it has to grow
+     */
+    public LongIndexMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(2, expectedSize) * 2 - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * @return The value of the key, or NO_VALUE if the map doesn't contain it.
+     */
+    public long get(long key) {
+        int slot = (int) BloomFilter.mix(key) & mask;
+        while (keys[slot] != EMPTY_KEY) {
+            if (keys[slot] == key)
+                return values[slot];
+            slot = (slot + 1) & mask;
+        }
+        return NO_VALUE;
+    }
+
+    /**
+     * Associates the value with the key. Keys must not be negative.
+     */
+    public void put(long key, long value) {
+        if (key < 0)
+            throw new IllegalArgumentException("Negative keys are not supported: " + key);
+
+        int slot = (int) BloomFilter.mix(key) & mask;
+        while (keys[slot] != EMPTY_KEY) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+
+        //Keep the load factor under 0.5
+        if (size * 2 > keys.length)
+            rehash(keys.length * 2);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY_KEY);
+        size = 0;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        Arrays.fill(keys, EMPTY_KEY);
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+
+        allocate(newCapacity);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY_KEY)
+                put(oldKeys[i], oldValues[i]);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package xyz.smartsniff.Utils;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+
+/**
+ * Manufacturer lookup in the IEEE OUI registries (MA-L, MA-M and MA-S), compiled by the
+ * 'compileOuiRegistry' Gradle task into a binary image. The image is searched in place with binary
+ * search, so it can be memory-mapped and resolving a manufacturer doesn't need the heap.
+ *
+ * Image layout (big-endian):
+ * - int magic, int count24, int count28, int count36, int vendorCount
+ * - count24 x (int prefix, int vendorId), sorted by prefix     (MA-L, 24 bit prefixes)
+ * - count28 x (int prefix, int vendorId), sorted by prefix     (MA-M, 28 bit prefixes)
+ * - count36 x (long prefix, int vendorId), sorted by prefix    (MA-S, 36 bit prefixes)
+ * - (vendorCount + 1) x int, offsets of the vendor names in the UTF-8 blob
+ * - UTF-8 blob with the vendor names
+ *
+ * Date: 18/10/2026
+ */
+public class OuiRegistry {
+
+    public static final int MAGIC = 0x4F554931;    //"OUI1"
+    public static final int HEADER_SIZE = 5 * 4;
+    private static final int SHORT_ENTRY_SIZE = 4 + 4;
+    private static final int LONG_ENTRY_SIZE = 8 + 4;
+
+    private final ByteBuffer buffer;
+    private final int table24, count24, table28, count28, table36, count36;
+    private final int vendorOffsets, vendorNames;
+    //Vendor names already decoded, indexed by vendor id
+    private final String[] vendorCache;
+
+    /**
+     * @param buffer The registry image. It must start with MAGIC, see isValid.
+     */
+    public OuiRegistry(ByteBuffer buffer) {
+        this.buffer = buffer;
+
+        count24 = buffer.getInt(4);
+        count28 = buffer.getInt(8);
+        count36 = buffer.getInt(12);
+        int vendorCount = buffer.getInt(16);
+
+        table24 = HEADER_SIZE;
+        table28 = table24 + count24 * SHORT_ENTRY_SIZE;
+        table36 = table28 + count28 * SHORT_ENTRY_SIZE;
+        vendorOffsets = table36 + count36 * LONG_ENTRY_SIZE;
+        vendorNames = vendorOffsets + (vendorCount + 1) * 4;
+        vendorCache = new String[vendorCount];
+    }
+
+    /**
+     * @return A registry without entries, in which every lookup misses.
+     */
+    public static OuiRegistry empty() {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE);
+        buffer.putInt(0, MAGIC);
+        return new OuiRegistry(buffer);
+    }
+
+    /**
+     * @return Whether the buffer holds a registry image.
+     */
+    public static boolean isValid(ByteBuffer buffer) {
+        return buffer != null && buffer.capacity() >= HEADER_SIZE && buffer.getInt(0) == MAGIC;
+    }
+
+    /**
+     * @return The number of registered prefixes.
+     */
+    public int size() {
+        return count24 + count28 + count36;
+    }
+
+    /**
+     * Looks up the manufacturer of a MAC address. The most specific registry wins: MA-S, then MA-M,
+     * then MA-L.
+     *
+     * @param mac The MAC address, as encoded by Codecs.macToLong
+     * @return The manufacturer, or null if it is not registered.
+     */
+    public String lookup(long mac) {
+        if (mac < 0)
+            return null;
+
+        int vendorId = searchLong(table36, count36, mac >>> 12);
+        if (vendorId < 0)
+            vendorId = searchInt(table28, count28, (int) (mac >>> 20));
+        if (vendorId < 0)
+            vendorId = searchInt(table24, count24, (int) (mac >>> 24));
+
+        return vendorId < 0 ? null : getVendorName(vendorId);
+    }
+
+    private int searchInt(int table, int count, int prefix) {
+        int low = 0, high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int entry = table + middle * SHORT_ENTRY_SIZE;
+            int key = buffer.getInt(entry);
+
+            if (key < prefix)
+                low = middle + 1;
+            else if (key > prefix)
+                high = middle - 1;
+            else
+                return buffer.getInt(entry + 4);
+        }
+        return -1;
+    }
+
+    private int searchLong(int table, int count, long prefix) {
+        int low = 0, high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int entry = table + middle * LONG_ENTRY_SIZE;
+            long key = buffer.getLong(entry);
+
+            if (key < prefix)
+                low = middle + 1;
+            else if (key > prefix)
+                high = middle - 1;
+            else
+                return buffer.getInt(entry + 8);
+        }
+        return -1;
+    }
+
+    private synchronized String getVendorName(int vendorId) {
+        String name = vendorCache[vendorId];
+        if (name == null) {
+            int start = buffer.getInt(vendorOffsets + vendorId * 4);
+            int end = buffer.getInt(vendorOffsets + (vendorId + 1) * 4);
+
+            byte[] bytes = new byte[end - start];
+            for (int i = 0; i < bytes.length; i++)
+                bytes[i] = buffer.get(vendorNames + start + i);
+            try {
+                name = new String(bytes, "UTF-8");
+            } catch (UnsupportedEncodingException e) {
+                //UTF-8 is always supported
+                name = new String(bytes);
+            }
+            vendorCache[vendorId] = name;
+        }
+        return name;
+    }
+}
@@ -0,0 +1,193 @@
+package xyz.smartsniff.Utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import xyz.smartsniff.Model.WifiObservation;
+
+/**
+ * Compares each wifi scan with the previous one. The BSSIDs of the previous scan are kept as a sorted
+ * array of primitive keys, so the results which appeared, disappeared or changed their signal are found
+ * with a single merge pass. Results cached by the platform for too long are dropped as stale.
+ *
+ * Not thread-safe: every scan must be compared from the same thread. The arrays and the returned delta
+ * are reused from one scan to the next, so comparing a scan doesn't allocate once they are big enough.
+ *
+ * Date: 18/10/2026
+ */
+public class ScanDelta {
+
+    //Minimum change of the signal, in dBm, to report a result as changed
+    private static final int SIGNAL_CHANGE_THRESHOLD = 5;
+    //Results last seen longer ago than this are stale
+    private static final long MAX_RESULT_AGE_US = 30 * 1000 * 1000L;
+
+    //Keys are the MAC address shifted 16 bits to the left, leaving room for the index of the result
+    private static final int INDEX_BITS = 16;
+    private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+
+    private long[] previousKeys = new long[0];
+    private int[] previousLevels = new int[0];
+    private int previousCount;
+
+    private long[] currentKeys = new long[64];
+    private int[] currentLevels = new int[64];
+
+    private final Delta delta = new Delta();
+
+    /**
+     * Forgets the previous scan, e.g. when a new session starts.
+     */
+    public void reset() {
+        previousCount = 0;
+    }
+
+    /**
+     * Compares a scan with the previous one, which is then replaced by it.
+     *
+     * @param nowMicros Current time, in microseconds since boot (the clock of the result timestamps)
+     * @return The delta, which is only valid until the next comparison.
+     */
+    public Delta compare(List<WifiObservation> scanResults, long nowMicros) {
+        delta.reset(previousCount);
+        int count = collectFreshResults(scanResults, nowMicros);
+
+        //Merge pass over both sorted arrays
+        int previous = 0, current = 0;
+        while (previous < previousCount || current < count) {
+            long previousKey = previous < previousCount ? previousKeys[previous] : Long.MAX_VALUE;
+            long currentKey = current < count ? currentKeys[current] & ~INDEX_MASK : Long.MAX_VALUE;
+
+            if (current >= count || (previous < previousCount && previousKey < currentKey)) {
+                delta.disappeared[delta.disappearedCount++] = previousKey >>> INDEX_BITS;
+                previous++;
+            } else if (previous >= previousCount || currentKey < previousKey) {
+                delta.appeared.add(scanResults.get((int) (currentKeys[current] & INDEX_MASK)));
+                current++;
+            } else {
+                if (Math.abs(currentLevels[current] - previousLevels[previous]) >= SIGNAL_CHANGE_THRESHOLD)
+                    delta.changed.add(scanResults.get((int) (currentKeys[current] & INDEX_MASK)));
+                previous++;
+                current++;
+            }
+        }
+
+        //The current scan becomes the previous one
+        if (previousKeys.length < count) {
+            previousKeys = new long[currentKeys.length];
+            previousLevels = new int[currentLevels.length];
+        }
+        for (int i = 0; i < count; i++) {
+            previousKeys[i] = currentKeys[i] & ~INDEX_MASK;
+            previousLevels[i] = currentLevels[i];
+        }
+        previousCount = count;
+
+        return delta;
+    }
+
+    /**
+     * Fills the current arrays with the fresh results, sorted by key and without duplicates.
+     *
+     * @return The number of results in the current arrays.
+     */
+    private int collectFreshResults(List<WifiObservation> scanResults, long nowMicros) {
+        int size = Math.min(scanResults.size(), (int) INDEX_MASK);
+        if (currentKeys.length < size) {
+            currentKeys = new long[Math.max(size, currentKeys.length * 2)];
+            currentLevels = new int[currentKeys.length];
+        }
+
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            WifiObservation result = scanResults.get(i);
+            //Some drivers don't report the timestamp
+            if (result.getTimestamp() > 0 && nowMicros - result.getTimestamp() > MAX_RESULT_AGE_US) {
+                delta.staleCount++;
+                continue;
+            }
+
+            delta.fresh.add(result);
+            long mac = Codecs.macToLong(result.getBssid());
+            if (mac == -1) {
+                //Can't be tracked, so it's always reported
+                delta.appeared.add(result);
+                continue;
+            }
+            currentKeys[count++] = mac << INDEX_BITS | i;
+        }
+        Arrays.sort(currentKeys, 0, count);
+
+        //The levels are read in key order, dropping repeated BSSIDs
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            long key = currentKeys[i];
+            if (unique > 0 && (currentKeys[unique - 1] & ~INDEX_MASK) == (key & ~INDEX_MASK))
+                continue;
+            currentKeys[unique] = key;
+            currentLevels[unique] = scanResults.get((int) (key & INDEX_MASK)).getLevel();
+            unique++;
+        }
+
+        return unique;
+    }
+
+    /**
+     * Differences between a scan and the previous one.
+     */
+    public static class Delta {
+        private final List<WifiObservation> fresh = new ArrayList<>();
+        private final List<WifiObservation> appeared = new ArrayList<>();
+        private final List<WifiObservation> changed = new ArrayList<>();
+        private long[] disappeared = new long[0];
+        private int disappearedCount, staleCount;
+
+        private void reset(int previousCount) {
+            fresh.clear();
+            appeared.clear();
+            changed.clear();
+            if (disappeared.length < previousCount)
+                disappeared = new long[previousCount];
+            disappearedCount = 0;
+            staleCount = 0;
+        }
+
+        /**
+         * @return Every result of the scan which isn't stale.
+         */
+        public List<WifiObservation> getFresh() {
+            return fresh;
+        }
+
+        /**
+         * @return The results which weren't in the previous scan.
+         */
+        public List<WifiObservation> getAppeared() {
+            return appeared;
+        }
+
+        /**
+         * @return The results whose signal changed noticeably since the previous scan.
+         */
+        public List<WifiObservation> getChanged() {
+            return changed;
+        }
+
+        /**
+         * @return The MAC addresses, as encoded by Codecs.macToLong, of the results of the previous scan
+         * which are missing from this one. Only the first getDisappearedCount() positions are used.
+         */
+        public long[] getDisappeared() {
+            return disappeared;
+        }
+
+        public int getDisappearedCount() {
+            return disappearedCount;
+        }
+
+        public int getStaleCount() {
+            return staleCount;
+        }
+    }
+}
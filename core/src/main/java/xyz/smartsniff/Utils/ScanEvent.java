@@ -0,0 +1,114 @@
+package xyz.smartsniff.Utils;
+
+import java.util.List;
+
+import xyz.smartsniff.Model.WifiObservation;
+
+/**
+ * Raw input of the scan pipeline, as stored in a scan event log: a location fix, the results of a wifi
+ * scan, a device found by a bluetooth discovery or a batch of Bluetooth LE sightings. Only the fields of
+ * the event type are set.
+ *
+ * Date: 18/10/2026
+ */
+public class ScanEvent {
+
+    public static final int TYPE_LOCATION = 1;
+    public static final int TYPE_WIFI_SCAN = 2;
+    public static final int TYPE_BLUETOOTH_DEVICE = 3;
+    public static final int TYPE_BLE_BATCH = 4;
+
+    private final int type;
+    private final long timestamp;
+
+    private double latitude, longitude;
+    private float speed;
+    private List<WifiObservation> wifiResults;
+    private String address, name;
+    private int majorDeviceClass;
+    private List<BleScanner.Sighting> sightings;
+
+    private ScanEvent(int type, long timestamp) {
+        this.type = type;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * @param speed Speed in meters/second, or NaN if unknown
+     */
+    public static ScanEvent location(long timestamp, double latitude, double longitude, float speed) {
+        ScanEvent event = new ScanEvent(TYPE_LOCATION, timestamp);
+        event.latitude = latitude;
+        event.longitude = longitude;
+        event.speed = speed;
+        return event;
+    }
+
+    public static ScanEvent wifiScan(long timestamp, List<WifiObservation> wifiResults) {
+        ScanEvent event = new ScanEvent(TYPE_WIFI_SCAN, timestamp);
+        event.wifiResults = wifiResults;
+        return event;
+    }
+
+    /**
+     * @param majorDeviceClass One of the BluetoothClass.Device.Major constants, or -1 if unknown
+     */
+    public static ScanEvent bluetoothDevice(long timestamp, String address, String name, int majorDeviceClass) {
+        ScanEvent event = new ScanEvent(TYPE_BLUETOOTH_DEVICE, timestamp);
+        event.address = address;
+        event.name = name;
+        event.majorDeviceClass = majorDeviceClass;
+        return event;
+    }
+
+    public static ScanEvent bleBatch(long timestamp, List<BleScanner.Sighting> sightings) {
+        ScanEvent event = new ScanEvent(TYPE_BLE_BATCH, timestamp);
+        event.sightings = sightings;
+        return event;
+    }
+
+    //Getters
+
+    public int getType() {
+        return type;
+    }
+
+    /**
+     * @return Time of the event, in microseconds since boot.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public float getSpeed() {
+        return speed;
+    }
+
+    public List<WifiObservation> getWifiResults() {
+        return wifiResults;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMajorDeviceClass() {
+        return majorDeviceClass;
+    }
+
+    public List<BleScanner.Sighting> getSightings() {
+        return sightings;
+    }
+}
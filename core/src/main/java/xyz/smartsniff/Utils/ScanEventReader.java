@@ -0,0 +1,132 @@
+package xyz.smartsniff.Utils;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import xyz.smartsniff.Model.WifiObservation;
+
+/**
+ * Reads the logs written by ScanEventRecorder. A log cut short, e.g. because the application died while
+ * recording, ends at its last complete event. Not thread-safe.
+ *
+ * Date: 18/10/2026
+ */
+public class ScanEventReader implements Closeable {
+
+    private final DataInputStream in;
+    private final long startTime;
+    private final List<String> strings = new ArrayList<>();
+    private long lastTimestamp;
+
+    public ScanEventReader(InputStream inputStream) throws IOException {
+        in = new DataInputStream(new BufferedInputStream(inputStream));
+        if (in.readInt() != ScanEventRecorder.MAGIC)
+            throw new IOException("Not a scan event log");
+        int version = in.readUnsignedByte();
+        if (version != ScanEventRecorder.VERSION)
+            throw new IOException("Unsupported scan event log version: " + version);
+        startTime = in.readLong();
+    }
+
+    /**
+     * @return Wall clock time of the start of the log, in milliseconds since the epoch.
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * @return The next event, or null at the end of the log.
+     */
+    public ScanEvent next() throws IOException {
+        int type = in.read();
+        if (type == -1)
+            return null;
+
+        try {
+            long timestamp = lastTimestamp + readVarLong();
+            lastTimestamp = timestamp;
+
+            switch (type) {
+                case ScanEvent.TYPE_LOCATION:
+                    return ScanEvent.location(timestamp, in.readDouble(), in.readDouble(), in.readFloat());
+
+                case ScanEvent.TYPE_WIFI_SCAN:
+                    int resultCount = (int) readVarLong();
+                    List<WifiObservation> results = new ArrayList<>(resultCount);
+                    for (int i = 0; i < resultCount; i++) {
+                        String bssid = readString();
+                        String ssid = readString();
+                        String capabilities = readString();
+                        int channelWidth = (int) readVarLong();
+                        int frequency = (int) readVarLong();
+                        int level = (int) unzigzag(readVarLong());
+                        long age = unzigzag(readVarLong());
+                        results.add(new WifiObservation(ssid, bssid, capabilities, channelWidth, frequency, level,
+                                age == -1 ? 0 : timestamp - age));
+                    }
+                    return ScanEvent.wifiScan(timestamp, results);
+
+                case ScanEvent.TYPE_BLUETOOTH_DEVICE:
+                    String address = readString();
+                    String name = readString();
+                    return ScanEvent.bluetoothDevice(timestamp, address, name, (int) unzigzag(readVarLong()));
+
+                case ScanEvent.TYPE_BLE_BATCH:
+                    int sightingCount = (int) readVarLong();
+                    List<BleScanner.Sighting> sightings = new ArrayList<>(sightingCount);
+                    for (int i = 0; i < sightingCount; i++) {
+                        String sightingAddress = readString();
+                        sightings.add(new BleScanner.Sighting(sightingAddress, readString()));
+                    }
+                    return ScanEvent.bleBatch(timestamp, sightings);
+
+                default:
+                    throw new IOException("Unknown event type: " + type);
+            }
+        } catch (EOFException e) {
+            //Truncated last event
+            return null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private String readString() throws IOException {
+        int reference = (int) readVarLong();
+        if (reference == 0)
+            return null;
+        if (reference <= strings.size())
+            return strings.get(reference - 1);
+        if (reference != strings.size() + 1)
+            throw new IOException("Invalid string reference: " + reference);
+
+        String value = in.readUTF();
+        strings.add(value);
+        return value;
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
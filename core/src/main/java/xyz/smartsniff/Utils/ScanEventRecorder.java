@@ -0,0 +1,140 @@
+package xyz.smartsniff.Utils;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import xyz.smartsniff.Model.WifiObservation;
+
+/**
+ * Writes the raw input of the scan pipeline to a compact, append-only binary log, to be replayed later
+ * with ScanReplayer. Not thread-safe.
+ *
+ * Log layout (big-endian):
+ * - int magic, byte version, long wall clock time of the start of the log, in milliseconds since the epoch
+ * - events: byte type, varlong microseconds since the previous event (or since boot, for the first one),
+ *   followed by the fields of the event type (see ScanEvent)
+ *
+ * Integers are written as varints, zigzag-encoded when they may be negative. Strings (BSSIDs, SSIDs,
+ * capabilities, names) repeat a lot, so each one is written once and then referenced by its index: a
+ * string reference is a varint which is 0 for null, the index plus one for a known string, or the next
+ * index plus one followed by the string in modified UTF-8 for a new one.
+ *
+ * Date: 18/10/2026
+ */
+public class ScanEventRecorder implements Closeable {
+
+    static final int MAGIC = 0x53535231;    //"SSR1"
+    static final int VERSION = 1;
+
+    private final DataOutputStream out;
+    private final Map<String, Integer> stringIds = new HashMap<>();
+    private long lastTimestamp;
+    private int eventCount;
+
+    /**
+     * @param startTime Wall clock time of the start of the log, in milliseconds since the epoch
+     */
+    public ScanEventRecorder(OutputStream outputStream, long startTime) throws IOException {
+        out = new DataOutputStream(new BufferedOutputStream(outputStream));
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeLong(startTime);
+    }
+
+    public void record(ScanEvent event) throws IOException {
+        out.writeByte(event.getType());
+        writeVarLong(event.getTimestamp() - lastTimestamp);
+        lastTimestamp = event.getTimestamp();
+
+        switch (event.getType()) {
+            case ScanEvent.TYPE_LOCATION:
+                out.writeDouble(event.getLatitude());
+                out.writeDouble(event.getLongitude());
+                out.writeFloat(event.getSpeed());
+                break;
+
+            case ScanEvent.TYPE_WIFI_SCAN:
+                List<WifiObservation> results = event.getWifiResults();
+                writeVarLong(results.size());
+                for (WifiObservation result : results) {
+                    writeString(result.getBssid());
+                    writeString(result.getSsid());
+                    writeString(result.getCapabilities());
+                    writeVarLong(result.getChannelWidth());
+                    writeVarLong(result.getFrequency());
+                    writeVarLong(zigzag(result.getLevel()));
+                    //The age of the result is smaller than its timestamp
+                    writeVarLong(zigzag(result.getTimestamp() == 0 ? -1 : event.getTimestamp() - result.getTimestamp()));
+                }
+                break;
+
+            case ScanEvent.TYPE_BLUETOOTH_DEVICE:
+                writeString(event.getAddress());
+                writeString(event.getName());
+                writeVarLong(zigzag(event.getMajorDeviceClass()));
+                break;
+
+            case ScanEvent.TYPE_BLE_BATCH:
+                List<BleScanner.Sighting> sightings = event.getSightings();
+                writeVarLong(sightings.size());
+                for (BleScanner.Sighting sighting : sightings) {
+                    writeString(sighting.getAddress());
+                    writeString(sighting.getName());
+                }
+                break;
+
+            default:
+                throw new IllegalArgumentException("Unknown event type: " + event.getType());
+        }
+
+        eventCount++;
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            writeVarLong(0);
+            return;
+        }
+
+        Integer id = stringIds.get(value);
+        if (id != null) {
+            writeVarLong(id + 1);
+        } else {
+            id = stringIds.size();
+            stringIds.put(value, id);
+            writeVarLong(id + 1);
+            out.writeUTF(value);
+        }
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+}
@@ -0,0 +1,38 @@
+package xyz.smartsniff.Utils;
+
+/**
+ * Decides the time between two scans. The scheduler asks for the next interval after each scan
+ * request, while the location and the scan results are reported as they arrive.
+ *
+ * Every time is a monotonic timestamp in milliseconds (e.g. SystemClock.elapsedRealtime()), so the
+ * policies can be replayed on the JVM from recorded traces. Implementations must be thread-safe.
+ *
+ * Date: 18/10/2026
+ */
+public interface ScanIntervalPolicy {
+
+    /**
+     * @return Time to wait, in milliseconds, before requesting the next scan.
+     */
+    long nextInterval(long now);
+
+    /**
+     * Called when the platform accepts a scan request.
+     */
+    void onScanRequested(long now);
+
+    /**
+     * Called with the current location of the user.
+     *
+     * @param speed Speed in meters/second, or NaN if the location provider doesn't report it
+     */
+    void onLocation(long now, double latitude, double longitude, float speed);
+
+    /**
+     * Called when the results of a scan have been stored.
+     *
+     * @param resultCount Devices found in the scan
+     * @param newCount    Devices which had never been found before
+     */
+    void onScanResults(long now, int resultCount, int newCount);
+}
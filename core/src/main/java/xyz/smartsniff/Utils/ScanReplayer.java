@@ -0,0 +1,101 @@
+package xyz.smartsniff.Utils;
+
+import java.io.IOException;
+import java.util.List;
+
+import xyz.smartsniff.Model.WifiObservation;
+
+/**
+ * Feeds a scan event log back into the scan pipeline, either as fast as possible or keeping the pace of
+ * the recording. Each scan is delivered with the last location fix recorded before it, as the live
+ * pipeline would have received it. Events are delivered on the calling thread.
+ *
+ * Date: 18/10/2026
+ */
+public class ScanReplayer {
+
+    private final ScanEventReader reader;
+    private final double pace;
+
+    private double latitude, longitude;
+    private float speed = Float.NaN;
+
+    /**
+     * @param pace Speed of the replay relative to the recording: 1 replays at real time, 2 twice as
+     *             fast... 0 replays as fast as possible
+     */
+    public ScanReplayer(ScanEventReader reader, double pace) {
+        this.reader = reader;
+        this.pace = pace;
+    }
+
+    /**
+     * Replays the whole log.
+     *
+     * @return The number of events replayed.
+     */
+    public int replay(Target target) throws IOException, InterruptedException {
+        int eventCount = 0;
+        long previousTimestamp = -1;
+
+        ScanEvent event;
+        while ((event = reader.next()) != null) {
+            if (pace > 0 && previousTimestamp != -1) {
+                long waitMillis = (long) ((event.getTimestamp() - previousTimestamp) / 1000 / pace);
+                if (waitMillis > 0)
+                    Thread.sleep(waitMillis);
+            }
+            previousTimestamp = event.getTimestamp();
+
+            dispatch(event, target);
+            eventCount++;
+        }
+
+        return eventCount;
+    }
+
+    private void dispatch(ScanEvent event, Target target) {
+        switch (event.getType()) {
+            case ScanEvent.TYPE_LOCATION:
+                latitude = event.getLatitude();
+                longitude = event.getLongitude();
+                speed = event.getSpeed();
+                target.onLocationFix(latitude, longitude, speed);
+                break;
+
+            case ScanEvent.TYPE_WIFI_SCAN:
+                target.onWifiScan(event.getWifiResults(), latitude, longitude, speed, event.getTimestamp());
+                break;
+
+            case ScanEvent.TYPE_BLUETOOTH_DEVICE:
+                target.onBluetoothDevice(event.getAddress(), event.getName(), event.getMajorDeviceClass(),
+                        latitude, longitude);
+                break;
+
+            case ScanEvent.TYPE_BLE_BATCH:
+                target.onBleBatch(event.getSightings(), latitude, longitude);
+                break;
+
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Receiver of the replayed events, e.g. a ScanProcessor through ProcessorReplayTarget.
+     */
+    public interface Target {
+        void onLocationFix(double latitude, double longitude, float speed);
+
+        /**
+         * @param receivedAt Time the results were received, in microseconds since boot of the recording
+         */
+        void onWifiScan(List<WifiObservation> results, double latitude, double longitude, float speed,
+                        long receivedAt);
+
+        void onBluetoothDevice(String address, String name, int majorDeviceClass, double latitude,
+                               double longitude);
+
+        void onBleBatch(List<BleScanner.Sighting> sightings, double latitude, double longitude);
+    }
+}
@@ -0,0 +1,41 @@
+package xyz.smartsniff.Utils;
+
+/**
+ * Sliding window with the scans requested recently. Since Android 9 the platform only accepts a
+ * limited number of scans per window (4 every 2 minutes for foreground applications) and the rest
+ * are silently ignored, so scans are delayed until the window has room for them.
+ *
+ * Date: 18/10/2026
+ */
+public class ScanThrottleBudget {
+
+    //Foreground limits of Android 9
+    public static final int PLATFORM_MAX_SCANS = 4;
+    public static final long PLATFORM_WINDOW_MS = 2 * 60 * 1000;
+
+    private final long window;
+    //Ring buffer with the times of the last scans, the oldest at position 'next' once it is full
+    private final long[] scanTimes;
+    private int next, count;
+
+    public ScanThrottleBudget(int maxScans, long window) {
+        this.window = window;
+        this.scanTimes = new long[maxScans];
+    }
+
+    public synchronized void onScanRequested(long now) {
+        scanTimes[next] = now;
+        next = (next + 1) % scanTimes.length;
+        if (count < scanTimes.length)
+            count++;
+    }
+
+    /**
+     * @return Time, in milliseconds, until another scan fits in the window.
+     */
+    public synchronized long delayUntilAvailable(long now) {
+        if (count < scanTimes.length)
+            return 0;
+        return Math.max(0, scanTimes[next] + window - now);
+    }
+}
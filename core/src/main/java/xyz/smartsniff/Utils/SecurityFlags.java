@@ -0,0 +1,126 @@
+package xyz.smartsniff.Utils;
+
+/**
+ * Security of a wifi network as a bitmask, parsed from the capabilities string of its scan result
+ * (e.g. "[WPA-PSK-TKIP+CCMP][WPA2-PSK-CCMP][WPS][ESS]").
+ *
+ * The string is parsed in a single pass without allocating: it is split in tokens by the '[', ']', '-',
+ * '+' and '/' separators and each token is matched in place. Unknown tokens are ignored.
+ *
+ * Date: 18/10/2026
+ */
+public final class SecurityFlags {
+
+    //Protocols
+    public static final int WEP = 1;
+    public static final int WPA = 1 << 1;
+    public static final int WPA2 = 1 << 2;           //Also reported as RSN
+    public static final int WAPI = 1 << 3;
+    //Key management
+    public static final int PSK = 1 << 4;
+    public static final int EAP = 1 << 5;
+    public static final int SAE = 1 << 6;            //WPA3 personal
+    public static final int OWE = 1 << 7;            //Enhanced open
+    public static final int FT = 1 << 8;             //Fast transition (802.11r)
+    //Ciphers
+    public static final int TKIP = 1 << 9;
+    public static final int CCMP = 1 << 10;
+    public static final int GCMP = 1 << 11;
+    //Others
+    public static final int WPS = 1 << 12;
+    public static final int ESS = 1 << 13;           //Infrastructure network
+    public static final int IBSS = 1 << 14;          //Ad hoc network
+    public static final int P2P = 1 << 15;
+    public static final int MESH = 1 << 16;
+
+    //Every flag which means that the traffic is encrypted
+    public static final int ENCRYPTED = WEP | WPA | WPA2 | WAPI | SAE | OWE;
+
+    private SecurityFlags() {
+    }
+
+    /**
+     * @param capabilities The capabilities string of a scan result. May be null.
+     * @return The flags found in the string, or 0 if there are none.
+     */
+    public static int parse(String capabilities) {
+        if (capabilities == null)
+            return 0;
+
+        int flags = 0;
+        int length = capabilities.length();
+        int start = 0;
+        for (int i = 0; i <= length; i++) {
+            if (i == length || isSeparator(capabilities.charAt(i))) {
+                if (i > start)
+                    flags |= tokenFlag(capabilities, start, i - start);
+                start = i + 1;
+            }
+        }
+        return flags;
+    }
+
+    /**
+     * Whether a network with the given flags can be joined without any credentials. Enhanced open (OWE)
+     * networks are open too, but their traffic is encrypted.
+     */
+    public static boolean isOpen(int flags) {
+        return (flags & (WEP | WPA | WPA2 | WAPI | SAE)) == 0;
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == '[' || c == ']' || c == '-' || c == '+' || c == '/';
+    }
+
+    private static int tokenFlag(String s, int start, int length) {
+        switch (length) {
+            case 2:
+                return s.regionMatches(start, "FT", 0, 2) ? FT : 0;
+
+            case 3:
+                if (s.regionMatches(start, "PSK", 0, 3))
+                    return PSK;
+                if (s.regionMatches(start, "ESS", 0, 3))
+                    return ESS;
+                if (s.regionMatches(start, "WPA", 0, 3))
+                    return WPA;
+                if (s.regionMatches(start, "EAP", 0, 3))
+                    return EAP;
+                if (s.regionMatches(start, "WPS", 0, 3))
+                    return WPS;
+                if (s.regionMatches(start, "WEP", 0, 3))
+                    return WEP;
+                if (s.regionMatches(start, "RSN", 0, 3))
+                    return WPA2;
+                if (s.regionMatches(start, "SAE", 0, 3))
+                    return SAE;
+                if (s.regionMatches(start, "OWE", 0, 3))
+                    return OWE;
+                if (s.regionMatches(start, "P2P", 0, 3))
+                    return P2P;
+                return 0;
+
+            case 4:
+                if (s.regionMatches(start, "CCMP", 0, 4))
+                    return CCMP;
+                if (s.regionMatches(start, "WPA2", 0, 4))
+                    return WPA2;
+                if (s.regionMatches(start, "TKIP", 0, 4))
+                    return TKIP;
+                if (s.regionMatches(start, "WPA3", 0, 4))
+                    return WPA2 | SAE;
+                if (s.regionMatches(start, "GCMP", 0, 4))
+                    return GCMP;
+                if (s.regionMatches(start, "IBSS", 0, 4))
+                    return IBSS;
+                if (s.regionMatches(start, "WAPI", 0, 4))
+                    return WAPI;
+                if (s.regionMatches(start, "MESH", 0, 4))
+                    return MESH;
+                return 0;
+
+            default:
+                return 0;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package xyz.smartsniff.Utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import xyz.smartsniff.Model.Device;
+import xyz.smartsniff.Model.DeviceType;
+
+/**
+ * Devices found during a session, keyed by their MAC address parsed into a long. The fields of each
+ * device are stored in parallel arrays, numeric ones as primitives, and the MAC addresses are indexed
+ * with a LongIndexMap, so adding a device neither hashes its BSSID string nor takes a lock.
+ *
+ * Single-writer design: the registry is not thread-safe and must only be used from the thread which
+ * processes the scans.
+ *
+ * Date: 18/10/2026
+ */
+public class SessionDeviceRegistry {
+
+    private static final int INITIAL_CAPACITY = 256;
+    private static final DeviceType[] DEVICE_TYPES = DeviceType.values();
+
+    private final int maxDevices;
+    private final LongIndexMap index;
+
+    private int size;
+    private long[] macs;
+    private String[] ssids, bssids, characteristics, channelWidths;
+    private int[] frequencies, signalIntensities;
+    private byte[] types;
+
+    /**
+     * @param maxDevices Maximum number of devices kept, to bound the memory used by long sessions
+     */
+    public SessionDeviceRegistry(int maxDevices) {
+        this.maxDevices = maxDevices;
+        index = new LongIndexMap(INITIAL_CAPACITY);
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Adds a device, unless it was already found during the session, the registry is full or its MAC
+     * address is not valid.
+     *
+     * @return Whether the device was added.
+     */
+    public boolean add(Device device) {
+        long mac = Codecs.macToLong(device.getBssid());
+        if (mac == -1 || size >= maxDevices || index.get(mac) != LongIndexMap.NO_VALUE)
+            return false;
+
+        if (size == macs.length)
+            grow();
+
+        int position = size++;
+        macs[position] = mac;
+        ssids[position] = device.getSsid();
+        bssids[position] = device.getBssid();
+        characteristics[position] = device.getCharacteristics();
+        channelWidths[position] = device.getChannelWidth();
+        frequencies[position] = device.getFrequency();
+        signalIntensities[position] = (int) device.getSignalIntensity();
+        types[position] = (byte) device.getType().ordinal();
+        index.put(mac, position);
+        return true;
+    }
+
+    /**
+     * @param mac MAC address, as encoded by Codecs.macToLong
+     */
+    public boolean contains(long mac) {
+        return mac >= 0 && index.get(mac) != LongIndexMap.NO_VALUE;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return A new Device object for each device of the registry, in the order they were found.
+     */
+    public List<Device> toDevices() {
+        List<Device> devices = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+            devices.add(new Device(ssids[i], bssids[i], characteristics[i], null, channelWidths[i], frequencies[i],
+                    signalIntensities[i], DEVICE_TYPES[types[i]]));
+        return devices;
+    }
+
+    public void clear() {
+        index.clear();
+        Arrays.fill(ssids, 0, size, null);
+        Arrays.fill(bssids, 0, size, null);
+        Arrays.fill(characteristics, 0, size, null);
+        Arrays.fill(channelWidths, 0, size, null);
+        size = 0;
+    }
+
+    private void allocate(int capacity) {
+        macs = new long[capacity];
+        ssids = new String[capacity];
+        bssids = new String[capacity];
+        characteristics = new String[capacity];
+        channelWidths = new String[capacity];
+        frequencies = new int[capacity];
+        signalIntensities = new int[capacity];
+        types = new byte[capacity];
+    }
+
+    private void grow() {
+        int capacity = macs.length * 2;
+        macs = Arrays.copyOf(macs, capacity);
+        ssids = Arrays.copyOf(ssids, capacity);
+        bssids = Arrays.copyOf(bssids, capacity);
+        characteristics = Arrays.copyOf(characteristics, capacity);
+        channelWidths = Arrays.copyOf(channelWidths, capacity);
+        frequencies = Arrays.copyOf(frequencies, capacity);
+        signalIntensities = Arrays.copyOf(signalIntensities, capacity);
+        types = Arrays.copyOf(types, capacity);
+    }
+}
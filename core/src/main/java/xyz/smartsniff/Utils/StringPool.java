@@ -0,0 +1,42 @@
+package xyz.smartsniff.Utils;
+
+/**
+ * Bounded interning pool for strings which repeat across scans, such as SSIDs and capabilities
+ * ("[WPA2-PSK-CCMP][ESS]"). Equal strings are replaced by the pooled instance, so the devices kept in
+ * memory share a single copy and the copies of each scan die young.
+ *
+ * The pool is a direct-mapped table: a string evicts whatever occupies its slot, which keeps lookups
+ * constant-time and the memory bounded. Not thread-safe.
+ *
+ * Date: 18/10/2026
+ */
+public class StringPool {
+
+    private final String[] table;
+    private final int mask;
+
+    /**
+     * @param log2Capacity Base 2 logarithm of the number of slots
+     */
+    public StringPool(int log2Capacity) {
+        table = new String[1 << log2Capacity];
+        mask = table.length - 1;
+    }
+
+    /**
+     * @return The pooled instance equal to the given string, or the string itself, which is then pooled.
+     */
+    public String intern(String value) {
+        if (value == null)
+            return null;
+
+        int hash = value.hashCode();
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        String pooled = table[slot];
+        if (value.equals(pooled))
+            return pooled;
+
+        table[slot] = value;
+        return value;
+    }
+}
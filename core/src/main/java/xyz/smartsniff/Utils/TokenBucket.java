@@ -0,0 +1,58 @@
+package xyz.smartsniff.Utils;
+
+/**
+ * Token bucket rate limiter. Tokens are refilled continuously up to the capacity of the bucket, and
+ * each operation takes one. Time is passed in by the caller (e.g. SystemClock.elapsedRealtime()).
+ *
+ * Date: 18/10/2026
+ */
+public class TokenBucket {
+
+    private final int capacity;
+    private final double tokensPerMilli;
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * @param capacity        Maximum number of tokens, i.e. the largest burst allowed
+     * @param tokensPerSecond Refill rate
+     * @param now             Current time, in milliseconds
+     */
+    public TokenBucket(int capacity, double tokensPerSecond, long now) {
+        this.capacity = capacity;
+        this.tokensPerMilli = tokensPerSecond / 1000.0;
+        this.tokens = capacity;
+        this.lastRefill = now;
+    }
+
+    /**
+     * Takes a token if there is one available.
+     *
+     * @return Whether a token was taken.
+     */
+    public synchronized boolean tryAcquire(long now) {
+        refill(now);
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return The time, in milliseconds, until a token will be available.
+     */
+    public synchronized long millisUntilAvailable(long now) {
+        refill(now);
+        if (tokens >= 1)
+            return 0;
+        return (long) Math.ceil((1 - tokens) / tokensPerMilli);
+    }
+
+    private void refill(long now) {
+        if (now > lastRefill) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerMilli);
+            lastRefill = now;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package xyz.smartsniff.Utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Date: 18/10/2026
+ */
+public class AdaptiveScanIntervalPolicyTest {
+
+    private static final long MIN = 5000;
+    private static final long MAX = 60000;
+
+    @Test
+    public void idleIntervalGrowsGraduallyToTheMaximum() {
+        AdaptiveScanIntervalPolicy policy = new AdaptiveScanIntervalPolicy(MIN, MAX, null);
+
+        assertEquals(7500, policy.nextInterval(0));
+        assertEquals(11250, policy.nextInterval(0));
+        assertEquals(16875, policy.nextInterval(0));
+        long interval = 0;
+        for (int i = 0; i < 10; i++)
+            interval = policy.nextInterval(0);
+        assertEquals(MAX, interval);
+    }
+
+    @Test
+    public void movingFastShrinksTheIntervalAtOnce() {
+        AdaptiveScanIntervalPolicy policy = new AdaptiveScanIntervalPolicy(MIN, MAX, null);
+        for (int i = 0; i < 10; i++)
+            policy.nextInterval(0);
+
+        policy.onLocation(1000, 40.4, -3.7, 10f);
+
+        assertEquals(MIN, policy.nextInterval(1000));
+    }
+
+    @Test
+    public void walkingGivesAnIntermediateInterval() {
+        AdaptiveScanIntervalPolicy policy = new AdaptiveScanIntervalPolicy(MIN, MAX, null);
+
+        policy.onLocation(0, 40.4, -3.7, 2.5f);
+
+        long interval = 0;
+        for (int i = 0; i < 10; i++)
+            interval = policy.nextInterval(0);
+        assertEquals((MIN + MAX) / 2, interval);
+    }
+
+    @Test
+    public void speedIsEstimatedWhenNotReported() {
+        AdaptiveScanIntervalPolicy policy = new AdaptiveScanIntervalPolicy(MIN, MAX, null);
+        for (int i = 0; i < 10; i++)
+            policy.nextInterval(0);
+
+        //About 111 meters in a second
+        policy.onLocation(0, 40.0, -3.7, Float.NaN);
+        policy.onLocation(1000, 40.001, -3.7, Float.NaN);
+
+        assertEquals(MIN, policy.nextInterval(1000));
+    }
+
+    @Test
+    public void staleFixesMeanStandingStill() {
+        AdaptiveScanIntervalPolicy policy = new AdaptiveScanIntervalPolicy(MIN, MAX, null);
+        policy.onLocation(0, 40.4, -3.7, 10f);
+        assertEquals(MIN, policy.nextInterval(0));
+
+        //Over a minute without fixes
+        assertEquals(7500, policy.nextInterval(61000));
+    }
+
+    @Test
+    public void newDevicesShrinkTheInterval() {
+        AdaptiveScanIntervalPolicy policy = new AdaptiveScanIntervalPolicy(MIN, MAX, null);
+        for (int i = 0; i < 10; i++)
+            policy.nextInterval(0);
+
+        //Smoothed novelty: 0.5 * 10 / 10
+        policy.onScanResults(0, 10, 10);
+        assertEquals(MIN, policy.nextInterval(0));
+
+        //Nothing new: the novelty decays to 0.25 and the interval starts growing again
+        policy.onScanResults(0, 10, 0);
+        assertEquals(7500, policy.nextInterval(0));
+    }
+
+    @Test
+    public void exhaustedBudgetDelaysTheNextScan() {
+        ScanThrottleBudget budget = new ScanThrottleBudget(4, 120000);
+        AdaptiveScanIntervalPolicy policy = new AdaptiveScanIntervalPolicy(MIN, MAX, budget);
+        policy.onLocation(0, 40.4, -3.7, 10f);
+
+        for (int i = 0; i < 3; i++) {
+            policy.onScanRequested(i * MIN);
+            assertEquals(MIN, policy.nextInterval(i * MIN));
+        }
+        policy.onScanRequested(3 * MIN);
+
+        //The window opens when the first scan, at 0, leaves it
+        assertEquals(120000 - 3 * MIN, policy.nextInterval(3 * MIN));
+    }
+
+    @Test
+    public void distanceIsInMeters() {
+        //A degree of latitude is about 111 km
+        assertEquals(111195, AdaptiveScanIntervalPolicy.distance(0, 0, 1, 0), 1);
+        //Meridians converge: a degree of longitude at 60 degrees is half as long
+        assertEquals(111195 / 2.0, AdaptiveScanIntervalPolicy.distance(60, 0, 60, 1), 1);
+        assertEquals(0, AdaptiveScanIntervalPolicy.distance(40.4, -3.7, 40.4, -3.7), 0);
+    }
+}
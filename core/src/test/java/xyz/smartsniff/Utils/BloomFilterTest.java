@@ -0,0 +1,68 @@
+package xyz.smartsniff.Utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Date: 18/10/2026
+ */
+public class BloomFilterTest {
+
+    @Test
+    public void emptyFilterContainsNothing() {
+        BloomFilter filter = new BloomFilter(10, 3);
+
+        for (long key = 0; key < 1000; key++)
+            assertFalse(filter.mightContain(key));
+    }
+
+    @Test
+    public void addedKeysAreAlwaysFound() {
+        BloomFilter filter = new BloomFilter(10, 3);
+
+        //Far more keys than bits, so the filter saturates
+        for (long key = 0; key < 5000; key++)
+            filter.add(key * 0x1000001L);
+        for (long key = 0; key < 5000; key++)
+            assertTrue(filter.mightContain(key * 0x1000001L));
+    }
+
+    @Test
+    public void falsePositivesAreRare() {
+        BloomFilter filter = new BloomFilter(16, 3);
+        for (long key = 0; key < 2000; key++)
+            filter.add(key);
+
+        int falsePositives = 0;
+        for (long key = 2000; key < 12000; key++) {
+            if (filter.mightContain(key))
+                falsePositives++;
+        }
+
+        //About 0.07% expected
+        assertTrue("False positives: " + falsePositives, falsePositives < 100);
+    }
+
+    @Test
+    public void filtersSmallerThanAWordWork() {
+        BloomFilter filter = new BloomFilter(3, 2);
+
+        filter.add(42);
+
+        assertTrue(filter.mightContain(42));
+    }
+
+    @Test
+    public void clearRemovesEveryKey() {
+        BloomFilter filter = new BloomFilter(10, 3);
+        for (long key = 0; key < 100; key++)
+            filter.add(key);
+
+        filter.clear();
+
+        for (long key = 0; key < 100; key++)
+            assertFalse(filter.mightContain(key));
+    }
+}
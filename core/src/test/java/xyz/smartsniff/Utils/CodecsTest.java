@@ -0,0 +1,39 @@
+package xyz.smartsniff.Utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Date: 18/10/2026
+ */
+public class CodecsTest {
+
+    @Test
+    public void macAddressesAreEncodedInTheLower48Bits() {
+        assertEquals(0L, Codecs.macToLong("00:00:00:00:00:00"));
+        assertEquals(0x001122334455L, Codecs.macToLong("00:11:22:33:44:55"));
+        assertEquals(0xFFFFFFFFFFFFL, Codecs.macToLong("FF:FF:FF:FF:FF:FF"));
+    }
+
+    @Test
+    public void macAddressesIgnoreCaseAndSeparator() {
+        long expected = 0xAABBCCDDEEFFL;
+
+        assertEquals(expected, Codecs.macToLong("aa:bb:cc:dd:ee:ff"));
+        assertEquals(expected, Codecs.macToLong("AA-BB-CC-DD-EE-FF"));
+        assertEquals(expected, Codecs.macToLong("Aa:bB-cc:DD-ee:fF"));
+    }
+
+    @Test
+    public void invalidMacAddressesAreRejected() {
+        assertEquals(-1, Codecs.macToLong(null));
+        assertEquals(-1, Codecs.macToLong(""));
+        assertEquals(-1, Codecs.macToLong("00:11:22:33:44"));
+        assertEquals(-1, Codecs.macToLong("00:11:22:33:44:55:66"));
+        assertEquals(-1, Codecs.macToLong("00.11.22.33.44.55"));
+        assertEquals(-1, Codecs.macToLong("0:011:22:33:44:55"));
+        assertEquals(-1, Codecs.macToLong("00:11:22:33:44:5G"));
+        assertEquals(-1, Codecs.macToLong("00112233445566778"));
+    }
+}
@@ -0,0 +1,335 @@
+package xyz.smartsniff.Utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.TreeSet;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static xyz.smartsniff.Utils.ExportUploader.HTTP_TOO_MANY_REQUESTS;
+
+/**
+ * Uploads to a local stand-in of the server, which records the requests it receives and answers with
+ * the status codes queued by each test.
+ *
+ * Date: 18/10/2026
+ */
+public class ExportUploaderTest {
+
+    private StandInServer server;
+    private InMemoryExport export;
+    private RecordingListener listener;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new StandInServer();
+        export = new InMemoryExport();
+        listener = new RecordingListener();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    private ExportUploader uploader(int chunkSize) {
+        return new ExportUploader(server.getUrl(), chunkSize, 3, 1);
+    }
+
+    @Test
+    public void onlyAssociationsAfterTheWatermarkAreSent() {
+        export.add(1, 10);
+        export.watermark = 4;
+
+        assertTrue(uploader(100).uploadPending(export, listener));
+
+        assertEquals(Collections.singletonList("5,6,7,8,9,10"), server.getBodies());
+        assertEquals(10, export.watermark);
+    }
+
+    @Test
+    public void theNextUploadOnlySendsTheNewAssociations() {
+        export.add(1, 3);
+        assertTrue(uploader(100).uploadPending(export, listener));
+        export.add(4, 5);
+        assertTrue(uploader(100).uploadPending(export, listener));
+
+        assertEquals(Arrays.asList("1,2,3", "4,5"), server.getBodies());
+        assertEquals(5, export.watermark);
+    }
+
+    @Test
+    public void nothingIsSentWithoutPendingAssociations() {
+        export.add(1, 3);
+        export.watermark = 3;
+
+        assertTrue(uploader(100).uploadPending(export, listener));
+
+        assertTrue(server.getBodies().isEmpty());
+        assertEquals(0, listener.startedChunks);
+    }
+
+    @Test
+    public void theWatermarkOnlyAdvancesWhenTheServerAcknowledges() {
+        export.add(1, 3);
+        server.respond(400);
+
+        assertFalse(uploader(100).uploadPending(export, listener));
+        assertEquals(0, export.watermark);
+
+        assertTrue(uploader(100).uploadPending(export, listener));
+        assertEquals(Arrays.asList("1,2,3", "1,2,3"), server.getBodies());
+        assertEquals(3, export.watermark);
+    }
+
+    @Test
+    public void chunksAreGzipCompressed() {
+        export.add(1, 3);
+
+        assertTrue(uploader(100).uploadPending(export, listener));
+
+        assertEquals(Collections.singletonList("gzip"), server.getContentEncodings());
+        assertEquals(Collections.singletonList("1,2,3"), server.getBodies());
+    }
+
+    @Test
+    public void pendingAssociationsAreSplitInChunks() {
+        export.add(1, 8);
+
+        assertTrue(uploader(3).uploadPending(export, listener));
+
+        assertEquals(Arrays.asList("1,2,3", "4,5,6", "7,8"), server.getBodies());
+        assertEquals(3, listener.startedChunks);
+        assertEquals(8, export.watermark);
+    }
+
+    @Test
+    public void unavailableServerIsRetried() {
+        export.add(1, 3);
+        server.respond(503, HTTP_TOO_MANY_REQUESTS);
+
+        assertTrue(uploader(100).uploadPending(export, listener));
+
+        assertEquals(Arrays.asList(503, HTTP_TOO_MANY_REQUESTS, 200), listener.responseCodes);
+        assertEquals(3, export.watermark);
+    }
+
+    @Test
+    public void clientErrorsAreNotRetried() {
+        export.add(1, 3);
+        server.respond(400);
+
+        assertFalse(uploader(100).uploadPending(export, listener));
+
+        assertEquals(Collections.singletonList(400), listener.responseCodes);
+    }
+
+    @Test
+    public void retriesStopAfterTheMaximumAttempts() {
+        export.add(1, 3);
+        server.respond(500, 500, 500, 500);
+
+        assertFalse(uploader(100).uploadPending(export, listener));
+
+        assertEquals(Arrays.asList(500, 500, 500), listener.responseCodes);
+        assertEquals(0, export.watermark);
+    }
+
+    @Test
+    public void refusedConnectionsFailTheUpload() throws IOException {
+        //A port nobody listens on
+        ServerSocket socket = new ServerSocket(0, 1, InetAddress.getByName("127.0.0.1"));
+        int port = socket.getLocalPort();
+        socket.close();
+        export.add(1, 3);
+
+        ExportUploader uploader = new ExportUploader("http://127.0.0.1:" + port + "/", 100, 3, 1);
+        assertFalse(uploader.uploadPending(export, listener));
+
+        assertEquals(3, listener.failures.size());
+        assertEquals(0, export.watermark);
+    }
+
+    @Test
+    public void interruptedUploadResumesAtTheFailedChunk() {
+        export.add(1, 8);
+        //The second chunk is rejected
+        server.respond(200, 400);
+
+        assertFalse(uploader(3).uploadPending(export, listener));
+        assertEquals(3, export.watermark);
+
+        assertTrue(uploader(3).uploadPending(export, listener));
+        assertEquals(Arrays.asList("1,2,3", "4,5,6", "4,5,6", "7,8"), server.getBodies());
+        assertEquals(8, export.watermark);
+    }
+
+    /**
+     * Export with the same semantics as the one of DatabaseHelper. Each chunk is written as the list of
+     * its association ids.
+     */
+    static class InMemoryExport implements ExportUploader.ExportSource {
+
+        final TreeSet<Long> ids = new TreeSet<>();
+        long watermark;
+
+        void add(long firstId, long lastId) {
+            for (long id = firstId; id <= lastId; id++)
+                ids.add(id);
+        }
+
+        @Override
+        public long getExportWatermark() {
+            return watermark;
+        }
+
+        @Override
+        public long getLastAssociationId() {
+            return ids.isEmpty() ? 0 : ids.last();
+        }
+
+        @Override
+        public long countExportedAssociations(long fromId, long toId) {
+            return ids.subSet(fromId, false, toId, true).size();
+        }
+
+        @Override
+        public long getExportChunkEnd(long fromId, long toId, int chunkSize) {
+            long chunkEnd = toId;
+            int count = 0;
+            for (long id : ids.subSet(fromId, false, toId, true)) {
+                chunkEnd = id;
+                if (++count == chunkSize)
+                    break;
+            }
+            return chunkEnd;
+        }
+
+        @Override
+        public void writeChunk(Writer out, long fromId, long toId) throws IOException {
+            StringBuilder chunk = new StringBuilder();
+            for (long id : ids.subSet(fromId, false, toId, true)) {
+                if (chunk.length() > 0)
+                    chunk.append(',');
+                chunk.append(id);
+            }
+            out.write(chunk.toString());
+        }
+
+        @Override
+        public void advanceExportWatermark(long toId) {
+            watermark = toId;
+        }
+    }
+
+    static class RecordingListener implements ExportUploader.Listener {
+
+        int startedChunks;
+        final List<Integer> responseCodes = new ArrayList<>();
+        final List<IOException> failures = new ArrayList<>();
+
+        @Override
+        public void onChunkStarted(int chunk, int totalChunks) {
+            startedChunks++;
+        }
+
+        @Override
+        public void onResponse(long fromId, long toId, int responseCode, long wireBytes, long elapsed) {
+            responseCodes.add(responseCode);
+        }
+
+        @Override
+        public void onRequestFailed(int attempt, IOException e) {
+            failures.add(e);
+        }
+    }
+
+    /**
+     * HTTP server on a free local port, which records the uncompressed body of every request and answers
+     * 200 unless another status code has been queued.
+     */
+    static class StandInServer {
+
+        private final HttpServer server;
+        private final Queue<Integer> responseCodes = new LinkedList<>();
+        private final List<String> bodies = new ArrayList<>();
+        private final List<String> contentEncodings = new ArrayList<>();
+
+        StandInServer() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/", new HttpHandler() {
+                @Override
+                public void handle(HttpExchange exchange) throws IOException {
+                    String contentEncoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+                    String body = new String(readFully(new GZIPInputStream(exchange.getRequestBody())), "UTF-8");
+                    //The gzip stream stops at its trailer, before the last chunk of the request. Unless it is
+                    //read, the server closes the connection, and the next request on it fails.
+                    readFully(exchange.getRequestBody());
+
+                    Integer responseCode;
+                    synchronized (StandInServer.this) {
+                        contentEncodings.add(contentEncoding);
+                        bodies.add(body);
+                        responseCode = responseCodes.poll();
+                    }
+                    exchange.sendResponseHeaders(responseCode != null ? responseCode : 200, -1);
+                    exchange.close();
+                }
+            });
+            server.start();
+        }
+
+        String getUrl() {
+            return "http://127.0.0.1:" + server.getAddress().getPort() + "/api/db/storedata";
+        }
+
+        /**
+         * Queues the status codes of the next responses.
+         */
+        synchronized void respond(Integer... codes) {
+            responseCodes.addAll(Arrays.asList(codes));
+        }
+
+        synchronized List<String> getBodies() {
+            return new ArrayList<>(bodies);
+        }
+
+        synchronized List<String> getContentEncodings() {
+            return new ArrayList<>(contentEncodings);
+        }
+
+        void stop() {
+            server.stop(0);
+        }
+
+        private static byte[] readFully(InputStream in) throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1)
+                out.write(buffer, 0, read);
+            return out.toByteArray();
+        }
+    }
+}
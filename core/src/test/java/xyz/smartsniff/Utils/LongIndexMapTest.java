@@ -0,0 +1,102 @@
+package xyz.smartsniff.Utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Date: 18/10/2026
+ */
+public class LongIndexMapTest {
+
+    //new LongIndexMap(4) has 8 slots
+    private static final int SLOTS = 8;
+
+    @Test
+    public void missingKeysHaveNoValue() {
+        LongIndexMap map = new LongIndexMap(4);
+
+        assertEquals(LongIndexMap.NO_VALUE, map.get(0));
+        assertEquals(LongIndexMap.NO_VALUE, map.get(12345));
+    }
+
+    @Test
+    public void putReplacesTheValue() {
+        LongIndexMap map = new LongIndexMap(4);
+
+        map.put(0, 1);
+        map.put(0, 2);
+
+        assertEquals(1, map.size());
+        assertEquals(2, map.get(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeKeysAreRejected() {
+        new LongIndexMap(4).put(-1, 0);
+    }
+
+    @Test
+    public void collidingKeysProbeAcrossTheEndOfTheTable() {
+        //Three keys hashed to the last slot: the second and third wrap around to slots 0 and 1
+        List<Long> lastSlot = keysInSlot(SLOTS - 1, 4);
+        //A key of slot 0 must then probe past the wrapped keys
+        long firstSlot = keysInSlot(0, 1).get(0);
+        LongIndexMap map = new LongIndexMap(4);
+
+        for (int i = 0; i < 3; i++)
+            map.put(lastSlot.get(i), i);
+        map.put(firstSlot, 3);
+
+        assertEquals(4, map.size());
+        for (int i = 0; i < 3; i++)
+            assertEquals(i, map.get(lastSlot.get(i)));
+        assertEquals(3, map.get(firstSlot));
+        //A missing key of the same slot walks the whole chain before giving up
+        assertEquals(LongIndexMap.NO_VALUE, map.get(lastSlot.get(3)));
+    }
+
+    @Test
+    public void growingKeepsEveryKey() {
+        LongIndexMap map = new LongIndexMap(4);
+
+        for (long key = 0; key < 10000; key++)
+            map.put(key * 31, key);
+
+        assertEquals(10000, map.size());
+        for (long key = 0; key < 10000; key++)
+            assertEquals(key, map.get(key * 31));
+        assertEquals(LongIndexMap.NO_VALUE, map.get(10000 * 31));
+    }
+
+    @Test
+    public void clearEmptiesEverySlot() {
+        LongIndexMap map = new LongIndexMap(4);
+        List<Long> colliding = keysInSlot(SLOTS - 1, 3);
+        for (long key : colliding)
+            map.put(key, key);
+
+        map.clear();
+
+        assertEquals(0, map.size());
+        for (long key : colliding)
+            assertEquals(LongIndexMap.NO_VALUE, map.get(key));
+        map.put(colliding.get(2), 7);
+        assertEquals(7, map.get(colliding.get(2)));
+    }
+
+    /**
+     * @return The first keys whose home slot in a table of SLOTS slots is the given one.
+     */
+    private static List<Long> keysInSlot(int slot, int count) {
+        List<Long> keys = new ArrayList<>();
+        for (long key = 0; keys.size() < count; key++) {
+            if (((int) BloomFilter.mix(key) & (SLOTS - 1)) == slot)
+                keys.add(key);
+        }
+        return keys;
+    }
+}
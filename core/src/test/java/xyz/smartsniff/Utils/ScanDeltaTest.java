@@ -0,0 +1,172 @@
+package xyz.smartsniff.Utils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import xyz.smartsniff.Model.WifiObservation;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Date: 18/10/2026
+ */
+public class ScanDeltaTest {
+
+    private static final long NOW = 100 * 1000 * 1000L;
+
+    private ScanDelta scanDelta;
+
+    @Before
+    public void setUp() {
+        scanDelta = new ScanDelta();
+    }
+
+    @Test
+    public void firstScanAppearsCompletely() {
+        List<WifiObservation> scan = Arrays.asList(result("00:11:22:33:44:55", -60), result("00:11:22:33:44:56", -70));
+
+        ScanDelta.Delta delta = scanDelta.compare(scan, NOW);
+
+        assertEquals(2, delta.getFresh().size());
+        assertEquals(2, delta.getAppeared().size());
+        assertEquals(0, delta.getChanged().size());
+        assertEquals(0, delta.getDisappearedCount());
+    }
+
+    @Test
+    public void repeatedScanHasNoDifferences() {
+        List<WifiObservation> scan = Arrays.asList(result("00:11:22:33:44:55", -60), result("00:11:22:33:44:56", -70));
+        scanDelta.compare(scan, NOW);
+
+        ScanDelta.Delta delta = scanDelta.compare(scan, NOW);
+
+        assertEquals(2, delta.getFresh().size());
+        assertEquals(0, delta.getAppeared().size());
+        assertEquals(0, delta.getChanged().size());
+        assertEquals(0, delta.getDisappearedCount());
+    }
+
+    @Test
+    public void signalChangesUnderTheThresholdAreIgnored() {
+        scanDelta.compare(Arrays.asList(result("00:11:22:33:44:55", -60), result("00:11:22:33:44:56", -70)), NOW);
+
+        WifiObservation moved = result("00:11:22:33:44:56", -75);
+        ScanDelta.Delta delta = scanDelta.compare(Arrays.asList(result("00:11:22:33:44:55", -64), moved), NOW);
+
+        assertEquals(1, delta.getChanged().size());
+        assertSame(moved, delta.getChanged().get(0));
+    }
+
+    @Test
+    public void missingResultsDisappear() {
+        //The highest MAC address makes the sort key negative
+        scanDelta.compare(Arrays.asList(result("FF:FF:FF:FF:FF:FF", -60), result("00:11:22:33:44:55", -60)), NOW);
+
+        ScanDelta.Delta delta = scanDelta.compare(Collections.singletonList(result("00:11:22:33:44:55", -60)), NOW);
+
+        assertEquals(1, delta.getDisappearedCount());
+        assertEquals(0xFFFFFFFFFFFFL, delta.getDisappeared()[0]);
+        assertEquals(0, delta.getAppeared().size());
+    }
+
+    @Test
+    public void staleResultsAreSkipped() {
+        WifiObservation stale = result("00:11:22:33:44:55", -60, NOW - 31 * 1000 * 1000L);
+        WifiObservation recent = result("00:11:22:33:44:56", -60, NOW - 29 * 1000 * 1000L);
+        WifiObservation noTimestamp = result("00:11:22:33:44:57", -60, 0);
+
+        ScanDelta.Delta delta = scanDelta.compare(Arrays.asList(stale, recent, noTimestamp), NOW);
+
+        assertEquals(1, delta.getStaleCount());
+        assertEquals(Arrays.asList(recent, noTimestamp), delta.getFresh());
+        assertEquals(2, delta.getAppeared().size());
+    }
+
+    @Test
+    public void staleResultsDisappear() {
+        scanDelta.compare(Collections.singletonList(result("00:11:22:33:44:55", -60, NOW)), NOW);
+
+        ScanDelta.Delta delta = scanDelta.compare(
+                Collections.singletonList(result("00:11:22:33:44:55", -60, NOW)), NOW + 31 * 1000 * 1000L);
+
+        assertEquals(1, delta.getStaleCount());
+        assertArrayEquals(new long[]{0x001122334455L},
+                Arrays.copyOf(delta.getDisappeared(), delta.getDisappearedCount()));
+    }
+
+    @Test
+    public void repeatedBssidsAppearOnce() {
+        //Some drivers report the same BSSID twice in a scan; MAC addresses are case insensitive
+        List<WifiObservation> scan = Arrays.asList(result("aa:bb:cc:dd:ee:ff", -60), result("AA:BB:CC:DD:EE:FF", -61));
+
+        ScanDelta.Delta delta = scanDelta.compare(scan, NOW);
+
+        assertEquals(2, delta.getFresh().size());
+        assertEquals(1, delta.getAppeared().size());
+
+        delta = scanDelta.compare(Collections.<WifiObservation>emptyList(), NOW);
+        assertEquals(1, delta.getDisappearedCount());
+    }
+
+    @Test
+    public void invalidBssidsAlwaysAppear() {
+        List<WifiObservation> scan = Collections.singletonList(result("not a mac", -60));
+        scanDelta.compare(scan, NOW);
+
+        ScanDelta.Delta delta = scanDelta.compare(scan, NOW);
+
+        assertEquals(1, delta.getAppeared().size());
+        assertEquals(0, delta.getDisappearedCount());
+    }
+
+    @Test
+    public void resetForgetsThePreviousScan() {
+        List<WifiObservation> scan = Collections.singletonList(result("00:11:22:33:44:55", -60));
+        scanDelta.compare(scan, NOW);
+
+        scanDelta.reset();
+        ScanDelta.Delta delta = scanDelta.compare(scan, NOW);
+
+        assertEquals(1, delta.getAppeared().size());
+        assertEquals(0, delta.getDisappearedCount());
+    }
+
+    @Test
+    public void scansLargerThanTheInitialArraysAreCompared() {
+        List<WifiObservation> first = new ArrayList<>();
+        List<WifiObservation> second = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            first.add(result(mac(i), -60));
+            //Shifted by 100: the first 100 disappear and 100 new ones appear
+            second.add(result(mac(i + 100), -60));
+        }
+        scanDelta.compare(first, NOW);
+
+        ScanDelta.Delta delta = scanDelta.compare(second, NOW);
+
+        assertEquals(100, delta.getAppeared().size());
+        assertEquals(100, delta.getDisappearedCount());
+        for (int i = 0; i < 100; i++)
+            assertTrue(delta.getDisappeared()[i] < 100);
+    }
+
+    private static String mac(int i) {
+        return String.format("00:00:00:00:%02X:%02X", i >>> 8, i & 0xFF);
+    }
+
+    private static WifiObservation result(String bssid, int level) {
+        return result(bssid, level, NOW);
+    }
+
+    private static WifiObservation result(String bssid, int level, long timestamp) {
+        return new WifiObservation("network", bssid, "[WPA2-PSK-CCMP][ESS]", 0, 2412, level, timestamp);
+    }
+}
@@ -0,0 +1,172 @@
+package xyz.smartsniff.Utils;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import xyz.smartsniff.Model.WifiObservation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Date: 18/10/2026
+ */
+public class ScanEventRecorderTest {
+
+    private static final long START_TIME = 1476748800000L;
+    private static final long BOOT_TIME = 3600L * 1000 * 1000;
+
+    @Test
+    public void everyEventTypeIsReadBack() throws IOException {
+        List<WifiObservation> results = Arrays.asList(
+                new WifiObservation("eduroam", "00:11:22:33:44:55", "[WPA2-EAP-CCMP][ESS]", 1, 5180, -48,
+                        BOOT_TIME - 1500000),
+                //Results without a timestamp and with an unknown SSID
+                new WifiObservation(null, "00:11:22:33:44:56", "[ESS]", 0, 2412, -91, 0));
+        List<BleScanner.Sighting> sightings = Arrays.asList(new BleScanner.Sighting("C0:11:22:33:44:55", "Band"),
+                new BleScanner.Sighting("C0:11:22:33:44:56", null));
+
+        ScanEventReader reader = read(record(
+                ScanEvent.location(BOOT_TIME, 40.416775, -3.703790, Float.NaN),
+                ScanEvent.wifiScan(BOOT_TIME + 2000000, results),
+                ScanEvent.bluetoothDevice(BOOT_TIME + 2500000, "00:11:22:33:44:57", "Headphones", 0x0400),
+                ScanEvent.bleBatch(BOOT_TIME + 10000000, sightings)));
+        assertEquals(START_TIME, reader.getStartTime());
+
+        ScanEvent location = reader.next();
+        assertEquals(ScanEvent.TYPE_LOCATION, location.getType());
+        assertEquals(BOOT_TIME, location.getTimestamp());
+        assertEquals(40.416775, location.getLatitude(), 0);
+        assertEquals(-3.703790, location.getLongitude(), 0);
+        assertTrue(Float.isNaN(location.getSpeed()));
+
+        ScanEvent wifiScan = reader.next();
+        assertEquals(ScanEvent.TYPE_WIFI_SCAN, wifiScan.getType());
+        assertEquals(BOOT_TIME + 2000000, wifiScan.getTimestamp());
+        assertEquals(2, wifiScan.getWifiResults().size());
+        assertResult(results.get(0), wifiScan.getWifiResults().get(0));
+        assertResult(results.get(1), wifiScan.getWifiResults().get(1));
+
+        ScanEvent bluetoothDevice = reader.next();
+        assertEquals(ScanEvent.TYPE_BLUETOOTH_DEVICE, bluetoothDevice.getType());
+        assertEquals(BOOT_TIME + 2500000, bluetoothDevice.getTimestamp());
+        assertEquals("00:11:22:33:44:57", bluetoothDevice.getAddress());
+        assertEquals("Headphones", bluetoothDevice.getName());
+        assertEquals(0x0400, bluetoothDevice.getMajorDeviceClass());
+
+        ScanEvent bleBatch = reader.next();
+        assertEquals(ScanEvent.TYPE_BLE_BATCH, bleBatch.getType());
+        assertEquals(BOOT_TIME + 10000000, bleBatch.getTimestamp());
+        assertEquals(2, bleBatch.getSightings().size());
+        assertEquals("C0:11:22:33:44:55", bleBatch.getSightings().get(0).getAddress());
+        assertEquals("Band", bleBatch.getSightings().get(0).getName());
+        assertEquals("C0:11:22:33:44:56", bleBatch.getSightings().get(1).getAddress());
+        assertNull(bleBatch.getSightings().get(1).getName());
+
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void negativeValuesAreReadBack() throws IOException {
+        ScanEventReader reader = read(record(
+                ScanEvent.location(BOOT_TIME, -33.868820, -151.209296, 0f),
+                ScanEvent.bluetoothDevice(BOOT_TIME, "00:11:22:33:44:57", null, -1),
+                ScanEvent.wifiScan(BOOT_TIME, Arrays.asList(new WifiObservation("a", "00:11:22:33:44:55", "[ESS]",
+                        0, 2412, -127, BOOT_TIME)))));
+
+        ScanEvent location = reader.next();
+        assertEquals(-33.868820, location.getLatitude(), 0);
+        assertEquals(-151.209296, location.getLongitude(), 0);
+        assertEquals(-1, reader.next().getMajorDeviceClass());
+        WifiObservation result = reader.next().getWifiResults().get(0);
+        assertEquals(-127, result.getLevel());
+        assertEquals(BOOT_TIME, result.getTimestamp());
+    }
+
+    @Test
+    public void repeatedStringsAreWrittenOnce() throws IOException {
+        String capabilities = "[WPA-PSK-TKIP+CCMP][WPA2-PSK-TKIP+CCMP][WPS][ESS]";
+        ScanEvent scan = ScanEvent.wifiScan(BOOT_TIME, Arrays.asList(
+                new WifiObservation("MOVISTAR_1F2E", "00:11:22:33:44:55", capabilities, 0, 2412, -60, BOOT_TIME)));
+
+        int onceSize = record(scan).length;
+        byte[] log = record(scan, scan, scan);
+
+        //Each repetition only takes the type, the time, the references and the numbers
+        assertTrue(log.length + " bytes", log.length - onceSize < 2 * 16);
+        ScanEventReader reader = read(log);
+        String first = reader.next().getWifiResults().get(0).getCapabilities();
+        assertEquals(capabilities, first);
+        assertSame(first, reader.next().getWifiResults().get(0).getCapabilities());
+    }
+
+    @Test
+    public void truncatedLogEndsAtItsLastCompleteEvent() throws IOException {
+        byte[] log = record(
+                ScanEvent.location(BOOT_TIME, 40.4, -3.7, 1.5f),
+                ScanEvent.location(BOOT_TIME + 1000000, 40.5, -3.8, 1.5f));
+
+        ScanEventReader reader = read(Arrays.copyOf(log, log.length - 3));
+
+        assertEquals(40.4, reader.next().getLatitude(), 0);
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void otherFilesAreRejected() {
+        byte[] log = "PK\u0003\u0004 not a log".getBytes();
+
+        try {
+            read(log);
+            fail();
+        } catch (IOException e) {
+            assertEquals("Not a scan event log", e.getMessage());
+        }
+    }
+
+    @Test
+    public void unknownEventTypesAreRejected() throws IOException {
+        byte[] log = record(ScanEvent.location(BOOT_TIME, 40.4, -3.7, 0f));
+        //The type of the only event
+        log[4 + 1 + 8] = 9;
+
+        try {
+            read(log).next();
+            fail();
+        } catch (IOException e) {
+            assertEquals("Unknown event type: 9", e.getMessage());
+        }
+    }
+
+    private static byte[] record(ScanEvent... events) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ScanEventRecorder recorder = new ScanEventRecorder(out, START_TIME);
+        for (ScanEvent event : events)
+            recorder.record(event);
+        assertEquals(events.length, recorder.getEventCount());
+        recorder.close();
+        return out.toByteArray();
+    }
+
+    private static ScanEventReader read(byte[] log) throws IOException {
+        return new ScanEventReader(new ByteArrayInputStream(log));
+    }
+
+    private static void assertResult(WifiObservation expected, WifiObservation actual) {
+        assertEquals(expected.getSsid(), actual.getSsid());
+        assertEquals(expected.getBssid(), actual.getBssid());
+        assertEquals(expected.getCapabilities(), actual.getCapabilities());
+        assertEquals(expected.getChannelWidth(), actual.getChannelWidth());
+        assertEquals(expected.getFrequency(), actual.getFrequency());
+        assertEquals(expected.getLevel(), actual.getLevel());
+        assertEquals(expected.getTimestamp(), actual.getTimestamp());
+    }
+}
@@ -0,0 +1,220 @@
+package xyz.smartsniff.Utils;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import xyz.smartsniff.Model.WifiObservation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Replays a recorded trace of a session through the scan interval policies: 10 minutes parked among the
+ * same access points, then 10 minutes driving through a street which keeps revealing new ones. The trace
+ * is written with ScanEventRecorder, as ScanService records sessions, and read back with ScanEventReader.
+ *
+ * The simulated scheduler asks the policy for the interval after every scan. A scan requested at a given
+ * time finds the access points of the last scan recorded before it, and is reported to the policy with
+ * the number of access points it found for the first time.
+ *
+ * Date: 18/10/2026
+ */
+public class ScanIntervalPolicyReplayTest {
+
+    //Defaults of the app, see Utils
+    private static final long FIXED_INTERVAL = 3000;
+    private static final long MIN_INTERVAL = 2000;
+    private static final long MAX_INTERVAL = 30000;
+
+    private static final long PHASE_DURATION = 10 * 60 * 1000;
+    //Microseconds since boot at the start of the recording
+    private static final long BOOT_OFFSET = 3600L * 1000 * 1000;
+    private static final long PARKED_START = BOOT_OFFSET / 1000;
+    private static final long DRIVING_START = PARKED_START + PHASE_DURATION;
+    private static final long TRACE_END = DRIVING_START + PHASE_DURATION;
+
+    private static byte[] trace;
+
+    @BeforeClass
+    public static void recordTrace() throws IOException {
+        Random random = new Random(0x5EED);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ScanEventRecorder recorder = new ScanEventRecorder(out, 1476748800000L);
+
+        //A location fix every second and a scan every 2 seconds
+        double latitude = 40.4, longitude = -3.7;
+        int firstAccessPoint = 0;
+        for (long time = PARKED_START; time < TRACE_END; time += 1000) {
+            boolean driving = time >= DRIVING_START;
+            long timestamp = time * 1000;
+
+            if (driving) {
+                //14 m/s to the north
+                latitude += 14 / 111000.0;
+                recorder.record(ScanEvent.location(timestamp, latitude, longitude, 14f));
+            } else {
+                //The GPS jitters around the parking spot
+                recorder.record(ScanEvent.location(timestamp, latitude + random.nextGaussian() * 0.00002,
+                        longitude + random.nextGaussian() * 0.00002, 0f));
+            }
+
+            if ((time - PARKED_START) % 2000 == 0) {
+                //30 access points in range, 8 of which are replaced every scan while driving
+                if (driving)
+                    firstAccessPoint += 8;
+                List<WifiObservation> results = new ArrayList<>();
+                for (int i = firstAccessPoint; i < firstAccessPoint + 30; i++)
+                    results.add(new WifiObservation("AP" + i, mac(i), "[WPA2-PSK-CCMP][ESS]", 0, 2412,
+                            -50 - random.nextInt(40), timestamp));
+                recorder.record(ScanEvent.wifiScan(timestamp, results));
+            }
+        }
+
+        recorder.close();
+        trace = out.toByteArray();
+    }
+
+    @Test
+    public void adaptivePolicyScansLessWhileParked() throws IOException {
+        Simulation fixed = simulate(new FixedScanIntervalPolicy(FIXED_INTERVAL));
+        Simulation adaptive = simulate(new AdaptiveScanIntervalPolicy(MIN_INTERVAL, MAX_INTERVAL, null));
+
+        int fixedScans = fixed.countScans(PARKED_START, DRIVING_START);
+        int adaptiveScans = adaptive.countScans(PARKED_START, DRIVING_START);
+        //The first scan is requested after the first interval
+        assertEquals(PHASE_DURATION / FIXED_INTERVAL - 1, fixedScans);
+        assertTrue(adaptiveScans + " scans parked, " + fixedScans + " with a fixed interval",
+                adaptiveScans * 5 < fixedScans);
+        //Both find the access points around the parking spot
+        assertEquals(fixed.countFound(PARKED_START, DRIVING_START), adaptive.countFound(PARKED_START, DRIVING_START));
+    }
+
+    @Test
+    public void adaptivePolicyScansFasterWhileDriving() throws IOException {
+        Simulation fixed = simulate(new FixedScanIntervalPolicy(FIXED_INTERVAL));
+        Simulation adaptive = simulate(new AdaptiveScanIntervalPolicy(MIN_INTERVAL, MAX_INTERVAL, null));
+
+        //Once the first fix of the drive has arrived, every scan is made at the shortest interval
+        assertEquals(MIN_INTERVAL, adaptive.maxInterval(DRIVING_START + MAX_INTERVAL, TRACE_END));
+        assertTrue(adaptive.countScans(DRIVING_START, TRACE_END) > fixed.countScans(DRIVING_START, TRACE_END));
+        assertTrue(adaptive.countFound(DRIVING_START, TRACE_END) > fixed.countFound(DRIVING_START, TRACE_END));
+    }
+
+    @Test
+    public void adaptivePolicyStaysWithinThePlatformBudget() throws IOException {
+        ScanThrottleBudget budget = new ScanThrottleBudget(ScanThrottleBudget.PLATFORM_MAX_SCANS,
+                ScanThrottleBudget.PLATFORM_WINDOW_MS);
+        Simulation adaptive = simulate(new AdaptiveScanIntervalPolicy(MIN_INTERVAL, MAX_INTERVAL, budget));
+
+        List<Long> scanTimes = adaptive.scanTimes;
+        for (int i = ScanThrottleBudget.PLATFORM_MAX_SCANS; i < scanTimes.size(); i++)
+            assertTrue("5 scans within " + ScanThrottleBudget.PLATFORM_WINDOW_MS + " ms at " + scanTimes.get(i),
+                    scanTimes.get(i) - scanTimes.get(i - ScanThrottleBudget.PLATFORM_MAX_SCANS) >=
+                            ScanThrottleBudget.PLATFORM_WINDOW_MS);
+        //The budget is used up while driving: 4 scans every 2 minutes
+        assertTrue(adaptive.countScans(DRIVING_START, TRACE_END) >= 4 * PHASE_DURATION /
+                ScanThrottleBudget.PLATFORM_WINDOW_MS - 1);
+    }
+
+    private static Simulation simulate(ScanIntervalPolicy policy) throws IOException {
+        Simulation simulation = new Simulation(policy);
+        ScanEventReader reader = new ScanEventReader(new ByteArrayInputStream(trace));
+        ScanEvent event;
+        while ((event = reader.next()) != null)
+            simulation.onEvent(event);
+        reader.close();
+        return simulation;
+    }
+
+    private static String mac(int accessPoint) {
+        return String.format("02:00:00:%02X:%02X:%02X", (accessPoint >> 16) & 0xFF, (accessPoint >> 8) & 0xFF,
+                accessPoint & 0xFF);
+    }
+
+    /**
+     * Scheduler driven by the time of the recorded events.
+     */
+    private static class Simulation {
+
+        private final ScanIntervalPolicy policy;
+        final List<Long> scanTimes = new ArrayList<>();
+        //Access points found for the first time by each scan
+        private final List<Integer> foundCounts = new ArrayList<>();
+        private final Set<String> found = new HashSet<>();
+
+        private List<WifiObservation> inRange = Collections.emptyList();
+        private long nextScan = -1;
+
+        Simulation(ScanIntervalPolicy policy) {
+            this.policy = policy;
+        }
+
+        void onEvent(ScanEvent event) {
+            long now = event.getTimestamp() / 1000;
+            if (nextScan < 0)
+                nextScan = now + policy.nextInterval(now);
+            while (nextScan <= now)
+                scan();
+
+            if (event.getType() == ScanEvent.TYPE_LOCATION)
+                policy.onLocation(now, event.getLatitude(), event.getLongitude(), event.getSpeed());
+            else if (event.getType() == ScanEvent.TYPE_WIFI_SCAN)
+                inRange = event.getWifiResults();
+        }
+
+        private void scan() {
+            long now = nextScan;
+            policy.onScanRequested(now);
+            int newCount = 0;
+            for (WifiObservation result : inRange) {
+                if (found.add(result.getBssid()))
+                    newCount++;
+            }
+            policy.onScanResults(now, inRange.size(), newCount);
+
+            scanTimes.add(now);
+            foundCounts.add(newCount);
+            nextScan = now + policy.nextInterval(now);
+        }
+
+        int countScans(long from, long to) {
+            int count = 0;
+            for (long time : scanTimes) {
+                if (time >= from && time < to)
+                    count++;
+            }
+            return count;
+        }
+
+        int countFound(long from, long to) {
+            int count = 0;
+            for (int i = 0; i < scanTimes.size(); i++) {
+                if (scanTimes.get(i) >= from && scanTimes.get(i) < to)
+                    count += foundCounts.get(i);
+            }
+            return count;
+        }
+
+        /**
+         * @return The longest interval between two scans made in [from, to).
+         */
+        long maxInterval(long from, long to) {
+            long maxInterval = 0;
+            for (int i = 1; i < scanTimes.size(); i++) {
+                if (scanTimes.get(i - 1) >= from && scanTimes.get(i) < to)
+                    maxInterval = Math.max(maxInterval, scanTimes.get(i) - scanTimes.get(i - 1));
+            }
+            return maxInterval;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package xyz.smartsniff.Utils;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import xyz.smartsniff.Model.WifiObservation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Date: 18/10/2026
+ */
+public class ScanReplayerTest {
+
+    private static final long BOOT_TIME = 3600L * 1000 * 1000;
+
+    @Test
+    public void everyEventIsDeliveredInOrder() throws IOException, InterruptedException {
+        RecordingTarget target = new RecordingTarget();
+
+        int eventCount = replay(0, target,
+                ScanEvent.location(BOOT_TIME, 40.4, -3.7, 1.5f),
+                ScanEvent.wifiScan(BOOT_TIME + 1000, Collections.singletonList(result("00:11:22:33:44:55"))),
+                ScanEvent.bluetoothDevice(BOOT_TIME + 2000, "00:11:22:33:44:56", "Headphones", 0x0400),
+                ScanEvent.bleBatch(BOOT_TIME + 3000, Collections.singletonList(
+                        new BleScanner.Sighting("C0:11:22:33:44:55", "Band"))));
+
+        assertEquals(4, eventCount);
+        assertEquals(Arrays.asList(
+                "location 40.4 -3.7 1.5",
+                "wifi 1 at 40.4 -3.7 1.5 received " + (BOOT_TIME + 1000),
+                "bluetooth 00:11:22:33:44:56 Headphones 1024 at 40.4 -3.7",
+                "ble 1 at 40.4 -3.7"), target.calls);
+    }
+
+    @Test
+    public void scansCarryTheLastLocationBeforeThem() throws IOException, InterruptedException {
+        RecordingTarget target = new RecordingTarget();
+        List<WifiObservation> results = Collections.singletonList(result("00:11:22:33:44:55"));
+
+        replay(0, target,
+                ScanEvent.wifiScan(BOOT_TIME, results),
+                ScanEvent.location(BOOT_TIME + 1000, 40.4, -3.7, 1.5f),
+                ScanEvent.location(BOOT_TIME + 2000, 40.5, -3.8, 2.5f),
+                ScanEvent.wifiScan(BOOT_TIME + 3000, results),
+                ScanEvent.bluetoothDevice(BOOT_TIME + 4000, "00:11:22:33:44:56", null, -1));
+
+        //No location has been recorded before the first scan
+        assertEquals("wifi 1 at 0.0 0.0 NaN received " + BOOT_TIME, target.calls.get(0));
+        assertEquals("wifi 1 at 40.5 -3.8 2.5 received " + (BOOT_TIME + 3000), target.calls.get(3));
+        assertEquals("bluetooth 00:11:22:33:44:56 null -1 at 40.5 -3.8", target.calls.get(4));
+    }
+
+    @Test
+    public void paceZeroReplaysWithoutWaiting() throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        //An hour of recording
+        replay(0, new RecordingTarget(),
+                ScanEvent.location(BOOT_TIME, 40.4, -3.7, 0f),
+                ScanEvent.location(BOOT_TIME + 3600L * 1000 * 1000, 40.4, -3.7, 0f));
+        long elapsed = (System.nanoTime() - start) / 1000000;
+
+        assertTrue(elapsed + " ms", elapsed < 1000);
+    }
+
+    @Test
+    public void paceKeepsTheIntervalsOfTheRecording() throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        //400 ms of recording replayed twice as fast
+        replay(2, new RecordingTarget(),
+                ScanEvent.location(BOOT_TIME, 40.4, -3.7, 0f),
+                ScanEvent.location(BOOT_TIME + 200 * 1000, 40.4, -3.7, 0f),
+                ScanEvent.location(BOOT_TIME + 400 * 1000, 40.4, -3.7, 0f));
+        long elapsed = (System.nanoTime() - start) / 1000000;
+
+        assertTrue(elapsed + " ms", elapsed >= 200);
+        assertTrue(elapsed + " ms", elapsed < 2000);
+    }
+
+    private static int replay(double pace, ScanReplayer.Target target, ScanEvent... events)
+            throws IOException, InterruptedException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ScanEventRecorder recorder = new ScanEventRecorder(out, 1476748800000L);
+        for (ScanEvent event : events)
+            recorder.record(event);
+        recorder.close();
+
+        ScanEventReader reader = new ScanEventReader(new ByteArrayInputStream(out.toByteArray()));
+        try {
+            return new ScanReplayer(reader, pace).replay(target);
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static WifiObservation result(String bssid) {
+        return new WifiObservation("eduroam", bssid, "[WPA2-EAP-CCMP][ESS]", 0, 2412, -60, BOOT_TIME);
+    }
+
+    /**
+     * Target which describes every call it receives.
+     */
+    private static class RecordingTarget implements ScanReplayer.Target {
+
+        final List<String> calls = new ArrayList<>();
+
+        @Override
+        public void onLocationFix(double latitude, double longitude, float speed) {
+            calls.add("location " + latitude + " " + longitude + " " + speed);
+        }
+
+        @Override
+        public void onWifiScan(List<WifiObservation> results, double latitude, double longitude, float speed,
+                               long receivedAt) {
+            calls.add("wifi " + results.size() + " at " + latitude + " " + longitude + " " + speed + " received " +
+                    receivedAt);
+        }
+
+        @Override
+        public void onBluetoothDevice(String address, String name, int majorDeviceClass, double latitude,
+                                      double longitude) {
+            calls.add("bluetooth " + address + " " + name + " " + majorDeviceClass + " at " + latitude + " " +
+                    longitude);
+        }
+
+        @Override
+        public void onBleBatch(List<BleScanner.Sighting> sightings, double latitude, double longitude) {
+            calls.add("ble " + sightings.size() + " at " + latitude + " " + longitude);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package xyz.smartsniff.Utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Date: 18/10/2026
+ */
+public class ScanThrottleBudgetTest {
+
+    private static final long WINDOW = ScanThrottleBudget.PLATFORM_WINDOW_MS;
+
+    @Test
+    public void scansUnderTheLimitAreNotDelayed() {
+        ScanThrottleBudget budget = new ScanThrottleBudget(ScanThrottleBudget.PLATFORM_MAX_SCANS, WINDOW);
+
+        for (int i = 0; i < ScanThrottleBudget.PLATFORM_MAX_SCANS - 1; i++) {
+            budget.onScanRequested(i * 1000);
+            assertEquals(0, budget.delayUntilAvailable(i * 1000));
+        }
+    }
+
+    @Test
+    public void fullWindowDelaysUntilTheOldestScanExpires() {
+        ScanThrottleBudget budget = new ScanThrottleBudget(4, WINDOW);
+        for (int i = 0; i < 4; i++)
+            budget.onScanRequested(i * 10);
+
+        assertEquals(WINDOW - 30, budget.delayUntilAvailable(30));
+        assertEquals(1, budget.delayUntilAvailable(WINDOW - 1));
+        assertEquals(0, budget.delayUntilAvailable(WINDOW));
+        assertEquals(0, budget.delayUntilAvailable(WINDOW * 10));
+    }
+
+    @Test
+    public void windowSlidesAcrossTheEndOfTheRing() {
+        ScanThrottleBudget budget = new ScanThrottleBudget(4, WINDOW);
+        for (int i = 0; i < 4; i++)
+            budget.onScanRequested(i * 10);
+
+        //Overwrites the scan at 0, so the scan at 10 becomes the oldest
+        budget.onScanRequested(WINDOW);
+        assertEquals(10, budget.delayUntilAvailable(WINDOW));
+
+        //Three more scans wrap the ring around completely
+        budget.onScanRequested(WINDOW + 10);
+        budget.onScanRequested(WINDOW + 20);
+        budget.onScanRequested(WINDOW + 30);
+        assertEquals(WINDOW - 30, budget.delayUntilAvailable(WINDOW + 30));
+        assertEquals(0, budget.delayUntilAvailable(2 * WINDOW));
+    }
+}
@@ -0,0 +1,64 @@
+package xyz.smartsniff.Utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static xyz.smartsniff.Utils.SecurityFlags.CCMP;
+import static xyz.smartsniff.Utils.SecurityFlags.EAP;
+import static xyz.smartsniff.Utils.SecurityFlags.ENCRYPTED;
+import static xyz.smartsniff.Utils.SecurityFlags.ESS;
+import static xyz.smartsniff.Utils.SecurityFlags.FT;
+import static xyz.smartsniff.Utils.SecurityFlags.IBSS;
+import static xyz.smartsniff.Utils.SecurityFlags.OWE;
+import static xyz.smartsniff.Utils.SecurityFlags.PSK;
+import static xyz.smartsniff.Utils.SecurityFlags.SAE;
+import static xyz.smartsniff.Utils.SecurityFlags.TKIP;
+import static xyz.smartsniff.Utils.SecurityFlags.WEP;
+import static xyz.smartsniff.Utils.SecurityFlags.WPA;
+import static xyz.smartsniff.Utils.SecurityFlags.WPA2;
+import static xyz.smartsniff.Utils.SecurityFlags.WPS;
+
+/**
+ * Date: 18/10/2026
+ */
+public class SecurityFlagsTest {
+
+    @Test
+    public void commonCapabilitiesAreParsed() {
+        assertEquals(WPA2 | PSK | CCMP | ESS, SecurityFlags.parse("[WPA2-PSK-CCMP][ESS]"));
+        assertEquals(WPA | WPA2 | PSK | TKIP | CCMP | WPS | ESS,
+                SecurityFlags.parse("[WPA-PSK-TKIP+CCMP][WPA2-PSK-TKIP+CCMP][WPS][ESS]"));
+        assertEquals(WPA2 | EAP | FT | CCMP | ESS, SecurityFlags.parse("[WPA2-EAP+FT/EAP-CCMP][ESS]"));
+        assertEquals(WEP | ESS, SecurityFlags.parse("[WEP][ESS]"));
+        assertEquals(IBSS, SecurityFlags.parse("[IBSS]"));
+    }
+
+    @Test
+    public void rsnAndWpa3AreWpa2() {
+        assertEquals(WPA2 | SAE | CCMP | ESS, SecurityFlags.parse("[RSN-SAE-CCMP][ESS]"));
+        assertEquals(WPA2 | SAE | CCMP | ESS, SecurityFlags.parse("[WPA3-SAE-CCMP][ESS]"));
+    }
+
+    @Test
+    public void unknownTokensAreIgnored() {
+        assertEquals(0, SecurityFlags.parse(null));
+        assertEquals(0, SecurityFlags.parse(""));
+        assertEquals(0, SecurityFlags.parse("[]"));
+        assertEquals(0, SecurityFlags.parse("[WPAX]"));
+        assertEquals(WPA2 | SAE | CCMP | ESS, SecurityFlags.parse("[RSN-SAE-CCMP][ESS][MFPR][MFPC]"));
+    }
+
+    @Test
+    public void openNetworksNeedNoCredentials() {
+        assertTrue(SecurityFlags.isOpen(SecurityFlags.parse("[ESS]")));
+        assertFalse(SecurityFlags.isOpen(SecurityFlags.parse("[WEP][ESS]")));
+        assertFalse(SecurityFlags.isOpen(SecurityFlags.parse("[WPA2-PSK-CCMP][ESS]")));
+
+        //Enhanced open: no credentials, but encrypted
+        int owe = SecurityFlags.parse("[RSN-OWE-CCMP][ESS]");
+        assertTrue((owe & OWE) != 0);
+        assertTrue((owe & ENCRYPTED) != 0);
+    }
+}
@@ -0,0 +1,101 @@
+package xyz.smartsniff.Utils;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import xyz.smartsniff.Model.Device;
+import xyz.smartsniff.Model.DeviceType;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Date: 18/10/2026
+ */
+public class SessionDeviceRegistryTest {
+
+    @Test
+    public void devicesAreAddedOnce() {
+        SessionDeviceRegistry registry = new SessionDeviceRegistry(10);
+
+        assertTrue(registry.add(wifi("aa:bb:cc:dd:ee:ff")));
+        //Same MAC address, different case
+        assertFalse(registry.add(wifi("AA:BB:CC:DD:EE:FF")));
+
+        assertEquals(1, registry.size());
+        assertTrue(registry.contains(0xAABBCCDDEEFFL));
+    }
+
+    @Test
+    public void invalidAddressesAreRejected() {
+        SessionDeviceRegistry registry = new SessionDeviceRegistry(10);
+
+        assertFalse(registry.add(wifi("aa:bb:cc:dd:ee")));
+        assertFalse(registry.add(wifi(null)));
+
+        assertEquals(0, registry.size());
+        assertFalse(registry.contains(-1));
+    }
+
+    @Test
+    public void devicesOverTheCapAreRejected() {
+        SessionDeviceRegistry registry = new SessionDeviceRegistry(3);
+
+        for (int i = 0; i < 3; i++)
+            assertTrue(registry.add(wifi(mac(i))));
+        assertFalse(registry.add(wifi(mac(3))));
+        //Already known devices are still recognized
+        assertFalse(registry.add(wifi(mac(0))));
+
+        assertEquals(3, registry.size());
+        assertFalse(registry.contains(3));
+    }
+
+    @Test
+    public void growingKeepsTheDevicesInOrder() {
+        SessionDeviceRegistry registry = new SessionDeviceRegistry(10000);
+
+        for (int i = 0; i < 1000; i++)
+            registry.add(new Device("network" + i, mac(i), "[ESS]", Device.CHANNEL_WIDTH_40MHZ, 5180, -40 - i % 50,
+                    i % 2 == 0 ? DeviceType.WIFI : DeviceType.BLUETOOTH));
+
+        List<Device> devices = registry.toDevices();
+        assertEquals(1000, devices.size());
+        for (int i = 0; i < 1000; i++) {
+            Device device = devices.get(i);
+            assertEquals(mac(i), device.getBssid());
+            assertEquals("network" + i, device.getSsid());
+            assertEquals(i % 2 == 0 ? DeviceType.WIFI : DeviceType.BLUETOOTH, device.getType());
+            assertNull(device.getManufacturer());
+        }
+        Device first = devices.get(0);
+        assertEquals(Device.channelWidthLabel(Device.CHANNEL_WIDTH_40MHZ), first.getChannelWidth());
+        assertEquals(5180, first.getFrequency());
+        assertEquals(-40, first.getSignalIntensity(), 0);
+    }
+
+    @Test
+    public void clearForgetsEveryDevice() {
+        SessionDeviceRegistry registry = new SessionDeviceRegistry(2);
+        registry.add(wifi(mac(0)));
+        registry.add(wifi(mac(1)));
+
+        registry.clear();
+
+        assertEquals(0, registry.size());
+        assertFalse(registry.contains(0));
+        assertTrue(registry.add(wifi(mac(1))));
+        assertEquals(1, registry.toDevices().size());
+    }
+
+    private static String mac(int i) {
+        return String.format("00:00:00:00:%02X:%02X", i >>> 8, i & 0xFF);
+    }
+
+    private static Device wifi(String bssid) {
+        return new Device("network", bssid, "[ESS]", Device.CHANNEL_WIDTH_20MHZ, 2412, -60, DeviceType.WIFI);
+    }
+}
@@ -0,0 +1,41 @@
+package xyz.smartsniff.Utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Date: 18/10/2026
+ */
+public class StringPoolTest {
+
+    @Test
+    public void equalStringsShareTheFirstInstance() {
+        StringPool pool = new StringPool(8);
+        String first = new String("[WPA2-PSK-CCMP][ESS]");
+
+        assertSame(first, pool.intern(first));
+        assertSame(first, pool.intern(new String("[WPA2-PSK-CCMP][ESS]")));
+    }
+
+    @Test
+    public void nullIsNotPooled() {
+        assertNull(new StringPool(8).intern(null));
+    }
+
+    @Test
+    public void collidingStringsEvictEachOther() {
+        //A single slot, so every string collides
+        StringPool pool = new StringPool(0);
+        String first = new String("first");
+        String second = new String("second");
+
+        pool.intern(first);
+        assertSame(second, pool.intern(second));
+
+        String firstAgain = new String("first");
+        assertSame(firstAgain, pool.intern(firstAgain));
+        assertSame(firstAgain, pool.intern(first));
+    }
+}
@@ -0,0 +1,56 @@
+package xyz.smartsniff.Utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Date: 18/10/2026
+ */
+public class TokenBucketTest {
+
+    @Test
+    public void startsFull() {
+        TokenBucket bucket = new TokenBucket(2, 1, 0);
+
+        assertTrue(bucket.tryAcquire(0));
+        assertTrue(bucket.tryAcquire(0));
+        assertFalse(bucket.tryAcquire(0));
+        assertEquals(1000, bucket.millisUntilAvailable(0));
+    }
+
+    @Test
+    public void refillsOverTime() {
+        TokenBucket bucket = new TokenBucket(1, 1, 0);
+        bucket.tryAcquire(0);
+
+        assertFalse(bucket.tryAcquire(400));
+        long wait = bucket.millisUntilAvailable(400);
+        assertTrue("Wait: " + wait, wait >= 600 && wait <= 601);
+        assertTrue(bucket.tryAcquire(1000));
+    }
+
+    @Test
+    public void refillIsCappedAtTheCapacity() {
+        TokenBucket bucket = new TokenBucket(2, 1, 0);
+        bucket.tryAcquire(0);
+        bucket.tryAcquire(0);
+
+        assertTrue(bucket.tryAcquire(60000));
+        assertTrue(bucket.tryAcquire(60000));
+        assertFalse(bucket.tryAcquire(60000));
+    }
+
+    @Test
+    public void clockGoingBackwardsDoesNotRefill() {
+        TokenBucket bucket = new TokenBucket(1, 1, 10000);
+        bucket.tryAcquire(10000);
+
+        assertFalse(bucket.tryAcquire(0));
+        //The refill continues from the latest time seen
+        assertFalse(bucket.tryAcquire(10500));
+        assertTrue(bucket.tryAcquire(11000));
+    }
+}